@@ -22,11 +22,15 @@
 package ch.ge.ve.protopoc.arithmetic;
 
 import ch.ge.ve.protopoc.service.support.JacobiSymbol;
+import com.google.common.base.Preconditions;
 import com.squareup.jnagmp.Gmp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * This class provides simplified access to LibGMP if it is loaded, with fallback to vanilla Java BigInteger methods
@@ -57,6 +61,104 @@ public class BigIntegerArithmetic {
         }
     }
 
+    /**
+     * Computes <tt>base1^exponent1 * base2^exponent2 mod modulus</tt> for public values, as in the verification
+     * equations of the non-interactive proofs, with a simultaneous exponentiation.
+     * <p>The exponents must be non-negative: a power <tt>x^-c</tt> of an element of a subgroup of order <tt>q</tt> is
+     * computed as <tt>x^(q - c)</tt>, which shares the squarings of the other powers instead of requiring an
+     * inversion.</p>
+     * <p>Without LibGMP the powers are computed with a joint window (see {@link MultiExponentiation}). LibGMP computes
+     * each power faster than the shared multiplications can be performed in Java, hence the powers are then computed
+     * individually.</p>
+     *
+     * @param base1     the first base
+     * @param exponent1 the first exponent, non-negative
+     * @param base2     the second base
+     * @param exponent2 the second exponent, non-negative
+     * @param modulus   the (odd) modulus
+     * @return the product of both powers, reduced modulo <tt>modulus</tt>
+     */
+    public static BigInteger modExp2(BigInteger base1, BigInteger exponent1, BigInteger base2, BigInteger exponent2,
+                                     BigInteger modulus) {
+        return simultaneousModExp(new BigInteger[]{base1, base2}, new BigInteger[]{exponent1, exponent2}, modulus);
+    }
+
+    /**
+     * Computes <tt>base1^exponent1 * base2^exponent2 * base3^exponent3 mod modulus</tt> for public values, see
+     * {@link #modExp2(BigInteger, BigInteger, BigInteger, BigInteger, BigInteger)}.
+     *
+     * @param base1     the first base
+     * @param exponent1 the first exponent, non-negative
+     * @param base2     the second base
+     * @param exponent2 the second exponent, non-negative
+     * @param base3     the third base
+     * @param exponent3 the third exponent, non-negative
+     * @param modulus   the (odd) modulus
+     * @return the product of the three powers, reduced modulo <tt>modulus</tt>
+     */
+    public static BigInteger modExp3(BigInteger base1, BigInteger exponent1, BigInteger base2, BigInteger exponent2,
+                                     BigInteger base3, BigInteger exponent3, BigInteger modulus) {
+        return simultaneousModExp(new BigInteger[]{base1, base2, base3},
+                new BigInteger[]{exponent1, exponent2, exponent3}, modulus);
+    }
+
+    private static BigInteger simultaneousModExp(BigInteger[] bases, BigInteger[] exponents, BigInteger modulus) {
+        Preconditions.checkArgument(Arrays.stream(exponents).allMatch(e -> e.signum() >= 0),
+                "The exponents must be non-negative");
+        if (gmpLoaded || !modulus.testBit(0)) {
+            BigInteger product = BigInteger.ONE;
+            for (int i = 0; i < bases.length; i++) {
+                product = product.multiply(publicModExp(bases[i], exponents[i], modulus)).mod(modulus);
+            }
+            return product;
+        } else {
+            return new MultiExponentiation(modulus).computeSimultaneously(bases, exponents);
+        }
+    }
+
+    /**
+     * Computes the product of the powers <tt>bases[i]^exponents[i] mod modulus</tt>, for public, non-negative
+     * exponents that are short compared to the modulus, such as the tau-bit challenges of the shuffle proofs.
+     * <p>Without LibGMP the powers share their squarings (see {@link MultiExponentiation}), which is much faster than
+     * computing them one by one. LibGMP computes each short power faster than the shared multiplications can be
+     * performed in Java, hence the powers are then computed individually, in parallel.</p>
+     *
+     * @param bases     the bases
+     * @param exponents the non-negative exponents, one per base
+     * @param modulus   the (odd) modulus
+     * @return the product of the powers, reduced modulo <tt>modulus</tt>
+     */
+    public static BigInteger modMultiExp(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus) {
+        if (gmpLoaded || !modulus.testBit(0)) {
+            return IntStream.range(0, bases.size()).parallel()
+                    .mapToObj(i -> publicModExp(bases.get(i), exponents.get(i), modulus))
+                    .reduce(BigInteger.ONE, (a, b) -> a.multiply(b).mod(modulus));
+        } else {
+            return new MultiExponentiation(modulus).compute(bases, exponents);
+        }
+    }
+
+    /**
+     * Computes <tt>base^exponent mod modulus</tt> for public values, as in the verification equations of the
+     * non-interactive proofs: the exponentiation is not performed in constant time. The exponent may be negative.
+     *
+     * @param base     the base
+     * @param exponent the exponent
+     * @param modulus  the modulus
+     * @return the power, reduced modulo <tt>modulus</tt>
+     */
+    public static BigInteger publicModExp(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        if (gmpLoaded) {
+            if (exponent.signum() < 0) {
+                return Gmp.modPowInsecure(modInverse(base, modulus), exponent.negate(), modulus);
+            } else {
+                return Gmp.modPowInsecure(base, exponent, modulus);
+            }
+        } else {
+            return base.modPow(exponent, modulus);
+        }
+    }
+
     public static BigInteger modInverse(BigInteger value, BigInteger modulus) {
         if (gmpLoaded) {
             return Gmp.modInverse(value, modulus);
@@ -0,0 +1,236 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Product of many powers with short exponents, computed with the bucket method (Pippenger): the powers share their
+ * squarings and each window of the exponents costs a single multiplication per base.
+ * <p>The product of two or three powers with long exponents is computed with a joint window instead (Shamir's trick):
+ * the products of the small powers of the bases are tabulated, and each window of the exponents costs a single
+ * multiplication by an entry of the table.</p>
+ * <p>The multiplications are performed in the Montgomery domain, as a division by the modulus is far more expensive
+ * than the shifts and masks needed by a Montgomery reduction.</p>
+ */
+final class MultiExponentiation {
+    private static final int MIN_CHUNK_SIZE = 256;
+    private static final int MAX_WINDOW_SIZE = 16;
+    private static final int MAX_JOINT_TABLE_BITS = 8;
+
+    private final BigInteger modulus;
+    private final int k;
+    private final BigInteger mask;
+    private final BigInteger modulusNegInverse;
+    private final BigInteger one;
+
+    /**
+     * @param modulus an odd modulus
+     */
+    MultiExponentiation(BigInteger modulus) {
+        Preconditions.checkArgument(modulus.testBit(0), "The modulus must be odd");
+        this.modulus = modulus;
+        this.k = modulus.bitLength();
+        BigInteger r = BigInteger.ONE.shiftLeft(k);
+        this.mask = r.subtract(BigInteger.ONE);
+        this.modulusNegInverse = modulus.negate().modInverse(r);
+        this.one = r.mod(modulus);
+    }
+
+    /**
+     * Computes the product of the powers, splitting the bases in chunks that are processed in parallel.
+     *
+     * @param bases     the bases
+     * @param exponents the non-negative exponents, one per base
+     * @return the product of the <tt>bases[i]^exponents[i]</tt>, modulo the modulus
+     */
+    BigInteger compute(List<BigInteger> bases, List<BigInteger> exponents) {
+        Preconditions.checkArgument(bases.size() == exponents.size(),
+                "There should be as many exponents as there are bases");
+        Preconditions.checkArgument(exponents.stream().allMatch(e -> e.signum() >= 0),
+                "The exponents must be non-negative");
+        int n = bases.size();
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / MIN_CHUNK_SIZE));
+        BigInteger product = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> computeChunk(bases.subList(c * n / chunks, (c + 1) * n / chunks),
+                        exponents.subList(c * n / chunks, (c + 1) * n / chunks)))
+                .reduce(one, this::multiply);
+        return reduce(product);
+    }
+
+    private BigInteger computeChunk(List<BigInteger> bases, List<BigInteger> exponents) {
+        int n = bases.size();
+        int bits = exponents.stream().mapToInt(BigInteger::bitLength).max().orElse(0);
+        if (bits == 0) {
+            return one;
+        }
+        int w = getWindowSize(n, bits);
+        int windows = (bits + w - 1) / w;
+
+        BigInteger[] montgomeryBases = bases.stream()
+                .map(b -> b.shiftLeft(k).mod(modulus))
+                .toArray(BigInteger[]::new);
+        BigInteger result = one;
+        for (int window = windows - 1; window >= 0; window--) {
+            for (int i = 0; i < w; i++) {
+                result = multiply(result, result);
+            }
+            // buckets[d] holds the product of the bases whose current window of the exponent equals d
+            BigInteger[] buckets = new BigInteger[1 << w];
+            for (int i = 0; i < n; i++) {
+                int d = getDigit(exponents.get(i), window * w, w);
+                if (d != 0) {
+                    buckets[d] = buckets[d] == null ? montgomeryBases[i] : multiply(buckets[d], montgomeryBases[i]);
+                }
+            }
+            // prod_d buckets[d]^d, as a product of running products
+            BigInteger running = null;
+            BigInteger windowProduct = null;
+            for (int d = buckets.length - 1; d > 0; d--) {
+                if (buckets[d] != null) {
+                    running = running == null ? buckets[d] : multiply(running, buckets[d]);
+                }
+                if (running != null) {
+                    windowProduct = windowProduct == null ? running : multiply(windowProduct, running);
+                }
+            }
+            if (windowProduct != null) {
+                result = multiply(result, windowProduct);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the product of a few powers with a joint window: the powers share their squarings, and each window
+     * costs one multiplication by the tabulated product of the bases raised to their digits.
+     *
+     * @param bases     the bases, a handful at most as the table holds <tt>2^(w * bases.length)</tt> products
+     * @param exponents the non-negative exponents, one per base
+     * @return the product of the <tt>bases[i]^exponents[i]</tt>, modulo the modulus
+     */
+    BigInteger computeSimultaneously(BigInteger[] bases, BigInteger[] exponents) {
+        Preconditions.checkArgument(bases.length == exponents.length,
+                "There should be as many exponents as there are bases");
+        Preconditions.checkArgument(bases.length > 0 && bases.length <= MAX_JOINT_TABLE_BITS,
+                "The joint window supports between 1 and " + MAX_JOINT_TABLE_BITS + " bases");
+        Preconditions.checkArgument(Arrays.stream(exponents).allMatch(e -> e.signum() >= 0),
+                "The exponents must be non-negative");
+        int n = bases.length;
+        int bits = Arrays.stream(exponents).mapToInt(BigInteger::bitLength).max().orElse(0);
+        if (bits == 0) {
+            return BigInteger.ONE.mod(modulus);
+        }
+        int w = getJointWindowSize(n, bits);
+        int windows = (bits + w - 1) / w;
+
+        // table[d_0 + 2^w * d_1 + ...] holds prod_i bases[i]^d_i, built one base at a time
+        BigInteger[] table = new BigInteger[1 << (n * w)];
+        table[0] = one;
+        int size = 1;
+        for (int i = 0; i < n; i++) {
+            BigInteger montgomeryBase = bases[i].shiftLeft(k).mod(modulus);
+            for (int d = 1; d < 1 << w; d++) {
+                for (int entry = 0; entry < size; entry++) {
+                    table[d * size + entry] = multiply(table[(d - 1) * size + entry], montgomeryBase);
+                }
+            }
+            size <<= w;
+        }
+
+        BigInteger result = one;
+        for (int window = windows - 1; window >= 0; window--) {
+            for (int i = 0; i < w; i++) {
+                result = multiply(result, result);
+            }
+            int index = 0;
+            for (int i = n - 1; i >= 0; i--) {
+                index = (index << w) | getDigit(exponents[i], window * w, w);
+            }
+            if (index != 0) {
+                result = multiply(result, table[index]);
+            }
+        }
+        return reduce(result);
+    }
+
+    /**
+     * Picks the joint window size minimizing the number of multiplications: the table costs one multiplication per
+     * entry, and each window a multiplication by a non-trivial entry besides the squarings.
+     */
+    private static int getJointWindowSize(int n, int bits) {
+        int bestWindowSize = 1;
+        double bestCost = Double.MAX_VALUE;
+        for (int w = 1; n * w <= MAX_JOINT_TABLE_BITS; w++) {
+            double cost = (1 << (n * w)) + ((bits + w - 1) / w) * (1.0 - 1.0 / (1 << (n * w)));
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestWindowSize = w;
+            }
+        }
+        return bestWindowSize;
+    }
+
+    /**
+     * Picks the window size minimizing the number of multiplications: each window costs one multiplication per base
+     * and about two per bucket.
+     */
+    private static int getWindowSize(int n, int bits) {
+        int bestWindowSize = 1;
+        long bestCost = Long.MAX_VALUE;
+        for (int w = 1; w <= MAX_WINDOW_SIZE; w++) {
+            long cost = (long) ((bits + w - 1) / w) * (n + (2L << w) + w);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestWindowSize = w;
+            }
+        }
+        return bestWindowSize;
+    }
+
+    private static int getDigit(BigInteger exponent, int offset, int w) {
+        int digit = 0;
+        for (int i = w - 1; i >= 0; i--) {
+            digit = (digit << 1) | (exponent.testBit(offset + i) ? 1 : 0);
+        }
+        return digit;
+    }
+
+    private BigInteger multiply(BigInteger a, BigInteger b) {
+        return reduce(a.multiply(b));
+    }
+
+    /**
+     * Montgomery reduction: computes <tt>t * 2^-k mod modulus</tt>, for <tt>t &lt; modulus * 2^k</tt>
+     */
+    private BigInteger reduce(BigInteger t) {
+        BigInteger m = t.and(mask).multiply(modulusNegInverse).and(mask);
+        BigInteger u = t.add(m.multiply(modulus)).shiftRight(k);
+        return u.compareTo(modulus) >= 0 ? u.subtract(modulus) : u;
+    }
+}
@@ -0,0 +1,325 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Arithmetic in a prime field <tt>Z_p'</tt> whose elements fit in a few machine words.
+ * <p>An element is stored as a fixed number of 64-bit limbs (least significant first), in the Montgomery domain, at
+ * a given offset of a <tt>long[]</tt>: several elements may be packed in the same array, and the operations do not
+ * allocate any {@link BigInteger}. Values only need to be converted when entering or leaving the field.</p>
+ * <p>The operations accept aliased operands and results. The Montgomery multiplication needs a few words of scratch
+ * space: the loops should allocate it once with {@link #newScratch()} and pass it to each multiplication, the other
+ * callers fall back on a buffer kept per thread.</p>
+ */
+public final class PrimeFieldArithmetic {
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    private final BigInteger p_prime;
+    private final int limbs;
+    private final long[] modulus;
+    private final long modulusNegInverse;
+    private final long[] rSquared;
+    private final long[] canonicalOne;
+    private final ThreadLocal<long[]> scratch = ThreadLocal.withInitial(this::newScratch);
+
+    /**
+     * @param p_prime an odd prime
+     */
+    public PrimeFieldArithmetic(BigInteger p_prime) {
+        Preconditions.checkArgument(p_prime.testBit(0) && p_prime.compareTo(BigInteger.ONE) > 0,
+                "The modulus must be an odd prime");
+        this.p_prime = p_prime;
+        this.limbs = (p_prime.bitLength() + 63) / 64;
+        this.modulus = new long[limbs];
+        writeLimbs(p_prime, modulus, 0);
+        this.modulusNegInverse = -inverseModWord(modulus[0]);
+        BigInteger r = BigInteger.ONE.shiftLeft(64 * limbs);
+        this.rSquared = new long[limbs];
+        writeLimbs(r.multiply(r).mod(p_prime), rSquared, 0);
+        this.canonicalOne = new long[limbs];
+        canonicalOne[0] = 1L;
+    }
+
+    public BigInteger getP_prime() {
+        return p_prime;
+    }
+
+    /**
+     * @return the number of 64-bit limbs of an element
+     */
+    public int getLimbs() {
+        return limbs;
+    }
+
+    /**
+     * @param count the number of elements
+     * @return an array able to hold <tt>count</tt> elements, all equal to zero
+     */
+    public long[] newElements(int count) {
+        return new long[count * limbs];
+    }
+
+    /**
+     * @param value an integer, reduced modulo p' if needed
+     * @return a new array holding the corresponding field element
+     */
+    public long[] valueOf(BigInteger value) {
+        long[] r = newElements(1);
+        set(value, r, 0);
+        return r;
+    }
+
+    /**
+     * Stores the field element corresponding to an integer
+     *
+     * @param value an integer, reduced modulo p' if needed
+     * @param r     the array receiving the element
+     * @param rOff  the offset of the element
+     */
+    public void set(BigInteger value, long[] r, int rOff) {
+        if (value.signum() < 0 || value.compareTo(p_prime) >= 0) {
+            value = value.mod(p_prime);
+        }
+        writeLimbs(value, r, rOff);
+        multiply(r, rOff, rSquared, 0, r, rOff);
+    }
+
+    /**
+     * @param a    the array holding the element
+     * @param aOff the offset of the element
+     * @return the element as an integer in <tt>[0, p')</tt>
+     */
+    public BigInteger toBigInteger(long[] a, int aOff) {
+        long[] t = new long[limbs];
+        multiply(a, aOff, canonicalOne, 0, t, 0);
+        byte[] bytes = new byte[8 * limbs];
+        for (int i = 0; i < limbs; i++) {
+            long limb = t[i];
+            for (int b = 0; b < 8; b++) {
+                bytes[bytes.length - 1 - 8 * i - b] = (byte) (limb >>> (8 * b));
+            }
+        }
+        return new BigInteger(1, bytes);
+    }
+
+    public boolean isZero(long[] a, int aOff) {
+        long bits = 0L;
+        for (int i = 0; i < limbs; i++) {
+            bits |= a[aOff + i];
+        }
+        return bits == 0L;
+    }
+
+    public boolean equals(long[] a, int aOff, long[] b, int bOff) {
+        for (int i = 0; i < limbs; i++) {
+            if (a[aOff + i] != b[bOff + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * r = a + b mod p'
+     */
+    public void add(long[] a, int aOff, long[] b, int bOff, long[] r, int rOff) {
+        long carry = 0L;
+        for (int i = 0; i < limbs; i++) {
+            long a_i = a[aOff + i];
+            long s = a_i + b[bOff + i];
+            long carryOut = Long.compareUnsigned(s, a_i) < 0 ? 1L : 0L;
+            long s_carry = s + carry;
+            carryOut += Long.compareUnsigned(s_carry, s) < 0 ? 1L : 0L;
+            r[rOff + i] = s_carry;
+            carry = carryOut;
+        }
+        if (carry != 0L || compareToModulus(r, rOff) >= 0) {
+            subtractModulus(r, rOff);
+        }
+    }
+
+    /**
+     * r = a - b mod p'
+     */
+    public void subtract(long[] a, int aOff, long[] b, int bOff, long[] r, int rOff) {
+        long borrow = 0L;
+        for (int i = 0; i < limbs; i++) {
+            long a_i = a[aOff + i];
+            long b_i = b[bOff + i];
+            long d = a_i - b_i;
+            long borrowOut = Long.compareUnsigned(a_i, b_i) < 0 ? 1L : 0L;
+            long d_borrow = d - borrow;
+            borrowOut += Long.compareUnsigned(d, borrow) < 0 ? 1L : 0L;
+            r[rOff + i] = d_borrow;
+            borrow = borrowOut;
+        }
+        if (borrow != 0L) {
+            long carry = 0L;
+            for (int i = 0; i < limbs; i++) {
+                long r_i = r[rOff + i];
+                long s = r_i + modulus[i];
+                long carryOut = Long.compareUnsigned(s, r_i) < 0 ? 1L : 0L;
+                long s_carry = s + carry;
+                carryOut += Long.compareUnsigned(s_carry, s) < 0 ? 1L : 0L;
+                r[rOff + i] = s_carry;
+                carry = carryOut;
+            }
+        }
+    }
+
+    /**
+     * @return the scratch space of a multiplication, to be reused by a single thread
+     */
+    public long[] newScratch() {
+        return new long[limbs + 2];
+    }
+
+    /**
+     * r = a * b mod p', using a Montgomery multiplication (coarsely integrated operand scanning), with the scratch
+     * space of the current thread
+     */
+    public void multiply(long[] a, int aOff, long[] b, int bOff, long[] r, int rOff) {
+        multiply(a, aOff, b, bOff, r, rOff, scratch.get());
+    }
+
+    /**
+     * r = a * b mod p', using a Montgomery multiplication (coarsely integrated operand scanning)
+     *
+     * @param t the scratch space, as returned by {@link #newScratch()}, which may hold anything on entry
+     */
+    public void multiply(long[] a, int aOff, long[] b, int bOff, long[] r, int rOff, long[] t) {
+        int n = limbs;
+        Arrays.fill(t, 0, n + 2, 0L);
+        for (int i = 0; i < n; i++) {
+            long b_i = b[bOff + i];
+            long c = 0L;
+            for (int j = 0; j < n; j++) {
+                long a_j = a[aOff + j];
+                long lo = a_j * b_i;
+                long hi = multiplyHighUnsigned(a_j, b_i);
+                long s = lo + t[j];
+                if (Long.compareUnsigned(s, lo) < 0) hi++;
+                long s_c = s + c;
+                if (Long.compareUnsigned(s_c, s) < 0) hi++;
+                t[j] = s_c;
+                c = hi;
+            }
+            long s = t[n] + c;
+            t[n + 1] = Long.compareUnsigned(s, c) < 0 ? 1L : 0L;
+            t[n] = s;
+
+            long m = t[0] * modulusNegInverse;
+            long lo = m * modulus[0];
+            long hi = multiplyHighUnsigned(m, modulus[0]);
+            if (Long.compareUnsigned(lo + t[0], lo) < 0) hi++;
+            c = hi;
+            for (int j = 1; j < n; j++) {
+                lo = m * modulus[j];
+                hi = multiplyHighUnsigned(m, modulus[j]);
+                long s_j = lo + t[j];
+                if (Long.compareUnsigned(s_j, lo) < 0) hi++;
+                long s_c = s_j + c;
+                if (Long.compareUnsigned(s_c, s_j) < 0) hi++;
+                t[j - 1] = s_c;
+                c = hi;
+            }
+            s = t[n] + c;
+            t[n - 1] = s;
+            t[n] = t[n + 1] + (Long.compareUnsigned(s, c) < 0 ? 1L : 0L);
+        }
+        System.arraycopy(t, 0, r, rOff, n);
+        if (t[n] != 0L || compareToModulus(r, rOff) >= 0) {
+            subtractModulus(r, rOff);
+        }
+    }
+
+    /**
+     * r = a^-1 mod p'
+     *
+     * @throws ArithmeticException if a is zero
+     */
+    public void invert(long[] a, int aOff, long[] r, int rOff) {
+        set(toBigInteger(a, aOff).modInverse(p_prime), r, rOff);
+    }
+
+    private int compareToModulus(long[] a, int aOff) {
+        for (int i = limbs - 1; i >= 0; i--) {
+            int comparison = Long.compareUnsigned(a[aOff + i], modulus[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private void subtractModulus(long[] a, int aOff) {
+        long borrow = 0L;
+        for (int i = 0; i < limbs; i++) {
+            long a_i = a[aOff + i];
+            long d = a_i - modulus[i];
+            long borrowOut = Long.compareUnsigned(a_i, modulus[i]) < 0 ? 1L : 0L;
+            long d_borrow = d - borrow;
+            borrowOut += Long.compareUnsigned(d, borrow) < 0 ? 1L : 0L;
+            a[aOff + i] = d_borrow;
+            borrow = borrowOut;
+        }
+    }
+
+    private void writeLimbs(BigInteger value, long[] r, int rOff) {
+        for (int i = 0; i < limbs; i++) {
+            r[rOff + i] = value.shiftRight(64 * i).longValue();
+        }
+    }
+
+    /**
+     * @return the high word of the unsigned 128-bit product of a and b
+     */
+    private static long multiplyHighUnsigned(long a, long b) {
+        long a_lo = a & INT_MASK;
+        long a_hi = a >>> 32;
+        long b_lo = b & INT_MASK;
+        long b_hi = b >>> 32;
+        long lo_lo = a_lo * b_lo;
+        long hi_lo = a_hi * b_lo;
+        long lo_hi = a_lo * b_hi;
+        long hi_hi = a_hi * b_hi;
+        long cross = (lo_lo >>> 32) + (hi_lo & INT_MASK) + lo_hi;
+        return hi_hi + (hi_lo >>> 32) + (cross >>> 32);
+    }
+
+    /**
+     * @param x an odd word
+     * @return the inverse of x modulo 2^64, by Newton's iteration
+     */
+    private static long inverseModWord(long x) {
+        long inverse = x; // correct to 3 bits, as x * x = 1 mod 8 for any odd x
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - x * inverse;
+        }
+        return inverse;
+    }
+}
@@ -0,0 +1,147 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.config;
+
+import ch.ge.ve.protopoc.service.exception.NotEnoughPrimesInGroupException;
+import ch.ge.ve.protopoc.service.model.ElectionSet;
+import ch.ge.ve.protopoc.service.model.PublicParameters;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.protocol.AuthorityService;
+import ch.ge.ve.protopoc.service.protocol.DefaultBulletinBoard;
+import ch.ge.ve.protopoc.service.simulation.AuthorityFactory;
+import ch.ge.ve.protopoc.service.simulation.ElectionSetEnum;
+import ch.ge.ve.protopoc.service.simulation.PublicParametersFactory;
+import ch.ge.ve.protopoc.service.support.RandomGenerator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This configuration class manages the bulletin board exposed over HTTP,
+ * <ul>
+ * <li>the bulletin board itself, on which the public parameters of the configured security level and the configured
+ * election set are published, and to which one authority per public parameter <tt>s</tt> is attached, running in
+ * this process</li>
+ * <li>the setup of these authorities, i.e. the generation of their keys and of the electorate data, run once the
+ * application is ready so that the subscribers of the bulletin board events see their publications</li>
+ * <li>the executor on which the authorities verify the shuffle proofs of one another</li>
+ * <li>the executor on which ballots and confirmations are handled, off the servlet threads</li>
+ * <li>the executor on which the streamed responses are written</li>
+ * </ul>
+ */
+@Configuration
+public class BulletinBoardConfigurer extends WebMvcConfigurerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(BulletinBoardConfigurer.class);
+    private final List<AuthorityService> authorities = new ArrayList<>();
+
+    @Value("${bulletin-board.executor.pool-size}")
+    private int executorPoolSize;
+
+    @Value("${bulletin-board.streaming.pool-size}")
+    private int streamingPoolSize;
+
+    @Value("${bulletin-board.security-level}")
+    private int securityLevel;
+
+    @Value("${bulletin-board.election-set}")
+    private ElectionSetEnum electionSetConfig;
+
+    @Value("${bulletin-board.voters-count}")
+    private int votersCount;
+
+    @Bean
+    public DefaultBulletinBoard bulletinBoardService() throws NoSuchProviderException, NoSuchAlgorithmException,
+            NotEnoughPrimesInGroupException {
+        SecureRandom secureRandom = SecureRandom.getInstance("SHA1PRNG", "SUN");
+        RandomGenerator randomGenerator = RandomGenerator.perThread(secureRandom, "SHA1PRNG", "SUN");
+        PublicParameters publicParameters =
+                new PublicParametersFactory(secureRandom, randomGenerator).createPublicParameters(securityLevel);
+        ElectionSet electionSet = electionSetConfig.createElectionSet(votersCount);
+
+        DefaultBulletinBoard bulletinBoard = new DefaultBulletinBoard();
+        bulletinBoard.publishPublicParameters(publicParameters);
+        bulletinBoard.publishElectionSet(electionSet);
+        for (int j = 0; j < publicParameters.getS(); j++) {
+            authorities.add(AuthorityFactory.createAuthority(j, bulletinBoard, publicParameters, electionSet,
+                    VectorStore.heap(), proofVerificationExecutor()));
+        }
+        bulletinBoard.setAuthorities(authorities);
+        return bulletinBoard;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService proofVerificationExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setNameFormat("shuffle-proof-verifier-%d").setDaemon(true).build());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void setUpAuthorities() {
+        logger.info(String.format("Setting up %d authorities for %d voters", authorities.size(), votersCount));
+        authorities.parallelStream().forEach(AuthorityService::generateKeys);
+        authorities.parallelStream().forEach(AuthorityService::buildPublicKey);
+        // the precomputations run in the background, during the rest of the setup and the voting phase
+        authorities.forEach(authority -> authority.startPrecomputation(votersCount));
+        authorities.parallelStream().forEach(AuthorityService::generateElectorateData);
+        authorities.parallelStream().forEach(AuthorityService::buildPublicCredentials);
+        logger.info("Authorities set up");
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor bulletinBoardExecutor() {
+        return createExecutor("bulletin-board-", executorPoolSize);
+    }
+    @Bean
+    public ThreadPoolTaskExecutor streamingExecutor() {
+        return createExecutor("streaming-", streamingPoolSize);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // used for the StreamingResponseBody, instead of a new thread per response
+        configurer.setTaskExecutor(streamingExecutor());
+    }
+
+    private static ThreadPoolTaskExecutor createExecutor(String threadNamePrefix, int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        return executor;
+    }
+}
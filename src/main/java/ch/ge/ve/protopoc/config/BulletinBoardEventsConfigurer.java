@@ -0,0 +1,71 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.config;
+
+import ch.ge.ve.protopoc.controller.impl.BulletinBoardEventsHandler;
+import ch.ge.ve.protopoc.service.protocol.DefaultBulletinBoard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * This configuration class manages the WebSocket endpoint on which the publications of the bulletin board are
+ * pushed, see {@link BulletinBoardEventsHandler}
+ * <p>The handler listens to the bulletin board of the {@link BulletinBoardConfigurer}, the one its authorities publish
+ * to. It is added as a listener when the context is created, thus before these authorities are set up once the
+ * application is ready, so that their key parts are pushed as well.</p>
+ */
+@EnableWebSocket
+@Configuration
+public class BulletinBoardEventsConfigurer implements WebSocketConfigurer {
+
+    @Autowired
+    private DefaultBulletinBoard bulletinBoard;
+
+    @Bean
+    public ThreadPoolTaskExecutor bulletinBoardEventsExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("bulletin-board-events-");
+        // the handler keeps the publications in order per session, and schedules at most one delivery per session
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        return executor;
+    }
+
+    @Bean
+    public BulletinBoardEventsHandler bulletinBoardEventsHandler() {
+        BulletinBoardEventsHandler handler = new BulletinBoardEventsHandler(bulletinBoard, bulletinBoardEventsExecutor());
+        bulletinBoard.addListener(handler);
+        return handler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(bulletinBoardEventsHandler(), "/bulletin-board/events")
+                .setAllowedOrigins("*");
+    }
+}
@@ -0,0 +1,62 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.controller.api;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * This interface defines the contracts for an {@link ch.ge.ve.protopoc.controller.impl.BulletinBoardController}
+ * <p>
+ * The payloads are the binary messages of the {@link ch.ge.ve.protopoc.service.codec.ProtocolCodec}.
+ */
+public interface BulletinBoardInterface {
+    @RequestMapping(value = "/bulletin-board/ballots/{voterIndex}", method = RequestMethod.POST,
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize(value = "authenticated")
+    WebAsyncTask<StreamingResponseBody> publishBallot(@PathVariable("voterIndex") Integer voterIndex,
+                                                      @RequestBody byte[] ballotAndQuery);
+
+    @RequestMapping(value = "/bulletin-board/confirmations/{voterIndex}", method = RequestMethod.POST,
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize(value = "authenticated")
+    WebAsyncTask<StreamingResponseBody> publishConfirmation(@PathVariable("voterIndex") Integer voterIndex,
+                                                            @RequestBody byte[] confirmation);
+
+    @RequestMapping(value = "/bulletin-board/shuffles-and-proofs", method = RequestMethod.GET,
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize(value = "authenticated")
+    StreamingResponseBody getShufflesAndProofs();
+
+    @RequestMapping(value = "/bulletin-board/tally-data", method = RequestMethod.GET,
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize(value = "authenticated")
+    StreamingResponseBody getTallyData();
+}
@@ -0,0 +1,144 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.controller.impl;
+
+import ch.ge.ve.protopoc.controller.api.BulletinBoardInterface;
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec;
+import ch.ge.ve.protopoc.service.exception.IncorrectBallotRuntimeException;
+import ch.ge.ve.protopoc.service.exception.IncorrectConfirmationRuntimeException;
+import ch.ge.ve.protopoc.service.exception.MalformedMessageException;
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardService;
+import ch.ge.ve.protopoc.service.protocol.IncorrectBallotOrQueryException;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * This controller exposes the {@link BulletinBoardService} to the voting clients and to the verifiers.
+ * <p>
+ * Ballots and confirmations are handled on the bulletin board executor, so that no servlet thread waits for the
+ * authorities. The responses are written once the request has been processed, without a content length: the
+ * N-length vectors of the shuffles and of the tally data are thus streamed in chunks, as they are encoded.
+ */
+@RestController
+public class BulletinBoardController implements BulletinBoardInterface {
+    private static final Logger logger = LoggerFactory.getLogger(BulletinBoardController.class);
+
+    private final BulletinBoardService bulletinBoard;
+    private final AsyncTaskExecutor executor;
+    private volatile ProtocolCodec codec;
+
+    @Autowired
+    public BulletinBoardController(BulletinBoardService bulletinBoard,
+                                   @Qualifier("bulletinBoardExecutor") AsyncTaskExecutor executor) {
+        Preconditions.checkNotNull(bulletinBoard, "BulletinBoardService is required");
+        Preconditions.checkNotNull(executor, "AsyncTaskExecutor is required");
+        this.bulletinBoard = bulletinBoard;
+        this.executor = executor;
+    }
+
+    @Override
+    public WebAsyncTask<StreamingResponseBody> publishBallot(Integer voterIndex, byte[] ballotAndQuery) {
+        return new WebAsyncTask<>(null, executor, () -> {
+            // the query must hold exactly the selections of the voter, which bounds what is read from the request
+            int k_i = bulletinBoard.getElectionSet().getEligibilityIndex().getK_sum(voterIndex);
+            BallotAndQuery alpha = codec().readBallotAndQuery(new ByteArrayInputStream(ballotAndQuery), k_i);
+            List<ObliviousTransferResponse> responses = bulletinBoard.publishBallot(voterIndex, alpha);
+            return out -> writeAll(responses, codec()::writeObliviousTransferResponse, out);
+        });
+    }
+
+    @Override
+    public WebAsyncTask<StreamingResponseBody> publishConfirmation(Integer voterIndex, byte[] confirmation) {
+        return new WebAsyncTask<>(null, executor, () -> {
+            Confirmation gamma = codec().readConfirmation(new ByteArrayInputStream(confirmation));
+            List<FinalizationCodePart> finalizationCodeParts = bulletinBoard.publishConfirmation(voterIndex, gamma);
+            return out -> writeAll(finalizationCodeParts, codec()::writeFinalizationCodePart, out);
+        });
+    }
+
+    @Override
+    public StreamingResponseBody getShufflesAndProofs() {
+        // checked on the request thread, so that an incomplete mixing is reported before any byte is sent
+        ShufflesAndProofs shufflesAndProofs = bulletinBoard.getShufflesAndProofs();
+        return out -> codec().writeShufflesAndProofs(shufflesAndProofs, out);
+    }
+
+    @Override
+    public StreamingResponseBody getTallyData() {
+        TallyData tallyData = bulletinBoard.getTallyData();
+        return out -> codec().writeTallyData(tallyData, out);
+    }
+
+    @ExceptionHandler({IncorrectBallotOrQueryException.class, IncorrectBallotRuntimeException.class,
+            IncorrectConfirmationRuntimeException.class, MalformedMessageException.class,
+            IllegalArgumentException.class, IndexOutOfBoundsException.class})
+    public ResponseEntity<String> handleBadRequest(Exception e) {
+        logger.info(String.format("Rejected bulletin board request: %s", e.getMessage()));
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleConflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    private ProtocolCodec codec() {
+        if (codec == null) {
+            PublicParameters publicParameters = bulletinBoard.getPublicParameters();
+            Preconditions.checkState(publicParameters != null,
+                    "The public parameters need to have been defined first");
+            codec = new ProtocolCodec(publicParameters);
+        }
+        return codec;
+    }
+
+    private static <T> void writeAll(List<T> messages, MessageWriter<T> writer, OutputStream outputStream)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(messages.size());
+        for (T message : messages) {
+            writer.write(message, out);
+        }
+        out.flush();
+    }
+
+    private interface MessageWriter<T> {
+        void write(T message, OutputStream outputStream) throws IOException;
+    }
+}
@@ -0,0 +1,263 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.controller.impl;
+
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec;
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardEvent;
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardListener;
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardService;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This handler pushes the publications of the bulletin board to the WebSocket sessions subscribed to them.
+ * <p>
+ * Each publication is announced by a text message <code>{"type":"SHUFFLE","j":0}</code>. The sessions opened with
+ * <code>?payloads=true</code> then receive the publication itself, encoded by the {@link ProtocolCodec}, as a binary
+ * message sent in fragments of at most {@link #FRAGMENT_SIZE} bytes as it is being encoded.
+ * <p>
+ * Messages are sent on the given executor rather than on the publishing thread. Each session has its own queue of
+ * pending publications, delivered in order by one task at a time, so that a slow session only delays itself. A
+ * session whose queue holds more than {@link #MAX_PENDING_PUBLICATIONS} publications, or whose sends exceed the limits
+ * of its {@link ConcurrentWebSocketSessionDecorator}, is closed.
+ */
+public class BulletinBoardEventsHandler extends AbstractWebSocketHandler implements BulletinBoardListener {
+    public static final int FRAGMENT_SIZE = 1 << 16;
+    public static final int MAX_PENDING_PUBLICATIONS = 64;
+    private static final Logger logger = LoggerFactory.getLogger(BulletinBoardEventsHandler.class);
+    private static final int SEND_TIME_LIMIT_MILLIS = 10_000;
+    private static final int BUFFER_SIZE_LIMIT = 4 * FRAGMENT_SIZE;
+
+    private final BulletinBoardService bulletinBoard;
+    private final Executor executor;
+    private final ConcurrentMap<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private volatile ProtocolCodec codec;
+
+    /**
+     * @param bulletinBoard the bulletin board, to which this handler needs to be added as a listener
+     * @param executor      the executor of the deliveries, whatever its number of threads each session receives the
+     *                      publications in order
+     */
+    public BulletinBoardEventsHandler(BulletinBoardService bulletinBoard, Executor executor) {
+        Preconditions.checkNotNull(bulletinBoard, "BulletinBoardService is required");
+        Preconditions.checkNotNull(executor, "Executor is required");
+        this.bulletinBoard = bulletinBoard;
+        this.executor = executor;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        String payloads = session.getUri() == null ? null :
+                UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("payloads");
+        WebSocketSession concurrentSession =
+                new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MILLIS, BUFFER_SIZE_LIMIT);
+        subscriptions.put(session.getId(), new Subscription(concurrentSession, Boolean.parseBoolean(payloads)));
+        logger.info(String.format("Session [%s] subscribed to the bulletin board", session.getId()));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        subscriptions.remove(session.getId());
+    }
+
+    @Override
+    public void onPublication(BulletinBoardEvent event) {
+        for (Subscription subscription : subscriptions.values()) {
+            if (subscription.pending.offer(event)) {
+                schedule(subscription);
+            } else {
+                drop(subscription, CloseStatus.SESSION_NOT_RELIABLE, String.format(
+                        "Session [%s] has more than %d pending publications", subscription.session.getId(),
+                        MAX_PENDING_PUBLICATIONS), null);
+            }
+        }
+    }
+
+    private void schedule(Subscription subscription) {
+        if (subscription.scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> deliver(subscription));
+            } catch (RejectedExecutionException e) {
+                subscription.scheduled.set(false);
+                drop(subscription, CloseStatus.SESSION_NOT_RELIABLE, String.format(
+                        "Could not schedule the delivery to session [%s]", subscription.session.getId()), e);
+            }
+        }
+    }
+
+    private void deliver(Subscription subscription) {
+        WebSocketSession session = subscription.session;
+        BulletinBoardEvent event;
+        while ((event = subscription.pending.poll()) != null) {
+            try {
+                session.sendMessage(new TextMessage(
+                        String.format("{\"type\":\"%s\",\"j\":%d}", event.getType(), event.getJ())));
+                if (subscription.payloads) {
+                    FragmentOutputStream out = new FragmentOutputStream(session);
+                    encode(event, out);
+                    out.close();
+                }
+            } catch (IOException | RuntimeException e) {
+                drop(subscription, CloseStatus.SERVER_ERROR,
+                        String.format("Could not push %s to session [%s]", event, session.getId()), e);
+                return;
+            }
+        }
+        subscription.scheduled.set(false);
+        // a publication offered after the queue was found empty, but before the flag was cleared, is delivered now
+        if (!subscription.pending.isEmpty()) {
+            schedule(subscription);
+        }
+    }
+
+    private void drop(Subscription subscription, CloseStatus status, String reason, Exception e) {
+        logger.warn(reason, e);
+        WebSocketSession session = subscription.session;
+        if (subscriptions.remove(session.getId(), subscription)) {
+            subscription.pending.clear();
+            try {
+                session.close(status);
+            } catch (IOException closeFailure) {
+                logger.debug(String.format("Could not close session [%s]", session.getId()), closeFailure);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void encode(BulletinBoardEvent event, OutputStream out) throws IOException {
+        Object publication = event.getPublication();
+        switch (event.getType()) {
+            case PUBLIC_KEY_PART:
+                codec().writePublicKeyPart((EncryptionPublicKey) publication, out);
+                break;
+            case SHUFFLE:
+                codec().writeShuffle((List<Encryption>) publication, out);
+                break;
+            case SHUFFLE_PROOF:
+                codec().writeShuffleProof((ShuffleProof) publication, out);
+                break;
+            case PARTIAL_DECRYPTION:
+                codec().writePartialDecryption((List<BigInteger>) publication, out);
+                break;
+            case DECRYPTION_PROOF:
+                codec().writeDecryptionProof((DecryptionProof) publication, out);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported event type " + event.getType());
+        }
+    }
+
+    private ProtocolCodec codec() {
+        if (codec == null) {
+            PublicParameters publicParameters = bulletinBoard.getPublicParameters();
+            Preconditions.checkState(publicParameters != null,
+                    "The public parameters need to have been defined first");
+            codec = new ProtocolCodec(publicParameters);
+        }
+        return codec;
+    }
+
+    private static final class Subscription {
+        private final WebSocketSession session;
+        private final boolean payloads;
+        private final BlockingQueue<BulletinBoardEvent> pending = new ArrayBlockingQueue<>(MAX_PENDING_PUBLICATIONS);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscription(WebSocketSession session, boolean payloads) {
+            this.session = session;
+            this.payloads = payloads;
+        }
+    }
+
+    /**
+     * Sends the bytes written to it as the fragments of a single binary message: a full buffer is sent once more bytes
+     * come, and the last fragment when the stream is closed
+     */
+    private static final class FragmentOutputStream extends OutputStream {
+        private final WebSocketSession session;
+        private byte[] buffer = new byte[FRAGMENT_SIZE];
+        private int count;
+        private boolean closed;
+
+        private FragmentOutputStream(WebSocketSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                sendFragment(false);
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    sendFragment(false);
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                sendFragment(true);
+            }
+        }
+
+        private void sendFragment(boolean isLast) throws IOException {
+            session.sendMessage(new BinaryMessage(buffer, 0, count, isLast));
+            // the message wraps the buffer, which the decorator of the session may hold on to until it is sent
+            buffer = new byte[FRAGMENT_SIZE];
+            count = 0;
+        }
+    }
+}
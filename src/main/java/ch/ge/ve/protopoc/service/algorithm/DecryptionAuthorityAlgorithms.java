@@ -31,10 +31,18 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp2;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp3;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modMultiExp;
 import static ch.ge.ve.protopoc.service.support.BigIntegers.multiplyMod;
 import static java.math.BigInteger.ONE;
 import static java.util.function.Function.identity;
@@ -48,12 +56,22 @@ public class DecryptionAuthorityAlgorithms {
     private final PublicParameters publicParameters;
     private final GeneralAlgorithms generalAlgorithms;
     private final RandomGenerator randomGenerator;
+    private final Executor proofVerificationExecutor;
 
+    /**
+     * @param publicParameters          the public parameters
+     * @param generalAlgorithms         the general algorithms
+     * @param randomGenerator           the random generator
+     * @param proofVerificationExecutor the executor on which the shuffle proofs of the other authorities are verified
+     *                                  concurrently, managed by the caller. Each verification additionally relies on
+     *                                  parallel streams, on the common pool, for its own reductions.
+     */
     public DecryptionAuthorityAlgorithms(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms,
-                                         RandomGenerator randomGenerator) {
+                                         RandomGenerator randomGenerator, Executor proofVerificationExecutor) {
         this.publicParameters = publicParameters;
         this.generalAlgorithms = generalAlgorithms;
         this.randomGenerator = randomGenerator;
+        this.proofVerificationExecutor = proofVerificationExecutor;
     }
 
     /**
@@ -83,15 +101,37 @@ public class DecryptionAuthorityAlgorithms {
         List<List<Encryption>> tmp_bold_e = new ArrayList<>();
         tmp_bold_e.add(0, e_0);
         tmp_bold_e.addAll(bold_E);
+
+        // the proofs are independent from one another: verify them concurrently, and stop at the first failure
+        CompletionService<Boolean> completionService = new ExecutorCompletionService<>(proofVerificationExecutor);
+        List<Future<Boolean>> verifications = new ArrayList<>();
         for (int i = 0; i < s; i++) {
             if (i != j) {
-                if (!checkShuffleProof(
-                        bold_pi.get(i), tmp_bold_e.get(i), tmp_bold_e.get(i + 1), publicKey)) {
+                final int index = i;
+                verifications.add(completionService.submit(() -> checkShuffleProof(
+                        bold_pi.get(index), tmp_bold_e.get(index), tmp_bold_e.get(index + 1), publicKey)));
+            }
+        }
+        try {
+            for (int k = 0; k < verifications.size(); k++) {
+                if (!completionService.take().get()) {
                     return false;
                 }
             }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking the shuffle proofs", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Failed to check the shuffle proofs", cause);
+        } finally {
+            // no-op for the completed verifications, drops the pending ones
+            verifications.forEach(verification -> verification.cancel(true));
         }
-        return true;
     }
 
     /**
@@ -183,35 +223,36 @@ public class DecryptionAuthorityAlgorithms {
         BigInteger u = bold_u.stream().reduce(multiplyMod(q)).orElse(ONE);
 
         BigInteger c_hat = bold_c_hat.get(N - 1).multiply(modExp(h, u.negate(), p));
-        BigInteger c_tilde = IntStream.range(0, N).mapToObj(i -> modExp(bold_c.get(i), bold_u.get(i), p))
-                .reduce(multiplyMod(p)).orElse(ONE);
+        // the challenges bold_u are only tau bits long: the powers share their squarings
+        BigInteger c_tilde = modMultiExp(bold_c, bold_u, p);
 
-        BigInteger e_prime_1 = IntStream.range(0, N).mapToObj(i -> modExp(bold_e.get(i).getA(), bold_u.get(i), p))
-                .reduce(multiplyMod(p)).orElse(ONE);
-        BigInteger e_prime_2 = IntStream.range(0, N).mapToObj(i -> modExp(bold_e.get(i).getB(), bold_u.get(i), p))
-                .reduce(multiplyMod(p)).orElse(ONE);
+        BigInteger e_prime_1 = modMultiExp(
+                bold_e.stream().map(Encryption::getA).collect(Collectors.toList()), bold_u, p);
+        BigInteger e_prime_2 = modMultiExp(
+                bold_e.stream().map(Encryption::getB).collect(Collectors.toList()), bold_u, p);
 
-        BigInteger t_prime_1 = modExp(c_bar, c.negate(), p).multiply(modExp(g, s_1, p)).mod(p);
-        BigInteger t_prime_2 = modExp(c_hat, c.negate(), p).multiply(modExp(g, s_2, p)).mod(p);
+        // all the bases belong to G_q, where x^-c = x^(q - c)
+        BigInteger minus_c = c.negate().mod(q);
+        BigInteger t_prime_1 = modExp2(c_bar, minus_c, g, s_1, p);
+        BigInteger t_prime_2 = modExp2(c_hat, minus_c, g, s_2, p);
         BigInteger h_i_s_prime_i = IntStream.range(0, N).parallel()
                 .mapToObj(i -> modExp(bold_h.get(i), s_prime.get(i), p))
                 .reduce(multiplyMod(p)).orElse(ONE);
-        BigInteger t_prime_3 = modExp(c_tilde, c.negate(), p).multiply(modExp(g, s_3, p)).multiply(h_i_s_prime_i).mod(p);
+        BigInteger t_prime_3 = modExp2(c_tilde, minus_c, g, s_3, p).multiply(h_i_s_prime_i).mod(p);
 
         BigInteger a_prime_i_s_prime_i = IntStream.range(0, N)
                 .parallel()
                 .mapToObj(i -> modExp(bold_e_prime.get(i).getA(), s_prime.get(i), p))
                 .reduce(multiplyMod(p)).orElse(ONE);
-        BigInteger t_prime_4_1 = modExp(e_prime_1, c.negate(), p)
-                .multiply(modExp(pk, s_4.negate(), p))
+        BigInteger minus_s_4 = s_4.negate().mod(q);
+        BigInteger t_prime_4_1 = modExp2(e_prime_1, minus_c, pk, minus_s_4, p)
                 .multiply(a_prime_i_s_prime_i)
                 .mod(p);
         BigInteger b_prime_i_s_prime_i = IntStream.range(0, N)
                 .parallel()
                 .mapToObj(i -> modExp(bold_e_prime.get(i).getB(), s_prime.get(i), p))
                 .reduce(multiplyMod(p)).orElse(ONE);
-        BigInteger t_prime_4_2 = modExp(e_prime_2, c.negate(), p)
-                .multiply(modExp(g, s_4.negate(), p))
+        BigInteger t_prime_4_2 = modExp2(e_prime_2, minus_c, g, minus_s_4, p)
                 .multiply(b_prime_i_s_prime_i)
                 .mod(p);
 
@@ -220,10 +261,8 @@ public class DecryptionAuthorityAlgorithms {
         tmp_bold_c_hat.add(0, h);
         tmp_bold_c_hat.addAll(bold_c_hat);
         Map<Integer, BigInteger> t_hat_prime_map = IntStream.range(0, N).parallel().boxed()
-                .collect(toMap(identity(), i -> modExp(tmp_bold_c_hat.get(i + 1), c.negate(), p)
-                        .multiply(modExp(g, s_hat.get(i), p))
-                        .multiply(modExp(tmp_bold_c_hat.get(i), s_prime.get(i), p))
-                        .mod(p)));
+                .collect(toMap(identity(), i -> modExp3(tmp_bold_c_hat.get(i + 1), minus_c, g, s_hat.get(i),
+                        tmp_bold_c_hat.get(i), s_prime.get(i), p)));
         List<BigInteger> t_hat_prime = IntStream.range(0, N).mapToObj(t_hat_prime_map::get).collect(Collectors.toList());
 
         boolean isProofValid = t_1.compareTo(t_prime_1) == 0 &&
@@ -265,6 +304,33 @@ public class DecryptionAuthorityAlgorithms {
      */
     public DecryptionProof genDecryptionProof(BigInteger sk_j, BigInteger pk_j, List<Encryption> bold_e,
                                               List<BigInteger> bold_b_prime) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        BigInteger g = publicParameters.getEncryptionGroup().getG();
+        BigInteger omega = randomGenerator.randomInZq(q);
+
+        return genDecryptionProof(sk_j, pk_j, bold_e, bold_b_prime, omega, modExp(g, omega, p));
+    }
+
+    /**
+     * Algorithm 7.50: GenDecryptionProof, using a precomputed nonce
+     *
+     * @param sk_j         the private key share of authority j
+     * @param pk_j         the public key share of authority j
+     * @param bold_e       the vector of ElGamal encryptions
+     * @param bold_b_prime the vector of partial ElGamal decryptions
+     * @param nonce        a precomputed randomization, of which only r and g<sup>r</sup> are used; it may only be
+     *                     used once
+     * @return a proof of knowledge for sk_j, satisfying <tt>b'_i = b_i ^ sk_j</tt> for all encryptions, and
+     * <tt>pk_j = g ^ sk_j</tt>
+     */
+    public DecryptionProof genDecryptionProof(BigInteger sk_j, BigInteger pk_j, List<Encryption> bold_e,
+                                              List<BigInteger> bold_b_prime, Randomization nonce) {
+        return genDecryptionProof(sk_j, pk_j, bold_e, bold_b_prime, nonce.getR(), nonce.getG_r());
+    }
+
+    private DecryptionProof genDecryptionProof(BigInteger sk_j, BigInteger pk_j, List<Encryption> bold_e,
+                                               List<BigInteger> bold_b_prime, BigInteger omega, BigInteger t_0) {
         Preconditions.checkArgument(generalAlgorithms.isInZ_q(sk_j), "sk_j must be in Z_q");
         Preconditions.checkArgument(generalAlgorithms.isMember(pk_j), "pk_j must be in G_q");
         Preconditions.checkArgument(bold_e.parallelStream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
@@ -275,11 +341,8 @@ public class DecryptionAuthorityAlgorithms {
 
         BigInteger p = publicParameters.getEncryptionGroup().getP();
         BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
-        BigInteger omega = randomGenerator.randomInZq(q);
         int tau = publicParameters.getSecurityParameters().getTau();
 
-        BigInteger t_0 = modExp(g, omega, p);
         List<BigInteger> t = bold_e.stream().map(e_i -> modExp(e_i.getB(), omega, p)).collect(Collectors.toList());
         t.add(0, t_0);
         List<BigInteger> bold_b = bold_e.stream().map(Encryption::getB).collect(Collectors.toList());
@@ -28,8 +28,12 @@ import ch.ge.ve.protopoc.service.support.*;
 import com.google.common.base.Preconditions;
 
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -39,6 +43,10 @@ import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
  * Algorithms relevant to the election preparation
  */
 public class ElectionPreparationAlgorithms {
+    /**
+     * Number of consecutive voters whose electorate data is generated as a single unit of work
+     */
+    public static final int ELECTORATE_DATA_SHARD_SIZE = 64;
     private final Hash hash;
     private final RandomGenerator randomGenerator;
     private final BigInteger q_x;
@@ -74,16 +82,56 @@ public class ElectionPreparationAlgorithms {
         List<List<Point>> randomPoints = new ArrayList<>();
         List<List<Integer>> allowedSelections = new ArrayList<>();
 
+        genElectorateData(electionSet, (firstVoterIndex, shard) -> {
+            secretVoterDataList.addAll(shard.getD());
+            publicVoterDataList.addAll(shard.getD_hat());
+            randomPoints.addAll(shard.getP());
+            allowedSelections.addAll(shard.getK());
+        });
+
+        return new ElectorateData(secretVoterDataList, publicVoterDataList, randomPoints, allowedSelections);
+    }
+
+    /**
+     * Algorithm 7.6: GenElectorateData, streaming variant
+     * <p>The voters are split in shards of {@value #ELECTORATE_DATA_SHARD_SIZE} consecutive voters, generated in
+     * parallel. The shards are handed to the sink in voter order as soon as they, and all the preceding ones, are
+     * available; only a bounded number of shards are held in memory at any time.</p>
+     *
+     * @param electionSet contains all three of <b>bold_n</b>, <b>bold_k</b> and <b>bold_upper_e</b>
+     * @param sink        the consumer of the generated shards
+     */
+    public void genElectorateData(ElectionSet electionSet, ElectorateDataSink sink) {
+        List<Voter> voters = electionSet.getVoters();
+        int shardsCount = (voters.size() + ELECTORATE_DATA_SHARD_SIZE - 1) / ELECTORATE_DATA_SHARD_SIZE;
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism();
+
+        Deque<CompletableFuture<ElectorateData>> pendingShards = new ArrayDeque<>();
+        int nextShard = 0;
+        for (int shard = 0; shard < shardsCount; shard++) {
+            while (nextShard < shardsCount && pendingShards.size() < window) {
+                int from = nextShard * ELECTORATE_DATA_SHARD_SIZE;
+                int to = Math.min(from + ELECTORATE_DATA_SHARD_SIZE, voters.size());
+                pendingShards.add(CompletableFuture.supplyAsync(
+                        () -> genElectorateDataShard(electionSet, from, to)));
+                nextShard++;
+            }
+            sink.accept(shard * ELECTORATE_DATA_SHARD_SIZE, pendingShards.remove().join());
+        }
+    }
+
+    private ElectorateData genElectorateDataShard(ElectionSet electionSet, int from, int to) {
+        List<SecretVoterData> secretVoterDataList = new ArrayList<>();
+        List<Point> publicVoterDataList = new ArrayList<>();
+        List<List<Point>> randomPoints = new ArrayList<>();
+        List<List<Integer>> allowedSelections = new ArrayList<>();
+
+        EligibilityIndex eligibilityIndex = electionSet.getEligibilityIndex();
+        List<Integer> bold_n = eligibilityIndex.getBold_n();
         // for i = 1, ..., upper_n_upper_e (aka N_E)
-        for (Voter voter : electionSet.getVoters()) {
+        for (int i = from; i < to; i++) {
             // for j = 1, ..., t
-            List<Election> elections = electionSet.getElections();
-            List<Integer> bold_n = elections.stream()
-                    .map(Election::getNumberOfCandidates)
-                    .collect(Collectors.toList());
-            List<Integer> bold_k_i = elections.stream()
-                    .map(e -> electionSet.isEligible(voter, e) ? e.getNumberOfSelections() : 0)
-                    .collect(Collectors.toList());
+            List<Integer> bold_k_i = eligibilityIndex.getBold_k(i);
             PointsAndZeroImages pointsAndZeroImages = polynomialAlgorithms.genPoints(bold_n, bold_k_i);
             SecretVoterData d_i = genSecretVoterData(pointsAndZeroImages.getPoints());
             secretVoterDataList.add(d_i);
@@ -38,9 +38,6 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
-
 /**
  * This class regroups the general algorithms described in Section 7.2 of the specification
  */
@@ -208,12 +205,12 @@ public class GeneralAlgorithms {
     public List<BigInteger> getNIZKPChallenges(int n, Object[] y, int kappa) {
         byte[] upper_h = hash.recHash_L(y);
         BigInteger two_to_kappa = BigIntegers.TWO.pow(kappa);
-        Map<Integer, BigInteger> challengesMap = IntStream.rangeClosed(1, n).parallel().boxed()
-                .collect(toMap(identity(), i -> {
-                    byte[] upper_i = hash.recHash_L(BigInteger.valueOf(i));
-                    return conversion.toInteger(hash.hash_L(ByteArrayUtils.concatenate(upper_h, upper_i)))
-                            .mod(two_to_kappa);
-                }));
-        return IntStream.rangeClosed(1, n).mapToObj(challengesMap::get).collect(Collectors.toList());
+        BigInteger[] challenges = new BigInteger[n];
+        IntStream.rangeClosed(1, n).parallel().forEach(i -> {
+            byte[] upper_i = hash.recHash_L(BigInteger.valueOf(i));
+            challenges[i - 1] = conversion.toInteger(hash.hash_L(ByteArrayUtils.concatenate(upper_h, upper_i)))
+                    .mod(two_to_kappa);
+        });
+        return Arrays.asList(challenges);
     }
 }
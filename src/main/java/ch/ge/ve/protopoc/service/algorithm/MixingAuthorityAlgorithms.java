@@ -22,6 +22,8 @@
 package ch.ge.ve.protopoc.service.algorithm;
 
 import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.support.BigIntegers;
 import ch.ge.ve.protopoc.service.support.RandomGenerator;
 import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
@@ -29,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -36,24 +39,44 @@ import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
 import static ch.ge.ve.protopoc.service.support.BigIntegers.multiplyMod;
 import static java.math.BigInteger.ONE;
 import static java.math.BigInteger.ZERO;
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
 
 /**
  * Algorithms performed during the mixing phase, by the autorities
  */
 public class MixingAuthorityAlgorithms {
+    /**
+     * Number of randomizations used as nonces by {@link #genShuffleProof}: omega_1 to omega_4
+     */
+    public static final int SHUFFLE_PROOF_NONCES = 4;
+    /**
+     * Number of elements drawn, and then exponentiated in parallel, at a time by the sequential parts of the proof
+     */
+    private static final int CHUNK_SIZE = 4096;
     private static final Logger log = LoggerFactory.getLogger(MixingAuthorityAlgorithms.class);
     private final PublicParameters publicParameters;
     private final GeneralAlgorithms generalAlgorithms;
     private final VoteConfirmationAuthorityAlgorithms voteConfirmationAuthorityAlgorithms;
     private final RandomGenerator randomGenerator;
+    private final VectorStore vectorStore;
 
     public MixingAuthorityAlgorithms(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms, VoteConfirmationAuthorityAlgorithms voteConfirmationAuthorityAlgorithms, RandomGenerator randomGenerator) {
+        this(publicParameters, generalAlgorithms, voteConfirmationAuthorityAlgorithms, randomGenerator,
+                VectorStore.heap());
+    }
+
+    /**
+     * Streaming mode: all the N-length vectors of the shuffles and of their proofs, including the precomputations,
+     * are allocated from the given store, and computed in passes over their indices
+     *
+     * @param vectorStore the store of the N-length vectors, e.g. {@link VectorStore#mapped(java.nio.file.Path)} for
+     *                    ballot sets which would not fit in the heap
+     */
+    public MixingAuthorityAlgorithms(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms, VoteConfirmationAuthorityAlgorithms voteConfirmationAuthorityAlgorithms, RandomGenerator randomGenerator, VectorStore vectorStore) {
         this.publicParameters = publicParameters;
         this.generalAlgorithms = generalAlgorithms;
         this.voteConfirmationAuthorityAlgorithms = voteConfirmationAuthorityAlgorithms;
         this.randomGenerator = randomGenerator;
+        this.vectorStore = vectorStore;
     }
 
     /**
@@ -66,7 +89,7 @@ public class MixingAuthorityAlgorithms {
     public List<Encryption> getEncryptions(Collection<BallotEntry> upper_b, Collection<ConfirmationEntry> upper_c) {
         BigInteger p = publicParameters.getEncryptionGroup().getP();
 
-        return upper_b.stream()
+        Encryption[] encryptions = upper_b.stream()
                 .filter(ballotEntry -> voteConfirmationAuthorityAlgorithms.hasConfirmation(ballotEntry.getI(), upper_c))
                 .map(ballotEntry -> {
                     BigInteger a_j = ballotEntry.getAlpha().getBold_a().stream()
@@ -76,7 +99,9 @@ public class MixingAuthorityAlgorithms {
                     return new Encryption(a_j, ballotEntry.getAlpha().getB());
                 })
                 .sorted(Comparator.naturalOrder())
-                .collect(Collectors.toList());
+                .toArray(Encryption[]::new);
+
+        return toEncryptionVector(encryptions);
     }
 
     /**
@@ -87,29 +112,60 @@ public class MixingAuthorityAlgorithms {
      * @return the result of a shuffle, with re-encryption of the values
      */
     public Shuffle genShuffle(List<Encryption> bold_e, EncryptionPublicKey pk) {
+        checkShuffleInput(bold_e, pk);
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        List<BigInteger> bold_r = randomGenerator.randomVectorInZq(q, bold_e.size());
+        List<Randomization> bold_rho = bold_r.parallelStream()
+                .map(r -> genRandomization(pk, r))
+                .collect(Collectors.toList());
+
+        return shuffle(bold_e, bold_rho);
+    }
+
+    /**
+     * Algorithm 7.41: GenShuffle, using precomputed randomizations
+     * <p>All the exponentiations have been performed beforehand, so that only two modular multiplications per
+     * encryption remain.</p>
+     *
+     * @param bold_e   the list of ElGamal encryptions
+     * @param pk       the encryption key
+     * @param bold_rho the precomputed randomizations for <tt>pk</tt>, one per encryption; each may only be used once
+     * @return the result of a shuffle, with re-encryption of the values
+     * @see #genRandomization(EncryptionPublicKey)
+     */
+    public Shuffle genShuffle(List<Encryption> bold_e, EncryptionPublicKey pk, List<Randomization> bold_rho) {
+        checkShuffleInput(bold_e, pk);
+        Preconditions.checkArgument(bold_rho.size() == bold_e.size(),
+                "There should be as many randomizations as there are encryptions");
+
+        return shuffle(bold_e, bold_rho);
+    }
+
+    private void checkShuffleInput(List<Encryption> bold_e, EncryptionPublicKey pk) {
         Preconditions.checkArgument(bold_e.stream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
                         generalAlgorithms.isMember(e.getB())),
                 "all e_i's should be in G_q^2");
-        List<Integer> psy = genPermutation(bold_e.size());
-
-        // Parallel streams do not preserve order.
-        // But it is more efficient to distribute the re-encryptions across cores and sort them than to
-        // re-encrypt sequentially
-        Map<Integer, ReEncryption> reEncryptionMap = IntStream.range(0, bold_e.size()).parallel().boxed()
-                .collect(toMap(identity(), i -> genReEncryption(bold_e.get(i), pk)));
-        List<ReEncryption> reEncryptions = IntStream.range(0, bold_e.size())
-                .mapToObj(reEncryptionMap::get).collect(Collectors.toList());
-
-        List<Encryption> bold_e_prime = psy.stream()
-                .map(reEncryptions::get)
-                .map(ReEncryption::getEncryption)
-                .collect(Collectors.toList());
-
-        List<BigInteger> bold_r_prime = reEncryptions.stream()
-                .map(ReEncryption::getRandomness)
-                .collect(Collectors.toList());
+        Preconditions.checkArgument(generalAlgorithms.isMember(pk.getPublicKey()),
+                "pk should be in G_q");
+    }
 
-        return new Shuffle(bold_e_prime, bold_r_prime, psy);
+    private Shuffle shuffle(List<Encryption> bold_e, List<Randomization> bold_rho) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        int upper_n = bold_e.size();
+        List<Integer> psy = genPermutation(upper_n);
+
+        // the re-encryptions are distributed across cores and written in place, directly in the permuted order:
+        // e'_i is the re-encryption of e_psy(i), whereas r'_i is the randomness of the re-encryption of e_i
+        List<Encryption> bold_e_prime = vectorStore.newEncryptionVector(upper_n, p);
+        List<BigInteger> bold_r_prime = vectorStore.newVector(upper_n, q);
+        IntStream.range(0, upper_n).parallel().forEach(i -> {
+            int j_i = psy.get(i);
+            bold_e_prime.set(i, genReEncryption(bold_e.get(j_i), bold_rho.get(j_i)).getEncryption());
+            bold_r_prime.set(i, bold_rho.get(i).getR());
+        });
+
+        return new Shuffle(VectorStore.freeze(bold_e_prime), VectorStore.freeze(bold_r_prime), psy);
     }
 
     /**
@@ -147,17 +203,40 @@ public class MixingAuthorityAlgorithms {
                 generalAlgorithms.isMember(e.getB()), "a and b should be in G_q^2");
         Preconditions.checkArgument(generalAlgorithms.isMember(publicKey.getPublicKey()),
                 "pk should be in G_q");
+
+        return genReEncryption(e, genRandomization(publicKey));
+    }
+
+    private ReEncryption genReEncryption(Encryption e, Randomization rho) {
         BigInteger p = publicParameters.getEncryptionGroup().getP();
+
+        BigInteger a_prime = e.getA().multiply(rho.getPk_r()).mod(p);
+        BigInteger b_prime = e.getB().multiply(rho.getG_r()).mod(p);
+
+        return new ReEncryption(new Encryption(a_prime, b_prime), rho.getR());
+    }
+
+    /**
+     * Draw a random value r &isin; Z_q and compute pk<sup>r</sup> and g<sup>r</sup>
+     * <p>The result does not depend on the ballots, and may therefore be computed ahead of time, e.g. by a
+     * {@link ch.ge.ve.protopoc.service.protocol.RandomizationPool}. It serves both as the randomization of a
+     * re-encryption and as the nonce of a proof.</p>
+     *
+     * @param publicKey the public key used for the re-encryptions
+     * @return a fresh randomization
+     */
+    public Randomization genRandomization(EncryptionPublicKey publicKey) {
         BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
-        BigInteger pk = publicKey.getPublicKey();
 
-        BigInteger r_prime = randomGenerator.randomInZq(q);
+        return genRandomization(publicKey, randomGenerator.randomInZq(q));
+    }
 
-        BigInteger a_prime = e.getA().multiply(modExp(pk, r_prime, p)).mod(p);
-        BigInteger b_prime = e.getB().multiply(modExp(g, r_prime, p)).mod(p);
+    private Randomization genRandomization(EncryptionPublicKey publicKey, BigInteger r) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        BigInteger g = publicParameters.getEncryptionGroup().getG();
+        BigInteger pk = publicKey.getPublicKey();
 
-        return new ReEncryption(new Encryption(a_prime, b_prime), r_prime);
+        return new Randomization(r, modExp(pk, r, p), modExp(g, r, p));
     }
 
     /**
@@ -174,9 +253,58 @@ public class MixingAuthorityAlgorithms {
     public ShuffleProof genShuffleProof(List<Encryption> bold_e, List<Encryption> bold_e_prime,
                                         List<BigInteger> bold_r_prime, List<Integer> psy,
                                         EncryptionPublicKey publicKey) {
+        List<Randomization> nonces = IntStream.range(0, SHUFFLE_PROOF_NONCES)
+                .mapToObj(i -> genRandomization(publicKey))
+                .collect(Collectors.toList());
+        return genShuffleProof(bold_e, bold_e_prime, bold_r_prime, psy, publicKey, nonces);
+    }
+
+    /**
+     * Algorithm 7.44: GenShuffleProof, using precomputed nonces for omega_1 to omega_4
+     *
+     * @param bold_e       the vector of ElGamal encryptions
+     * @param bold_e_prime the vector of permuted ElGamal re-encryptions
+     * @param bold_r_prime the randomizations used for the re-encryption
+     * @param psy          the permutation used
+     * @param publicKey    the public key for the encryption
+     * @param nonces       {@value #SHUFFLE_PROOF_NONCES} precomputed randomizations for <tt>publicKey</tt>, each may
+     *                     only be used once
+     * @return a proof of the validity of the shuffle, as per Wikström's
+     * <em><strong>A commitment-consistent proof of a shuffle</strong></em>
+     * @see #genRandomization(EncryptionPublicKey)
+     */
+    public ShuffleProof genShuffleProof(List<Encryption> bold_e, List<Encryption> bold_e_prime,
+                                        List<BigInteger> bold_r_prime, List<Integer> psy,
+                                        EncryptionPublicKey publicKey, List<Randomization> nonces) {
+        return genShuffleProof(bold_e, bold_e_prime, bold_r_prime, psy, publicKey, nonces,
+                genShuffleProofPrecomputation(bold_e.size()));
+    }
+
+    /**
+     * Algorithm 7.44: GenShuffleProof, using precomputed nonces and a precomputation of the parts of the proof
+     * which do not depend on the ciphertexts
+     *
+     * @param bold_e         the vector of ElGamal encryptions
+     * @param bold_e_prime   the vector of permuted ElGamal re-encryptions
+     * @param bold_r_prime   the randomizations used for the re-encryption
+     * @param psy            the permutation used
+     * @param publicKey      the public key for the encryption
+     * @param nonces         {@value #SHUFFLE_PROOF_NONCES} precomputed randomizations for <tt>publicKey</tt>, each
+     *                       may only be used once
+     * @param precomputation the input-independent part of the proof, prepared for any number of ballots; it may only
+     *                       be used once
+     * @return a proof of the validity of the shuffle, as per Wikström's
+     * <em><strong>A commitment-consistent proof of a shuffle</strong></em>
+     * @see #genShuffleProofPrecomputation(int)
+     */
+    public ShuffleProof genShuffleProof(List<Encryption> bold_e, List<Encryption> bold_e_prime,
+                                        List<BigInteger> bold_r_prime, List<Integer> psy,
+                                        EncryptionPublicKey publicKey, List<Randomization> nonces,
+                                        ShuffleProofPrecomputation precomputation) {
+        Preconditions.checkArgument(nonces.size() == SHUFFLE_PROOF_NONCES,
+                "There should be exactly " + SHUFFLE_PROOF_NONCES + " nonces");
         BigInteger p = publicParameters.getEncryptionGroup().getP();
         BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
         BigInteger h = publicParameters.getEncryptionGroup().getH();
         int tau = publicParameters.getSecurityParameters().getTau();
 
@@ -195,41 +323,41 @@ public class MixingAuthorityAlgorithms {
                 "The length of bold_r_prime should be equal to that of bold_e");
         Preconditions.checkArgument(psy.size() == upper_n,
                 "The length of psy should be equal to that of bold_e");
-        Preconditions.checkArgument(psy.containsAll(
-                IntStream.range(0, psy.size()).boxed().collect(Collectors.toList())),
+        Preconditions.checkArgument(isPermutation(psy),
                 "The permutation should contain all number from 0 (inclusive) to length (exclusive)");
 
         BigInteger pk = publicKey.getPublicKey();
 
-
-        List<BigInteger> bold_h = generalAlgorithms.getGenerators(upper_n);
-        PermutationCommitment permutationCommitment = genPermutationCommitment(psy, bold_h);
+        ShuffleProofPrecomputation bold_pre = adaptShuffleProofPrecomputation(precomputation, upper_n);
+        List<BigInteger> bold_h = bold_pre.getBold_h();
+        PermutationCommitment permutationCommitment = genPermutationCommitment(psy, bold_h,
+                bold_pre.getBold_r(), bold_pre.getBold_g_r());
         List<BigInteger> bold_c = permutationCommitment.getBold_c();
         List<BigInteger> bold_r = permutationCommitment.getBold_r();
-        List<BigInteger> bold_u = generalAlgorithms.getNIZKPChallenges(upper_n,
+        BigInteger two_to_tau = BigIntegers.TWO.pow(tau);
+        List<BigInteger> bold_u = toVector(generalAlgorithms.getNIZKPChallenges(upper_n,
                 new List[]{bold_e, bold_e_prime, bold_c},
-                tau);
+                tau), two_to_tau);
 
-        List<BigInteger> bold_u_prime = psy.stream()
-                .map(bold_u::get).collect(Collectors.toList());
+        List<BigInteger> bold_u_prime = vectorStore.newVector(upper_n, two_to_tau);
+        IntStream.range(0, upper_n).parallel().forEach(i -> bold_u_prime.set(i, bold_u.get(psy.get(i))));
 
         CommitmentChain commitmentChain = genCommitmentChain(h, bold_u_prime);
         List<BigInteger> bold_c_hat = commitmentChain.getBold_c();
         List<BigInteger> bold_r_hat = commitmentChain.getBold_r();
 
-        BigInteger omega_1 = randomGenerator.randomInZq(q);
-        BigInteger omega_2 = randomGenerator.randomInZq(q);
-        BigInteger omega_3 = randomGenerator.randomInZq(q);
-        BigInteger omega_4 = randomGenerator.randomInZq(q);
+        BigInteger omega_1 = nonces.get(0).getR();
+        BigInteger omega_2 = nonces.get(1).getR();
+        BigInteger omega_3 = nonces.get(2).getR();
+        // t_4 uses the negated exponent, hence omega_4 = -r: pk^-omega_4 = pk^r and g^-omega_4 = g^r
+        BigInteger omega_4 = nonces.get(3).getR().negate().mod(q);
 
-        List<BigInteger> bold_omega_hat = IntStream.range(0, upper_n).parallel()
-                .mapToObj(i -> randomGenerator.randomInZq(q)).collect(Collectors.toList());
-        List<BigInteger> bold_omega_prime = IntStream.range(0, upper_n).parallel()
-                .mapToObj(i -> randomGenerator.randomInZq(q)).collect(Collectors.toList());
+        List<BigInteger> bold_omega_hat = bold_pre.getBold_omega_hat();
+        List<BigInteger> bold_omega_prime = bold_pre.getBold_omega_prime();
 
         Object[] y = {bold_e, bold_e_prime, bold_c, bold_c_hat, pk};
-        ShuffleProof.T t = computeT(bold_e_prime, upper_n, p, g, h, pk, bold_h, bold_c_hat,
-                omega_1, omega_2, omega_3, omega_4, bold_omega_hat, bold_omega_prime);
+        ShuffleProof.T t = computeT(bold_e_prime, upper_n, p, h, bold_c_hat, nonces,
+                bold_pre.getBold_g_omega_hat(), bold_omega_prime, bold_pre.getBold_h_omega_prime());
         BigInteger c = generalAlgorithms.getNIZKPChallenge(y, t.elementsToHash(), tau);
 
         ShuffleProof.S s = computeS(bold_r_prime, upper_n, q, bold_r, bold_u, bold_u_prime, bold_r_hat,
@@ -251,17 +379,14 @@ public class MixingAuthorityAlgorithms {
         BigInteger s_3 = computeSi(N, q, bold_r, omega_3, c, bold_u);
         BigInteger s_4 = computeSi(N, q, bold_r_prime, omega_4, c, bold_u);
 
-        List<BigInteger> s_hat = new ArrayList<>();
-        List<BigInteger> s_prime = new ArrayList<>();
-        for (int i = 0; i < N; i++) {
-            BigInteger s_hat_i = bold_omega_hat.get(i).add(c.multiply(bold_r_hat.get(i))).mod(q);
-            s_hat.add(s_hat_i);
-
-            BigInteger s_prime_i = bold_omega_prime.get(i).add(c.multiply(bold_u_prime.get(i))).mod(q);
-            s_prime.add(s_prime_i);
-        }
+        List<BigInteger> s_hat = vectorStore.newVector(N, q);
+        List<BigInteger> s_prime = vectorStore.newVector(N, q);
+        IntStream.range(0, N).parallel().forEach(i -> {
+            s_hat.set(i, bold_omega_hat.get(i).add(c.multiply(bold_r_hat.get(i))).mod(q));
+            s_prime.set(i, bold_omega_prime.get(i).add(c.multiply(bold_u_prime.get(i))).mod(q));
+        });
 
-        return new ShuffleProof.S(s_1, s_2, s_3, s_4, s_hat, s_prime);
+        return new ShuffleProof.S(s_1, s_2, s_3, s_4, VectorStore.freeze(s_hat), VectorStore.freeze(s_prime));
     }
 
     private BigInteger computeSi(int N, BigInteger q, List<BigInteger> bold_r_hat, BigInteger omega_2, BigInteger c, List<BigInteger> v) {
@@ -275,56 +400,56 @@ public class MixingAuthorityAlgorithms {
     }
 
     private List<BigInteger> computeV(int N, BigInteger q, List<BigInteger> bold_u_prime) {
-        List<BigInteger> v = new ArrayList<>();
-        v.add(ONE);
-        for (int i = N - 2; i >= 0; i--) {
-            // inserting always at index 0 means that index 0 always contains the previous value
-            // and that values will be held in reverse order to the insertion order, which is equivalent to the
-            // algorithm described
-            BigInteger v_i = bold_u_prime.get(i + 1).multiply(v.get(0)).mod(q);
-            v.add(0, v_i);
+        List<BigInteger> v = vectorStore.newVector(N, q);
+        // v_N = 1, and v_i = u'_(i+1) * v_(i+1) for i from N-1 down to 1
+        BigInteger v_i = ONE;
+        for (int i = N - 1; i >= 0; i--) {
+            if (i < N - 1) {
+                v_i = bold_u_prime.get(i + 1).multiply(v_i).mod(q);
+            }
+            v.set(i, v_i);
         }
         return v;
     }
 
     private BigInteger computeS1(BigInteger q, List<BigInteger> bold_r, BigInteger omega_1, BigInteger c) {
-        BigInteger r_bar = bold_r.parallelStream()
+        BigInteger r_bar = IntStream.range(0, bold_r.size()).parallel()
+                .mapToObj(bold_r::get)
                 .reduce(BigInteger::add)
                 .orElse(ZERO)
                 .mod(q);
         return omega_1.add(c.multiply(r_bar)).mod(q);
     }
 
-    private ShuffleProof.T computeT(List<Encryption> bold_e_prime, int N, BigInteger p, BigInteger g, BigInteger h,
-                                    BigInteger pk, List<BigInteger> bold_h, List<BigInteger> bold_c_hat,
-                                    BigInteger omega_1, BigInteger omega_2, BigInteger omega_3, BigInteger omega_4,
-                                    List<BigInteger> bold_omega_hat, List<BigInteger> bold_omega_prime) {
-        BigInteger t_1 = modExp(g, omega_1, p);
-        BigInteger t_2 = modExp(g, omega_2, p);
+    private ShuffleProof.T computeT(List<Encryption> bold_e_prime, int N, BigInteger p, BigInteger h,
+                                    List<BigInteger> bold_c_hat, List<Randomization> nonces,
+                                    List<BigInteger> bold_g_omega_hat, List<BigInteger> bold_omega_prime,
+                                    List<BigInteger> bold_h_omega_prime) {
+        BigInteger t_1 = nonces.get(0).getG_r();
+        BigInteger t_2 = nonces.get(1).getG_r();
 
-        BigInteger h_prod = getBoldHProduct(N, p, bold_h, bold_omega_prime);
-        BigInteger t_3 = modExp(g, omega_3, p).multiply(h_prod).mod(p);
+        BigInteger h_prod = IntStream.range(0, N).parallel()
+                .mapToObj(bold_h_omega_prime::get)
+                .reduce(multiplyMod(p))
+                .orElse(ONE);
+        BigInteger t_3 = nonces.get(2).getG_r().multiply(h_prod).mod(p);
 
         BigInteger a_prime_prod = getAPrimeProd(bold_e_prime, N, p, bold_omega_prime);
-        BigInteger t_4_1 = modExp(pk, omega_4.negate(), p).multiply(a_prime_prod).mod(p);
+        BigInteger t_4_1 = nonces.get(3).getPk_r().multiply(a_prime_prod).mod(p);
 
         BigInteger b_prime_prod = getBPrimeProd(bold_e_prime, N, p, bold_omega_prime);
-        BigInteger t_4_2 = modExp(g, omega_4.negate(), p).multiply(b_prime_prod).mod(p);
-
-        // insert c_hat_0, thus offsetting c_hat indices by 1...
-        List<BigInteger> tmp_bold_c_hat = new ArrayList<>();
-        tmp_bold_c_hat.add(0, h);
-        tmp_bold_c_hat.addAll(bold_c_hat);
-
-        Map<Integer, BigInteger> bold_t_hat_map = IntStream.range(0, N).parallel().boxed()
-                .collect(toMap(identity(), i -> modExp(g, bold_omega_hat.get(i), p)
-                        .multiply(modExp(tmp_bold_c_hat.get(i), bold_omega_prime.get(i), p))
-                        .mod(p)));
-
-        List<BigInteger> bold_t_hat = IntStream.range(0, N)
-                .mapToObj(bold_t_hat_map::get).collect(Collectors.toList());
-        tmp_bold_c_hat.remove(0); // restore c_hat to its former state
-        return new ShuffleProof.T(t_1, t_2, t_3, Arrays.asList(t_4_1, t_4_2), bold_t_hat);
+        BigInteger t_4_2 = nonces.get(3).getG_r().multiply(b_prime_prod).mod(p);
+
+        List<BigInteger> bold_t_hat = vectorStore.newVector(N, p);
+        IntStream.range(0, N).parallel().forEach(i -> {
+            // c_hat_0 = h, thus offsetting c_hat indices by 1
+            BigInteger c_hat_i_minus_one = i == 0 ? h : bold_c_hat.get(i - 1);
+            bold_t_hat.set(i, bold_g_omega_hat.get(i)
+                    .multiply(modExp(c_hat_i_minus_one, bold_omega_prime.get(i), p))
+                    .mod(p));
+        });
+
+        return new ShuffleProof.T(t_1, t_2, t_3, Arrays.asList(t_4_1, t_4_2), VectorStore.freeze(bold_t_hat));
     }
 
     private BigInteger getBPrimeProd(List<Encryption> bold_e_prime, int N, BigInteger p, List<BigInteger> bold_omega_prime) {
@@ -344,12 +469,133 @@ public class MixingAuthorityAlgorithms {
     }
 
 
-    private BigInteger getBoldHProduct(int n, BigInteger p, List<BigInteger> bold_h, List<BigInteger> bold_omega_prime) {
-        return IntStream.range(0, n)
-                .parallel()
-                .mapToObj(i -> modExp(bold_h.get(i), bold_omega_prime.get(i), p))
-                .reduce(multiplyMod(p))
-                .orElse(ONE);
+    /**
+     * Prepare the parts of a shuffle proof which only depend on the number of ballots (pre-mix)
+     * <p>This covers the independent generators, the randomizations of the permutation commitment and the random
+     * values omega_hat and omega_prime, together with all their exponentiations. It may be computed during the
+     * voting period, for an estimate of the number of ballots.</p>
+     *
+     * @param upper_n the expected number of ballots
+     * @return the input-independent part of a shuffle proof
+     * @see #adaptShuffleProofPrecomputation(ShuffleProofPrecomputation, int)
+     */
+    public ShuffleProofPrecomputation genShuffleProofPrecomputation(int upper_n) {
+        Preconditions.checkArgument(upper_n >= 0, "The number of ballots may not be negative");
+        return genShuffleProofPrecomputation(generalAlgorithms.getGenerators(upper_n));
+    }
+
+    private ShuffleProofPrecomputation genShuffleProofPrecomputation(List<BigInteger> bold_h) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        BigInteger g = publicParameters.getEncryptionGroup().getG();
+        int upper_n = bold_h.size();
+
+        List<BigInteger> bold_r = vectorStore.newVector(upper_n, q);
+        List<BigInteger> bold_g_r = vectorStore.newVector(upper_n, p);
+        List<BigInteger> bold_omega_hat = vectorStore.newVector(upper_n, q);
+        List<BigInteger> bold_g_omega_hat = vectorStore.newVector(upper_n, p);
+        List<BigInteger> bold_omega_prime = vectorStore.newVector(upper_n, q);
+        List<BigInteger> bold_h_omega_prime = vectorStore.newVector(upper_n, p);
+
+        // each vector is drawn in full before the next one, as in the in-memory version
+        drawExponents(q, p, i -> g, bold_r, bold_g_r);
+        drawExponents(q, p, i -> g, bold_omega_hat, bold_g_omega_hat);
+        drawExponents(q, p, bold_h::get, bold_omega_prime, bold_h_omega_prime);
+
+        return new ShuffleProofPrecomputation(VectorStore.freeze(toVector(bold_h, p)), VectorStore.freeze(bold_r),
+                VectorStore.freeze(bold_g_r), VectorStore.freeze(bold_omega_hat),
+                VectorStore.freeze(bold_g_omega_hat), VectorStore.freeze(bold_omega_prime),
+                VectorStore.freeze(bold_h_omega_prime));
+    }
+
+    /**
+     * Fills a vector with random exponents in <tt>Z_q</tt>, and another with the matching powers
+     * <p>The exponents are drawn one chunk at a time, so that they need not all be held in the heap at once.</p>
+     *
+     * @param q           the order of the group
+     * @param p           the modulus of the group
+     * @param base        the base of the power at each index
+     * @param bold_x      the vector receiving the exponents
+     * @param bold_base_x the vector receiving the powers
+     */
+    private void drawExponents(BigInteger q, BigInteger p, IntFunction<BigInteger> base, List<BigInteger> bold_x,
+                               List<BigInteger> bold_base_x) {
+        int upper_n = bold_x.size();
+        for (int from = 0; from < upper_n; from += CHUNK_SIZE) {
+            int offset = from;
+            int length = Math.min(CHUNK_SIZE, upper_n - from);
+            List<BigInteger> x = randomGenerator.randomVectorInZq(q, length);
+
+            IntStream.range(0, length).parallel().forEach(k -> {
+                int i = offset + k;
+                bold_x.set(i, x.get(k));
+                bold_base_x.set(i, modExp(base.apply(i), x.get(k), p));
+            });
+        }
+    }
+
+    /**
+     * Adapt a precomputation to the actual number of ballots
+     * <p>The values at index i only depend on i: if there are fewer ballots than expected, the prefixes are used;
+     * if there are more, the missing indices are computed on the fly.</p>
+     *
+     * @param precomputation the precomputation, prepared for an estimated number of ballots
+     * @param upper_n        the actual number of ballots
+     * @return a precomputation for exactly upper_n ballots
+     */
+    public ShuffleProofPrecomputation adaptShuffleProofPrecomputation(ShuffleProofPrecomputation precomputation,
+                                                                      int upper_n) {
+        int upper_n_pre = precomputation.getUpper_n();
+        if (upper_n == upper_n_pre) {
+            return precomputation;
+        }
+        log.info(String.format("Shuffle proof precomputed for %d ballots, %d needed", upper_n_pre, upper_n));
+        if (upper_n < upper_n_pre) {
+            return new ShuffleProofPrecomputation(
+                    precomputation.getBold_h().subList(0, upper_n),
+                    precomputation.getBold_r().subList(0, upper_n),
+                    precomputation.getBold_g_r().subList(0, upper_n),
+                    precomputation.getBold_omega_hat().subList(0, upper_n),
+                    precomputation.getBold_g_omega_hat().subList(0, upper_n),
+                    precomputation.getBold_omega_prime().subList(0, upper_n),
+                    precomputation.getBold_h_omega_prime().subList(0, upper_n));
+        }
+        List<BigInteger> bold_h = generalAlgorithms.getGenerators(upper_n);
+        Preconditions.checkArgument(bold_h.subList(0, upper_n_pre).equals(precomputation.getBold_h()),
+                "The precomputation should have been prepared with the same generators");
+        ShuffleProofPrecomputation missing = genShuffleProofPrecomputation(bold_h.subList(upper_n_pre, upper_n));
+        return new ShuffleProofPrecomputation(
+                concat(precomputation.getBold_h(), missing.getBold_h()),
+                concat(precomputation.getBold_r(), missing.getBold_r()),
+                concat(precomputation.getBold_g_r(), missing.getBold_g_r()),
+                concat(precomputation.getBold_omega_hat(), missing.getBold_omega_hat()),
+                concat(precomputation.getBold_g_omega_hat(), missing.getBold_g_omega_hat()),
+                concat(precomputation.getBold_omega_prime(), missing.getBold_omega_prime()),
+                concat(precomputation.getBold_h_omega_prime(), missing.getBold_h_omega_prime()));
+    }
+
+    private List<BigInteger> concat(List<BigInteger> head, List<BigInteger> tail) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        List<BigInteger> result = vectorStore.newVector(head.size() + tail.size(), p);
+        IntStream.range(0, head.size()).parallel().forEach(i -> result.set(i, head.get(i)));
+        IntStream.range(0, tail.size()).parallel().forEach(i -> result.set(head.size() + i, tail.get(i)));
+        return VectorStore.freeze(result);
+    }
+
+    private List<Encryption> toEncryptionVector(Encryption[] encryptions) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        List<Encryption> vector = vectorStore.newEncryptionVector(encryptions.length, p);
+        IntStream.range(0, encryptions.length).parallel().forEach(i -> vector.set(i, encryptions[i]));
+        return VectorStore.freeze(vector);
+    }
+
+    /**
+     * Copy a list into a vector of the store, e.g. to move it out of the heap
+     */
+    private List<BigInteger> toVector(List<BigInteger> values, BigInteger bound) {
+        List<BigInteger> vector = vectorStore.newVector(values.size(), bound);
+        IntStream.range(0, values.size()).parallel().forEach(i -> vector.set(i, values.get(i)));
+        return vector;
     }
 
     /**
@@ -360,8 +606,7 @@ public class MixingAuthorityAlgorithms {
      * @return a commitment to the permutation
      */
     public PermutationCommitment genPermutationCommitment(List<Integer> psy, List<BigInteger> bold_h) {
-        Preconditions.checkArgument(psy.containsAll(
-                IntStream.range(0, psy.size()).boxed().collect(Collectors.toList())),
+        Preconditions.checkArgument(isPermutation(psy),
                 "The permutation should contain all number from 0 (inclusive) to length (exclusive)");
         Preconditions.checkArgument(psy.size() == bold_h.size(),
                 "The lengths of psy and bold_h should be identical");
@@ -372,22 +617,25 @@ public class MixingAuthorityAlgorithms {
         BigInteger q = publicParameters.getEncryptionGroup().getQ();
         BigInteger g = publicParameters.getEncryptionGroup().getG();
 
-        // Loop indexed over j_i instead of i, for performance reasons, with a reverse permutation lookup
-        List<Integer> reversePsy = reversePermutation(psy);
+        List<BigInteger> bold_r = randomGenerator.randomVectorInZq(q, psy.size());
+        List<BigInteger> bold_g_r = bold_r.parallelStream().map(r_j -> modExp(g, r_j, p))
+                .collect(Collectors.toList());
 
-        Map<Integer, BigInteger> bold_r_map = IntStream.range(0, psy.size()).parallel().boxed()
-                .collect(Collectors.toMap(identity(), j_i -> randomGenerator.randomInZq(q)));
-        Map<Integer, BigInteger> bold_c_map = IntStream.range(0, psy.size()).parallel().boxed()
-                .collect(Collectors.toMap(identity(), j_i -> {
-                    Integer i = reversePsy.get(j_i);
-                    BigInteger r_j_i = bold_r_map.get(j_i);
-                    return modExp(g, r_j_i, p).multiply(bold_h.get(i)).mod(p);
-                }));
+        return genPermutationCommitment(psy, bold_h, bold_r, bold_g_r);
+    }
+
+    private PermutationCommitment genPermutationCommitment(List<Integer> psy, List<BigInteger> bold_h,
+                                                           List<BigInteger> bold_r, List<BigInteger> bold_g_r) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+
+        // Loop indexed over j_i instead of i, for performance reasons, with a reverse permutation lookup
+        int[] reversePsy = reversePermutation(psy);
 
-        List<BigInteger> bold_c = IntStream.range(0, psy.size()).mapToObj(bold_c_map::get).collect(Collectors.toList());
-        List<BigInteger> bold_r = IntStream.range(0, psy.size()).mapToObj(bold_r_map::get).collect(Collectors.toList());
+        List<BigInteger> bold_c = vectorStore.newVector(psy.size(), p);
+        IntStream.range(0, psy.size()).parallel().forEach(j_i ->
+                bold_c.set(j_i, bold_g_r.get(j_i).multiply(bold_h.get(reversePsy[j_i])).mod(p)));
 
-        return new PermutationCommitment(bold_c, bold_r);
+        return new PermutationCommitment(VectorStore.freeze(bold_c), bold_r);
     }
 
     /**
@@ -407,32 +655,54 @@ public class MixingAuthorityAlgorithms {
         Preconditions.checkArgument(bold_u.parallelStream().allMatch(generalAlgorithms::isInZ_q),
                 "all u_i's must be in Z_q");
 
-        List<BigInteger> bold_c = new ArrayList<>();
-        List<BigInteger> bold_r = new ArrayList<>();
-
-        bold_c.add(c_0); // c_0, we'll remove it afterwards
-
-        for (int i = 0; i < bold_u.size(); i++) {
-            BigInteger c_i_minus_one = bold_c.get(i); // offset by one, due to adding c_0 as a prefix
-            BigInteger u_prime_i = bold_u.get(i);
-
-            BigInteger r_i = randomGenerator.randomInZq(q);
-            BigInteger c_i = modExp(g, r_i, p).multiply(modExp(c_i_minus_one, u_prime_i, p)).mod(p);
-
-            bold_c.add(c_i);
-            bold_r.add(r_i);
+        int upper_n = bold_u.size();
+        List<BigInteger> bold_r = vectorStore.newVector(upper_n, q);
+        List<BigInteger> bold_c = vectorStore.newVector(upper_n, p);
+
+        BigInteger c_i = c_0;
+        for (int from = 0; from < upper_n; from += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, upper_n - from);
+            BigInteger[] r = new BigInteger[length];
+            for (int k = 0; k < length; k++) {
+                r[k] = randomGenerator.randomInZq(q);
+            }
+            // the full-length exponentiations do not depend on the chain: only the powers of the tau-bit challenges
+            // remain in the sequential part
+            BigInteger[] g_r = Arrays.stream(r).parallel().map(r_i -> modExp(g, r_i, p)).toArray(BigInteger[]::new);
+
+            for (int k = 0; k < length; k++) {
+                int i = from + k;
+                c_i = g_r[k].multiply(modExp(c_i, bold_u.get(i), p)).mod(p);
+                bold_r.set(i, r[k]);
+                bold_c.set(i, c_i);
+            }
         }
 
-        bold_c.remove(0);
-
-        return new CommitmentChain(bold_c, bold_r);
+        return new CommitmentChain(VectorStore.freeze(bold_c), VectorStore.freeze(bold_r));
     }
 
-    private List<Integer> reversePermutation(List<Integer> psy) {
-        Preconditions.checkArgument(psy.containsAll(
-                IntStream.range(0, psy.size()).boxed().collect(Collectors.toList())),
+    private int[] reversePermutation(List<Integer> psy) {
+        Preconditions.checkArgument(isPermutation(psy),
                 "The permutation should contain all number from 0 (inclusive) to length (exclusive)");
 
-        return IntStream.range(0, psy.size()).mapToObj(psy::indexOf).collect(Collectors.toList());
+        int[] reversePsy = new int[psy.size()];
+        for (int i = 0; i < psy.size(); i++) {
+            reversePsy[psy.get(i)] = i;
+        }
+        return reversePsy;
+    }
+
+    /**
+     * @return true if psy contains all numbers from 0 (inclusive) to its length (exclusive), in linear time
+     */
+    private boolean isPermutation(List<Integer> psy) {
+        BitSet seen = new BitSet(psy.size());
+        for (Integer j_i : psy) {
+            if (j_i == null || j_i < 0 || j_i >= psy.size() || seen.get(j_i)) {
+                return false;
+            }
+            seen.set(j_i);
+        }
+        return true;
     }
 }
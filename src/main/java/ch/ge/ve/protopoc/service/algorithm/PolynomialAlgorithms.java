@@ -21,12 +21,12 @@
 
 package ch.ge.ve.protopoc.service.algorithm;
 
+import ch.ge.ve.protopoc.arithmetic.PrimeFieldArithmetic;
 import ch.ge.ve.protopoc.service.model.PrimeField;
 import ch.ge.ve.protopoc.service.model.polynomial.Point;
 import ch.ge.ve.protopoc.service.model.polynomial.PointsAndZeroImages;
 import ch.ge.ve.protopoc.service.support.RandomGenerator;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,11 +43,13 @@ public class PolynomialAlgorithms {
     private static final Logger log = LoggerFactory.getLogger(PolynomialAlgorithms.class);
     private final RandomGenerator randomGenerator;
     private final PrimeField primeField;
+    private final PrimeFieldArithmetic primeFieldArithmetic;
 
 
     public PolynomialAlgorithms(RandomGenerator randomGenerator, PrimeField primeField) {
         this.randomGenerator = randomGenerator;
         this.primeField = primeField;
+        this.primeFieldArithmetic = new PrimeFieldArithmetic(primeField.getP_prime());
     }
 
     /**
@@ -71,13 +73,14 @@ public class PolynomialAlgorithms {
         for (int j = 0; j < bold_n.size(); j++) {
             Set<BigInteger> upper_x = new HashSet<>();
             List<BigInteger> bold_a_j = genPolynomial(bold_k.get(j) - 1);
+            long[] a_j = toFieldElements(bold_a_j);
             for (int l = 0; l < bold_n.get(j); l++) {
                 BigInteger x;
                 do {
                     x = randomGenerator.randomInZq(primeField.getP_prime());
                 } while (x.compareTo(BigInteger.ZERO) == 0 || upper_x.contains(x));
                 upper_x.add(x);
-                BigInteger y = getYValue(x, bold_a_j);
+                BigInteger y = evaluate(a_j, bold_a_j.size(), x);
                 Point p_i = new Point(x, y);
                 bold_p.add(p_i);
                 log.debug(String.format("Created point %d: %s", i, p_i));
@@ -127,12 +130,36 @@ public class PolynomialAlgorithms {
         if (x.equals(BigInteger.ZERO)) {
             return bold_a.get(0);
         } else {
-            BigInteger y = BigInteger.ZERO;
-            for (BigInteger a_i : Lists.reverse(bold_a)) {
-                y = a_i.add(x.multiply(y).mod(primeField.getP_prime())).mod(primeField.getP_prime());
-            }
-            return y;
+            return evaluate(toFieldElements(bold_a), bold_a.size(), x);
+        }
+    }
+
+    private long[] toFieldElements(List<BigInteger> bold_a) {
+        long[] elements = primeFieldArithmetic.newElements(bold_a.size());
+        for (int i = 0; i < bold_a.size(); i++) {
+            primeFieldArithmetic.set(bold_a.get(i), elements, i * primeFieldArithmetic.getLimbs());
+        }
+        return elements;
+    }
+
+    /**
+     * Evaluates a polynomial with Horner's rule, on fixed-width field elements
+     *
+     * @param a the packed coefficients a_0, ..., a_d
+     * @param size the number of coefficients, d + 1
+     * @param x the value in Z_p_prime
+     * @return the value of the polynomial at x
+     */
+    private BigInteger evaluate(long[] a, int size, BigInteger x) {
+        int limbs = primeFieldArithmetic.getLimbs();
+        long[] x_element = primeFieldArithmetic.valueOf(x);
+        long[] y = primeFieldArithmetic.newElements(1);
+        long[] t = primeFieldArithmetic.newScratch();
+        for (int i = size - 1; i >= 0; i--) {
+            primeFieldArithmetic.multiply(y, 0, x_element, 0, y, 0, t);
+            primeFieldArithmetic.add(y, 0, a, i * limbs, y, 0);
         }
+        return primeFieldArithmetic.toBigInteger(y, 0);
     }
 
 }
@@ -24,18 +24,23 @@ package ch.ge.ve.protopoc.service.algorithm;
 import ch.ge.ve.protopoc.service.exception.NotEnoughPrimesInGroupException;
 import ch.ge.ve.protopoc.service.exception.TallyingRuntimeException;
 import ch.ge.ve.protopoc.service.model.DecryptionProof;
+import ch.ge.ve.protopoc.service.model.Election;
 import ch.ge.ve.protopoc.service.model.Encryption;
 import ch.ge.ve.protopoc.service.model.PublicParameters;
+import ch.ge.ve.protopoc.service.model.Tally;
+import ch.ge.ve.protopoc.service.support.RemainderTree;
+import ch.ge.ve.protopoc.service.support.TallyAccumulator;
 import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
+import java.util.BitSet;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp2;
 import static java.math.BigInteger.ONE;
 
 /**
@@ -121,11 +126,11 @@ public class TallyingAuthoritiesAlgorithm {
         Object[] y = {pk_j, bold_b, bold_b_prime};
         BigInteger[] t = pi_prime.getT().toArray(new BigInteger[0]);
         BigInteger c = generalAlgorithms.getNIZKPChallenge(y, t, tau);
-        BigInteger t_prime_0 = modExp(pk_j, c.negate(), p).multiply(modExp(g, pi_prime.getS(), p)).mod(p);
+        // pk_j and the partial decryptions belong to G_q, where x^-c = x^(q - c)
+        BigInteger minus_c = c.negate().mod(q);
+        BigInteger t_prime_0 = modExp2(pk_j, minus_c, g, pi_prime.getS(), p);
         List<BigInteger> t_prime = IntStream.range(0, bold_b.size())
-                .mapToObj(i ->
-                        modExp(bold_b_prime.get(i), c.negate(), p)
-                                .multiply(modExp(bold_b.get(i), pi_prime.getS(), p)).mod(p))
+                .mapToObj(i -> modExp2(bold_b_prime.get(i), minus_c, bold_b.get(i), pi_prime.getS(), p))
                 .collect(Collectors.toList());
         t_prime.add(0, t_prime_0);
 
@@ -177,11 +182,40 @@ public class TallyingAuthoritiesAlgorithm {
      * @param n      the number of candidates
      * @return the election result matrix upper_bold_v, where each resulting vector v_i represents somebody’s vote,
      * and each value v_{ij} = 1 represents somebody’s vote for a specific candidate j &isin; {1, ..., n}
+     * <p>Each vector v_i is represented as a bit set, where bit j is set if and only if v_{ij} = 1</p>
      */
-    public List<List<Boolean>> getVotes(List<BigInteger> bold_m, int n) {
+    public List<BitSet> getVotes(List<BigInteger> bold_m, int n) {
         Preconditions.checkArgument(bold_m.parallelStream().allMatch(generalAlgorithms::isMember),
                 "all m_i's must be in G_q");
         Preconditions.checkArgument(n >= 2, "There must be at least two candidates");
+        RemainderTree remainderTree = getRemainderTree(n);
+        return bold_m.parallelStream().map(remainderTree::getDivisors).collect(Collectors.toList());
+    }
+
+    /**
+     * Decodes the votes as in {@link #getVotes(List, int)} and tallies them on the fly, without keeping the
+     * individual votes in memory.
+     *
+     * @param bold_m    the products of encoded selections
+     * @param elections the elections, in order
+     * @return the tally, including the per-election sub-tallies and selection count checks
+     */
+    public Tally getTally(List<BigInteger> bold_m, List<Election> elections) {
+        Preconditions.checkArgument(bold_m.parallelStream().allMatch(generalAlgorithms::isMember),
+                "all m_i's must be in G_q");
+        int n = elections.stream().mapToInt(Election::getNumberOfCandidates).sum();
+        Preconditions.checkArgument(n >= 2, "There must be at least two candidates");
+        RemainderTree remainderTree = getRemainderTree(n);
+        return bold_m.parallelStream().map(remainderTree::getDivisors)
+                .collect(TallyAccumulator.collector(elections));
+    }
+
+    /**
+     * @param n the number of candidates
+     * @return a remainder tree over the primes encoding the candidates: m_i mod p_j, for all j, is obtained by
+     * successive reductions along the product tree of the primes
+     */
+    private RemainderTree getRemainderTree(int n) {
         List<BigInteger> bold_p;
         try {
             bold_p = generalAlgorithms.getPrimes(n);
@@ -189,10 +223,6 @@ public class TallyingAuthoritiesAlgorithm {
             log.error("Error while tallying the votes", e);
             throw new TallyingRuntimeException(e);
         }
-
-        return bold_m.stream()
-                .map(m_i -> bold_p.stream()
-                        .map(p_j -> m_i.mod(p_j).compareTo(BigInteger.ZERO) == 0).collect(Collectors.toList()))
-                .collect(Collectors.toList());
+        return new RemainderTree(bold_p);
     }
 }
@@ -40,6 +40,7 @@ import java.util.Collection;
 import java.util.List;
 
 import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp2;
 import static java.math.BigInteger.ONE;
 
 /**
@@ -87,9 +88,7 @@ public class VoteCastingAuthorityAlgorithms {
 
         int numberOfSelections = bold_a.size();
         Preconditions.checkArgument(numberOfSelections > 0);
-        Voter voter = electionSet.getVoters().get(i);
-        int k_i = electionSet.getElections().stream().filter(e -> electionSet.isEligible(voter, e))
-                .mapToInt(Election::getNumberOfSelections).sum();
+        int k_i = electionSet.getEligibilityIndex().getK_sum(i);
         Preconditions.checkArgument(numberOfSelections == k_i,
                 "A voter may not submit more than his allowed number of selections");
         Preconditions.checkNotNull(pk);
@@ -144,6 +143,9 @@ public class VoteCastingAuthorityAlgorithms {
         Preconditions.checkNotNull(b);
         Preconditions.checkNotNull(pk);
         Preconditions.checkNotNull(pk.getPublicKey());
+        Preconditions.checkArgument(generalAlgorithms.isMember_G_q_hat(x_hat), "x_hat must be in G_q_hat");
+        Preconditions.checkArgument(generalAlgorithms.isMember(a), "a must be in G_q");
+        Preconditions.checkArgument(generalAlgorithms.isMember(b), "b must be in G_q");
         Preconditions.checkArgument(t.size() == 3, "t contains three elements");
         Preconditions.checkArgument(generalAlgorithms.isMember_G_q_hat(t.get(0)),
                 "t_1 must be in G_q_hat");
@@ -160,7 +162,7 @@ public class VoteCastingAuthorityAlgorithms {
         Preconditions.checkArgument(generalAlgorithms.isMember(s_2), "s_2 must be in G_q");
         Preconditions.checkArgument(generalAlgorithms.isInZ_q(s_3), "s_3 must be in Z_q");
 
-        Preconditions.checkArgument(pk.getEncryptionGroup() == publicParameters.getEncryptionGroup());
+        Preconditions.checkArgument(pk.getEncryptionGroup().equals(publicParameters.getEncryptionGroup()));
 
         log.debug(String.format("checkBallotProof: a = %s", a));
 
@@ -168,6 +170,7 @@ public class VoteCastingAuthorityAlgorithms {
         BigInteger q = publicParameters.getEncryptionGroup().getQ();
         BigInteger g = publicParameters.getEncryptionGroup().getG();
         BigInteger p_hat = publicParameters.getIdentificationGroup().getP_hat();
+        BigInteger q_hat = publicParameters.getIdentificationGroup().getQ_hat();
         BigInteger g_hat = publicParameters.getIdentificationGroup().getG_hat();
         int tau = publicParameters.getSecurityParameters().getTau();
 
@@ -177,9 +180,11 @@ public class VoteCastingAuthorityAlgorithms {
         BigInteger c = generalAlgorithms.getNIZKPChallenge(y, t_array, tau);
         log.debug(String.format("checkBallotProof: c = %s", c));
 
-        BigInteger t_prime_1 = modExp(x_hat, c.negate(), p_hat).multiply(modExp(g_hat, s_1, p_hat)).mod(p_hat);
-        BigInteger t_prime_2 = modExp(a, c.negate(), p).multiply(s_2).multiply(modExp(pk.getPublicKey(), s_3, p)).mod(p);
-        BigInteger t_prime_3 = modExp(b, c.negate(), p).multiply(modExp(g, s_3, p)).mod(p);
+        // x^-c = x^(q - c) in a group of order q
+        BigInteger t_prime_1 = modExp2(x_hat, c.negate().mod(q_hat), g_hat, s_1, p_hat);
+        BigInteger t_prime_2 = modExp2(a, c.negate().mod(q), pk.getPublicKey(), s_3, p)
+                .multiply(s_2).mod(p);
+        BigInteger t_prime_3 = modExp2(b, c.negate().mod(q), g, s_3, p);
 
         return t_array[0].compareTo(t_prime_1) == 0 &&
                 t_array[1].compareTo(t_prime_2) == 0 &&
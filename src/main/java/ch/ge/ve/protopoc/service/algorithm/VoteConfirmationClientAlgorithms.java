@@ -21,10 +21,13 @@
 
 package ch.ge.ve.protopoc.service.algorithm;
 
+import ch.ge.ve.protopoc.arithmetic.PrimeFieldArithmetic;
 import ch.ge.ve.protopoc.service.model.Confirmation;
 import ch.ge.ve.protopoc.service.model.FinalizationCodePart;
 import ch.ge.ve.protopoc.service.model.NonInteractiveZKP;
 import ch.ge.ve.protopoc.service.model.PublicParameters;
+import ch.ge.ve.protopoc.service.model.polynomial.LagrangeWeights;
+import ch.ge.ve.protopoc.service.model.polynomial.PackedPoints;
 import ch.ge.ve.protopoc.service.model.polynomial.Point;
 import ch.ge.ve.protopoc.service.support.ByteArrayUtils;
 import ch.ge.ve.protopoc.service.support.Conversion;
@@ -52,9 +55,11 @@ public class VoteConfirmationClientAlgorithms {
     private final GeneralAlgorithms generalAlgorithms;
     private final Hash hash;
     private final Conversion conversion = new Conversion();
+    private final PrimeFieldArithmetic primeFieldArithmetic;
 
     public VoteConfirmationClientAlgorithms(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms, RandomGenerator randomGenerator, Hash hash) {
         this.publicParameters = publicParameters;
+        this.primeFieldArithmetic = new PrimeFieldArithmetic(publicParameters.getPrimeField().getP_prime());
         this.randomGenerator = randomGenerator;
         this.generalAlgorithms = generalAlgorithms;
         this.hash = hash;
@@ -123,12 +128,14 @@ public class VoteConfirmationClientAlgorithms {
         Preconditions.checkArgument(bold_k.stream().allMatch(k_j -> k_j >= 0),
                 "All k_j's must be greater than or equal to 0");
 
+        PackedPoints packedPoints = PackedPoints.pack(bold_p, primeFieldArithmetic);
         List<BigInteger> bold_y = new ArrayList<>();
         int i = 0;
         for (Integer k_j : bold_k) {
-            BigInteger y_i = getValue(bold_p.subList(i, i + k_j));
-            bold_y.add(y_i);
-            i += k_j;
+            int from = i;
+            int to = i + k_j;
+            bold_y.add(LagrangeWeights.atZero(packedPoints, from, to).interpolate(packedPoints, from, to));
+            i = to;
         }
 
         return bold_y;
@@ -150,25 +157,8 @@ public class VoteConfirmationClientAlgorithms {
                                 point.y.compareTo(p_prime) < 0),
                 "All points' coordinates must be in Z_p_prime");
 
-        BigInteger y = ZERO;
-        for (int i = 0; i < bold_p.size(); i++) {
-            BigInteger n = BigInteger.ONE;
-            BigInteger d = BigInteger.ONE;
-            for (int j = 0; j < bold_p.size(); j++) {
-                if (i != j) {
-                    BigInteger x_i = bold_p.get(i).x;
-                    BigInteger x_j = bold_p.get(j).x;
-
-                    n = n.multiply(x_j).mod(p_prime);
-                    d = d.multiply(x_j.subtract(x_i)).mod(p_prime);
-                }
-            }
-            BigInteger y_i = bold_p.get(i).y;
-
-            y = y.add(y_i.multiply(n.multiply(d.modInverse(p_prime)))).mod(p_prime);
-        }
-
-        return y;
+        PackedPoints packedPoints = PackedPoints.pack(bold_p, primeFieldArithmetic);
+        return LagrangeWeights.atZero(packedPoints, 0, bold_p.size()).interpolate(packedPoints, 0, bold_p.size());
     }
 
     /**
@@ -27,8 +27,12 @@ import ch.ge.ve.protopoc.service.support.Conversion;
 import com.google.common.base.Preconditions;
 
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -38,6 +42,10 @@ import static ch.ge.ve.protopoc.service.support.ByteArrayUtils.markByteArray;
  * Algorithms related to the preparation of code sheets
  */
 public class VotingCardPreparationAlgorithms {
+    /**
+     * Number of consecutive voters whose voting cards are prepared together
+     */
+    public static final int VOTING_CARD_BATCH_SIZE = 64;
     private final Conversion conversion = new Conversion();
     private final PublicParameters publicParameters;
     private final int s;
@@ -57,16 +65,52 @@ public class VotingCardPreparationAlgorithms {
      * @return all the relevant information combined for printing on the code sheets
      */
     public List<VotingCard> getVotingCard(ElectionSet electionSet, List<List<SecretVoterData>> bold_upper_d) {
+        List<VotingCard> votingCards = new ArrayList<>();
+        getVotingCards(electionSet, bold_upper_d, (firstVoterIndex, batch) -> votingCards.addAll(batch));
+        return votingCards;
+    }
+
+    /**
+     * Algorithm 7.13: GetVotingCards, streaming variant
+     * <p>The voters are split in batches of {@value #VOTING_CARD_BATCH_SIZE} consecutive voters, prepared in
+     * parallel. The batches are handed to the sink in voter order as soon as they, and all the preceding ones, are
+     * available; only a bounded number of batches are held in memory at any time.</p>
+     *
+     * @param electionSet  the electionSet definition, including bold_v, bold_c, bold_n, bold_k and bold_upper_e
+     * @param bold_upper_d the secret voter data generated by each authority for each voter
+     *                     (codeSheetData.get(j) = bold_d_j : the list of the voters' secret data for authority j)
+     * @param sink         the consumer of the prepared voting cards
+     */
+    public void getVotingCards(ElectionSet electionSet, List<List<SecretVoterData>> bold_upper_d,
+                               VotingCardSink sink) {
         Preconditions.checkArgument(bold_upper_d.size() == publicParameters.getS(),
                 String.format("|D| [%d] != s [%d]", bold_upper_d.size(), publicParameters.getS()));
         Preconditions.checkArgument(bold_upper_d.stream().allMatch(
                 secretVoterDatas -> secretVoterDatas.size() == electionSet.getVoters().size()),
                 "Each authority should have submitted one code sheet per voter");
 
-        List<VotingCard> votingCards = new ArrayList<>();
-        for (int i = 0; i < electionSet.getVoters().size(); i++) {
-            Voter v_i = electionSet.getVoters().get(i);
+        int votersCount = electionSet.getVoters().size();
+        int batchesCount = (votersCount + VOTING_CARD_BATCH_SIZE - 1) / VOTING_CARD_BATCH_SIZE;
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism();
+
+        Deque<CompletableFuture<List<VotingCard>>> pendingBatches = new ArrayDeque<>();
+        int nextBatch = 0;
+        for (int batch = 0; batch < batchesCount; batch++) {
+            while (nextBatch < batchesCount && pendingBatches.size() < window) {
+                int from = nextBatch * VOTING_CARD_BATCH_SIZE;
+                int to = Math.min(from + VOTING_CARD_BATCH_SIZE, votersCount);
+                pendingBatches.add(CompletableFuture.supplyAsync(
+                        () -> getVotingCardsBatch(electionSet, bold_upper_d, from, to)));
+                nextBatch++;
+            }
+            sink.accept(batch * VOTING_CARD_BATCH_SIZE, pendingBatches.remove().join());
+        }
+    }
 
+    private List<VotingCard> getVotingCardsBatch(ElectionSet electionSet, List<List<SecretVoterData>> bold_upper_d,
+                                                 int from, int to) {
+        List<VotingCard> votingCards = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
             // for each authority, get the secret data pertaining to voter i
             final int local_i = i;
             List<SecretVoterData> secretVoterDataList = bold_upper_d.stream()
@@ -76,7 +120,7 @@ public class VotingCardPreparationAlgorithms {
             String upper_y = compute_upper_y(secretVoterDataList);
             String upper_fc = compute_upper_fc(secretVoterDataList);
             List<String> bold_rc = compute_bold_rc(electionSet, secretVoterDataList);
-            List<Integer> bold_k_i = compute_bold_k_i(electionSet, v_i);
+            List<Integer> bold_k_i = electionSet.getEligibilityIndex().getBold_k(i);
 
             votingCards.add(getVotingCard(i, electionSet, bold_k_i, upper_x, upper_y, upper_fc, bold_rc));
         }
@@ -139,27 +183,28 @@ public class VotingCardPreparationAlgorithms {
      */
     private List<String> compute_bold_rc(ElectionSet electionSet, List<SecretVoterData> secretVoterDataList) {
         List<Character> upper_a_r = publicParameters.getUpper_a_r();
-        return IntStream.range(0, electionSet.getCandidates().size()).mapToObj(k ->
-                IntStream.range(0, s).mapToObj(secretVoterDataList::get)
-                        .map(secretVoterData -> secretVoterData.getRc()[k])
-                        .reduce(ByteArrayUtils::xor) // 1.
-                        .map(upper_r_ik -> markByteArray(upper_r_ik, k, publicParameters.getN_max())) // 2.
-                        .map(b -> conversion.toString(b, upper_a_r)) // 3.
-                        .orElse("")
-        ).collect(Collectors.toList());
+        // each getRc() call copies all the return codes of the voter, they are only fetched once per authority
+        List<byte[][]> bold_rc_ij = secretVoterDataList.stream().limit(s)
+                .map(SecretVoterData::getRc)
+                .collect(Collectors.toList());
+        List<String> bold_rc = new ArrayList<>();
+        for (int k = 0; k < electionSet.getCandidates().size(); k++) {
+            byte[] upper_r_ik = null;
+            for (byte[][] rc_ij : bold_rc_ij) {
+                upper_r_ik = upper_r_ik == null ? rc_ij[k] : xorInPlace(upper_r_ik, rc_ij[k]); // 1.
+            }
+            bold_rc.add(upper_r_ik == null ? "" :
+                    conversion.toString(markByteArray(upper_r_ik, k, publicParameters.getN_max()), upper_a_r)); // 2. 3.
+        }
+        return bold_rc;
     }
 
-    /**
-     * k_i = (e_{i,1} * k_1, ..., e_{i,t} * kt)
-     *
-     * @param electionSet the electionSet definition, including v, c, n, k and E
-     * @param v_i         the individual voter
-     * @return the vector of allowed number of selections per election for the voter
-     */
-    private List<Integer> compute_bold_k_i(ElectionSet electionSet, Voter v_i) {
-        return electionSet.getElections().stream()
-                .map(e -> electionSet.isEligible(v_i, e) ? e.getNumberOfSelections() : 0)
-                .collect(Collectors.toList());
+    private static byte[] xorInPlace(byte[] a, byte[] b) {
+        Preconditions.checkArgument(a.length == b.length, "The arrays must have the same length");
+        for (int i = 0; i < a.length; i++) {
+            a[i] ^= b[i];
+        }
+        return a;
     }
 
     /**
@@ -0,0 +1,40 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.algorithm;
+
+import ch.ge.ve.protopoc.service.model.VotingCard;
+
+import java.util.List;
+
+/**
+ * Receives the voting cards as they are prepared, one batch of consecutive voters at a time
+ */
+@FunctionalInterface
+public interface VotingCardSink {
+    /**
+     * Called once per batch, in increasing voter order, from a single thread at a time
+     *
+     * @param firstVoterIndex the index, within the election set, of the first voter of the batch
+     * @param votingCards     the voting cards of the voters of the batch
+     */
+    void accept(int firstVoterIndex, List<VotingCard> votingCards);
+}
@@ -0,0 +1,204 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.codec;
+
+import ch.ge.ve.protopoc.service.exception.MalformedMessageException;
+import ch.ge.ve.protopoc.service.model.Encryption;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.model.polynomial.Point;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader of the fields written by a {@link FieldWriter}
+ * <p>The elements of the vectors are read one at a time, straight into the vectors of a {@link VectorStore}. Every
+ * element is checked against its exclusive upper bound, and every length against the limit given by the caller before
+ * anything is allocated for it.</p>
+ */
+final class FieldReader {
+    /**
+     * Upper bound of the length of the integers of unknown bound, large enough for any group parameter
+     */
+    private static final int MAX_INTEGER_WIDTH = 1 << 16;
+    /**
+     * Upper bound of the size of the alphabets, as many as there are characters
+     */
+    private static final int MAX_CHARACTERS = 1 << 16;
+
+    private final DataInputStream in;
+    private final VectorStore vectorStore;
+
+    FieldReader(InputStream in, VectorStore vectorStore) {
+        this.in = new DataInputStream(in);
+        this.vectorStore = vectorStore;
+    }
+
+    MessageType readHeader(int version) throws IOException {
+        int messageVersion = in.readUnsignedByte();
+        if (messageVersion != version) {
+            throw new MalformedMessageException("Unsupported message version " + messageVersion);
+        }
+        return MessageType.fromCode(in.readUnsignedByte());
+    }
+
+    BigInteger readElement(int width, BigInteger bound) throws IOException {
+        byte[] bytes = new byte[width];
+        in.readFully(bytes);
+        BigInteger value = new BigInteger(1, bytes);
+        if (value.compareTo(bound) >= 0) {
+            throw new MalformedMessageException("Field value out of bounds");
+        }
+        return value;
+    }
+
+    BigInteger readInteger() throws IOException {
+        int width = readLength(MAX_INTEGER_WIDTH);
+        byte[] bytes = new byte[width];
+        in.readFully(bytes);
+        return new BigInteger(1, bytes);
+    }
+
+    int readInt() throws IOException {
+        return in.readInt();
+    }
+
+    double readDouble() throws IOException {
+        return in.readDouble();
+    }
+
+    String readString() throws IOException {
+        return in.readUTF();
+    }
+
+    List<Character> readCharacters() throws IOException {
+        int count = readLength(MAX_CHARACTERS);
+        List<Character> characters = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            characters.add(in.readChar());
+        }
+        return characters;
+    }
+
+    List<Long> readLongs(int maxCount) throws IOException {
+        int count = readLength(maxCount);
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(in.readLong());
+        }
+        return values;
+    }
+
+    /**
+     * @return a short list of elements, held in the heap
+     */
+    List<BigInteger> readElements(int count, int width, BigInteger bound) throws IOException {
+        List<BigInteger> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readElement(width, bound));
+        }
+        return values;
+    }
+
+    /**
+     * @param maxSize the largest size accepted, e.g. N for the vectors of the ballots
+     * @return an N-length vector, allocated from the store and frozen
+     */
+    List<BigInteger> readVector(int maxSize, int width, BigInteger bound) throws IOException {
+        int size = readLength(maxSize);
+        List<BigInteger> values = vectorStore.newVector(size, bound);
+        for (int i = 0; i < size; i++) {
+            values.set(i, readElement(width, bound));
+        }
+        return VectorStore.freeze(values);
+    }
+
+    /**
+     * @param maxSize the largest size accepted
+     * @return an N-length vector of encryptions, allocated from the store and frozen
+     */
+    List<Encryption> readEncryptions(int maxSize, int width, BigInteger bound) throws IOException {
+        int size = readLength(maxSize);
+        List<Encryption> encryptions = vectorStore.newEncryptionVector(size, bound);
+        for (int i = 0; i < size; i++) {
+            encryptions.set(i, new Encryption(readElement(width, bound), readElement(width, bound)));
+        }
+        return VectorStore.freeze(encryptions);
+    }
+
+    /**
+     * @return a vector of points, held in the heap
+     */
+    List<Point> readPoints(int maxCount, int width, BigInteger bound) throws IOException {
+        int count = readLength(maxCount);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            points.add(new Point(readElement(width, bound), readElement(width, bound)));
+        }
+        return points;
+    }
+
+    byte[] readBytes(int width) throws IOException {
+        byte[] array = new byte[width];
+        in.readFully(array);
+        return array;
+    }
+
+    byte[][] readByteArrays(int maxCount, int width) throws IOException {
+        byte[][] arrays = new byte[readLength(maxCount)][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = readBytes(width);
+        }
+        return arrays;
+    }
+
+    /**
+     * Reads the count of items which are read one at a time into growing lists, so that the memory used follows the
+     * bytes actually received
+     *
+     * @return the count read
+     * @throws MalformedMessageException if the count is negative
+     */
+    int readCount() throws IOException {
+        return readLength(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param max the largest length accepted
+     * @return the length read
+     * @throws MalformedMessageException if the length is negative or exceeds the limit
+     */
+    int readLength(int max) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new MalformedMessageException("Negative vector length");
+        }
+        if (length > max) {
+            throw new MalformedMessageException(String.format("Vector length %d exceeds the limit of %d", length, max));
+        }
+        return length;
+    }
+}
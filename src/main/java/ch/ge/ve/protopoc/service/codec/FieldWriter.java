@@ -0,0 +1,141 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.codec;
+
+import ch.ge.ve.protopoc.service.model.Encryption;
+import ch.ge.ve.protopoc.service.model.polynomial.Point;
+import com.google.common.base.Preconditions;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Writer of the fields of a message: non-negative integers as unsigned, big-endian, fixed-width fields, and vectors
+ * as a length followed by their elements, written one at a time
+ */
+final class FieldWriter {
+    private final DataOutputStream out;
+
+    FieldWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    void writeHeader(int version, MessageType type) throws IOException {
+        out.writeByte(version);
+        out.writeByte(type.getCode());
+    }
+
+    void writeElement(BigInteger value, int width) throws IOException {
+        Preconditions.checkArgument(value.signum() >= 0, "Only non-negative values may be encoded");
+        Preconditions.checkArgument(value.bitLength() <= 8 * width, "The value does not fit in the field");
+        byte[] bytes = value.toByteArray();
+        // drop the sign byte if any, left-pad with zeroes otherwise
+        int significant = Math.min(bytes.length, width);
+        for (int i = 0; i < width - significant; i++) {
+            out.writeByte(0);
+        }
+        out.write(bytes, bytes.length - significant, significant);
+    }
+
+    /**
+     * Writes a non-negative integer of unknown bound, as its length followed by its magnitude
+     */
+    void writeInteger(BigInteger value) throws IOException {
+        Preconditions.checkArgument(value.signum() >= 0, "Only non-negative values may be encoded");
+        int width = (value.bitLength() + 7) / 8;
+        out.writeInt(width);
+        writeElement(value, width);
+    }
+
+    void writeInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    void writeDouble(double value) throws IOException {
+        out.writeDouble(value);
+    }
+
+    void writeString(String value) throws IOException {
+        out.writeUTF(value);
+    }
+
+    void writeCharacters(List<Character> characters) throws IOException {
+        out.writeInt(characters.size());
+        for (Character character : characters) {
+            out.writeChar(character);
+        }
+    }
+
+    void writeLongs(List<Long> values) throws IOException {
+        out.writeInt(values.size());
+        for (Long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    void writeElements(List<BigInteger> values, int width) throws IOException {
+        for (BigInteger value : values) {
+            writeElement(value, width);
+        }
+    }
+
+    void writeVector(List<BigInteger> values, int width) throws IOException {
+        out.writeInt(values.size());
+        writeElements(values, width);
+    }
+
+    void writeEncryptions(List<Encryption> encryptions, int width) throws IOException {
+        out.writeInt(encryptions.size());
+        for (Encryption encryption : encryptions) {
+            writeElement(encryption.getA(), width);
+            writeElement(encryption.getB(), width);
+        }
+    }
+
+    void writePoints(List<Point> points, int width) throws IOException {
+        out.writeInt(points.size());
+        for (Point point : points) {
+            writeElement(point.x, width);
+            writeElement(point.y, width);
+        }
+    }
+
+    void writeBytes(byte[] array, int width) throws IOException {
+        Preconditions.checkArgument(array.length == width, "The byte array should have length " + width);
+        out.write(array);
+    }
+
+    void writeByteArrays(byte[][] arrays, int width) throws IOException {
+        out.writeInt(arrays.length);
+        for (byte[] array : arrays) {
+            Preconditions.checkArgument(array.length == width, "All the byte arrays should have length " + width);
+            out.write(array);
+        }
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+}
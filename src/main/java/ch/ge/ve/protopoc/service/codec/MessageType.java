@@ -0,0 +1,72 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.codec;
+
+import ch.ge.ve.protopoc.service.exception.MalformedMessageException;
+
+/**
+ * Types of the protocol messages with a binary encoding, identified by the second byte of each message
+ */
+public enum MessageType {
+    BALLOT_AND_QUERY(1),
+    OBLIVIOUS_TRANSFER_RESPONSE(2),
+    CONFIRMATION(3),
+    SHUFFLE(4),
+    SHUFFLE_PROOF(5),
+    DECRYPTION_PROOF(6),
+    PUBLIC_PARAMETERS(7),
+    PUBLIC_KEY_PART(8),
+    PUBLIC_CREDENTIALS(9),
+    PARTIAL_DECRYPTION(10),
+    TALLY(11),
+    BALLOT_ENTRY(12),
+    CONFIRMATION_ENTRY(13),
+    ELECTION_SET(14),
+    SECRET_VOTER_DATA(15),
+    FINALIZATION_CODE_PART(16),
+    SHUFFLES_AND_PROOFS(17),
+    TALLY_DATA(18);
+
+    private final int code;
+
+    MessageType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @param code the code of a message type
+     * @return the type with that code
+     * @throws MalformedMessageException if no type has that code
+     */
+    public static MessageType fromCode(int code) throws MalformedMessageException {
+        for (MessageType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new MalformedMessageException("Unknown message type " + code);
+    }
+}
@@ -0,0 +1,663 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.codec;
+
+import ch.ge.ve.protopoc.service.exception.MalformedMessageException;
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.model.polynomial.Point;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Compact binary encoding of the protocol messages exchanged between the voting clients, the bulletin board and the
+ * authorities
+ * <p>Each message starts with the version of the encoding and the {@link MessageType}. All the values are encoded as
+ * unsigned, big-endian, fixed-width fields, sized from the bound of their domain: |p| bytes for G_q, |q| for Z_q, |p&#770;|
+ * for G_q&#770;, |q&#770;| for Z_q&#770; and L_m for the messages of the oblivious transfer. Vectors are preceded by their
+ * length, and are written and read one element at a time, so that N-length vectors can be streamed to and from the
+ * vectors of a {@link VectorStore}. The public parameters themselves, which define these widths, are encoded with
+ * length-prefixed integers.</p>
+ * <p>Messages may be written one after the other to the same stream. As the readers never read beyond the end of a
+ * message, buffering is left to the caller.</p>
+ * <p>The lengths read are checked against the limits of the election before anything is allocated for the vectors:
+ * n<sub>max</sub> for the vectors sized from the candidates or the selections, s for those holding one item per
+ * authority, and the maximal number of voters the codec is given, which also bounds N, for the others.</p>
+ */
+public class ProtocolCodec {
+    public static final int VERSION = 1;
+    private static final int BALLOT_PROOF_SIZE = 3;
+
+    private final VectorStore vectorStore;
+    private final EncryptionGroup encryptionGroup;
+    private final BigInteger p;
+    private final BigInteger q;
+    private final BigInteger p_hat;
+    private final BigInteger q_hat;
+    private final BigInteger q_hat_x;
+    private final BigInteger q_hat_y;
+    private final int pWidth;
+    private final int qWidth;
+    private final int pHatWidth;
+    private final int qHatWidth;
+    private final int qHatXWidth;
+    private final int qHatYWidth;
+    private final int upper_l_m;
+    private final int upper_l_r;
+    private final int upper_l_f;
+    private final int numberOfAuthorities;
+    private final int n_max;
+    private final int upper_n_max;
+
+    public ProtocolCodec(PublicParameters publicParameters) {
+        this(publicParameters, VectorStore.heap());
+    }
+
+    /**
+     * Codec for the messages of trusted parties, which does not bound the number of voters and of ballots
+     *
+     * @param publicParameters the public parameters, defining the widths of the fields
+     * @param vectorStore      the store of the N-length vectors read
+     */
+    public ProtocolCodec(PublicParameters publicParameters, VectorStore vectorStore) {
+        this(publicParameters, vectorStore, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * @param publicParameters the public parameters, defining the widths of the fields
+     * @param vectorStore      the store of the N-length vectors read
+     * @param upper_n_max      the maximal number of voters, and thus of ballots, of the vectors read
+     */
+    public ProtocolCodec(PublicParameters publicParameters, VectorStore vectorStore, int upper_n_max) {
+        Preconditions.checkArgument(upper_n_max >= 0 && upper_n_max < Integer.MAX_VALUE,
+                "The maximal number of voters should be non-negative, and leave room for one more element");
+        this.vectorStore = vectorStore;
+        this.encryptionGroup = publicParameters.getEncryptionGroup();
+        this.p = publicParameters.getEncryptionGroup().getP();
+        this.q = publicParameters.getEncryptionGroup().getQ();
+        this.p_hat = publicParameters.getIdentificationGroup().getP_hat();
+        this.q_hat = publicParameters.getIdentificationGroup().getQ_hat();
+        this.q_hat_x = publicParameters.getQ_hat_x();
+        this.q_hat_y = publicParameters.getQ_hat_y();
+        this.pWidth = byteLength(p);
+        this.qWidth = byteLength(q);
+        this.pHatWidth = byteLength(p_hat);
+        this.qHatWidth = byteLength(q_hat);
+        this.qHatXWidth = byteLength(q_hat_x);
+        this.qHatYWidth = byteLength(q_hat_y);
+        this.upper_l_m = publicParameters.getUpper_l_m();
+        this.upper_l_r = publicParameters.getUpper_l_r();
+        this.upper_l_f = publicParameters.getUpper_l_f();
+        this.numberOfAuthorities = publicParameters.getS();
+        this.n_max = publicParameters.getN_max();
+        this.upper_n_max = upper_n_max;
+    }
+
+    public void writeBallotAndQuery(BallotAndQuery alpha, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.BALLOT_AND_QUERY);
+        writeBallotAndQuery(alpha, out);
+        out.flush();
+    }
+
+    public BallotAndQuery readBallotAndQuery(InputStream inputStream) throws IOException {
+        return readBallotAndQuery(open(inputStream, MessageType.BALLOT_AND_QUERY), n_max);
+    }
+
+    /**
+     * @param inputStream the stream to read from
+     * @param k           the number of selections of the voter, which the query must hold exactly
+     * @return the ballot and query read
+     * @throws IOException if the stream cannot be read, or holds a malformed message or a query of another size
+     */
+    public BallotAndQuery readBallotAndQuery(InputStream inputStream, int k) throws IOException {
+        BallotAndQuery alpha = readBallotAndQuery(open(inputStream, MessageType.BALLOT_AND_QUERY), k);
+        if (alpha.getBold_a().size() != k) {
+            throw new MalformedMessageException(String.format("Expected a query of %d elements, got %d", k,
+                    alpha.getBold_a().size()));
+        }
+        return alpha;
+    }
+
+    /**
+     * @param ballotEntry  an entry of the ballot list of an authority
+     * @param outputStream the stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    public void writeBallotEntry(BallotEntry ballotEntry, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.BALLOT_ENTRY);
+        out.writeInt(ballotEntry.getI());
+        writeBallotAndQuery(ballotEntry.getAlpha(), out);
+        out.writeVector(ballotEntry.getBold_r(), qWidth);
+        out.flush();
+    }
+
+    public BallotEntry readBallotEntry(InputStream inputStream) throws IOException {
+        FieldReader in = open(inputStream, MessageType.BALLOT_ENTRY);
+        int i = in.readInt();
+        BallotAndQuery alpha = readBallotAndQuery(in, n_max);
+        return new BallotEntry(i, alpha, in.readVector(n_max, qWidth, q));
+    }
+
+    private void writeBallotAndQuery(BallotAndQuery alpha, FieldWriter out) throws IOException {
+        List<BigInteger> t = alpha.getPi().getT();
+        List<BigInteger> s = alpha.getPi().getS();
+        Preconditions.checkArgument(t.size() == BALLOT_PROOF_SIZE && s.size() == BALLOT_PROOF_SIZE,
+                "The ballot proof should hold exactly " + BALLOT_PROOF_SIZE + " commitments and responses");
+        out.writeElement(alpha.getX_hat(), pHatWidth);
+        out.writeVector(alpha.getBold_a(), pWidth);
+        out.writeElement(alpha.getB(), pWidth);
+        // t_1 in G_q_hat, t_2 and t_3 in G_q
+        out.writeElement(t.get(0), pHatWidth);
+        out.writeElements(t.subList(1, 3), pWidth);
+        // s_1 in Z_q_hat, s_2 in G_q, s_3 in Z_q
+        out.writeElement(s.get(0), qHatWidth);
+        out.writeElement(s.get(1), pWidth);
+        out.writeElement(s.get(2), qWidth);
+    }
+
+    private BallotAndQuery readBallotAndQuery(FieldReader in, int maxK) throws IOException {
+        BigInteger x_hat = in.readElement(pHatWidth, p_hat);
+        List<BigInteger> bold_a = in.readVector(maxK, pWidth, p);
+        BigInteger b = in.readElement(pWidth, p);
+        BigInteger t_1 = in.readElement(pHatWidth, p_hat);
+        List<BigInteger> t_2_3 = in.readElements(2, pWidth, p);
+        BigInteger s_1 = in.readElement(qHatWidth, q_hat);
+        BigInteger s_2 = in.readElement(pWidth, p);
+        BigInteger s_3 = in.readElement(qWidth, q);
+        NonInteractiveZKP pi = new NonInteractiveZKP(asList(t_1, t_2_3.get(0), t_2_3.get(1)), asList(s_1, s_2, s_3));
+        return new BallotAndQuery(x_hat, bold_a, b, pi);
+    }
+
+    public void writeObliviousTransferResponse(ObliviousTransferResponse beta, OutputStream outputStream)
+            throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.OBLIVIOUS_TRANSFER_RESPONSE);
+        out.writeVector(beta.getB(), pWidth);
+        out.writeByteArrays(beta.getC(), upper_l_m);
+        out.writeVector(beta.getD(), pWidth);
+        out.flush();
+    }
+
+    public ObliviousTransferResponse readObliviousTransferResponse(InputStream inputStream) throws IOException {
+        FieldReader in = open(inputStream, MessageType.OBLIVIOUS_TRANSFER_RESPONSE);
+        List<BigInteger> b = in.readVector(n_max, pWidth, p);
+        byte[][] c = in.readByteArrays(n_max, upper_l_m);
+        List<BigInteger> d = in.readVector(n_max, pWidth, p);
+        return new ObliviousTransferResponse(b, c, d);
+    }
+
+    public void writeConfirmation(Confirmation gamma, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.CONFIRMATION);
+        writeConfirmation(gamma, out);
+        out.flush();
+    }
+
+    public Confirmation readConfirmation(InputStream inputStream) throws IOException {
+        return readConfirmation(open(inputStream, MessageType.CONFIRMATION));
+    }
+
+    public void writeConfirmationEntry(ConfirmationEntry confirmationEntry, OutputStream outputStream)
+            throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.CONFIRMATION_ENTRY);
+        out.writeInt(confirmationEntry.getI());
+        writeConfirmation(confirmationEntry.getGamma(), out);
+        out.flush();
+    }
+
+    public ConfirmationEntry readConfirmationEntry(InputStream inputStream) throws IOException {
+        FieldReader in = open(inputStream, MessageType.CONFIRMATION_ENTRY);
+        int i = in.readInt();
+        return new ConfirmationEntry(i, readConfirmation(in));
+    }
+
+    public void writeFinalizationCodePart(FinalizationCodePart delta, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.FINALIZATION_CODE_PART);
+        out.writeBytes(delta.getF(), upper_l_f);
+        out.writeVector(delta.getBold_r(), qWidth);
+        out.flush();
+    }
+
+    public FinalizationCodePart readFinalizationCodePart(InputStream inputStream) throws IOException {
+        FieldReader in = open(inputStream, MessageType.FINALIZATION_CODE_PART);
+        byte[] upper_f = in.readBytes(upper_l_f);
+        return new FinalizationCodePart(upper_f, in.readVector(n_max, qWidth, q));
+    }
+
+    private void writeConfirmation(Confirmation gamma, FieldWriter out) throws IOException {
+        Preconditions.checkArgument(gamma.getPi().getT().size() == 1 && gamma.getPi().getS().size() == 1,
+                "The confirmation proof should hold exactly one commitment and one response");
+        out.writeElement(gamma.getY_hat(), pHatWidth);
+        out.writeElement(gamma.getPi().getT().get(0), pHatWidth);
+        out.writeElement(gamma.getPi().getS().get(0), qHatWidth);
+    }
+
+    private Confirmation readConfirmation(FieldReader in) throws IOException {
+        BigInteger y_hat = in.readElement(pHatWidth, p_hat);
+        BigInteger t = in.readElement(pHatWidth, p_hat);
+        BigInteger s = in.readElement(qHatWidth, q_hat);
+        return new Confirmation(y_hat, new NonInteractiveZKP(asList(t), asList(s)));
+    }
+
+    /**
+     * @param secretVoterData the secret data of the voters, as generated by one authority
+     * @param outputStream    the stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    public void writeSecretVoterData(List<SecretVoterData> secretVoterData, OutputStream outputStream)
+            throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.SECRET_VOTER_DATA);
+        out.writeInt(secretVoterData.size());
+        for (SecretVoterData d : secretVoterData) {
+            out.writeElement(d.getX(), qHatXWidth);
+            out.writeElement(d.getY(), qHatYWidth);
+            out.writeBytes(d.getF(), upper_l_f);
+            out.writeByteArrays(d.getRc(), upper_l_r);
+        }
+        out.flush();
+    }
+
+    public List<SecretVoterData> readSecretVoterData(InputStream inputStream) throws IOException {
+        FieldReader in = open(inputStream, MessageType.SECRET_VOTER_DATA);
+        int count = in.readLength(upper_n_max);
+        List<SecretVoterData> secretVoterData = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BigInteger x = in.readElement(qHatXWidth, q_hat_x);
+            BigInteger y = in.readElement(qHatYWidth, q_hat_y);
+            byte[] f = in.readBytes(upper_l_f);
+            secretVoterData.add(new SecretVoterData(x, y, f, in.readByteArrays(n_max, upper_l_r)));
+        }
+        return secretVoterData;
+    }
+
+    /**
+     * @param shuffle      a shuffle, or any other vector of encryptions
+     * @param outputStream the stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    public void writeShuffle(List<Encryption> shuffle, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.SHUFFLE);
+        out.writeEncryptions(shuffle, pWidth);
+        out.flush();
+    }
+
+    public List<Encryption> readShuffle(InputStream inputStream) throws IOException {
+        return open(inputStream, MessageType.SHUFFLE).readEncryptions(upper_n_max, pWidth, p);
+    }
+
+    public void writeShuffleProof(ShuffleProof pi, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.SHUFFLE_PROOF);
+        writeShuffleProof(pi, out);
+        out.flush();
+    }
+
+    public ShuffleProof readShuffleProof(InputStream inputStream) throws IOException {
+        return readShuffleProof(open(inputStream, MessageType.SHUFFLE_PROOF));
+    }
+
+    private void writeShuffleProof(ShuffleProof pi, FieldWriter out) throws IOException {
+        ShuffleProof.T t = pi.getT();
+        ShuffleProof.S s = pi.getS();
+        out.writeElement(t.getT_1(), pWidth);
+        out.writeElement(t.getT_2(), pWidth);
+        out.writeElement(t.getT_3(), pWidth);
+        out.writeElements(t.getT_4(), pWidth);
+        out.writeVector(t.getT_hat(), pWidth);
+        out.writeElement(s.getS_1(), qWidth);
+        out.writeElement(s.getS_2(), qWidth);
+        out.writeElement(s.getS_3(), qWidth);
+        out.writeElement(s.getS_4(), qWidth);
+        out.writeVector(s.getS_hat(), qWidth);
+        out.writeVector(s.getS_prime(), qWidth);
+        out.writeVector(pi.getBold_c(), pWidth);
+        out.writeVector(pi.getBold_c_hat(), pWidth);
+    }
+
+    private ShuffleProof readShuffleProof(FieldReader in) throws IOException {
+        BigInteger t_1 = in.readElement(pWidth, p);
+        BigInteger t_2 = in.readElement(pWidth, p);
+        BigInteger t_3 = in.readElement(pWidth, p);
+        List<BigInteger> t_4 = in.readElements(2, pWidth, p);
+        List<BigInteger> t_hat = in.readVector(upper_n_max, pWidth, p);
+        BigInteger s_1 = in.readElement(qWidth, q);
+        BigInteger s_2 = in.readElement(qWidth, q);
+        BigInteger s_3 = in.readElement(qWidth, q);
+        BigInteger s_4 = in.readElement(qWidth, q);
+        List<BigInteger> s_hat = in.readVector(upper_n_max, qWidth, q);
+        List<BigInteger> s_prime = in.readVector(upper_n_max, qWidth, q);
+        List<BigInteger> bold_c = in.readVector(upper_n_max, pWidth, p);
+        List<BigInteger> bold_c_hat = in.readVector(upper_n_max, pWidth, p);
+        return new ShuffleProof(new ShuffleProof.T(t_1, t_2, t_3, t_4, t_hat),
+                new ShuffleProof.S(s_1, s_2, s_3, s_4, s_hat, s_prime), bold_c, bold_c_hat);
+    }
+
+    /**
+     * @param shufflesAndProofs the shuffles of all the authorities, with their proofs
+     * @param outputStream      the stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    public void writeShufflesAndProofs(ShufflesAndProofs shufflesAndProofs, OutputStream outputStream)
+            throws IOException {
+        List<List<Encryption>> shuffles = shufflesAndProofs.getShuffles();
+        List<ShuffleProof> shuffleProofs = shufflesAndProofs.getShuffleProofs();
+        Preconditions.checkArgument(shuffles.size() == shuffleProofs.size(),
+                "There should be as many shuffle proofs as shuffles");
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.SHUFFLES_AND_PROOFS);
+        out.writeInt(shuffles.size());
+        for (int j = 0; j < shuffles.size(); j++) {
+            out.writeEncryptions(shuffles.get(j), pWidth);
+            writeShuffleProof(shuffleProofs.get(j), out);
+        }
+        out.flush();
+    }
+
+    public ShufflesAndProofs readShufflesAndProofs(InputStream inputStream) throws IOException {
+        FieldReader in = open(inputStream, MessageType.SHUFFLES_AND_PROOFS);
+        int count = in.readLength(numberOfAuthorities);
+        List<List<Encryption>> shuffles = new ArrayList<>();
+        List<ShuffleProof> shuffleProofs = new ArrayList<>();
+        for (int j = 0; j < count; j++) {
+            shuffles.add(in.readEncryptions(upper_n_max, pWidth, p));
+            shuffleProofs.add(readShuffleProof(in));
+        }
+        return new ShufflesAndProofs(shuffles, shuffleProofs);
+    }
+
+    public void writeDecryptionProof(DecryptionProof pi, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.DECRYPTION_PROOF);
+        writeDecryptionProof(pi, out);
+        out.flush();
+    }
+
+    public DecryptionProof readDecryptionProof(InputStream inputStream) throws IOException {
+        return readDecryptionProof(open(inputStream, MessageType.DECRYPTION_PROOF));
+    }
+
+    private void writeDecryptionProof(DecryptionProof pi, FieldWriter out) throws IOException {
+        out.writeVector(pi.getT(), pWidth);
+        out.writeElement(pi.getS(), qWidth);
+    }
+
+    private DecryptionProof readDecryptionProof(FieldReader in) throws IOException {
+        // t_0, followed by one commitment per ballot
+        List<BigInteger> t = in.readVector(upper_n_max + 1, pWidth, p);
+        BigInteger s = in.readElement(qWidth, q);
+        return new DecryptionProof(t, s);
+    }
+
+    /**
+     * @param tallyData    the final shuffle, with the partial decryptions of all the authorities and their proofs
+     * @param outputStream the stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    public void writeTallyData(TallyData tallyData, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.TALLY_DATA);
+        out.writeVector(tallyData.getPublicKeyShares(), pWidth);
+        out.writeEncryptions(tallyData.getFinalShuffle(), pWidth);
+        out.writeInt(tallyData.getPartialDecryptions().size());
+        for (List<BigInteger> partialDecryption : tallyData.getPartialDecryptions()) {
+            out.writeVector(partialDecryption, pWidth);
+        }
+        out.writeInt(tallyData.getDecryptionProofs().size());
+        for (DecryptionProof decryptionProof : tallyData.getDecryptionProofs()) {
+            writeDecryptionProof(decryptionProof, out);
+        }
+        out.flush();
+    }
+
+    public TallyData readTallyData(InputStream inputStream) throws IOException {
+        FieldReader in = open(inputStream, MessageType.TALLY_DATA);
+        List<BigInteger> publicKeyShares = in.readVector(numberOfAuthorities, pWidth, p);
+        List<Encryption> finalShuffle = in.readEncryptions(upper_n_max, pWidth, p);
+        int partialDecryptionsCount = in.readLength(numberOfAuthorities);
+        List<List<BigInteger>> partialDecryptions = new ArrayList<>();
+        for (int j = 0; j < partialDecryptionsCount; j++) {
+            partialDecryptions.add(in.readVector(upper_n_max, pWidth, p));
+        }
+        int decryptionProofsCount = in.readLength(numberOfAuthorities);
+        List<DecryptionProof> decryptionProofs = new ArrayList<>();
+        for (int j = 0; j < decryptionProofsCount; j++) {
+            decryptionProofs.add(readDecryptionProof(in));
+        }
+        return new TallyData(publicKeyShares, finalShuffle, partialDecryptions, decryptionProofs);
+    }
+
+    public static void writePublicParameters(PublicParameters publicParameters, OutputStream outputStream)
+            throws IOException {
+        SecurityParameters securityParameters = publicParameters.getSecurityParameters();
+        EncryptionGroup encryptionGroup = publicParameters.getEncryptionGroup();
+        IdentificationGroup identificationGroup = publicParameters.getIdentificationGroup();
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.PUBLIC_PARAMETERS);
+        out.writeInt(securityParameters.getSigma());
+        out.writeInt(securityParameters.getTau());
+        out.writeInt(securityParameters.getUpper_l());
+        out.writeDouble(securityParameters.getEpsilon());
+        out.writeInteger(encryptionGroup.getP());
+        out.writeInteger(encryptionGroup.getQ());
+        out.writeInteger(encryptionGroup.getG());
+        out.writeInteger(encryptionGroup.getH());
+        out.writeInteger(identificationGroup.getP_hat());
+        out.writeInteger(identificationGroup.getQ_hat());
+        out.writeInteger(identificationGroup.getG_hat());
+        out.writeInteger(publicParameters.getPrimeField().getP_prime());
+        out.writeInteger(publicParameters.getQ_hat_x());
+        out.writeCharacters(publicParameters.getUpper_a_x());
+        out.writeInteger(publicParameters.getQ_hat_y());
+        out.writeCharacters(publicParameters.getUpper_a_y());
+        out.writeCharacters(publicParameters.getUpper_a_r());
+        out.writeInt(publicParameters.getUpper_l_r());
+        out.writeCharacters(publicParameters.getUpper_a_f());
+        out.writeInt(publicParameters.getUpper_l_f());
+        out.writeInt(publicParameters.getS());
+        out.writeInt(publicParameters.getN_max());
+        out.flush();
+    }
+
+    /**
+     * @param inputStream the stream to read from
+     * @return the public parameters read, all their invariants being checked again
+     * @throws IOException if the stream cannot be read, or holds invalid parameters
+     */
+    public static PublicParameters readPublicParameters(InputStream inputStream) throws IOException {
+        FieldReader in = open(new FieldReader(inputStream, VectorStore.heap()), MessageType.PUBLIC_PARAMETERS);
+        try {
+            SecurityParameters securityParameters = new SecurityParameters(in.readInt(), in.readInt(), in.readInt(),
+                    in.readDouble());
+            EncryptionGroup encryptionGroup = new EncryptionGroup(in.readInteger(), in.readInteger(),
+                    in.readInteger(), in.readInteger());
+            IdentificationGroup identificationGroup = new IdentificationGroup(in.readInteger(), in.readInteger(),
+                    in.readInteger());
+            PrimeField primeField = new PrimeField(in.readInteger());
+            return new PublicParameters(securityParameters, encryptionGroup, identificationGroup, primeField,
+                    in.readInteger(), in.readCharacters(), in.readInteger(), in.readCharacters(),
+                    in.readCharacters(), in.readInt(), in.readCharacters(), in.readInt(), in.readInt(), in.readInt());
+        } catch (IllegalArgumentException e) {
+            throw new MalformedMessageException("Invalid public parameters: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the election set, the domains of influence being written once and referred to by their index
+     *
+     * @param electionSet  the election set
+     * @param outputStream the stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    public static void writeElectionSet(ElectionSet electionSet, OutputStream outputStream) throws IOException {
+        Map<DomainOfInfluence, Integer> domainIndices = new LinkedHashMap<>();
+        electionSet.getElections().forEach(election ->
+                domainIndices.putIfAbsent(election.getApplicableDomainofInfluence(), domainIndices.size()));
+        electionSet.getVoters().forEach(voter -> voter.getAllowedDomainsOfInfluence().forEach(domain ->
+                domainIndices.putIfAbsent(domain, domainIndices.size())));
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.ELECTION_SET);
+        out.writeInt(domainIndices.size());
+        for (DomainOfInfluence domain : domainIndices.keySet()) {
+            out.writeString(domain.getIdentifier());
+        }
+        out.writeInt(electionSet.getCandidates().size());
+        for (Candidate candidate : electionSet.getCandidates()) {
+            out.writeString(candidate.getCandidateDescription());
+        }
+        out.writeInt(electionSet.getElections().size());
+        for (Election election : electionSet.getElections()) {
+            out.writeInt(election.getNumberOfCandidates());
+            out.writeInt(election.getNumberOfSelections());
+            out.writeInt(domainIndices.get(election.getApplicableDomainofInfluence()));
+        }
+        out.writeInt(electionSet.getVoters().size());
+        for (Voter voter : electionSet.getVoters()) {
+            out.writeInt(voter.getAllowedDomainsOfInfluence().size());
+            for (DomainOfInfluence domain : voter.getAllowedDomainsOfInfluence()) {
+                out.writeInt(domainIndices.get(domain));
+            }
+        }
+        out.flush();
+    }
+
+    public static ElectionSet readElectionSet(InputStream inputStream) throws IOException {
+        FieldReader in = open(new FieldReader(inputStream, VectorStore.heap()), MessageType.ELECTION_SET);
+        int domainsCount = in.readCount();
+        List<DomainOfInfluence> domains = new ArrayList<>();
+        for (int k = 0; k < domainsCount; k++) {
+            domains.add(new DomainOfInfluence(in.readString()));
+        }
+        int candidatesCount = in.readCount();
+        List<Candidate> candidates = new ArrayList<>();
+        for (int k = 0; k < candidatesCount; k++) {
+            candidates.add(new Candidate(in.readString()));
+        }
+        int electionsCount = in.readCount();
+        List<Election> elections = new ArrayList<>();
+        for (int k = 0; k < electionsCount; k++) {
+            int numberOfCandidates = in.readInt();
+            int numberOfSelections = in.readInt();
+            elections.add(new Election(numberOfCandidates, numberOfSelections, readDomain(in, domains)));
+        }
+        int votersCount = in.readCount();
+        List<Voter> voters = new ArrayList<>();
+        for (int i = 0; i < votersCount; i++) {
+            Voter voter = new Voter();
+            int allowedDomainsCount = in.readCount();
+            for (int k = 0; k < allowedDomainsCount; k++) {
+                voter.addDomainsOfInfluence(readDomain(in, domains));
+            }
+            voters.add(voter);
+        }
+        try {
+            return new ElectionSet(voters, candidates, elections);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedMessageException("Invalid election set: " + e.getMessage());
+        }
+    }
+
+    private static DomainOfInfluence readDomain(FieldReader in, List<DomainOfInfluence> domains) throws IOException {
+        int index = in.readInt();
+        if (index < 0 || index >= domains.size()) {
+            throw new MalformedMessageException("Unknown domain of influence " + index);
+        }
+        return domains.get(index);
+    }
+
+    public void writePublicKeyPart(EncryptionPublicKey publicKey, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.PUBLIC_KEY_PART);
+        out.writeElement(publicKey.getPublicKey(), pWidth);
+        out.flush();
+    }
+
+    public EncryptionPublicKey readPublicKeyPart(InputStream inputStream) throws IOException {
+        FieldReader in = open(inputStream, MessageType.PUBLIC_KEY_PART);
+        return new EncryptionPublicKey(in.readElement(pWidth, p), encryptionGroup);
+    }
+
+    public void writePublicCredentials(List<Point> publicCredentials, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.PUBLIC_CREDENTIALS);
+        // the public credentials (x_hat, y_hat) are points of G_q_hat
+        out.writePoints(publicCredentials, pHatWidth);
+        out.flush();
+    }
+
+    public List<Point> readPublicCredentials(InputStream inputStream) throws IOException {
+        return open(inputStream, MessageType.PUBLIC_CREDENTIALS).readPoints(upper_n_max, pHatWidth, p_hat);
+    }
+
+    public void writePartialDecryption(List<BigInteger> partialDecryption, OutputStream outputStream)
+            throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.PARTIAL_DECRYPTION);
+        out.writeVector(partialDecryption, pWidth);
+        out.flush();
+    }
+
+    public List<BigInteger> readPartialDecryption(InputStream inputStream) throws IOException {
+        return open(inputStream, MessageType.PARTIAL_DECRYPTION).readVector(upper_n_max, pWidth, p);
+    }
+
+    public void writeTally(List<Long> tally, OutputStream outputStream) throws IOException {
+        FieldWriter out = new FieldWriter(outputStream);
+        out.writeHeader(VERSION, MessageType.TALLY);
+        out.writeLongs(tally);
+        out.flush();
+    }
+
+    public List<Long> readTally(InputStream inputStream) throws IOException {
+        return open(inputStream, MessageType.TALLY).readLongs(n_max);
+    }
+
+    private FieldReader open(InputStream inputStream, MessageType expectedType) throws IOException {
+        return open(new FieldReader(inputStream, vectorStore), expectedType);
+    }
+
+    private static FieldReader open(FieldReader in, MessageType expectedType) throws IOException {
+        MessageType type = in.readHeader(VERSION);
+        if (type != expectedType) {
+            throw new MalformedMessageException(String.format("Expected a message of type %s, got %s",
+                    expectedType, type));
+        }
+        return in;
+    }
+    private static List<BigInteger> asList(BigInteger... values) {
+        return Arrays.asList(values);
+    }
+
+    private static int byteLength(BigInteger bound) {
+        return (bound.bitLength() + 7) / 8;
+    }
+}
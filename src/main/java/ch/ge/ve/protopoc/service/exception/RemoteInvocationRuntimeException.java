@@ -0,0 +1,47 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.exception;
+
+/**
+ * Exception thrown when a call to a remote service cannot be completed, or fails with an error that has no local
+ * counterpart
+ */
+public class RemoteInvocationRuntimeException extends RuntimeException {
+    private final String remoteExceptionClassName;
+
+    public RemoteInvocationRuntimeException(String message, Throwable cause) {
+        super(message, cause);
+        this.remoteExceptionClassName = null;
+    }
+
+    public RemoteInvocationRuntimeException(String remoteExceptionClassName, String message) {
+        super(remoteExceptionClassName + ": " + message);
+        this.remoteExceptionClassName = remoteExceptionClassName;
+    }
+
+    /**
+     * @return the class name of the exception thrown by the remote service, or null if the call failed locally
+     */
+    public String getRemoteExceptionClassName() {
+        return remoteExceptionClassName;
+    }
+}
@@ -50,7 +50,7 @@ public final class BallotEntry {
     }
 
     public List<BigInteger> getBold_r() {
-        return ImmutableList.copyOf(bold_r);
+        return bold_r;
     }
 
     @Override
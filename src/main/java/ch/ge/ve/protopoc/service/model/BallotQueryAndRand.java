@@ -43,6 +43,6 @@ public final class BallotQueryAndRand {
     }
 
     public List<BigInteger> getBold_r() {
-        return ImmutableList.copyOf(bold_r);
+        return bold_r;
     }
 }
@@ -21,7 +21,7 @@
 
 package ch.ge.ve.protopoc.service.model;
 
-import com.google.common.collect.ImmutableList;
+import ch.ge.ve.protopoc.service.model.columnar.FixedWidthVector;
 
 import java.math.BigInteger;
 import java.util.List;
@@ -35,16 +35,16 @@ public final class CommitmentChain {
     private final List<BigInteger> bold_r;
 
     public CommitmentChain(List<BigInteger> bold_c, List<BigInteger> bold_r) {
-        this.bold_c = ImmutableList.copyOf(bold_c);
-        this.bold_r = ImmutableList.copyOf(bold_r);
+        this.bold_c = FixedWidthVector.immutableCopyOf(bold_c);
+        this.bold_r = FixedWidthVector.immutableCopyOf(bold_r);
     }
 
     public List<BigInteger> getBold_c() {
-        return ImmutableList.copyOf(bold_c);
+        return bold_c;
     }
 
     public List<BigInteger> getBold_r() {
-        return ImmutableList.copyOf(bold_r);
+        return bold_r;
     }
 
     @Override
@@ -21,7 +21,7 @@
 
 package ch.ge.ve.protopoc.service.model;
 
-import com.google.common.collect.ImmutableList;
+import ch.ge.ve.protopoc.service.model.columnar.FixedWidthVector;
 
 import java.math.BigInteger;
 import java.util.List;
@@ -35,12 +35,12 @@ public final class DecryptionProof {
     private final BigInteger s;
 
     public DecryptionProof(List<BigInteger> t, BigInteger s) {
-        this.t = ImmutableList.copyOf(t);
+        this.t = FixedWidthVector.immutableCopyOf(t);
         this.s = s;
     }
 
     public List<BigInteger> getT() {
-        return ImmutableList.copyOf(t);
+        return t;
     }
 
     public BigInteger getS() {
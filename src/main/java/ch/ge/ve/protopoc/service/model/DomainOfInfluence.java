@@ -33,6 +33,10 @@ public final class DomainOfInfluence {
         this.identifier = identifier;
     }
 
+    public String getIdentifier() {
+        return identifier;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -22,6 +22,8 @@
 package ch.ge.ve.protopoc.service.model;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
@@ -34,6 +36,7 @@ public final class ElectionSet {
     private final List<Voter> voters;
     private final List<Candidate> candidates;
     private final List<Election> elections;
+    private final Supplier<EligibilityIndex> eligibilityIndex = Suppliers.memoize(this::buildEligibilityIndex);
 
     public ElectionSet(List<Voter> voters, List<Candidate> candidates, List<Election> elections) {
         Preconditions.checkArgument(candidates.size() ==
@@ -47,19 +50,32 @@ public final class ElectionSet {
         return voter.getAllowedDomainsOfInfluence().contains(election.getApplicableDomainofInfluence());
     }
 
+    /**
+     * The index is built on first use: the voters' domains of influence are expected to be final by then.
+     *
+     * @return the eligibility of each voter for each election
+     */
+    public EligibilityIndex getEligibilityIndex() {
+        return eligibilityIndex.get();
+    }
+
+    private EligibilityIndex buildEligibilityIndex() {
+        return new EligibilityIndex(voters, elections);
+    }
+
     public List<Integer> getBold_n() {
         return elections.stream().map(Election::getNumberOfCandidates).collect(Collectors.toList());
     }
 
     public List<Voter> getVoters() {
-        return ImmutableList.copyOf(voters);
+        return voters;
     }
 
     public List<Candidate> getCandidates() {
-        return ImmutableList.copyOf(candidates);
+        return candidates;
     }
 
     public List<Election> getElections() {
-        return ImmutableList.copyOf(elections);
+        return elections;
     }
 }
@@ -25,6 +25,7 @@ import ch.ge.ve.protopoc.service.model.polynomial.Point;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Model class holding data for the whole electorate
@@ -38,23 +39,25 @@ public final class ElectorateData {
     public ElectorateData(List<SecretVoterData> secretVoterDataList, List<Point> publicVoterDataList, List<List<Point>> randomPoints, List<List<Integer>> allowedSelections) {
         this.d = ImmutableList.copyOf(secretVoterDataList);
         this.d_hat = ImmutableList.copyOf(publicVoterDataList);
-        this.P = ImmutableList.copyOf(randomPoints);
-        this.K = ImmutableList.copyOf(allowedSelections);
+        this.P = ImmutableList.copyOf(randomPoints.stream()
+                .<List<Point>>map(ImmutableList::copyOf).collect(Collectors.toList()));
+        this.K = ImmutableList.copyOf(allowedSelections.stream()
+                .<List<Integer>>map(ImmutableList::copyOf).collect(Collectors.toList()));
     }
 
     public List<SecretVoterData> getD() {
-        return ImmutableList.copyOf(d);
+        return d;
     }
 
     public List<Point> getD_hat() {
-        return ImmutableList.copyOf(d_hat);
+        return d_hat;
     }
 
     public List<List<Point>> getP() {
-        return ImmutableList.copyOf(P);
+        return P;
     }
 
     public List<List<Integer>> getK() {
-        return ImmutableList.copyOf(K);
+        return K;
     }
 }
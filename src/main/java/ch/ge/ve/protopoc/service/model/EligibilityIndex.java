@@ -0,0 +1,147 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model;
+
+import com.google.common.primitives.Ints;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Eligibility of every voter of an {@link ElectionSet} for every election, computed once.
+ * <p>The domains of influence of the elections are numbered, and each voter is reduced to a bitmask of the domains
+ * it belongs to. From these, the number of selections <tt>k_ij</tt> allowed to voter <tt>i</tt> in election
+ * <tt>j</tt> and their sum are tabulated, and exposed as read-only views.</p>
+ */
+public final class EligibilityIndex {
+    private final int votersCount;
+    private final int t;
+    private final int[] bold_n;
+    private final int n;
+    private final int wordsPerVoter;
+    private final long[] domainMasks;
+    private final int[] electionDomains;
+    private final int[] bold_upper_k;
+    private final int[] k_sums;
+
+    EligibilityIndex(List<Voter> voters, List<Election> elections) {
+        this.votersCount = voters.size();
+        this.t = elections.size();
+        this.bold_n = elections.stream().mapToInt(Election::getNumberOfCandidates).toArray();
+        this.n = Arrays.stream(bold_n).sum();
+
+        Map<DomainOfInfluence, Integer> domainIndices = new HashMap<>();
+        this.electionDomains = new int[t];
+        for (int j = 0; j < t; j++) {
+            DomainOfInfluence domain = elections.get(j).getApplicableDomainofInfluence();
+            Integer index = domainIndices.get(domain);
+            if (index == null) {
+                index = domainIndices.size();
+                domainIndices.put(domain, index);
+            }
+            electionDomains[j] = index;
+        }
+
+        this.wordsPerVoter = (domainIndices.size() + 63) / 64;
+        this.domainMasks = new long[votersCount * wordsPerVoter];
+        this.bold_upper_k = new int[votersCount * t];
+        this.k_sums = new int[votersCount];
+        for (int i = 0; i < votersCount; i++) {
+            for (DomainOfInfluence domain : voters.get(i).getAllowedDomainsOfInfluence()) {
+                Integer index = domainIndices.get(domain);
+                if (index != null) {
+                    domainMasks[i * wordsPerVoter + index / 64] |= 1L << index;
+                }
+            }
+            int k_sum = 0;
+            for (int j = 0; j < t; j++) {
+                int k_ij = isEligible(i, j) ? elections.get(j).getNumberOfSelections() : 0;
+                bold_upper_k[i * t + j] = k_ij;
+                k_sum += k_ij;
+            }
+            k_sums[i] = k_sum;
+        }
+    }
+
+    public int getVotersCount() {
+        return votersCount;
+    }
+
+    /**
+     * @return the number of elections
+     */
+    public int getT() {
+        return t;
+    }
+
+    /**
+     * @return the total number of candidates
+     */
+    public int getN() {
+        return n;
+    }
+
+    /**
+     * @return a read-only view of the number of candidates per election
+     */
+    public List<Integer> getBold_n() {
+        return Collections.unmodifiableList(Ints.asList(bold_n));
+    }
+
+    /**
+     * @param i the voter index
+     * @param j the election index
+     * @return true if the voter belongs to the domain of influence of the election
+     */
+    public boolean isEligible(int i, int j) {
+        int domain = electionDomains[j];
+        return (domainMasks[i * wordsPerVoter + domain / 64] & (1L << domain)) != 0;
+    }
+
+    /**
+     * @param i the voter index
+     * @param j the election index
+     * @return the number of selections k_ij allowed to the voter in the election, 0 if not eligible
+     */
+    public int getK(int i, int j) {
+        return bold_upper_k[i * t + j];
+    }
+
+    /**
+     * @param i the voter index
+     * @return a read-only view of the numbers of selections bold_k_i allowed to the voter, per election
+     */
+    public List<Integer> getBold_k(int i) {
+        return Collections.unmodifiableList(Ints.asList(bold_upper_k).subList(i * t, (i + 1) * t));
+    }
+
+    /**
+     * @param i the voter index
+     * @return the total number of selections allowed to the voter, over all elections
+     */
+    public int getK_sum(int i) {
+        return k_sums[i];
+    }
+}
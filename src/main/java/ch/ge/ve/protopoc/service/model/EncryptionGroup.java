@@ -24,6 +24,7 @@ package ch.ge.ve.protopoc.service.model;
 import com.google.common.base.Preconditions;
 
 import java.math.BigInteger;
+import java.util.Objects;
 
 /**
  * The model class representing the encryption group
@@ -78,6 +79,22 @@ public final class EncryptionGroup {
         return h;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EncryptionGroup that = (EncryptionGroup) o;
+        return Objects.equals(p, that.p) &&
+                Objects.equals(q, that.q) &&
+                Objects.equals(g, that.g) &&
+                Objects.equals(h, that.h);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(p, q, g, h);
+    }
+
     @Override
     public String toString() {
         return "EncryptionGroup{" +
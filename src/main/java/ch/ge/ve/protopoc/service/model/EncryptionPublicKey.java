@@ -25,6 +25,7 @@ import ch.ge.ve.protopoc.service.support.Conversion;
 
 import java.math.BigInteger;
 import java.security.PublicKey;
+import java.util.Objects;
 
 /**
  * This model class holds the value of an encryption public key
@@ -62,4 +63,18 @@ public final class EncryptionPublicKey implements PublicKey {
     public EncryptionGroup getEncryptionGroup() {
         return encryptionGroup;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EncryptionPublicKey that = (EncryptionPublicKey) o;
+        return Objects.equals(publicKey, that.publicKey) &&
+                Objects.equals(encryptionGroup, that.encryptionGroup);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(publicKey, encryptionGroup);
+    }
 }
@@ -45,7 +45,7 @@ public final class FinalizationCodePart {
     }
 
     public List<BigInteger> getBold_r() {
-        return ImmutableList.copyOf(bold_r);
+        return bold_r;
     }
 
     @Override
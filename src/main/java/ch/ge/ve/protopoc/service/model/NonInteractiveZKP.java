@@ -40,11 +40,11 @@ public final class NonInteractiveZKP {
     }
 
     public List<BigInteger> getT() {
-        return ImmutableList.copyOf(t);
+        return t;
     }
 
     public List<BigInteger> getS() {
-        return ImmutableList.copyOf(s);
+        return s;
     }
 
     @Override
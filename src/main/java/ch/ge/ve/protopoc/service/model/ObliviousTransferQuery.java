@@ -39,10 +39,10 @@ public final class ObliviousTransferQuery {
     }
 
     public List<BigInteger> getBold_a() {
-        return ImmutableList.copyOf(bold_a);
+        return bold_a;
     }
 
     public List<BigInteger> getBold_r() {
-        return ImmutableList.copyOf(bold_r);
+        return bold_r;
     }
 }
@@ -43,7 +43,7 @@ public final class ObliviousTransferResponse {
     }
 
     public List<BigInteger> getB() {
-        return ImmutableList.copyOf(b);
+        return b;
     }
 
     public byte[][] getC() {
@@ -51,7 +51,7 @@ public final class ObliviousTransferResponse {
     }
 
     public List<BigInteger> getD() {
-        return ImmutableList.copyOf(d);
+        return d;
     }
 
     @Override
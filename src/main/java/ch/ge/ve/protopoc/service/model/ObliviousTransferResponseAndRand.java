@@ -44,7 +44,7 @@ public final class ObliviousTransferResponseAndRand {
     }
 
     public List<BigInteger> getBold_r() {
-        return ImmutableList.copyOf(bold_r);
+        return bold_r;
     }
 
     @Override
@@ -179,7 +179,7 @@ public final class PublicParameters {
     }
 
     public List<Character> getUpper_a_x() {
-        return ImmutableList.copyOf(upper_a_x);
+        return upper_a_x;
     }
 
     public int getL_x() {
@@ -191,7 +191,7 @@ public final class PublicParameters {
     }
 
     public List<Character> getUpper_a_y() {
-        return ImmutableList.copyOf(upper_a_y);
+        return upper_a_y;
     }
 
     public int getL_y() {
@@ -199,7 +199,7 @@ public final class PublicParameters {
     }
 
     public List<Character> getUpper_a_r() {
-        return ImmutableList.copyOf(upper_a_r);
+        return upper_a_r;
     }
 
     public int getUpper_l_r() {
@@ -211,7 +211,7 @@ public final class PublicParameters {
     }
 
     public List<Character> getUpper_a_f() {
-        return ImmutableList.copyOf(upper_a_f);
+        return upper_a_f;
     }
 
     public int getUpper_l_f() {
@@ -0,0 +1,78 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * Model class holding a random value r &isin; Z_q together with the powers pk<sup>r</sup> and g<sup>r</sup>.
+ * <p>None of these values depend on the ballots, so they can be precomputed before the polls close, and used
+ * either as the randomization of a re-encryption or as the nonce of a proof.</p>
+ */
+public final class Randomization {
+    private final BigInteger r;
+    private final BigInteger pk_r;
+    private final BigInteger g_r;
+
+    public Randomization(BigInteger r, BigInteger pk_r, BigInteger g_r) {
+        this.r = r;
+        this.pk_r = pk_r;
+        this.g_r = g_r;
+    }
+
+    public BigInteger getR() {
+        return r;
+    }
+
+    public BigInteger getPk_r() {
+        return pk_r;
+    }
+
+    public BigInteger getG_r() {
+        return g_r;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Randomization that = (Randomization) o;
+        return Objects.equals(r, that.r) &&
+                Objects.equals(pk_r, that.pk_r) &&
+                Objects.equals(g_r, that.g_r);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(r, pk_r, g_r);
+    }
+
+    @Override
+    public String toString() {
+        return "Randomization{" +
+                "r=" + r +
+                ", pk_r=" + pk_r +
+                ", g_r=" + g_r +
+                '}';
+    }
+}
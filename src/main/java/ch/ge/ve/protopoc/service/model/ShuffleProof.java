@@ -21,6 +21,7 @@
 
 package ch.ge.ve.protopoc.service.model;
 
+import ch.ge.ve.protopoc.service.model.columnar.FixedWidthVector;
 import ch.ge.ve.protopoc.service.support.Hash;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -41,8 +42,8 @@ public final class ShuffleProof {
     public ShuffleProof(T t, S s, List<BigInteger> bold_c, List<BigInteger> bold_c_hat) {
         this.t = t;
         this.s = s;
-        this.bold_c = ImmutableList.copyOf(bold_c);
-        this.bold_c_hat = ImmutableList.copyOf(bold_c_hat);
+        this.bold_c = FixedWidthVector.immutableCopyOf(bold_c);
+        this.bold_c_hat = FixedWidthVector.immutableCopyOf(bold_c_hat);
     }
 
     public T getT() {
@@ -54,11 +55,11 @@ public final class ShuffleProof {
     }
 
     public List<BigInteger> getBold_c() {
-        return ImmutableList.copyOf(bold_c);
+        return bold_c;
     }
 
     public List<BigInteger> getBold_c_hat() {
-        return ImmutableList.copyOf(bold_c_hat);
+        return bold_c_hat;
     }
 
     @Override
@@ -97,12 +98,12 @@ public final class ShuffleProof {
             this.t_2 = t_2;
             this.t_3 = t_3;
             this.t_4 = ImmutableList.copyOf(t_4);
-            this.t_hat = ImmutableList.copyOf(t_hat);
+            this.t_hat = FixedWidthVector.immutableCopyOf(t_hat);
         }
 
         @Override
         public Object[] elementsToHash() {
-            return new Object[]{t_1, t_2, t_3, ImmutableList.copyOf(t_4), ImmutableList.copyOf(t_hat)};
+            return new Object[]{t_1, t_2, t_3, t_4, t_hat};
         }
 
         public BigInteger getT_1() {
@@ -118,11 +119,11 @@ public final class ShuffleProof {
         }
 
         public List<BigInteger> getT_4() {
-            return ImmutableList.copyOf(t_4);
+            return t_4;
         }
 
         public List<BigInteger> getT_hat() {
-            return ImmutableList.copyOf(t_hat);
+            return t_hat;
         }
 
         @Override
@@ -166,8 +167,8 @@ public final class ShuffleProof {
             this.s_2 = s_2;
             this.s_3 = s_3;
             this.s_4 = s_4;
-            this.s_hat = ImmutableList.copyOf(s_hat);
-            this.s_prime = ImmutableList.copyOf(s_prime);
+            this.s_hat = FixedWidthVector.immutableCopyOf(s_hat);
+            this.s_prime = FixedWidthVector.immutableCopyOf(s_prime);
         }
 
         public BigInteger getS_1() {
@@ -187,11 +188,11 @@ public final class ShuffleProof {
         }
 
         public List<BigInteger> getS_hat() {
-            return ImmutableList.copyOf(s_hat);
+            return s_hat;
         }
 
         public List<BigInteger> getS_prime() {
-            return ImmutableList.copyOf(s_prime);
+            return s_prime;
         }
 
         @Override
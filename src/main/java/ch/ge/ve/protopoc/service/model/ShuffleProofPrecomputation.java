@@ -0,0 +1,102 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model;
+
+import ch.ge.ve.protopoc.service.model.columnar.FixedWidthVector;
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Model class holding the parts of a shuffle proof which depend neither on the ciphertexts nor on the
+ * permutation, only on the number of ballots, so that they can be prepared before the polls close:
+ * <ul>
+ * <li>the independent generators bold_h</li>
+ * <li>the permutation commitment randomizations bold_r, and g<sup>r_i</sup></li>
+ * <li>the random values bold_omega_hat, and g<sup>omega_hat_i</sup></li>
+ * <li>the random values bold_omega_prime, and h_i<sup>omega_prime_i</sup></li>
+ * </ul>
+ * The values for index i only depend on i, so that a precomputation for N ballots can serve any smaller number of
+ * ballots by taking prefixes.
+ */
+public final class ShuffleProofPrecomputation {
+    private final List<BigInteger> bold_h;
+    private final List<BigInteger> bold_r;
+    private final List<BigInteger> bold_g_r;
+    private final List<BigInteger> bold_omega_hat;
+    private final List<BigInteger> bold_g_omega_hat;
+    private final List<BigInteger> bold_omega_prime;
+    private final List<BigInteger> bold_h_omega_prime;
+
+    public ShuffleProofPrecomputation(List<BigInteger> bold_h, List<BigInteger> bold_r, List<BigInteger> bold_g_r,
+                                      List<BigInteger> bold_omega_hat, List<BigInteger> bold_g_omega_hat,
+                                      List<BigInteger> bold_omega_prime, List<BigInteger> bold_h_omega_prime) {
+        int upper_n = bold_h.size();
+        Preconditions.checkArgument(bold_r.size() == upper_n && bold_g_r.size() == upper_n &&
+                        bold_omega_hat.size() == upper_n && bold_g_omega_hat.size() == upper_n &&
+                        bold_omega_prime.size() == upper_n && bold_h_omega_prime.size() == upper_n,
+                "All the vectors should have the same length");
+        this.bold_h = FixedWidthVector.immutableCopyOf(bold_h);
+        this.bold_r = FixedWidthVector.immutableCopyOf(bold_r);
+        this.bold_g_r = FixedWidthVector.immutableCopyOf(bold_g_r);
+        this.bold_omega_hat = FixedWidthVector.immutableCopyOf(bold_omega_hat);
+        this.bold_g_omega_hat = FixedWidthVector.immutableCopyOf(bold_g_omega_hat);
+        this.bold_omega_prime = FixedWidthVector.immutableCopyOf(bold_omega_prime);
+        this.bold_h_omega_prime = FixedWidthVector.immutableCopyOf(bold_h_omega_prime);
+    }
+
+    /**
+     * @return the number of ballots this precomputation was prepared for
+     */
+    public int getUpper_n() {
+        return bold_h.size();
+    }
+
+    public List<BigInteger> getBold_h() {
+        return bold_h;
+    }
+
+    public List<BigInteger> getBold_r() {
+        return bold_r;
+    }
+
+    public List<BigInteger> getBold_g_r() {
+        return bold_g_r;
+    }
+
+    public List<BigInteger> getBold_omega_hat() {
+        return bold_omega_hat;
+    }
+
+    public List<BigInteger> getBold_g_omega_hat() {
+        return bold_g_omega_hat;
+    }
+
+    public List<BigInteger> getBold_omega_prime() {
+        return bold_omega_prime;
+    }
+
+    public List<BigInteger> getBold_h_omega_prime() {
+        return bold_h_omega_prime;
+    }
+}
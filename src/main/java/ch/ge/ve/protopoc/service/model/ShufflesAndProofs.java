@@ -21,6 +21,7 @@
 
 package ch.ge.ve.protopoc.service.model;
 
+import ch.ge.ve.protopoc.service.model.columnar.FixedWidthVector;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
@@ -35,15 +36,16 @@ public final class ShufflesAndProofs {
 
 
     public ShufflesAndProofs(List<List<Encryption>> shuffles, List<ShuffleProof> shuffleProofs) {
-        this.shuffles = shuffles.parallelStream().map(ImmutableList::copyOf).collect(Collectors.toList());
+        this.shuffles = ImmutableList.copyOf(shuffles.parallelStream()
+                .<List<Encryption>>map(FixedWidthVector::immutableCopyOf).collect(Collectors.toList()));
         this.shuffleProofs = ImmutableList.copyOf(shuffleProofs);
     }
 
     public List<List<Encryption>> getShuffles() {
-        return shuffles.parallelStream().map(ImmutableList::copyOf).collect(Collectors.toList());
+        return shuffles;
     }
 
     public List<ShuffleProof> getShuffleProofs() {
-        return ImmutableList.copyOf(shuffleProofs);
+        return shuffleProofs;
     }
 }
@@ -0,0 +1,138 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Longs;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Model class containing the result of an election set: the number of votes for each candidate, along with the
+ * number of ballots per election and the per-election selection count checks
+ */
+public final class Tally {
+    private final List<Integer> bold_n;
+    private final long[] counts;
+    private final long[] participations;
+    private final long[] invalidSelectionCounts;
+    private final long ballotsCount;
+    private final List<Long> countsView;
+
+    /**
+     * @param bold_n                 the number of candidates, per election
+     * @param counts                 the number of votes, per candidate
+     * @param participations         the number of ballots with the expected number of selections, per election
+     * @param invalidSelectionCounts the number of ballots with neither zero nor the expected number of selections,
+     *                               per election
+     * @param ballotsCount           the total number of ballots
+     */
+    public Tally(List<Integer> bold_n, long[] counts, long[] participations, long[] invalidSelectionCounts,
+                 long ballotsCount) {
+        Preconditions.checkArgument(counts.length == bold_n.stream().mapToInt(Integer::intValue).sum(),
+                "There should be one count per candidate");
+        Preconditions.checkArgument(participations.length == bold_n.size(),
+                "There should be one participation per election");
+        Preconditions.checkArgument(invalidSelectionCounts.length == bold_n.size(),
+                "There should be one invalid selection count per election");
+        this.bold_n = ImmutableList.copyOf(bold_n);
+        this.counts = counts.clone();
+        this.participations = participations.clone();
+        this.invalidSelectionCounts = invalidSelectionCounts.clone();
+        this.ballotsCount = ballotsCount;
+        this.countsView = Collections.unmodifiableList(Longs.asList(this.counts));
+    }
+
+    /**
+     * @return the number of votes, per candidate, over all the elections
+     */
+    public List<Long> getCounts() {
+        return countsView;
+    }
+
+    public long getCount(int candidateIndex) {
+        return counts[candidateIndex];
+    }
+
+    /**
+     * @param electionIndex the index of the election
+     * @return the number of votes for each candidate of that election
+     */
+    public List<Long> getElectionCounts(int electionIndex) {
+        int offset = bold_n.subList(0, electionIndex).stream().mapToInt(Integer::intValue).sum();
+        return countsView.subList(offset, offset + bold_n.get(electionIndex));
+    }
+
+    public long getParticipation(int electionIndex) {
+        return participations[electionIndex];
+    }
+
+    public long getInvalidSelectionCount(int electionIndex) {
+        return invalidSelectionCounts[electionIndex];
+    }
+
+    public long getBallotsCount() {
+        return ballotsCount;
+    }
+
+    /**
+     * @return true if every ballot held either zero or the expected number of selections in every election
+     */
+    public boolean hasValidSelectionCounts() {
+        return Arrays.stream(invalidSelectionCounts).allMatch(c -> c == 0L);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Tally tally = (Tally) o;
+        return ballotsCount == tally.ballotsCount &&
+                bold_n.equals(tally.bold_n) &&
+                Arrays.equals(counts, tally.counts) &&
+                Arrays.equals(participations, tally.participations) &&
+                Arrays.equals(invalidSelectionCounts, tally.invalidSelectionCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = bold_n.hashCode();
+        result = 31 * result + Arrays.hashCode(counts);
+        result = 31 * result + Arrays.hashCode(participations);
+        result = 31 * result + Arrays.hashCode(invalidSelectionCounts);
+        result = 31 * result + Long.hashCode(ballotsCount);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Tally{" +
+                "counts=" + Arrays.toString(counts) +
+                ", participations=" + Arrays.toString(participations) +
+                ", invalidSelectionCounts=" + Arrays.toString(invalidSelectionCounts) +
+                ", ballotsCount=" + ballotsCount +
+                '}';
+    }
+}
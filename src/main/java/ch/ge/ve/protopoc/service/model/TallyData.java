@@ -21,6 +21,7 @@
 
 package ch.ge.ve.protopoc.service.model;
 
+import ch.ge.ve.protopoc.service.model.columnar.FixedWidthVector;
 import com.google.common.collect.ImmutableList;
 
 import java.math.BigInteger;
@@ -39,27 +40,26 @@ public final class TallyData {
 
     public TallyData(List<BigInteger> publicKeyShares, List<Encryption> finalShuffle, List<List<BigInteger>> partialDecryptions, List<DecryptionProof> decryptionProofs) {
         this.publicKeyShares = ImmutableList.copyOf(publicKeyShares);
-        this.finalShuffle = ImmutableList.copyOf(finalShuffle);
-        this.partialDecryptions = partialDecryptions.parallelStream().map(ImmutableList::copyOf)
-                .collect(Collectors.toList());
+        this.finalShuffle = FixedWidthVector.immutableCopyOf(finalShuffle);
+        this.partialDecryptions = ImmutableList.copyOf(partialDecryptions.parallelStream()
+                .<List<BigInteger>>map(ImmutableList::copyOf).collect(Collectors.toList()));
         this.decryptionProofs = ImmutableList.copyOf(decryptionProofs);
     }
 
     public List<BigInteger> getPublicKeyShares() {
-        return ImmutableList.copyOf(publicKeyShares);
+        return publicKeyShares;
     }
 
     public List<Encryption> getFinalShuffle() {
-        return ImmutableList.copyOf(finalShuffle);
+        return finalShuffle;
     }
 
     public List<List<BigInteger>> getPartialDecryptions() {
-        return partialDecryptions.parallelStream().map(ImmutableList::copyOf)
-                .collect(Collectors.toList());
+        return partialDecryptions;
     }
 
     public List<DecryptionProof> getDecryptionProofs() {
-        return ImmutableList.copyOf(decryptionProofs);
+        return decryptionProofs;
     }
 
     @Override
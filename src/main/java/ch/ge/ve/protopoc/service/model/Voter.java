@@ -21,24 +21,25 @@
 
 package ch.ge.ve.protopoc.service.model;
 
-import com.google.common.collect.ImmutableList;
-
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Model class for the voter
  */
 public final class Voter {
-    private Collection<DomainOfInfluence> allowedDomainsOfInfluence = new ArrayList<>();
+    private final Collection<DomainOfInfluence> allowedDomainsOfInfluence = new ArrayList<>();
+    private final Collection<DomainOfInfluence> allowedDomainsOfInfluenceView =
+            Collections.unmodifiableCollection(allowedDomainsOfInfluence);
 
     public void addDomainsOfInfluence(DomainOfInfluence... domainsOfInfluence) {
         allowedDomainsOfInfluence.addAll(Arrays.asList(domainsOfInfluence));
     }
 
     public Collection<DomainOfInfluence> getAllowedDomainsOfInfluence() {
-        return ImmutableList.copyOf(allowedDomainsOfInfluence);
+        return allowedDomainsOfInfluenceView;
     }
 }
 
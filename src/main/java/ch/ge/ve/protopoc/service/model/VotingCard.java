@@ -63,7 +63,7 @@ public final class VotingCard {
     }
 
     public List<Integer> getBold_k() {
-        return ImmutableList.copyOf(bold_k);
+        return bold_k;
     }
 
     public String getUpper_x() {
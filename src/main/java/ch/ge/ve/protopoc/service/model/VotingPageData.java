@@ -38,10 +38,10 @@ public final class VotingPageData {
     }
 
     public List<Integer> getSelectionCounts() {
-        return ImmutableList.copyOf(selectionCounts);
+        return selectionCounts;
     }
 
     public List<Integer> getCandidateCounts() {
-        return ImmutableList.copyOf(candidateCounts);
+        return candidateCounts;
     }
 }
@@ -0,0 +1,77 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.columnar;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+
+/**
+ * Fixed-size vector of non-negative integers, each written as an unsigned, big-endian, fixed-width record.
+ */
+public final class BigIntegerVector extends FixedWidthVector<BigInteger> {
+    private final int width;
+
+    private BigIntegerVector(FixedWidthColumn column, int offset, int size, boolean frozen) {
+        super(column, offset, size, frozen);
+        this.width = column.getWidth();
+    }
+
+    private BigIntegerVector(FixedWidthColumn column) {
+        this(column, 0, (int) column.getRecordsCount(), false);
+    }
+
+    /**
+     * @param size  the number of elements
+     * @param bound an exclusive upper bound of the elements, which determines the width of the records
+     * @return a vector of zeroes backed by direct buffers
+     */
+    public static BigIntegerVector allocateDirect(int size, BigInteger bound) {
+        return new BigIntegerVector(FixedWidthColumn.allocateDirect(size, byteLength(bound)));
+    }
+
+    /**
+     * @param file  the backing file, which is created or truncated as needed
+     * @param size  the number of elements
+     * @param bound an exclusive upper bound of the elements, which determines the width of the records
+     * @return a vector of zeroes mapped onto the file
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static BigIntegerVector map(Path file, int size, BigInteger bound) throws IOException {
+        return new BigIntegerVector(FixedWidthColumn.map(file, size, byteLength(bound)));
+    }
+
+    @Override
+    BigInteger read(long record) {
+        return column.getBigInteger(record, 0, width);
+    }
+
+    @Override
+    void write(long record, BigInteger element) {
+        column.putBigInteger(record, 0, width, element);
+    }
+
+    @Override
+    BigIntegerVector view(int offset, int size, boolean frozen) {
+        return new BigIntegerVector(column, offset, size, frozen);
+    }
+}
@@ -0,0 +1,322 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.columnar;
+
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.model.polynomial.Point;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * Columnar, off-heap counterpart of {@link ElectorateData}.
+ * <p>Every coordinate has a known upper bound (q_hat_x, q_hat_y, p_hat or p'), so each voter's data is stored as
+ * fixed-width records in {@link FixedWidthColumn}s, either in direct memory or in memory-mapped files. The list
+ * accessors are flyweight views: the model objects are only materialized when an element is read.</p>
+ */
+public final class ColumnarElectorateData {
+    private static final String SECRET_VOTER_DATA = "secret-voter-data";
+    private static final String PUBLIC_VOTER_DATA = "public-voter-data";
+    private static final String RANDOM_POINTS = "random-points";
+    private static final String ALLOWED_SELECTIONS = "allowed-selections";
+    private static final String COLUMN_FILE_SUFFIX = ".bin";
+
+    private final int votersCount;
+    private final int n;
+    private final int t;
+
+    private final int xWidth;
+    private final int yWidth;
+    private final int fWidth;
+    private final int rcWidth;
+    private final int pHatWidth;
+    private final int pPrimeWidth;
+
+    // x, y, F, rc_1, ..., rc_n
+    private final FixedWidthColumn secretVoterData;
+    // x_hat, y_hat
+    private final FixedWidthColumn publicVoterData;
+    // x_1, y_1, ..., x_n, y_n
+    private final FixedWidthColumn randomPoints;
+    // k_1, ..., k_t
+    private final FixedWidthColumn allowedSelections;
+
+    private ColumnarElectorateData(PublicParameters publicParameters, ElectionSet electionSet, ColumnFactory factory)
+            throws IOException {
+        this.votersCount = electionSet.getVoters().size();
+        this.n = electionSet.getBold_n().stream().mapToInt(Integer::intValue).sum();
+        this.t = electionSet.getElections().size();
+
+        this.xWidth = byteLength(publicParameters.getQ_hat_x());
+        this.yWidth = byteLength(publicParameters.getQ_hat_y());
+        this.fWidth = publicParameters.getUpper_l_f();
+        this.rcWidth = publicParameters.getUpper_l_r();
+        this.pHatWidth = byteLength(publicParameters.getIdentificationGroup().getP_hat());
+        this.pPrimeWidth = byteLength(publicParameters.getPrimeField().getP_prime());
+
+        this.secretVoterData = factory.create(SECRET_VOTER_DATA, xWidth + yWidth + fWidth + n * rcWidth);
+        this.publicVoterData = factory.create(PUBLIC_VOTER_DATA, 2 * pHatWidth);
+        this.randomPoints = factory.create(RANDOM_POINTS, Math.max(1, 2 * n * pPrimeWidth));
+        this.allowedSelections = factory.create(ALLOWED_SELECTIONS, Math.max(1, t * Integer.BYTES));
+    }
+
+    /**
+     * Creates a store backed by direct buffers
+     *
+     * @param publicParameters the public parameters, bounding the size of the coordinates
+     * @param electionSet      the election set, giving the number of voters, candidates and elections
+     * @return an empty store, to be filled with {@link #put(int, ElectorateData)}
+     */
+    public static ColumnarElectorateData allocateDirect(PublicParameters publicParameters, ElectionSet electionSet) {
+        int votersCount = electionSet.getVoters().size();
+        try {
+            return new ColumnarElectorateData(publicParameters, electionSet,
+                    (name, width) -> FixedWidthColumn.allocateDirect(votersCount, width));
+        } catch (IOException e) {
+            // direct allocation does not perform any I/O
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates a store backed by memory-mapped files, one per column
+     *
+     * @param directory        the directory holding the column files
+     * @param publicParameters the public parameters, bounding the size of the coordinates
+     * @param electionSet      the election set, giving the number of voters, candidates and elections
+     * @return an empty store, to be filled with {@link #put(int, ElectorateData)}
+     * @throws IOException if the column files cannot be created or mapped
+     */
+    public static ColumnarElectorateData map(Path directory, PublicParameters publicParameters,
+                                             ElectionSet electionSet) throws IOException {
+        int votersCount = electionSet.getVoters().size();
+        return new ColumnarElectorateData(publicParameters, electionSet,
+                (name, width) -> FixedWidthColumn.map(directory.resolve(name + COLUMN_FILE_SUFFIX), votersCount,
+                        width));
+    }
+
+    /**
+     * Maps the column files written by {@link #writeTo(Path)}, read-only: the data is paged in as it is accessed,
+     * instead of being generated again
+     *
+     * @param directory        the directory holding the column files
+     * @param publicParameters the public parameters the data was generated for
+     * @param electionSet      the election set the data was generated for
+     * @return a read-only store
+     * @throws IOException if the column files cannot be mapped, or do not match the election set
+     */
+    public static ColumnarElectorateData open(Path directory, PublicParameters publicParameters,
+                                              ElectionSet electionSet) throws IOException {
+        int votersCount = electionSet.getVoters().size();
+        return new ColumnarElectorateData(publicParameters, electionSet, (name, width) -> {
+            FixedWidthColumn column = FixedWidthColumn.open(directory.resolve(name + COLUMN_FILE_SUFFIX), width);
+            if (column.getRecordsCount() != votersCount) {
+                throw new IOException(String.format("The %s column holds %d voters instead of %d", name,
+                        column.getRecordsCount(), votersCount));
+            }
+            return column;
+        });
+    }
+
+    /**
+     * Writes one file per column, to be mapped back with {@link #open(Path, PublicParameters, ElectionSet)}
+     *
+     * @param directory the directory of the column files
+     * @throws IOException if the files cannot be written
+     */
+    public void writeTo(Path directory) throws IOException {
+        secretVoterData.writeTo(directory.resolve(SECRET_VOTER_DATA + COLUMN_FILE_SUFFIX));
+        publicVoterData.writeTo(directory.resolve(PUBLIC_VOTER_DATA + COLUMN_FILE_SUFFIX));
+        randomPoints.writeTo(directory.resolve(RANDOM_POINTS + COLUMN_FILE_SUFFIX));
+        allowedSelections.writeTo(directory.resolve(ALLOWED_SELECTIONS + COLUMN_FILE_SUFFIX));
+    }
+
+    /**
+     * Stores a shard of consecutive voters. Distinct shards may be stored concurrently.
+     *
+     * @param firstVoterIndex the index of the first voter in the shard
+     * @param shard           the electorate data for the shard
+     */
+    public void put(int firstVoterIndex, ElectorateData shard) {
+        List<SecretVoterData> d = shard.getD();
+        List<Point> d_hat = shard.getD_hat();
+        List<List<Point>> bold_upper_p = shard.getP();
+        List<List<Integer>> bold_upper_k = shard.getK();
+        Preconditions.checkElementIndex(firstVoterIndex + d.size() - 1, votersCount,
+                "The shard must fit in the store");
+
+        for (int k = 0; k < d.size(); k++) {
+            int i = firstVoterIndex + k;
+            putSecretVoterData(i, d.get(k));
+            putPoint(publicVoterData, i, 0, pHatWidth, d_hat.get(k));
+            List<Point> bold_p_i = bold_upper_p.get(k);
+            Preconditions.checkArgument(bold_p_i.size() == n, "Each voter should have n points");
+            for (int l = 0; l < n; l++) {
+                putPoint(randomPoints, i, 2 * l * pPrimeWidth, pPrimeWidth, bold_p_i.get(l));
+            }
+            List<Integer> bold_k_i = bold_upper_k.get(k);
+            Preconditions.checkArgument(bold_k_i.size() == t, "Each voter should have t allowed selections");
+            for (int j = 0; j < t; j++) {
+                allowedSelections.putInt(i, j * Integer.BYTES, bold_k_i.get(j));
+            }
+        }
+    }
+
+    public int getVotersCount() {
+        return votersCount;
+    }
+
+    /**
+     * @param i the voter index
+     * @return the secret data of voter i
+     */
+    public SecretVoterData getSecretVoterData(int i) {
+        BigInteger x = secretVoterData.getBigInteger(i, 0, xWidth);
+        BigInteger y = secretVoterData.getBigInteger(i, xWidth, yWidth);
+        byte[] f = secretVoterData.get(i, xWidth + yWidth, fWidth);
+        byte[][] rc = new byte[n][];
+        int offset = xWidth + yWidth + fWidth;
+        for (int l = 0; l < n; l++) {
+            rc[l] = secretVoterData.get(i, offset + l * rcWidth, rcWidth);
+        }
+        return new SecretVoterData(x, y, f, rc);
+    }
+
+    /**
+     * @param i the voter index
+     * @return the public data of voter i
+     */
+    public Point getPublicVoterData(int i) {
+        return getPoint(publicVoterData, i, 0, pHatWidth);
+    }
+
+    /**
+     * @param i the voter index
+     * @param l the candidate index
+     * @return the random point p_{il}
+     */
+    public Point getPoint(int i, int l) {
+        Preconditions.checkElementIndex(l, n);
+        return getPoint(randomPoints, i, 2 * l * pPrimeWidth, pPrimeWidth);
+    }
+
+    /**
+     * @param i the voter index
+     * @param j the election index
+     * @return the number of selections k_{ij} allowed to voter i in election j
+     */
+    public int getAllowedSelections(int i, int j) {
+        Preconditions.checkElementIndex(j, t);
+        return allowedSelections.getInt(i, j * Integer.BYTES);
+    }
+
+    /**
+     * @return a view of the secret voter data, d
+     */
+    public List<SecretVoterData> getD() {
+        return new ListView<>(votersCount, this::getSecretVoterData);
+    }
+
+    /**
+     * @return a view of the public voter data, d_hat
+     */
+    public List<Point> getD_hat() {
+        return new ListView<>(votersCount, this::getPublicVoterData);
+    }
+
+    /**
+     * @return a view of the random points, P
+     */
+    public List<List<Point>> getP() {
+        return new ListView<>(votersCount, i -> new ListView<>(n, l -> getPoint(i, l)));
+    }
+
+    /**
+     * @return a view of the allowed selections, K
+     */
+    public List<List<Integer>> getK() {
+        return new ListView<>(votersCount, i -> new ListView<>(t, j -> getAllowedSelections(i, j)));
+    }
+
+    private void putSecretVoterData(int i, SecretVoterData d_i) {
+        secretVoterData.putBigInteger(i, 0, xWidth, d_i.getX());
+        secretVoterData.putBigInteger(i, xWidth, yWidth, d_i.getY());
+        byte[] f = d_i.getF();
+        Preconditions.checkArgument(f.length == fWidth, "F should be upper_l_f bytes long");
+        secretVoterData.put(i, xWidth + yWidth, f);
+        byte[][] rc = d_i.getRc();
+        Preconditions.checkArgument(rc.length == n, "Each voter should have n return codes");
+        int offset = xWidth + yWidth + fWidth;
+        for (int l = 0; l < n; l++) {
+            Preconditions.checkArgument(rc[l].length == rcWidth, "rc_i should be upper_l_r bytes long");
+            secretVoterData.put(i, offset + l * rcWidth, rc[l]);
+        }
+    }
+
+    private static void putPoint(FixedWidthColumn column, int i, int offset, int width, Point point) {
+        column.putBigInteger(i, offset, width, point.x);
+        column.putBigInteger(i, offset + width, width, point.y);
+    }
+
+    private static Point getPoint(FixedWidthColumn column, int i, int offset, int width) {
+        return new Point(column.getBigInteger(i, offset, width), column.getBigInteger(i, offset + width, width));
+    }
+
+    private static int byteLength(BigInteger bound) {
+        return (bound.bitLength() + 7) / 8;
+    }
+
+    @FunctionalInterface
+    private interface ColumnFactory {
+        FixedWidthColumn create(String name, int width) throws IOException;
+    }
+
+    /**
+     * Read-only list materializing its elements on access
+     */
+    private static final class ListView<T> extends AbstractList<T> implements RandomAccess {
+        private final int size;
+        private final IntFunction<T> reader;
+
+        ListView(int size, IntFunction<T> reader) {
+            this.size = size;
+            this.reader = reader;
+        }
+
+        @Override
+        public T get(int index) {
+            Preconditions.checkElementIndex(index, size);
+            return reader.apply(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
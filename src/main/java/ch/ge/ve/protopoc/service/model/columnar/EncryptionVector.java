@@ -0,0 +1,82 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.columnar;
+
+import ch.ge.ve.protopoc.service.model.Encryption;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+
+/**
+ * Packed vector of ElGamal encryptions: each one is a record holding a and b as unsigned, big-endian, fixed-width
+ * fields, the {@link Encryption} and its BigIntegers only being materialized when the element is read.
+ * <p>An encryption then takes 2|p| bytes instead of two BigIntegers with their headers and magnitude arrays.</p>
+ */
+public final class EncryptionVector extends FixedWidthVector<Encryption> {
+    private final int width;
+
+    private EncryptionVector(FixedWidthColumn column, int offset, int size, boolean frozen) {
+        super(column, offset, size, frozen);
+        this.width = column.getWidth() / 2;
+    }
+
+    private EncryptionVector(FixedWidthColumn column) {
+        this(column, 0, (int) column.getRecordsCount(), false);
+    }
+
+    /**
+     * @param size  the number of encryptions
+     * @param bound an exclusive upper bound of a and b, typically p
+     * @return a vector of (0, 0) encryptions backed by direct buffers
+     */
+    public static EncryptionVector allocateDirect(int size, BigInteger bound) {
+        return new EncryptionVector(FixedWidthColumn.allocateDirect(size, 2 * byteLength(bound)));
+    }
+
+    /**
+     * @param file  the backing file, which is created or truncated as needed
+     * @param size  the number of encryptions
+     * @param bound an exclusive upper bound of a and b, typically p
+     * @return a vector of (0, 0) encryptions mapped onto the file
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static EncryptionVector map(Path file, int size, BigInteger bound) throws IOException {
+        return new EncryptionVector(FixedWidthColumn.map(file, size, 2 * byteLength(bound)));
+    }
+
+    @Override
+    Encryption read(long record) {
+        return new Encryption(column.getBigInteger(record, 0, width), column.getBigInteger(record, width, width));
+    }
+
+    @Override
+    void write(long record, Encryption element) {
+        column.putBigInteger(record, 0, width, element.getA());
+        column.putBigInteger(record, width, width, element.getB());
+    }
+
+    @Override
+    EncryptionVector view(int offset, int size, boolean frozen) {
+        return new EncryptionVector(column, offset, size, frozen);
+    }
+}
@@ -0,0 +1,251 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.columnar;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A column of fixed-width records held outside of the Java heap, either in direct buffers or in a memory-mapped file.
+ * <p>The column is split in segments of at most {@value #MAX_SEGMENT_SIZE} bytes, each holding whole records, so
+ * that it is not limited by the <tt>int</tt> indices of the buffers.</p>
+ * <p>Records may be read and written concurrently, provided that concurrent writes target distinct records.</p>
+ */
+public final class FixedWidthColumn {
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private final long recordsCount;
+    private final int width;
+    private final int recordsPerSegment;
+    private final ByteBuffer[] segments;
+
+    private FixedWidthColumn(long recordsCount, int width, ByteBuffer[] segments) {
+        this.recordsCount = recordsCount;
+        this.width = width;
+        this.recordsPerSegment = getRecordsPerSegment(width);
+        this.segments = segments;
+    }
+
+    /**
+     * Creates a column backed by direct buffers
+     *
+     * @param recordsCount the number of records
+     * @param width        the width of a record, in bytes
+     * @return a zero-filled column
+     */
+    public static FixedWidthColumn allocateDirect(long recordsCount, int width) {
+        checkDimensions(recordsCount, width);
+        int recordsPerSegment = getRecordsPerSegment(width);
+        ByteBuffer[] segments = new ByteBuffer[getSegmentsCount(recordsCount, recordsPerSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            long records = Math.min(recordsPerSegment, recordsCount - (long) i * recordsPerSegment);
+            segments[i] = ByteBuffer.allocateDirect((int) (records * width));
+        }
+        return new FixedWidthColumn(recordsCount, width, segments);
+    }
+
+    /**
+     * Creates a column backed by a memory-mapped file, which is created or truncated as needed
+     *
+     * @param file         the backing file
+     * @param recordsCount the number of records
+     * @param width        the width of a record, in bytes
+     * @return a column mapped onto the file
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static FixedWidthColumn map(Path file, long recordsCount, int width) throws IOException {
+        checkDimensions(recordsCount, width);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return new FixedWidthColumn(recordsCount, width,
+                    mapSegments(channel, FileChannel.MapMode.READ_WRITE, recordsCount, width));
+        }
+    }
+
+    /**
+     * Maps the records of a file written by {@link #writeTo(Path)}, read-only
+     *
+     * @param file  the file holding the records
+     * @param width the width of a record, in bytes
+     * @return a read-only column mapped onto the file
+     * @throws IOException if the file cannot be mapped, or does not hold whole records
+     */
+    public static FixedWidthColumn open(Path file, int width) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % width != 0) {
+                throw new IOException(String.format("%s does not hold records of %d bytes", file, width));
+            }
+            checkDimensions(size / width, width);
+            return new FixedWidthColumn(size / width, width,
+                    mapSegments(channel, FileChannel.MapMode.READ_ONLY, size / width, width));
+        }
+    }
+
+    private static ByteBuffer[] mapSegments(FileChannel channel, FileChannel.MapMode mode, long recordsCount,
+                                            int width) throws IOException {
+        int recordsPerSegment = getRecordsPerSegment(width);
+        ByteBuffer[] segments = new ByteBuffer[getSegmentsCount(recordsCount, recordsPerSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            long offset = (long) i * recordsPerSegment * width;
+            long records = Math.min(recordsPerSegment, recordsCount - (long) i * recordsPerSegment);
+            segments[i] = channel.map(mode, offset, records * width);
+        }
+        return segments;
+    }
+
+    /**
+     * Writes all the records to a file, which is created or truncated as needed, then forced to the disk
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ByteBuffer segment : segments) {
+                ByteBuffer buffer = segment.duplicate();
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(false);
+        }
+    }
+
+    public long getRecordsCount() {
+        return recordsCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Copies bytes into a record
+     *
+     * @param record the index of the record
+     * @param offset the offset within the record
+     * @param src    the bytes to be written
+     */
+    public void put(long record, int offset, byte[] src) {
+        locate(record, offset, src.length).put(src);
+    }
+
+    /**
+     * Copies bytes out of a record
+     *
+     * @param record the index of the record
+     * @param offset the offset within the record
+     * @param length the number of bytes to be read
+     * @return the bytes read
+     */
+    public byte[] get(long record, int offset, int length) {
+        byte[] dst = new byte[length];
+        locate(record, offset, length).get(dst);
+        return dst;
+    }
+
+    /**
+     * Writes a non-negative integer as an unsigned, big-endian, fixed-length field
+     *
+     * @param record the index of the record
+     * @param offset the offset of the field within the record
+     * @param length the length of the field
+     * @param value  the value, which must fit in the field
+     */
+    public void putBigInteger(long record, int offset, int length, BigInteger value) {
+        Preconditions.checkArgument(value.signum() >= 0, "Only non-negative values may be stored");
+        Preconditions.checkArgument(value.bitLength() <= 8 * length, "The value does not fit in the field");
+        byte[] bytes = value.toByteArray();
+        // drop the sign byte if any, left-pad with zeroes otherwise
+        int significant = Math.min(bytes.length, length);
+        ByteBuffer buffer = locate(record, offset, length);
+        for (int i = 0; i < length - significant; i++) {
+            buffer.put((byte) 0);
+        }
+        buffer.put(bytes, bytes.length - significant, significant);
+    }
+
+    /**
+     * @param record the index of the record
+     * @param offset the offset of the field within the record
+     * @param length the length of the field
+     * @return the value of the unsigned, big-endian, fixed-length field
+     */
+    public BigInteger getBigInteger(long record, int offset, int length) {
+        return new BigInteger(1, get(record, offset, length));
+    }
+
+    public void putInt(long record, int offset, int value) {
+        ByteBuffer segment = segments[getSegmentIndex(record)];
+        segment.putInt(getPosition(record, offset, Integer.BYTES), value);
+    }
+
+    public int getInt(long record, int offset) {
+        ByteBuffer segment = segments[getSegmentIndex(record)];
+        return segment.getInt(getPosition(record, offset, Integer.BYTES));
+    }
+
+    /**
+     * @return an independent buffer positioned at the requested bytes, the shared buffers are never moved
+     */
+    private ByteBuffer locate(long record, int offset, int length) {
+        ByteBuffer buffer = segments[getSegmentIndex(record)].duplicate();
+        buffer.position(getPosition(record, offset, length));
+        return buffer;
+    }
+
+    private int getSegmentIndex(long record) {
+        if (record < 0 || record >= recordsCount) {
+            throw new IndexOutOfBoundsException(String.format("record index (%d) must be less than size (%d)",
+                    record, recordsCount));
+        }
+        return (int) (record / recordsPerSegment);
+    }
+
+    private int getPosition(long record, int offset, int length) {
+        Preconditions.checkPositionIndexes(offset, offset + length, width);
+        return (int) (record % recordsPerSegment) * width + offset;
+    }
+
+    private static void checkDimensions(long recordsCount, int width) {
+        Preconditions.checkArgument(recordsCount >= 0, "The number of records may not be negative");
+        Preconditions.checkArgument(width > 0 && width <= MAX_SEGMENT_SIZE,
+                "The width of a record must be positive, and fit in a segment");
+    }
+
+    private static int getRecordsPerSegment(int width) {
+        return MAX_SEGMENT_SIZE / width;
+    }
+
+    private static int getSegmentsCount(long recordsCount, int recordsPerSegment) {
+        return (int) ((recordsCount + recordsPerSegment - 1) / recordsPerSegment);
+    }
+}
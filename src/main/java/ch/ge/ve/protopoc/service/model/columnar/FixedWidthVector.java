@@ -0,0 +1,138 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.columnar;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Fixed-size vector held outside of the Java heap, one fixed-width record of a {@link FixedWidthColumn} per element.
+ * <p>The elements are materialized on access only. Elements may be set concurrently, provided that concurrent
+ * writes target distinct indices; once {@link #freeze() frozen}, the vector is immutable, and may be handed over to
+ * other components without being copied.</p>
+ *
+ * @param <T> the type of the elements
+ */
+public abstract class FixedWidthVector<T> extends AbstractList<T> implements RandomAccess {
+    final FixedWidthColumn column;
+    private final int offset;
+    private final int size;
+    private volatile boolean frozen;
+
+    FixedWidthVector(FixedWidthColumn column, int offset, int size, boolean frozen) {
+        this.column = column;
+        this.offset = offset;
+        this.size = size;
+        this.frozen = frozen;
+    }
+
+    /**
+     * Immutable copy of a list, as held by the model classes
+     * <p>Frozen vectors are returned as they are, so that their elements remain off-heap; any other list is copied
+     * into an {@link ImmutableList}.</p>
+     *
+     * @param values the values
+     * @param <T>    the type of the elements
+     * @return an immutable list of the values
+     */
+    public static <T> List<T> immutableCopyOf(List<T> values) {
+        if (values instanceof FixedWidthVector && ((FixedWidthVector<T>) values).frozen) {
+            return values;
+        }
+        return ImmutableList.copyOf(values);
+    }
+
+    abstract T read(long record);
+
+    abstract void write(long record, T element);
+
+    abstract FixedWidthVector<T> view(int offset, int size, boolean frozen);
+
+    @Override
+    public T get(int index) {
+        Preconditions.checkElementIndex(index, size);
+        return read(offset + index);
+    }
+
+    @Override
+    public T set(int index, T element) {
+        T previous = get(index);
+        put(index, element);
+        return previous;
+    }
+
+    /**
+     * Same as {@link #set(int, Object)}, without reading the previous value
+     *
+     * @param index   the index of the element
+     * @param element the new value of the element
+     */
+    public void put(int index, T element) {
+        if (frozen) {
+            throw new UnsupportedOperationException("The vector has been frozen");
+        }
+        Preconditions.checkElementIndex(index, size);
+        write(offset + index, element);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a view of the range, sharing the records of this vector, and frozen if this vector already is
+     */
+    @Override
+    public FixedWidthVector<T> subList(int fromIndex, int toIndex) {
+        Preconditions.checkPositionIndexes(fromIndex, toIndex, size);
+        return view(offset + fromIndex, toIndex - fromIndex, frozen);
+    }
+
+    /**
+     * Make the vector immutable, any further modification being rejected
+     *
+     * @return this vector
+     */
+    public FixedWidthVector<T> freeze() {
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @param bound an exclusive upper bound of some non-negative integers
+     * @return the number of bytes needed to write these integers
+     */
+    static int byteLength(BigInteger bound) {
+        Preconditions.checkArgument(bound.signum() > 0, "The bound must be positive");
+        return (bound.bitLength() + 7) / 8;
+    }
+}
@@ -0,0 +1,117 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.columnar;
+
+import ch.ge.ve.protopoc.service.model.Encryption;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocator of the N-length vectors of the mixing algorithms: the ciphertexts, and the working vectors of the shuffles
+ * and of their proofs
+ * <p>With the {@link #heap() heap} store, vectors are plain arrays of objects. The {@link #direct() direct} and
+ * {@link #mapped(Path) mapped} stores hold them as fixed-width records outside of the heap, so that the memory
+ * needed by a shuffle and its proof no longer grows with the number of ballots times the size of a BigInteger.</p>
+ */
+public interface VectorStore {
+    /**
+     * @param size  the number of elements
+     * @param bound an exclusive upper bound of the elements
+     * @return a new, modifiable, fixed-size vector
+     */
+    List<BigInteger> newVector(int size, BigInteger bound);
+
+    /**
+     * @param size  the number of encryptions
+     * @param bound an exclusive upper bound of the components of the encryptions
+     * @return a new, modifiable, fixed-size vector
+     */
+    List<Encryption> newEncryptionVector(int size, BigInteger bound);
+
+    static VectorStore heap() {
+        return new VectorStore() {
+            @Override
+            public List<BigInteger> newVector(int size, BigInteger bound) {
+                return Arrays.asList(new BigInteger[size]);
+            }
+
+            @Override
+            public List<Encryption> newEncryptionVector(int size, BigInteger bound) {
+                return Arrays.asList(new Encryption[size]);
+            }
+        };
+    }
+
+    static VectorStore direct() {
+        return new VectorStore() {
+            @Override
+            public List<BigInteger> newVector(int size, BigInteger bound) {
+                return BigIntegerVector.allocateDirect(size, bound);
+            }
+
+            @Override
+            public List<Encryption> newEncryptionVector(int size, BigInteger bound) {
+                return EncryptionVector.allocateDirect(size, bound);
+            }
+        };
+    }
+
+    /**
+     * Store backed by scratch files
+     * <p>The files are deleted as soon as they are mapped: the mappings remain valid until the vectors are garbage
+     * collected, and nothing is left behind should the process die.</p>
+     *
+     * @param directory the directory of the scratch files
+     * @return a store of memory-mapped vectors
+     */
+    static VectorStore mapped(Path directory) {
+        return new VectorStore() {
+            @Override
+            public List<BigInteger> newVector(int size, BigInteger bound) {
+                return ScratchFiles.map(directory, file -> BigIntegerVector.map(file, size, bound));
+            }
+
+            @Override
+            public List<Encryption> newEncryptionVector(int size, BigInteger bound) {
+                return ScratchFiles.map(directory, file -> EncryptionVector.map(file, size, bound));
+            }
+        };
+    }
+
+    /**
+     * Freeze a vector once all its elements have been set
+     *
+     * @param vector a vector obtained from a store
+     * @param <T>    the type of the elements
+     * @return the vector, immutable if it is held off-heap
+     * @see FixedWidthVector#immutableCopyOf(List)
+     */
+    static <T> List<T> freeze(List<T> vector) {
+        if (vector instanceof FixedWidthVector) {
+            return ((FixedWidthVector<T>) vector).freeze();
+        }
+        return vector;
+    }
+}
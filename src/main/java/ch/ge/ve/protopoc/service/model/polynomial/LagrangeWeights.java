@@ -0,0 +1,145 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.polynomial;
+
+import ch.ge.ve.protopoc.arithmetic.PrimeFieldArithmetic;
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+
+/**
+ * Lagrange weights for evaluating, at <tt>X = 0</tt>, the polynomial of degree <tt>k - 1</tt> interpolating
+ * <tt>k</tt> points over <tt>Z_p'</tt>.
+ * <p>The weights <tt>w_i = prod_{j != i} x_j / (x_j - x_i)</tt> only depend on the x-coordinates, so that they can be
+ * reused for all the y-coordinates sharing the same x-coordinates. All the denominators are inverted at once, with
+ * a single modular inversion.</p>
+ */
+public final class LagrangeWeights {
+    private final PrimeFieldArithmetic field;
+    private final int k;
+    private final long[] bold_x;
+    private final long[] bold_w;
+
+    private LagrangeWeights(PrimeFieldArithmetic field, int k, long[] bold_x, long[] bold_w) {
+        this.field = field;
+        this.k = k;
+        this.bold_x = bold_x;
+        this.bold_w = bold_w;
+    }
+
+    /**
+     * Computes the weights for the x-coordinates of a range of points, evaluating at zero
+     *
+     * @param points the points, with pairwise distinct x-coordinates within the range
+     * @param from   the index of the first point of the range, inclusive
+     * @param to     the index of the last point of the range, exclusive
+     * @return the weights for the x-coordinates of the points
+     * @throws ArithmeticException if the x-coordinates are not pairwise distinct
+     */
+    public static LagrangeWeights atZero(PackedPoints points, int from, int to) {
+        Preconditions.checkPositionIndexes(from, to, points.size());
+        PrimeFieldArithmetic field = points.getField();
+        int limbs = field.getLimbs();
+        int k = to - from;
+        long[] xs = field.newElements(k);
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(points.getCoordinates(), points.getXOffset(from + i), xs, i * limbs, limbs);
+        }
+        return new LagrangeWeights(field, k, xs, computeWeights(field, k, xs));
+    }
+
+    private static long[] computeWeights(PrimeFieldArithmetic field, int k, long[] xs) {
+        int limbs = field.getLimbs();
+        long[] one = field.valueOf(BigInteger.ONE);
+        long[] t = field.newScratch();
+
+        // n_i = prod_{j != i} x_j, from prefix and suffix products
+        long[] bold_n = field.newElements(k);
+        long[] product = one.clone();
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(product, 0, bold_n, i * limbs, limbs);
+            field.multiply(product, 0, xs, i * limbs, product, 0, t);
+        }
+        product = one.clone();
+        for (int i = k - 1; i >= 0; i--) {
+            field.multiply(bold_n, i * limbs, product, 0, bold_n, i * limbs, t);
+            field.multiply(product, 0, xs, i * limbs, product, 0, t);
+        }
+
+        // d_i = prod_{j != i} (x_j - x_i), and the running products c_i = d_0 * ... * d_i
+        long[] bold_d = field.newElements(k);
+        long[] bold_c = field.newElements(k);
+        long[] difference = field.newElements(1);
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(one, 0, bold_d, i * limbs, limbs);
+            for (int j = 0; j < k; j++) {
+                if (i != j) {
+                    field.subtract(xs, j * limbs, xs, i * limbs, difference, 0);
+                    field.multiply(bold_d, i * limbs, difference, 0, bold_d, i * limbs, t);
+                }
+            }
+            if (i == 0) {
+                System.arraycopy(bold_d, 0, bold_c, 0, limbs);
+            } else {
+                field.multiply(bold_c, (i - 1) * limbs, bold_d, i * limbs, bold_c, i * limbs, t);
+            }
+        }
+
+        // Montgomery's trick: invert c_{k-1} once, and peel off the d_i's from the end
+        long[] bold_w = field.newElements(k);
+        if (k > 0) {
+            long[] inverse = field.newElements(1);
+            field.invert(bold_c, (k - 1) * limbs, inverse, 0);
+            for (int i = k - 1; i > 0; i--) {
+                field.multiply(inverse, 0, bold_c, (i - 1) * limbs, bold_w, i * limbs, t);
+                field.multiply(bold_w, i * limbs, bold_n, i * limbs, bold_w, i * limbs, t);
+                field.multiply(inverse, 0, bold_d, i * limbs, inverse, 0, t);
+            }
+            field.multiply(inverse, 0, bold_n, 0, bold_w, 0, t);
+        }
+        return bold_w;
+    }
+
+    /**
+     * @param points the points, whose x-coordinates must match those of the weights within the range
+     * @param from   the index of the first point of the range, inclusive
+     * @param to     the index of the last point of the range, exclusive
+     * @return the value at zero of the polynomial interpolating the points
+     */
+    public BigInteger interpolate(PackedPoints points, int from, int to) {
+        Preconditions.checkPositionIndexes(from, to, points.size());
+        Preconditions.checkArgument(to - from == k, "There must be exactly one point per weight");
+        Preconditions.checkArgument(points.getField() == field, "The points must belong to the same field");
+        int limbs = field.getLimbs();
+        long[] coordinates = points.getCoordinates();
+        long[] sum = field.newElements(1);
+        long[] term = field.newElements(1);
+        long[] t = field.newScratch();
+        for (int i = 0; i < k; i++) {
+            Preconditions.checkArgument(field.equals(coordinates, points.getXOffset(from + i), bold_x, i * limbs),
+                    "The points' x-coordinates must match those of the weights");
+            field.multiply(coordinates, points.getYOffset(from + i), bold_w, i * limbs, term, 0, t);
+            field.add(sum, 0, term, 0, sum, 0);
+        }
+        return field.toBigInteger(sum, 0);
+    }
+}
@@ -0,0 +1,92 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.polynomial;
+
+import ch.ge.ve.protopoc.arithmetic.PrimeFieldArithmetic;
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list of points over <tt>Z_p'</tt>, whose coordinates are packed as fixed-width field elements in a single
+ * array: <tt>x_0, y_0, x_1, y_1, ...</tt>
+ * <p>The points are only materialized as {@link Point}s when read through the {@link List} interface; the polynomial
+ * computations work on the packed coordinates directly.</p>
+ */
+public final class PackedPoints extends AbstractList<Point> implements RandomAccess {
+    private final PrimeFieldArithmetic field;
+    private final long[] coordinates;
+    private final int size;
+
+    private PackedPoints(PrimeFieldArithmetic field, long[] coordinates, int size) {
+        this.field = field;
+        this.coordinates = coordinates;
+        this.size = size;
+    }
+
+    /**
+     * @param points the points, with coordinates in <tt>Z_p'</tt>
+     * @param field  the arithmetic of <tt>Z_p'</tt>
+     * @return the packed points
+     */
+    public static PackedPoints pack(List<Point> points, PrimeFieldArithmetic field) {
+        int size = points.size();
+        long[] coordinates = field.newElements(2 * size);
+        int limbs = field.getLimbs();
+        for (int i = 0; i < size; i++) {
+            Point point = points.get(i);
+            field.set(point.x, coordinates, 2 * i * limbs);
+            field.set(point.y, coordinates, (2 * i + 1) * limbs);
+        }
+        return new PackedPoints(field, coordinates, size);
+    }
+
+    public PrimeFieldArithmetic getField() {
+        return field;
+    }
+
+    @Override
+    public Point get(int index) {
+        Preconditions.checkElementIndex(index, size);
+        return new Point(field.toBigInteger(coordinates, getXOffset(index)),
+                field.toBigInteger(coordinates, getYOffset(index)));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    long[] getCoordinates() {
+        return coordinates;
+    }
+
+    int getXOffset(int index) {
+        return 2 * index * field.getLimbs();
+    }
+
+    int getYOffset(int index) {
+        return (2 * index + 1) * field.getLimbs();
+    }
+}
@@ -40,11 +40,11 @@ public final class PointsAndZeroImages {
     }
 
     public List<Point> getPoints() {
-        return ImmutableList.copyOf(points);
+        return points;
     }
 
     public List<BigInteger> getY0s() {
-        return ImmutableList.copyOf(y0s);
+        return y0s;
     }
 
     @Override
@@ -33,6 +33,8 @@ public interface AuthorityService {
 
     void buildPublicKey();
 
+    void startPrecomputation(int expectedBallotsCount);
+
     void generateElectorateData();
 
     List<SecretVoterData> getPrivateCredentials();
@@ -0,0 +1,115 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol;
+
+import ch.ge.ve.protopoc.service.codec.MessageType;
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec;
+import ch.ge.ve.protopoc.service.exception.PersistenceRuntimeException;
+import ch.ge.ve.protopoc.service.model.BallotEntry;
+import ch.ge.ve.protopoc.service.model.ConfirmationEntry;
+import ch.ge.ve.protopoc.service.model.PublicParameters;
+import ch.ge.ve.protopoc.service.storage.ByteBufferInputStream;
+import ch.ge.ve.protopoc.service.storage.SegmentedLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Journal of the ballots and confirmations accepted by an authority, so that its ballot box survives a crash
+ * <p>Each entry is appended to a {@link SegmentedLog} and committed before the voter gets the response of the
+ * authority. As the commits of the concurrent voters are grouped, a single fsync covers all the entries accepted in
+ * the meantime.</p>
+ */
+public final class BallotJournal implements Closeable {
+    private final SegmentedLog log;
+    private final ProtocolCodec codec;
+
+    private BallotJournal(SegmentedLog log, ProtocolCodec codec) {
+        this.log = log;
+        this.codec = codec;
+    }
+
+    /**
+     * @param directory        the directory of the journal, which is created if needed
+     * @param publicParameters the public parameters, defining the encoding of the entries
+     * @return the journal, positioned after its last intact entry
+     * @throws IOException if the journal cannot be opened
+     */
+    public static BallotJournal open(Path directory, PublicParameters publicParameters) throws IOException {
+        return new BallotJournal(SegmentedLog.open(directory), new ProtocolCodec(publicParameters));
+    }
+
+    /**
+     * Reads back the entries of the journal, in the order they were accepted
+     *
+     * @param ballotEntries       the consumer of the ballot entries
+     * @param confirmationEntries the consumer of the confirmation entries
+     * @throws IOException if the journal cannot be read
+     */
+    public void replay(Consumer<BallotEntry> ballotEntries, Consumer<ConfirmationEntry> confirmationEntries)
+            throws IOException {
+        SegmentedLog.Cursor cursor = log.cursor(0L);
+        while (cursor.hasNext()) {
+            ByteBuffer record = cursor.next();
+            MessageType type = MessageType.fromCode(record.get(record.position() + 1) & 0xFF);
+            if (type == MessageType.BALLOT_ENTRY) {
+                ballotEntries.accept(codec.readBallotEntry(new ByteBufferInputStream(record)));
+            } else if (type == MessageType.CONFIRMATION_ENTRY) {
+                confirmationEntries.accept(codec.readConfirmationEntry(new ByteBufferInputStream(record)));
+            } else {
+                throw new IOException("Unexpected record of type " + type + " in the ballot journal");
+            }
+        }
+    }
+
+    public void record(BallotEntry ballotEntry) {
+        commit(append(out -> codec.writeBallotEntry(ballotEntry, out)));
+    }
+
+    public void record(ConfirmationEntry confirmationEntry) {
+        commit(append(out -> codec.writeConfirmationEntry(confirmationEntry, out)));
+    }
+
+    private long append(SegmentedLog.PayloadWriter entryWriter) {
+        try {
+            return log.append(entryWriter);
+        } catch (IOException e) {
+            throw new PersistenceRuntimeException("The entry could not be written to the journal", e);
+        }
+    }
+
+    private void commit(long index) {
+        try {
+            log.commit(index);
+        } catch (IOException e) {
+            throw new PersistenceRuntimeException("The entry could not be committed", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+}
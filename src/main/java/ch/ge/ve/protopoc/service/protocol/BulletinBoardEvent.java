@@ -0,0 +1,91 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol;
+
+import ch.ge.ve.protopoc.service.model.DecryptionProof;
+import ch.ge.ve.protopoc.service.model.EncryptionPublicKey;
+import ch.ge.ve.protopoc.service.model.ShuffleProof;
+import com.google.common.base.Preconditions;
+
+import java.util.List;
+
+/**
+ * Model class for a publication on the bulletin board, as notified to the {@link BulletinBoardListener}s
+ */
+public final class BulletinBoardEvent {
+    /**
+     * The kinds of publication notified, with the class of the publication they carry
+     */
+    public enum Type {
+        PUBLIC_KEY_PART(EncryptionPublicKey.class),
+        SHUFFLE(List.class),
+        SHUFFLE_PROOF(ShuffleProof.class),
+        PARTIAL_DECRYPTION(List.class),
+        DECRYPTION_PROOF(DecryptionProof.class);
+
+        private final Class<?> publicationClass;
+
+        Type(Class<?> publicationClass) {
+            this.publicationClass = publicationClass;
+        }
+
+        public Class<?> getPublicationClass() {
+            return publicationClass;
+        }
+    }
+
+    private final Type type;
+    private final int j;
+    private final Object publication;
+
+    public BulletinBoardEvent(Type type, int j, Object publication) {
+        Preconditions.checkNotNull(type);
+        Preconditions.checkArgument(type.getPublicationClass().isInstance(publication),
+                "The publication of a %s event should be a %s", type, type.getPublicationClass().getSimpleName());
+        this.type = type;
+        this.j = j;
+        this.publication = publication;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the index of the publishing authority
+     */
+    public int getJ() {
+        return j;
+    }
+
+    /**
+     * @return the object published, an instance of the publication class of the type of the event
+     */
+    public Object getPublication() {
+        return publication;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulletinBoardEvent{type=%s, j=%d}", type, j);
+    }
+}
@@ -52,7 +52,9 @@ public interface BulletinBoardService {
 
     List<FinalizationCodePart> publishConfirmation(Integer voterIndex, Confirmation confirmation) throws IncorrectConfirmationRuntimeException;
 
-    void publishShuffleAndProof(int j, List<Encryption> shuffle, ShuffleProof proof);
+    void publishShuffle(int j, List<Encryption> shuffle);
+
+    void publishShuffleProof(int j, ShuffleProof proof);
 
     List<Encryption> getPreviousShuffle(int j);
 
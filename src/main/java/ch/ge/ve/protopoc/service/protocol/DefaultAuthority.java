@@ -21,23 +21,41 @@
 
 package ch.ge.ve.protopoc.service.protocol;
 
+import ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic;
 import ch.ge.ve.protopoc.service.algorithm.*;
 import ch.ge.ve.protopoc.service.exception.IncorrectBallotRuntimeException;
 import ch.ge.ve.protopoc.service.exception.IncorrectConfirmationRuntimeException;
 import ch.ge.ve.protopoc.service.exception.InvalidShuffleProofRuntimeException;
 import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.model.columnar.ColumnarElectorateData;
 import ch.ge.ve.protopoc.service.model.polynomial.Point;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.KeyPair;
 import java.util.List;
 import java.util.LongSummaryStatistics;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -46,6 +64,11 @@ import java.util.stream.Collectors;
  */
 public class DefaultAuthority implements AuthorityService {
     private static final Logger log = LoggerFactory.getLogger(DefaultAuthority.class);
+    private static final int SNAPSHOT_FORMAT_VERSION = 1;
+    private static final String SNAPSHOT_KEYS_FILE = "keys.bin";
+    private static final String SNAPSHOT_ELECTORATE_DATA_DIRECTORY = "electorate-data";
+    private static final String SNAPSHOT_RANDOMIZATIONS_FILE = "randomizations.bin";
+    private static final int MAX_SNAPSHOT_INTEGER_LENGTH = 1 << 16;
     private final Logger perfLog = LoggerFactory.getLogger("PerformanceStats");
     private final int j;
     private final BulletinBoardService bulletinBoardService;
@@ -64,10 +87,19 @@ public class DefaultAuthority implements AuthorityService {
     private EncryptionPublicKey systemPublicKey;
     private PublicParameters publicParameters;
     private ElectionSet electionSet;
-    private ElectorateData electorateData;
+    private ColumnarElectorateData electorateData;
     private List<Point> publicCredentials;
+    private RandomizationPool randomizationPool;
+    private CompletableFuture<ShuffleProofPrecomputation> shuffleProofPrecomputation;
     private Queue<BallotEntry> ballotEntries = new ConcurrentLinkedQueue<>();
     private Queue<ConfirmationEntry> confirmationEntries = new ConcurrentLinkedQueue<>();
+    /**
+     * Voters whose ballot, respectively confirmation, is being handled or has been accepted: reserving the voter index
+     * up front keeps two concurrent submissions for the same voter from both passing the checks
+     */
+    private final ConcurrentMap<Integer, Boolean> ballotReservations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Boolean> confirmationReservations = new ConcurrentHashMap<>();
+    private BallotJournal ballotJournal;
 
     public DefaultAuthority(int j, BulletinBoardService bulletinBoardService,
                             KeyEstablishmentAlgorithms keyEstablishmentAlgorithms,
@@ -109,13 +141,196 @@ public class DefaultAuthority implements AuthorityService {
                 "The j-th key share should be equal to this authority's");
 
         systemPublicKey = keyEstablishmentAlgorithms.getPublicKey(publicKeyParts);
+        randomizationPool = new RandomizationPool(mixingAuthorityAlgorithms, systemPublicKey);
+    }
+
+    @Override
+    public void startPrecomputation(int expectedBallotsCount) {
+        Preconditions.checkState(randomizationPool != null,
+                "The public key needs to have been built beforehand");
+        log.info(String.format("Authority %d precomputing randomizations for %d ballots", j, expectedBallotsCount));
+        // one randomization per re-encryption, plus the nonces of the shuffle proof and of the decryption proof
+        randomizationPool.startFilling(expectedBallotsCount + MixingAuthorityAlgorithms.SHUFFLE_PROOF_NONCES + 1);
+        // pre-mix: the input-independent part of the shuffle proof, adapted to the actual number of ballots later on
+        shuffleProofPrecomputation = CompletableFuture.supplyAsync(
+                () -> mixingAuthorityAlgorithms.genShuffleProofPrecomputation(expectedBallotsCount));
+    }
+
+    /**
+     * Save the precomputed randomizations, e.g. before a planned restart
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void savePrecomputations(Path path) throws IOException {
+        Preconditions.checkState(randomizationPool != null,
+                "The public key needs to have been built beforehand");
+        randomizationPool.save(path);
+    }
+
+    /**
+     * Load previously saved randomizations
+     *
+     * @param path the file to read
+     * @throws IOException if the file cannot be read
+     */
+    public void loadPrecomputations(Path path) throws IOException {
+        Preconditions.checkState(randomizationPool != null,
+                "The public key needs to have been built beforehand");
+        randomizationPool.load(path);
+    }
+
+    /**
+     * Save the state of the authority once its public credentials have been built, so that it may be restored after a
+     * restart instead of being generated again
+     * <p>The snapshot holds the encryption keys, the electorate data, as one file per column, and the randomizations
+     * available at that time. It is written to a fresh sibling directory, forced to the disk, then renamed into place:
+     * a crash while saving leaves the previous snapshot untouched. Like the precomputations, the snapshot must be
+     * protected as carefully as the private key.</p>
+     *
+     * @param directory the directory of the snapshot, replaced if it already exists
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void saveSnapshot(Path directory) throws IOException {
+        Preconditions.checkState(publicCredentials != null,
+                "The public credentials need to have been built beforehand");
+        Path target = directory.toAbsolutePath();
+        Path parent = target.getParent();
+        Files.createDirectories(parent);
+        Path temporaryDirectory = Files.createTempDirectory(parent, target.getFileName() + ".");
+        try {
+            Path electorateDataDirectory = temporaryDirectory.resolve(SNAPSHOT_ELECTORATE_DATA_DIRECTORY);
+            Files.createDirectory(electorateDataDirectory);
+            electorateData.writeTo(electorateDataDirectory);
+            forceDirectory(electorateDataDirectory);
+
+            Path randomizationsFile = temporaryDirectory.resolve(SNAPSHOT_RANDOMIZATIONS_FILE);
+            randomizationPool.save(randomizationsFile);
+            forceFile(randomizationsFile);
+
+            Path keysFile = temporaryDirectory.resolve(SNAPSHOT_KEYS_FILE);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(keysFile)))) {
+                out.writeInt(SNAPSHOT_FORMAT_VERSION);
+                out.writeInt(j);
+                out.writeInt(electorateData.getVotersCount());
+                writeBigInteger(out, myPrivateKey.getPrivateKey());
+                writeBigInteger(out, myPublicKey.getPublicKey());
+            }
+            forceFile(keysFile);
+            forceDirectory(temporaryDirectory);
+        } catch (IOException | RuntimeException e) {
+            deleteRecursively(temporaryDirectory);
+            throw e;
+        }
+
+        // a directory cannot be renamed over a non-empty one: the previous snapshot is set aside first, and is used by
+        // restoreSnapshot should a crash happen between the two renames
+        Path previous = previousSnapshot(target);
+        if (Files.exists(target)) {
+            deleteRecursively(previous);
+            Files.move(target, previous, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(temporaryDirectory, target, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(parent);
+        deleteRecursively(previous);
+    }
+
+    /**
+     * Restore the state saved by {@link #saveSnapshot(Path)}, in place of the key generation, the electorate data
+     * generation and the build of the public key and credentials
+     * <p>The electorate data is mapped read-only, and paged in as the voters cast their ballots. The public key and
+     * credentials are built again from the bulletin board, against which the keys of the snapshot are checked, as is
+     * the private key against the public key. The ballot box is not part of the snapshot: it is restored by
+     * {@link #openBallotJournal(Path)}.</p>
+     *
+     * @param directory the directory of the snapshot
+     * @throws IOException if the snapshot cannot be read, holds an inconsistent key pair, or does not match the
+     *                     bulletin board
+     */
+    public void restoreSnapshot(Path directory) throws IOException {
+        Path snapshot = directory.toAbsolutePath();
+        if (!Files.exists(snapshot) && Files.exists(previousSnapshot(snapshot))) {
+            snapshot = previousSnapshot(snapshot);
+        }
+        publicParameters = bulletinBoardService.getPublicParameters();
+        electionSet = bulletinBoardService.getElectionSet();
+        EncryptionGroup encryptionGroup = publicParameters.getEncryptionGroup();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(snapshot.resolve(SNAPSHOT_KEYS_FILE))))) {
+            int version = in.readInt();
+            checkSnapshot(version == SNAPSHOT_FORMAT_VERSION,
+                    String.format("Unsupported snapshot format version %d", version));
+            checkSnapshot(in.readInt() == j, "The snapshot was saved by another authority");
+            checkSnapshot(in.readInt() == electionSet.getVoters().size(),
+                    "The snapshot was saved for another electorate");
+            BigInteger privateKey = readBigInteger(in);
+            BigInteger publicKey = readBigInteger(in);
+            checkSnapshot(BigIntegerArithmetic.modExp(encryptionGroup.getG(), privateKey, encryptionGroup.getP())
+                    .equals(publicKey), "The private key of the snapshot does not match its public key");
+            EncryptionPublicKey publishedKey = bulletinBoardService.getPublicKeyParts().get(j);
+            checkSnapshot(publishedKey.getPublicKey().equals(publicKey),
+                    "The snapshot keys do not match the key part published by this authority");
+            myPrivateKey = new EncryptionPrivateKey(privateKey, encryptionGroup);
+            myPublicKey = publishedKey;
+        }
+        try {
+            buildPublicKey();
+            electorateData = ColumnarElectorateData.open(snapshot.resolve(SNAPSHOT_ELECTORATE_DATA_DIRECTORY),
+                    publicParameters, electionSet);
+            buildPublicCredentials();
+            randomizationPool.load(snapshot.resolve(SNAPSHOT_RANDOMIZATIONS_FILE));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The snapshot does not match the bulletin board", e);
+        }
+        log.info(String.format("Authority %d restored from its snapshot, with %d randomizations", j,
+                randomizationPool.size()));
+    }
+
+    /**
+     * Journal the ballots and confirmations accepted from now on, after replaying those journaled before a restart
+     *
+     * @param directory the directory of the journal
+     * @throws IOException if the journal cannot be opened or replayed
+     */
+    public void openBallotJournal(Path directory) throws IOException {
+        Preconditions.checkState(ballotJournal == null, "The ballot journal has already been opened");
+        BallotJournal journal = BallotJournal.open(directory, bulletinBoardService.getPublicParameters());
+        try {
+            journal.replay(ballotEntry -> {
+                ballotReservations.put(ballotEntry.getI(), Boolean.TRUE);
+                ballotEntries.add(ballotEntry);
+            }, confirmationEntry -> {
+                confirmationReservations.put(confirmationEntry.getI(), Boolean.TRUE);
+                confirmationEntries.add(confirmationEntry);
+            });
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        log.info(String.format("Authority %d replayed %d ballots and %d confirmations", j, ballotEntries.size(),
+                confirmationEntries.size()));
+        ballotJournal = journal;
+    }
+
+    /**
+     * Close the ballot journal, e.g. once the polls are closed
+     *
+     * @throws IOException if the journal cannot be committed
+     */
+    public void closeBallotJournal() throws IOException {
+        if (ballotJournal != null) {
+            ballotJournal.close();
+            ballotJournal = null;
+        }
     }
 
     @Override
     public void generateElectorateData() {
         log.info(String.format("Authority %d generating electorate data", j));
         electionSet = bulletinBoardService.getElectionSet();
-        electorateData = electionPreparationAlgorithms.genElectorateData(electionSet);
+        electorateData = ColumnarElectorateData.allocateDirect(publicParameters, electionSet);
+        electionPreparationAlgorithms.genElectorateData(electionSet, electorateData::put);
 
         bulletinBoardService.publishPublicCredentials(j, electorateData.getD_hat());
     }
@@ -140,26 +355,44 @@ public class DefaultAuthority implements AuthorityService {
 
         log.info(String.format("Authority %d handling ballot", j));
 
-        Stopwatch stopwatch = Stopwatch.createStarted();
-        List<BigInteger> publicIdentificationCredentials =
-                publicCredentials.stream().map(p -> p.x).collect(Collectors.toList());
-        if (!voteCastingAuthorityAlgorithms.checkBallot(voterIndex, ballotAndQuery, systemPublicKey,
-                publicIdentificationCredentials, ballotEntries)) {
-            throw new IncorrectBallotRuntimeException(String.format("Ballot for voter %d was deemed invalid", voterIndex));
+        if (ballotReservations.putIfAbsent(voterIndex, Boolean.TRUE) != null) {
+            throw new IncorrectBallotRuntimeException(
+                    String.format("A ballot for voter %d has already been submitted", voterIndex));
+        }
+        boolean accepted = false;
+        try {
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            List<BigInteger> publicIdentificationCredentials =
+                    publicCredentials.stream().map(p -> p.x).collect(Collectors.toList());
+            if (!voteCastingAuthorityAlgorithms.checkBallot(voterIndex, ballotAndQuery, systemPublicKey,
+                    publicIdentificationCredentials, ballotEntries)) {
+                throw new IncorrectBallotRuntimeException(String.format("Ballot for voter %d was deemed invalid", voterIndex));
+            }
+            stopwatch.stop();
+            ballotVerificationTimes.add(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+            stopwatch.reset().start();
+            ObliviousTransferResponseAndRand responseAndRand =
+                    voteCastingAuthorityAlgorithms.genResponse(voterIndex, ballotAndQuery.getBold_a(), systemPublicKey,
+                            electionSet.getBold_n(), electorateData.getK(), electorateData.getP());
+            BallotEntry ballotEntry = new BallotEntry(voterIndex, ballotAndQuery, responseAndRand.getBold_r());
+            // the ballot is durable before the voter gets the response
+            if (ballotJournal != null) {
+                ballotJournal.record(ballotEntry);
+            }
+            ballotEntries.add(ballotEntry);
+            accepted = true;
+            ObliviousTransferResponse beta = responseAndRand.getBeta();
+            stopwatch.stop();
+            queryResponseTimes.add(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+            return beta;
+        } finally {
+            if (!accepted) {
+                // the voter may submit a ballot again
+                ballotReservations.remove(voterIndex);
+            }
         }
-        stopwatch.stop();
-        ballotVerificationTimes.add(stopwatch.elapsed(TimeUnit.MILLISECONDS));
-
-        stopwatch.reset().start();
-        ObliviousTransferResponseAndRand responseAndRand =
-                voteCastingAuthorityAlgorithms.genResponse(voterIndex, ballotAndQuery.getBold_a(), systemPublicKey,
-                        electionSet.getBold_n(), electorateData.getK(), electorateData.getP());
-        ballotEntries.add(new BallotEntry(voterIndex, ballotAndQuery, responseAndRand.getBold_r()));
-        ObliviousTransferResponse beta = responseAndRand.getBeta();
-        stopwatch.stop();
-        queryResponseTimes.add(stopwatch.elapsed(TimeUnit.MILLISECONDS));
-
-        return beta;
     }
 
     @Override
@@ -167,18 +400,35 @@ public class DefaultAuthority implements AuthorityService {
             throws IncorrectConfirmationRuntimeException {
         Preconditions.checkState(publicCredentials != null,
                 "The public credentials need to have been retrieved first");
+        if (confirmationReservations.putIfAbsent(voterIndex, Boolean.TRUE) != null) {
+            throw new IncorrectConfirmationRuntimeException(
+                    "A confirmation for voter " + voterIndex + " has already been submitted");
+        }
+        boolean accepted = false;
         Stopwatch stopwatch = Stopwatch.createStarted();
-        List<BigInteger> publicConfirmationCredentials =
-                publicCredentials.stream().map(p -> p.y).collect(Collectors.toList());
-
-        if (!voteConfirmationAuthorityAlgorithms.checkConfirmation(voterIndex, confirmation,
-                publicConfirmationCredentials, ballotEntries, confirmationEntries)) {
-            throw new IncorrectConfirmationRuntimeException("Confirmation for voter " + voterIndex + " was deemed invalid");
+        try {
+            List<BigInteger> publicConfirmationCredentials =
+                    publicCredentials.stream().map(p -> p.y).collect(Collectors.toList());
+
+            if (!voteConfirmationAuthorityAlgorithms.checkConfirmation(voterIndex, confirmation,
+                    publicConfirmationCredentials, ballotEntries, confirmationEntries)) {
+                throw new IncorrectConfirmationRuntimeException("Confirmation for voter " + voterIndex + " was deemed invalid");
+            }
+            stopwatch.stop();
+            confirmationVerificationTimes.add(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+            ConfirmationEntry confirmationEntry = new ConfirmationEntry(voterIndex, confirmation);
+            if (ballotJournal != null) {
+                ballotJournal.record(confirmationEntry);
+            }
+            confirmationEntries.add(confirmationEntry);
+            accepted = true;
+        } finally {
+            if (!accepted) {
+                // the voter may submit a confirmation again
+                confirmationReservations.remove(voterIndex);
+            }
         }
-        stopwatch.stop();
-        confirmationVerificationTimes.add(stopwatch.elapsed(TimeUnit.MILLISECONDS));
-
-        confirmationEntries.add(new ConfirmationEntry(voterIndex, confirmation));
 
         stopwatch.reset().start();
         FinalizationCodePart finalization = voteConfirmationAuthorityAlgorithms.getFinalization(voterIndex, electorateData.getP(), ballotEntries);
@@ -203,18 +453,35 @@ public class DefaultAuthority implements AuthorityService {
     }
 
     private void mixAndPublish(List<Encryption> encryptions) {
+        // the polls are closed: the remaining randomizations will be computed on the fly, if needed
+        randomizationPool.stopFilling();
         Stopwatch shuffleWatch = Stopwatch.createStarted();
-        Shuffle shuffle = mixingAuthorityAlgorithms.genShuffle(encryptions, systemPublicKey);
+        Shuffle shuffle = mixingAuthorityAlgorithms.genShuffle(encryptions, systemPublicKey,
+                randomizationPool.take(encryptions.size()));
         shuffleWatch.stop();
         perfLog.info(String.format("Authority %d : shuffled in %dms", j, shuffleWatch.elapsed(TimeUnit.MILLISECONDS)));
+        // published before the proof, so that the next authority may start mixing while this one proves its shuffle
+        bulletinBoardService.publishShuffle(j, shuffle.getBold_e_prime());
+
         Stopwatch shuffleProofWatch = Stopwatch.createStarted();
         ShuffleProof shuffleProof = mixingAuthorityAlgorithms.genShuffleProof(encryptions,
-                shuffle.getBold_e_prime(), shuffle.getBold_r_prime(), shuffle.getPsy(), systemPublicKey);
+                shuffle.getBold_e_prime(), shuffle.getBold_r_prime(), shuffle.getPsy(), systemPublicKey,
+                randomizationPool.take(MixingAuthorityAlgorithms.SHUFFLE_PROOF_NONCES),
+                takeShuffleProofPrecomputation(encryptions.size()));
         shuffleProofWatch.stop();
         perfLog.info(String.format("Authority %d : generated shuffle proof in %dms", j,
                 shuffleProofWatch.elapsed(TimeUnit.MILLISECONDS)));
 
-        bulletinBoardService.publishShuffleAndProof(j, shuffle.getBold_e_prime(), shuffleProof);
+        bulletinBoardService.publishShuffleProof(j, shuffleProof);
+    }
+
+    private ShuffleProofPrecomputation takeShuffleProofPrecomputation(int upper_n) {
+        ShuffleProofPrecomputation precomputation = shuffleProofPrecomputation != null ?
+                shuffleProofPrecomputation.join() :
+                mixingAuthorityAlgorithms.genShuffleProofPrecomputation(upper_n);
+        // the random values of a precomputation may only be used for a single proof
+        shuffleProofPrecomputation = null;
+        return precomputation;
     }
 
     @Override
@@ -245,7 +512,8 @@ public class DefaultAuthority implements AuthorityService {
         BigInteger publicKey = myPublicKey.getPublicKey();
         Stopwatch decryptionProofWatch = Stopwatch.createStarted();
         DecryptionProof decryptionProof = decryptionAuthorityAlgorithms
-                .genDecryptionProof(secretKey, publicKey, finalShuffle, partialDecryptions);
+                .genDecryptionProof(secretKey, publicKey, finalShuffle, partialDecryptions,
+                        randomizationPool.take());
         decryptionProofWatch.stop();
         perfLog.info(String.format("Authority %d : decryption proof in %dms", j,
                 decryptionProofWatch.elapsed(TimeUnit.MILLISECONDS)));
@@ -269,4 +537,65 @@ public class DefaultAuthority implements AuthorityService {
         return finalizationComputationTimes.stream().mapToLong(Long::valueOf).summaryStatistics();
     }
 
+    private static void writeBigInteger(DataOutputStream out, BigInteger value) throws IOException {
+        byte[] bytes = value.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static BigInteger readBigInteger(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkSnapshot(length > 0 && length <= MAX_SNAPSHOT_INTEGER_LENGTH,
+                String.format("Invalid integer length %d in the snapshot", length));
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+
+    private static void checkSnapshot(boolean condition, String message) throws IOException {
+        if (!condition) {
+            throw new IOException(message);
+        }
+    }
+
+    private static Path previousSnapshot(Path snapshot) {
+        return snapshot.resolveSibling(snapshot.getFileName() + ".old");
+    }
+
+    private static void forceFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not every platform lets a directory be opened, e.g. Windows, where the rename is durable once done
+            log.debug(String.format("Could not force the directory %s", directory), e);
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
 }
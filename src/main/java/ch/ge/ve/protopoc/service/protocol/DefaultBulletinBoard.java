@@ -25,6 +25,8 @@ import ch.ge.ve.protopoc.service.exception.IncorrectConfirmationRuntimeException
 import ch.ge.ve.protopoc.service.model.*;
 import ch.ge.ve.protopoc.service.model.polynomial.Point;
 import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -33,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -40,6 +43,8 @@ import java.util.stream.IntStream;
  * Default implementation of the {@link BulletinBoardService}
  */
 public class DefaultBulletinBoard implements BulletinBoardService {
+    private static final Logger log = LoggerFactory.getLogger(DefaultBulletinBoard.class);
+    private final List<BulletinBoardListener> listeners = new CopyOnWriteArrayList<>();
     private final List<AuthorityService> authorities = new ArrayList<>();
     private final ConcurrentMap<Integer, EncryptionPublicKey> publicKeyParts = new ConcurrentHashMap<>();
     private final ConcurrentMap<Integer, List<Point>> publicCredentialsParts = new ConcurrentHashMap<>();
@@ -57,12 +62,34 @@ public class DefaultBulletinBoard implements BulletinBoardService {
         this.authorities.addAll(authorities);
     }
 
+    /**
+     * Subscribes to the key parts, shuffles, partial decryptions and proofs published from now on
+     *
+     * @param listener the listener to notify of each publication
+     */
+    public void addListener(BulletinBoardListener listener) {
+        listeners.add(Preconditions.checkNotNull(listener));
+    }
+
+    public void removeListener(BulletinBoardListener listener) {
+        listeners.remove(listener);
+    }
+
     @Override
     public void publishPublicParameters(PublicParameters publicParameters) {
+        checkPublicParameters(publicParameters);
+        this.publicParameters = publicParameters;
+    }
+
+    /**
+     * Checks that the public parameters may be published
+     * <p>Each publication has such a check, which the subclasses may run before recording the publication
+     * elsewhere.</p>
+     */
+    protected void checkPublicParameters(PublicParameters publicParameters) {
         Preconditions.checkNotNull(publicParameters);
         Preconditions.checkState(this.publicParameters == null,
                 "Once the public parameters have been set, they can no longer be changed");
-        this.publicParameters = publicParameters;
     }
 
     @Override
@@ -72,11 +99,16 @@ public class DefaultBulletinBoard implements BulletinBoardService {
 
     @Override
     public void publishKeyPart(int j, EncryptionPublicKey publicKey) {
+        checkKeyPart(j);
+        publicKeyParts.put(j, publicKey);
+        notifyListeners(new BulletinBoardEvent(BulletinBoardEvent.Type.PUBLIC_KEY_PART, j, publicKey));
+    }
+
+    protected void checkKeyPart(int j) {
         Preconditions.checkState(publicParameters != null,
                 "The public parameters need to have been defined first");
         Preconditions.checkElementIndex(j, publicParameters.getS(),
                 "The index j should be lower than the number of authorities");
-        publicKeyParts.put(j, publicKey);
     }
 
     @Override
@@ -105,11 +137,15 @@ public class DefaultBulletinBoard implements BulletinBoardService {
 
     @Override
     public void publishPublicCredentials(int j, List<Point> publicCredentials) {
+        checkPublicCredentials(j);
+        publicCredentialsParts.put(j, publicCredentials);
+    }
+
+    protected void checkPublicCredentials(int j) {
         Preconditions.checkState(publicParameters != null,
                 "The public parameters need to have been defined first");
         Preconditions.checkElementIndex(j, publicParameters.getS(),
                 "The index j should be lower than the number of authorities");
-        publicCredentialsParts.put(j, publicCredentials);
     }
 
     @Override
@@ -154,15 +190,35 @@ public class DefaultBulletinBoard implements BulletinBoardService {
     }
 
     @Override
-    public void publishShuffleAndProof(int j, List<Encryption> shuffle, ShuffleProof proof) {
+    public void publishShuffle(int j, List<Encryption> shuffle) {
+        checkShuffle(j);
+        shuffles.put(j, shuffle);
+        notifyListeners(new BulletinBoardEvent(BulletinBoardEvent.Type.SHUFFLE, j, shuffle));
+    }
+
+    protected void checkShuffle(int j) {
         Preconditions.checkElementIndex(j, publicParameters.getS(),
                 "j needs to be within bounds");
         Preconditions.checkArgument(shuffles.size() == j,
                 "Shuffle j can only be inserted after the previous shuffles");
-        Preconditions.checkArgument(shuffleProofs.size() == j,
-                "Shuffle proof j can only be inserted after the previous shuffle proof");
-        shuffles.put(j, shuffle);
-        shuffleProofs.put(j, proof);
+    }
+
+    @Override
+    public void publishShuffleProof(int j, ShuffleProof proof) {
+        checkShuffleProof(j);
+        Preconditions.checkArgument(shuffleProofs.putIfAbsent(j, proof) == null,
+                "Shuffle proofs may not be updated");
+        notifyListeners(new BulletinBoardEvent(BulletinBoardEvent.Type.SHUFFLE_PROOF, j, proof));
+    }
+
+    protected void checkShuffleProof(int j) {
+        Preconditions.checkElementIndex(j, publicParameters.getS(),
+                "j needs to be within bounds");
+        // the next authority may already be mixing: the proofs need not arrive in order
+        Preconditions.checkArgument(shuffles.containsKey(j),
+                "Shuffle proof j can only be inserted after shuffle j");
+        Preconditions.checkArgument(!shuffleProofs.containsKey(j),
+                "Shuffle proofs may not be updated");
     }
 
     @Override
@@ -179,7 +235,7 @@ public class DefaultBulletinBoard implements BulletinBoardService {
         Preconditions.checkState(shuffles.size() == publicParameters.getS(),
                 "This may only happen during decryption time, once all the shuffles have been entered");
         Preconditions.checkState(shuffleProofs.size() == publicParameters.getS(),
-                "This may only happen during decryption time, once all the shuffles have been entered");
+                "This may only happen during decryption time, once all the shuffle proofs have been entered");
 
         List<List<Encryption>> shuffleList = new ArrayList<>();
         List<ShuffleProof> shuffleProofList = new ArrayList<>();
@@ -193,6 +249,14 @@ public class DefaultBulletinBoard implements BulletinBoardService {
 
     @Override
     public void publishPartialDecryptionAndProof(int j, List<BigInteger> partialDecryption, DecryptionProof proof) {
+        checkPartialDecryptionAndProof(j);
+        partialDecryptions.put(j, partialDecryption);
+        decryptionProofs.put(j, proof);
+        notifyListeners(new BulletinBoardEvent(BulletinBoardEvent.Type.PARTIAL_DECRYPTION, j, partialDecryption));
+        notifyListeners(new BulletinBoardEvent(BulletinBoardEvent.Type.DECRYPTION_PROOF, j, proof));
+    }
+
+    protected void checkPartialDecryptionAndProof(int j) {
         Preconditions.checkElementIndex(j, publicParameters.getS(),
                 "j needs to be within bounds");
         Preconditions.checkState(shuffles.size() == publicParameters.getS(),
@@ -203,8 +267,6 @@ public class DefaultBulletinBoard implements BulletinBoardService {
                 "Partial decryptions may not be updated");
         Preconditions.checkArgument(!decryptionProofs.containsKey(j),
                 "Partial decryptions proofs may not be updated");
-        partialDecryptions.put(j, partialDecryption);
-        decryptionProofs.put(j, proof);
     }
 
     @Override
@@ -230,11 +292,25 @@ public class DefaultBulletinBoard implements BulletinBoardService {
 
     @Override
     public void publishTally(List<Long> tally) {
+        checkTally();
+        this.tally = tally;
+    }
+
+    protected void checkTally() {
         Preconditions.checkState(partialDecryptions.size() == publicParameters.getS(),
                 "The tallying may only start when all the decryptions have been published");
         Preconditions.checkState(decryptionProofs.size() == publicParameters.getS(),
                 "The tallying may only start when all the decryption proofs have been published");
+    }
 
-        this.tally = tally;
+    private void notifyListeners(BulletinBoardEvent event) {
+        for (BulletinBoardListener listener : listeners) {
+            try {
+                listener.onPublication(event);
+            } catch (RuntimeException e) {
+                // the publication stands: a failing subscriber only misses it
+                log.warn(String.format("Listener %s failed on %s", listener, event), e);
+            }
+        }
     }
 }
@@ -33,7 +33,6 @@ import com.google.common.base.Stopwatch;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * Default implementation for the {@link VotingClientService}
@@ -67,12 +66,10 @@ public class DefaultVotingClient implements VotingClientService {
         publicParameters = bulletinBoardService.getPublicParameters();
         electionSet = bulletinBoardService.getElectionSet();
 
-        Voter voter = electionSet.getVoters().get(voterIndex);
-        voterSelectionCounts = electionSet.getElections().stream()
-                .map(e -> electionSet.isEligible(voter, e) ? e.getNumberOfSelections() : 0)
-                .collect(Collectors.toList());
+        EligibilityIndex eligibilityIndex = electionSet.getEligibilityIndex();
+        voterSelectionCounts = eligibilityIndex.getBold_k(voterIndex);
 
-        return new VotingPageData(voterSelectionCounts, electionSet.getBold_n());
+        return new VotingPageData(voterSelectionCounts, eligibilityIndex.getBold_n());
     }
 
     @Override
@@ -0,0 +1,221 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol;
+
+import ch.ge.ve.protopoc.service.codec.MessageType;
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec;
+import ch.ge.ve.protopoc.service.exception.PersistenceRuntimeException;
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.model.polynomial.Point;
+import ch.ge.ve.protopoc.service.storage.ByteBufferInputStream;
+import ch.ge.ve.protopoc.service.storage.SegmentedLog;
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulletin board persisting its publications in a {@link SegmentedLog}, so that it can be reopened after a restart
+ * <p>Each publication is appended to the log as the index of the publishing authority, followed by the publication
+ * encoded by a {@link ProtocolCodec}. It is checked, appended and committed before it is applied to the board and
+ * notified to the listeners, so that nothing is ever read from the board that is not durable. The publications are
+ * serialized: a partial decryption and its proof are thus appended next to each other. Opening the board replays
+ * the log, reading the records through memory mappings and decoding their vectors into the given
+ * {@link VectorStore}: reloading a completed mixing phase then takes a single sequential pass over the shuffles and
+ * their proofs.</p>
+ * <p>A publication that cannot be committed raises a {@link PersistenceRuntimeException}: it is then not applied, but
+ * may still be in the log, and the board should be reopened before being used any further.</p>
+ * <p>The election set is an input of the protocol rather than a publication: it is not persisted, and needs to be
+ * published again once the board has been reopened.</p>
+ */
+public class PersistentBulletinBoard extends DefaultBulletinBoard implements Closeable {
+    private static final int NO_AUTHORITY = -1;
+
+    private final SegmentedLog log;
+    private final VectorStore vectorStore;
+    private volatile ProtocolCodec codec;
+
+    private PersistentBulletinBoard(SegmentedLog log, VectorStore vectorStore) {
+        this.log = log;
+        this.vectorStore = vectorStore;
+    }
+
+    public static PersistentBulletinBoard open(Path directory) throws IOException {
+        return open(directory, VectorStore.heap());
+    }
+
+    /**
+     * Opens a board, replaying the publications already in its log
+     *
+     * @param directory   the directory of the log
+     * @param vectorStore the store of the N-length vectors read back from the log
+     * @return the board, holding all the publications committed before it was last closed
+     * @throws IOException if the log cannot be opened or replayed
+     */
+    public static PersistentBulletinBoard open(Path directory, VectorStore vectorStore) throws IOException {
+        SegmentedLog log = SegmentedLog.open(directory);
+        PersistentBulletinBoard bulletinBoard = new PersistentBulletinBoard(log, vectorStore);
+        try {
+            bulletinBoard.replay();
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+        return bulletinBoard;
+    }
+
+    private void replay() throws IOException {
+        // a partial decryption is only published along with its proof, which follows it for the same authority
+        Map<Integer, List<BigInteger>> pendingPartialDecryptions = new HashMap<>();
+        for (long i = 0; i < log.size(); i++) {
+            ByteBuffer record = log.read(i);
+            int j = record.getInt();
+            MessageType type = MessageType.fromCode(record.get(record.position() + 1) & 0xFF);
+            InputStream in = new ByteBufferInputStream(record);
+            if (type == MessageType.PUBLIC_PARAMETERS) {
+                PublicParameters publicParameters = ProtocolCodec.readPublicParameters(in);
+                super.publishPublicParameters(publicParameters);
+                codec = new ProtocolCodec(publicParameters, vectorStore);
+                continue;
+            }
+            Preconditions.checkState(codec != null, "The log should start with the public parameters");
+            switch (type) {
+                case PUBLIC_KEY_PART:
+                    super.publishKeyPart(j, codec.readPublicKeyPart(in));
+                    break;
+                case PUBLIC_CREDENTIALS:
+                    super.publishPublicCredentials(j, codec.readPublicCredentials(in));
+                    break;
+                case SHUFFLE:
+                    super.publishShuffle(j, codec.readShuffle(in));
+                    break;
+                case SHUFFLE_PROOF:
+                    super.publishShuffleProof(j, codec.readShuffleProof(in));
+                    break;
+                case PARTIAL_DECRYPTION:
+                    pendingPartialDecryptions.put(j, codec.readPartialDecryption(in));
+                    break;
+                case DECRYPTION_PROOF: {
+                    List<BigInteger> partialDecryption = pendingPartialDecryptions.remove(j);
+                    if (partialDecryption == null) {
+                        throw new IOException("Decryption proof of authority " + j + " without its partial decryption");
+                    }
+                    super.publishPartialDecryptionAndProof(j, partialDecryption, codec.readDecryptionProof(in));
+                    break;
+                }
+                case TALLY:
+                    super.publishTally(codec.readTally(in));
+                    break;
+                default:
+                    throw new IOException("Unexpected record of type " + type + " in the bulletin board log");
+            }
+        }
+    }
+
+    @Override
+    public synchronized void publishPublicParameters(PublicParameters publicParameters) {
+        checkPublicParameters(publicParameters);
+        persist(append(NO_AUTHORITY, out -> ProtocolCodec.writePublicParameters(publicParameters, out)));
+        codec = new ProtocolCodec(publicParameters, vectorStore);
+        super.publishPublicParameters(publicParameters);
+    }
+
+    @Override
+    public synchronized void publishKeyPart(int j, EncryptionPublicKey publicKey) {
+        checkKeyPart(j);
+        persist(append(j, out -> codec.writePublicKeyPart(publicKey, out)));
+        super.publishKeyPart(j, publicKey);
+    }
+
+    @Override
+    public synchronized void publishPublicCredentials(int j, List<Point> publicCredentials) {
+        checkPublicCredentials(j);
+        persist(append(j, out -> codec.writePublicCredentials(publicCredentials, out)));
+        super.publishPublicCredentials(j, publicCredentials);
+    }
+
+    @Override
+    public synchronized void publishShuffle(int j, List<Encryption> shuffle) {
+        checkShuffle(j);
+        persist(append(j, out -> codec.writeShuffle(shuffle, out)));
+        super.publishShuffle(j, shuffle);
+    }
+
+    @Override
+    public synchronized void publishShuffleProof(int j, ShuffleProof proof) {
+        checkShuffleProof(j);
+        persist(append(j, out -> codec.writeShuffleProof(proof, out)));
+        super.publishShuffleProof(j, proof);
+    }
+
+    @Override
+    public synchronized void publishPartialDecryptionAndProof(int j, List<BigInteger> partialDecryption,
+                                                              DecryptionProof proof) {
+        checkPartialDecryptionAndProof(j);
+        append(j, out -> codec.writePartialDecryption(partialDecryption, out));
+        persist(append(j, out -> codec.writeDecryptionProof(proof, out)));
+        super.publishPartialDecryptionAndProof(j, partialDecryption, proof);
+    }
+
+    @Override
+    public synchronized void publishTally(List<Long> tally) {
+        checkTally();
+        persist(append(NO_AUTHORITY, out -> codec.writeTally(tally, out)));
+        super.publishTally(tally);
+    }
+
+    private long append(int j, SegmentedLog.PayloadWriter messageWriter) {
+        try {
+            return log.append(out -> {
+                new DataOutputStream(out).writeInt(j);
+                messageWriter.write(out);
+            });
+        } catch (IOException e) {
+            throw new PersistenceRuntimeException("The publication could not be written to the log", e);
+        }
+    }
+
+    /**
+     * Commits the log up to the given record, along with the records preceding it
+     */
+    private void persist(long index) {
+        try {
+            log.commit(index);
+        } catch (IOException e) {
+            throw new PersistenceRuntimeException("The publication could not be committed", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+}
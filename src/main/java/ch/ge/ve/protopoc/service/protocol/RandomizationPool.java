@@ -0,0 +1,203 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol;
+
+import ch.ge.ve.protopoc.service.algorithm.MixingAuthorityAlgorithms;
+import ch.ge.ve.protopoc.service.model.EncryptionPublicKey;
+import ch.ge.ve.protopoc.service.model.Randomization;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Pool of precomputed randomizations (r, pk<sup>r</sup>, g<sup>r</sup>) for a given public key.
+ * <p>The pool can be filled as soon as the public key has been built, in a low priority background thread during
+ * the voting period, so that the exponentiations of the re-encryptions and of the proof nonces are taken off the
+ * critical path once the polls close. Each randomization is handed out at most once; when the pool runs dry, the
+ * missing randomizations are computed on the fly.</p>
+ * <p>The pool may be saved to and loaded from disk. Since the values of r allow the re-encryptions to be undone,
+ * the files must be protected as carefully as the private key.</p>
+ */
+public class RandomizationPool {
+    private static final Logger log = LoggerFactory.getLogger(RandomizationPool.class);
+    private static final int FILE_FORMAT_VERSION = 1;
+    private final MixingAuthorityAlgorithms mixingAuthorityAlgorithms;
+    private final EncryptionPublicKey publicKey;
+    private final Queue<Randomization> randomizations = new ConcurrentLinkedQueue<>();
+    private Thread filler;
+
+    public RandomizationPool(MixingAuthorityAlgorithms mixingAuthorityAlgorithms, EncryptionPublicKey publicKey) {
+        this.mixingAuthorityAlgorithms = mixingAuthorityAlgorithms;
+        this.publicKey = publicKey;
+    }
+
+    /**
+     * Compute additional randomizations, in parallel, and wait for their completion
+     *
+     * @param count the number of randomizations to add to the pool
+     */
+    public void fill(int count) {
+        randomizations.addAll(generate(count));
+    }
+
+    /**
+     * Compute additional randomizations in a low priority background thread
+     *
+     * @param count the number of randomizations to add to the pool
+     */
+    public synchronized void startFilling(int count) {
+        Preconditions.checkState(filler == null || !filler.isAlive(),
+                "The pool is already being filled");
+        filler = new Thread(() -> {
+            int i = 0;
+            while (i < count && !Thread.currentThread().isInterrupted()) {
+                randomizations.add(mixingAuthorityAlgorithms.genRandomization(publicKey));
+                i++;
+            }
+            log.info(String.format("Precomputed %d randomizations", i));
+        }, "randomization-pool-filler");
+        filler.setDaemon(true);
+        filler.setPriority(Thread.MIN_PRIORITY);
+        filler.start();
+    }
+
+    /**
+     * Stop the background computation, if any, and wait for the thread to terminate. The randomizations computed
+     * so far remain in the pool.
+     */
+    public synchronized void stopFilling() {
+        if (filler != null) {
+            filler.interrupt();
+            try {
+                filler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            filler = null;
+        }
+    }
+
+    /**
+     * @return the number of randomizations currently available
+     */
+    public int size() {
+        return randomizations.size();
+    }
+
+    /**
+     * @return one randomization, removed from the pool, or computed on the fly if the pool is empty
+     */
+    public Randomization take() {
+        Randomization randomization = randomizations.poll();
+        return randomization != null ? randomization : mixingAuthorityAlgorithms.genRandomization(publicKey);
+    }
+
+    /**
+     * @param count the number of randomizations needed
+     * @return count randomizations, removed from the pool; those missing from the pool are computed on the fly
+     */
+    public List<Randomization> take(int count) {
+        List<Randomization> result = new ArrayList<>(count);
+        Randomization randomization;
+        while (result.size() < count && (randomization = randomizations.poll()) != null) {
+            result.add(randomization);
+        }
+        if (result.size() < count) {
+            log.warn(String.format("Randomization pool exhausted, computing %d randomizations on the fly",
+                    count - result.size()));
+            result.addAll(generate(count - result.size()));
+        }
+        return result;
+    }
+
+    /**
+     * Write the randomizations currently available to a file. The pool itself is left unchanged, so the file must
+     * not be loaded into a pool which has already handed out any of these values.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        List<Randomization> snapshot = new ArrayList<>(randomizations);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(FILE_FORMAT_VERSION);
+            writeBigInteger(out, publicKey.getPublicKey());
+            out.writeInt(snapshot.size());
+            for (Randomization randomization : snapshot) {
+                writeBigInteger(out, randomization.getR());
+                writeBigInteger(out, randomization.getPk_r());
+                writeBigInteger(out, randomization.getG_r());
+            }
+        }
+    }
+
+    /**
+     * Add the randomizations stored in a file to the pool
+     *
+     * @param path the file to read, as written by {@link #save(Path)}
+     * @throws IOException if the file cannot be read
+     */
+    public void load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int version = in.readInt();
+            Preconditions.checkArgument(version == FILE_FORMAT_VERSION,
+                    String.format("Unsupported file format version %d", version));
+            Preconditions.checkArgument(readBigInteger(in).equals(publicKey.getPublicKey()),
+                    "The randomizations were computed for another public key");
+            int count = in.readInt();
+            List<Randomization> loaded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                loaded.add(new Randomization(readBigInteger(in), readBigInteger(in), readBigInteger(in)));
+            }
+            randomizations.addAll(loaded);
+        }
+    }
+
+    private List<Randomization> generate(int count) {
+        return IntStream.range(0, count).parallel()
+                .mapToObj(i -> mixingAuthorityAlgorithms.genRandomization(publicKey))
+                .collect(Collectors.toList());
+    }
+
+    private void writeBigInteger(DataOutputStream out, BigInteger value) throws IOException {
+        byte[] bytes = value.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private BigInteger readBigInteger(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+}
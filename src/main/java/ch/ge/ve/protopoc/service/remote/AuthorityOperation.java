@@ -0,0 +1,40 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote;
+
+/**
+ * Operations of the {@link ch.ge.ve.protopoc.service.protocol.AuthorityService}, identified on the wire by their
+ * ordinal
+ */
+enum AuthorityOperation {
+    GENERATE_KEYS,
+    BUILD_PUBLIC_KEY,
+    START_PRECOMPUTATION,
+    GENERATE_ELECTORATE_DATA,
+    GET_PRIVATE_CREDENTIALS,
+    BUILD_PUBLIC_CREDENTIALS,
+    HANDLE_BALLOT,
+    HANDLE_CONFIRMATION,
+    START_MIXING,
+    MIX_AGAIN,
+    START_PARTIAL_DECRYPTION
+}
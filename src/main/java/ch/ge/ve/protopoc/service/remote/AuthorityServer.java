@@ -0,0 +1,125 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote;
+
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec;
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.protocol.AuthorityService;
+import ch.ge.ve.protopoc.service.remote.RemoteServer.ResultWriter;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Server of an {@link AuthorityService} on the loopback interface, called through a {@link RemoteAuthority}
+ */
+public class AuthorityServer implements Closeable {
+    private final AuthorityService authority;
+    private final ProtocolCodec codec;
+    private final RemoteServer<AuthorityOperation> server;
+
+    private AuthorityServer(String name, AuthorityService authority, PublicParameters publicParameters)
+            throws IOException {
+        this.authority = authority;
+        this.codec = new ProtocolCodec(publicParameters);
+        this.server = RemoteServer.start(name, AuthorityOperation.class, this::dispatch);
+    }
+
+    /**
+     * Starts serving an authority on an ephemeral port
+     *
+     * @param name             the name of the server, used for its threads and its statistics
+     * @param authority        the authority served
+     * @param publicParameters the public parameters, defining the encoding of the messages
+     * @return the server, accepting connections
+     * @throws IOException if no port can be bound
+     */
+    public static AuthorityServer start(String name, AuthorityService authority, PublicParameters publicParameters)
+            throws IOException {
+        return new AuthorityServer(name, authority, publicParameters);
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private ResultWriter dispatch(AuthorityOperation operation, DataInputStream in) throws IOException {
+        switch (operation) {
+            case GENERATE_KEYS:
+                authority.generateKeys();
+                return ResultWriter.NONE;
+            case BUILD_PUBLIC_KEY:
+                authority.buildPublicKey();
+                return ResultWriter.NONE;
+            case START_PRECOMPUTATION:
+                authority.startPrecomputation(in.readInt());
+                return ResultWriter.NONE;
+            case GENERATE_ELECTORATE_DATA:
+                authority.generateElectorateData();
+                return ResultWriter.NONE;
+            case GET_PRIVATE_CREDENTIALS:
+                List<SecretVoterData> privateCredentials = authority.getPrivateCredentials();
+                return out -> codec.writeSecretVoterData(privateCredentials, out);
+            case BUILD_PUBLIC_CREDENTIALS:
+                authority.buildPublicCredentials();
+                return ResultWriter.NONE;
+            case HANDLE_BALLOT: {
+                int voterIndex = in.readInt();
+                BallotAndQuery ballotAndQuery = codec.readBallotAndQuery(in);
+                ObliviousTransferResponse response = authority.handleBallot(voterIndex, ballotAndQuery);
+                return out -> codec.writeObliviousTransferResponse(response, out);
+            }
+            case HANDLE_CONFIRMATION: {
+                int voterIndex = in.readInt();
+                Confirmation confirmation = codec.readConfirmation(in);
+                FinalizationCodePart finalizationCodePart = authority.handleConfirmation(voterIndex, confirmation);
+                return out -> codec.writeFinalizationCodePart(finalizationCodePart, out);
+            }
+            case START_MIXING:
+                authority.startMixing();
+                return ResultWriter.NONE;
+            case MIX_AGAIN:
+                authority.mixAgain();
+                return ResultWriter.NONE;
+            case START_PARTIAL_DECRYPTION:
+                authority.startPartialDecryption();
+                return ResultWriter.NONE;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+    }
+
+    /**
+     * Logs the number of calls served and the time spent serving them, per operation
+     */
+    public void logStats() {
+        server.logStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
@@ -0,0 +1,46 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote;
+
+/**
+ * Operations of the {@link ch.ge.ve.protopoc.service.protocol.BulletinBoardService}, identified on the wire by their
+ * ordinal
+ */
+enum BulletinBoardOperation {
+    PUBLISH_PUBLIC_PARAMETERS,
+    GET_PUBLIC_PARAMETERS,
+    PUBLISH_KEY_PART,
+    GET_PUBLIC_KEY_PARTS,
+    PUBLISH_ELECTION_SET,
+    GET_ELECTION_SET,
+    PUBLISH_PUBLIC_CREDENTIALS,
+    GET_PUBLIC_CREDENTIALS_PARTS,
+    PUBLISH_BALLOT,
+    PUBLISH_CONFIRMATION,
+    PUBLISH_SHUFFLE,
+    PUBLISH_SHUFFLE_PROOF,
+    GET_PREVIOUS_SHUFFLE,
+    GET_SHUFFLES_AND_PROOFS,
+    PUBLISH_PARTIAL_DECRYPTION_AND_PROOF,
+    GET_TALLY_DATA,
+    PUBLISH_TALLY
+}
@@ -0,0 +1,203 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote;
+
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec;
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.model.polynomial.Point;
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardService;
+import ch.ge.ve.protopoc.service.remote.RemoteServer.ResultWriter;
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Server of a {@link BulletinBoardService} on the loopback interface, called through a {@link RemoteBulletinBoard}
+ */
+public class BulletinBoardServer implements Closeable {
+    private final BulletinBoardService bulletinBoard;
+    private final VectorStore vectorStore;
+    private final RemoteServer<BulletinBoardOperation> server;
+    private volatile ProtocolCodec codec;
+
+    private BulletinBoardServer(String name, BulletinBoardService bulletinBoard, VectorStore vectorStore)
+            throws IOException {
+        this.bulletinBoard = bulletinBoard;
+        this.vectorStore = vectorStore;
+        this.server = RemoteServer.start(name, BulletinBoardOperation.class, this::dispatch);
+    }
+
+    /**
+     * Starts serving a bulletin board on an ephemeral port
+     *
+     * @param name          the name of the server, used for its threads and its statistics
+     * @param bulletinBoard the bulletin board served
+     * @param vectorStore   the store of the N-length vectors read
+     * @return the server, accepting connections
+     * @throws IOException if no port can be bound
+     */
+    public static BulletinBoardServer start(String name, BulletinBoardService bulletinBoard, VectorStore vectorStore)
+            throws IOException {
+        return new BulletinBoardServer(name, bulletinBoard, vectorStore);
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private ProtocolCodec codec() {
+        if (codec == null) {
+            PublicParameters publicParameters = bulletinBoard.getPublicParameters();
+            Preconditions.checkState(publicParameters != null,
+                    "The public parameters need to have been defined first");
+            codec = new ProtocolCodec(publicParameters, vectorStore);
+        }
+        return codec;
+    }
+
+    private ResultWriter dispatch(BulletinBoardOperation operation, DataInputStream in) throws Exception {
+        switch (operation) {
+            case PUBLISH_PUBLIC_PARAMETERS:
+                bulletinBoard.publishPublicParameters(ProtocolCodec.readPublicParameters(in));
+                return ResultWriter.NONE;
+            case GET_PUBLIC_PARAMETERS: {
+                PublicParameters publicParameters = bulletinBoard.getPublicParameters();
+                return out -> {
+                    out.writeBoolean(publicParameters != null);
+                    if (publicParameters != null) {
+                        ProtocolCodec.writePublicParameters(publicParameters, out);
+                    }
+                };
+            }
+            case PUBLISH_KEY_PART: {
+                int j = in.readInt();
+                bulletinBoard.publishKeyPart(j, codec().readPublicKeyPart(in));
+                return ResultWriter.NONE;
+            }
+            case GET_PUBLIC_KEY_PARTS: {
+                List<EncryptionPublicKey> publicKeyParts = bulletinBoard.getPublicKeyParts();
+                return out -> {
+                    out.writeInt(publicKeyParts.size());
+                    for (EncryptionPublicKey publicKeyPart : publicKeyParts) {
+                        codec().writePublicKeyPart(publicKeyPart, out);
+                    }
+                };
+            }
+            case PUBLISH_ELECTION_SET:
+                bulletinBoard.publishElectionSet(ProtocolCodec.readElectionSet(in));
+                return ResultWriter.NONE;
+            case GET_ELECTION_SET: {
+                ElectionSet electionSet = bulletinBoard.getElectionSet();
+                return out -> ProtocolCodec.writeElectionSet(electionSet, out);
+            }
+            case PUBLISH_PUBLIC_CREDENTIALS: {
+                int j = in.readInt();
+                bulletinBoard.publishPublicCredentials(j, codec().readPublicCredentials(in));
+                return ResultWriter.NONE;
+            }
+            case GET_PUBLIC_CREDENTIALS_PARTS: {
+                List<List<Point>> publicCredentialsParts = bulletinBoard.getPublicCredentialsParts();
+                return out -> {
+                    out.writeInt(publicCredentialsParts.size());
+                    for (List<Point> publicCredentials : publicCredentialsParts) {
+                        codec().writePublicCredentials(publicCredentials, out);
+                    }
+                };
+            }
+            case PUBLISH_BALLOT: {
+                int voterIndex = in.readInt();
+                BallotAndQuery ballotAndQuery = codec().readBallotAndQuery(in);
+                List<ObliviousTransferResponse> responses = bulletinBoard.publishBallot(voterIndex, ballotAndQuery);
+                return out -> {
+                    out.writeInt(responses.size());
+                    for (ObliviousTransferResponse response : responses) {
+                        codec().writeObliviousTransferResponse(response, out);
+                    }
+                };
+            }
+            case PUBLISH_CONFIRMATION: {
+                int voterIndex = in.readInt();
+                Confirmation confirmation = codec().readConfirmation(in);
+                List<FinalizationCodePart> finalizationCodeParts =
+                        bulletinBoard.publishConfirmation(voterIndex, confirmation);
+                return out -> {
+                    out.writeInt(finalizationCodeParts.size());
+                    for (FinalizationCodePart finalizationCodePart : finalizationCodeParts) {
+                        codec().writeFinalizationCodePart(finalizationCodePart, out);
+                    }
+                };
+            }
+            case PUBLISH_SHUFFLE: {
+                int j = in.readInt();
+                bulletinBoard.publishShuffle(j, codec().readShuffle(in));
+                return ResultWriter.NONE;
+            }
+            case PUBLISH_SHUFFLE_PROOF: {
+                int j = in.readInt();
+                bulletinBoard.publishShuffleProof(j, codec().readShuffleProof(in));
+                return ResultWriter.NONE;
+            }
+            case GET_PREVIOUS_SHUFFLE: {
+                List<Encryption> shuffle = bulletinBoard.getPreviousShuffle(in.readInt());
+                return out -> codec().writeShuffle(shuffle, out);
+            }
+            case GET_SHUFFLES_AND_PROOFS: {
+                ShufflesAndProofs shufflesAndProofs = bulletinBoard.getShufflesAndProofs();
+                return out -> codec().writeShufflesAndProofs(shufflesAndProofs, out);
+            }
+            case PUBLISH_PARTIAL_DECRYPTION_AND_PROOF: {
+                int j = in.readInt();
+                List<BigInteger> partialDecryption = codec().readPartialDecryption(in);
+                DecryptionProof proof = codec().readDecryptionProof(in);
+                bulletinBoard.publishPartialDecryptionAndProof(j, partialDecryption, proof);
+                return ResultWriter.NONE;
+            }
+            case GET_TALLY_DATA: {
+                TallyData tallyData = bulletinBoard.getTallyData();
+                return out -> codec().writeTallyData(tallyData, out);
+            }
+            case PUBLISH_TALLY:
+                bulletinBoard.publishTally(codec().readTally(in));
+                return ResultWriter.NONE;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+    }
+
+    /**
+     * Logs the number of calls served and the time spent serving them, per operation
+     */
+    public void logStats() {
+        server.logStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
@@ -0,0 +1,117 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote;
+
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec;
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.protocol.AuthorityService;
+import ch.ge.ve.protopoc.service.remote.RemoteClient.ArgumentsWriter;
+import ch.ge.ve.protopoc.service.remote.RemoteClient.ResultReader;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Adapter of an {@link AuthorityService} served by an {@link AuthorityServer}, usually in another process
+ */
+public class RemoteAuthority implements AuthorityService, Closeable {
+    private final RemoteClient client;
+    private final ProtocolCodec codec;
+
+    /**
+     * @param address          the address of the authority server
+     * @param publicParameters the public parameters, defining the encoding of the messages
+     */
+    public RemoteAuthority(InetSocketAddress address, PublicParameters publicParameters) {
+        this.client = new RemoteClient(address);
+        this.codec = new ProtocolCodec(publicParameters);
+    }
+
+    @Override
+    public void generateKeys() {
+        client.call(AuthorityOperation.GENERATE_KEYS, ArgumentsWriter.NONE, ResultReader.NONE);
+    }
+
+    @Override
+    public void buildPublicKey() {
+        client.call(AuthorityOperation.BUILD_PUBLIC_KEY, ArgumentsWriter.NONE, ResultReader.NONE);
+    }
+
+    @Override
+    public void startPrecomputation(int expectedBallotsCount) {
+        client.call(AuthorityOperation.START_PRECOMPUTATION, out -> out.writeInt(expectedBallotsCount),
+                ResultReader.NONE);
+    }
+
+    @Override
+    public void generateElectorateData() {
+        client.call(AuthorityOperation.GENERATE_ELECTORATE_DATA, ArgumentsWriter.NONE, ResultReader.NONE);
+    }
+
+    @Override
+    public List<SecretVoterData> getPrivateCredentials() {
+        return client.call(AuthorityOperation.GET_PRIVATE_CREDENTIALS, ArgumentsWriter.NONE,
+                codec::readSecretVoterData);
+    }
+
+    @Override
+    public void buildPublicCredentials() {
+        client.call(AuthorityOperation.BUILD_PUBLIC_CREDENTIALS, ArgumentsWriter.NONE, ResultReader.NONE);
+    }
+
+    @Override
+    public ObliviousTransferResponse handleBallot(Integer voterIndex, BallotAndQuery ballotAndQuery) {
+        return client.call(AuthorityOperation.HANDLE_BALLOT, out -> {
+            out.writeInt(voterIndex);
+            codec.writeBallotAndQuery(ballotAndQuery, out);
+        }, codec::readObliviousTransferResponse);
+    }
+
+    @Override
+    public FinalizationCodePart handleConfirmation(Integer voterIndex, Confirmation confirmation) {
+        return client.call(AuthorityOperation.HANDLE_CONFIRMATION, out -> {
+            out.writeInt(voterIndex);
+            codec.writeConfirmation(confirmation, out);
+        }, codec::readFinalizationCodePart);
+    }
+
+    @Override
+    public void startMixing() {
+        client.call(AuthorityOperation.START_MIXING, ArgumentsWriter.NONE, ResultReader.NONE);
+    }
+
+    @Override
+    public void mixAgain() {
+        client.call(AuthorityOperation.MIX_AGAIN, ArgumentsWriter.NONE, ResultReader.NONE);
+    }
+
+    @Override
+    public void startPartialDecryption() {
+        client.call(AuthorityOperation.START_PARTIAL_DECRYPTION, ArgumentsWriter.NONE, ResultReader.NONE);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
@@ -0,0 +1,230 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote;
+
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec;
+import ch.ge.ve.protopoc.service.exception.IncorrectConfirmationRuntimeException;
+import ch.ge.ve.protopoc.service.exception.RemoteInvocationRuntimeException;
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.model.polynomial.Point;
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardService;
+import ch.ge.ve.protopoc.service.protocol.IncorrectBallotOrQueryException;
+import ch.ge.ve.protopoc.service.remote.RemoteClient.ArgumentsWriter;
+import ch.ge.ve.protopoc.service.remote.RemoteClient.ResultReader;
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adapter of a {@link BulletinBoardService} served by a {@link BulletinBoardServer}, usually in another process
+ * <p>The messages other than the public parameters and the election set are encoded from the public parameters,
+ * which are retrieved from the bulletin board on first use.</p>
+ */
+public class RemoteBulletinBoard implements BulletinBoardService, Closeable {
+    private final RemoteClient client;
+    private final VectorStore vectorStore;
+    private volatile ProtocolCodec codec;
+
+    public RemoteBulletinBoard(InetSocketAddress address) {
+        this(address, VectorStore.heap());
+    }
+
+    /**
+     * @param address     the address of the bulletin board server
+     * @param vectorStore the store of the N-length vectors read
+     */
+    public RemoteBulletinBoard(InetSocketAddress address, VectorStore vectorStore) {
+        this.client = new RemoteClient(address);
+        this.vectorStore = vectorStore;
+    }
+
+    private ProtocolCodec codec() {
+        if (codec == null) {
+            PublicParameters publicParameters = getPublicParameters();
+            Preconditions.checkState(publicParameters != null,
+                    "The public parameters need to have been defined first");
+            codec = new ProtocolCodec(publicParameters, vectorStore);
+        }
+        return codec;
+    }
+
+    @Override
+    public void publishPublicParameters(PublicParameters publicParameters) {
+        client.call(BulletinBoardOperation.PUBLISH_PUBLIC_PARAMETERS,
+                out -> ProtocolCodec.writePublicParameters(publicParameters, out), ResultReader.NONE);
+    }
+
+    @Override
+    public PublicParameters getPublicParameters() {
+        return client.call(BulletinBoardOperation.GET_PUBLIC_PARAMETERS, ArgumentsWriter.NONE,
+                in -> in.readBoolean() ? ProtocolCodec.readPublicParameters(in) : null);
+    }
+
+    @Override
+    public void publishKeyPart(int j, EncryptionPublicKey publicKey) {
+        client.call(BulletinBoardOperation.PUBLISH_KEY_PART, out -> {
+            out.writeInt(j);
+            codec().writePublicKeyPart(publicKey, out);
+        }, ResultReader.NONE);
+    }
+
+    @Override
+    public List<EncryptionPublicKey> getPublicKeyParts() {
+        return client.call(BulletinBoardOperation.GET_PUBLIC_KEY_PARTS, ArgumentsWriter.NONE, in -> {
+            int count = in.readInt();
+            List<EncryptionPublicKey> publicKeyParts = new ArrayList<>();
+            for (int j = 0; j < count; j++) {
+                publicKeyParts.add(codec().readPublicKeyPart(in));
+            }
+            return publicKeyParts;
+        });
+    }
+
+    @Override
+    public void publishElectionSet(ElectionSet electionSet) {
+        client.call(BulletinBoardOperation.PUBLISH_ELECTION_SET,
+                out -> ProtocolCodec.writeElectionSet(electionSet, out), ResultReader.NONE);
+    }
+
+    @Override
+    public ElectionSet getElectionSet() {
+        return client.call(BulletinBoardOperation.GET_ELECTION_SET, ArgumentsWriter.NONE,
+                ProtocolCodec::readElectionSet);
+    }
+
+    @Override
+    public void publishPublicCredentials(int j, List<Point> publicCredentials) {
+        client.call(BulletinBoardOperation.PUBLISH_PUBLIC_CREDENTIALS, out -> {
+            out.writeInt(j);
+            codec().writePublicCredentials(publicCredentials, out);
+        }, ResultReader.NONE);
+    }
+
+    @Override
+    public List<List<Point>> getPublicCredentialsParts() {
+        return client.call(BulletinBoardOperation.GET_PUBLIC_CREDENTIALS_PARTS, ArgumentsWriter.NONE, in -> {
+            int count = in.readInt();
+            List<List<Point>> publicCredentialsParts = new ArrayList<>();
+            for (int j = 0; j < count; j++) {
+                publicCredentialsParts.add(codec().readPublicCredentials(in));
+            }
+            return publicCredentialsParts;
+        });
+    }
+
+    @Override
+    public List<ObliviousTransferResponse> publishBallot(Integer voterIndex, BallotAndQuery ballotAndQuery)
+            throws IncorrectBallotOrQueryException {
+        try {
+            return client.call(BulletinBoardOperation.PUBLISH_BALLOT, out -> {
+                out.writeInt(voterIndex);
+                codec().writeBallotAndQuery(ballotAndQuery, out);
+            }, in -> {
+                int count = in.readInt();
+                List<ObliviousTransferResponse> responses = new ArrayList<>();
+                for (int j = 0; j < count; j++) {
+                    responses.add(codec().readObliviousTransferResponse(in));
+                }
+                return responses;
+            });
+        } catch (RemoteInvocationRuntimeException e) {
+            if (IncorrectBallotOrQueryException.class.getName().equals(e.getRemoteExceptionClassName())) {
+                throw new IncorrectBallotOrQueryException(e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<FinalizationCodePart> publishConfirmation(Integer voterIndex, Confirmation confirmation)
+            throws IncorrectConfirmationRuntimeException {
+        return client.call(BulletinBoardOperation.PUBLISH_CONFIRMATION, out -> {
+            out.writeInt(voterIndex);
+            codec().writeConfirmation(confirmation, out);
+        }, in -> {
+            int count = in.readInt();
+            List<FinalizationCodePart> finalizationCodeParts = new ArrayList<>();
+            for (int j = 0; j < count; j++) {
+                finalizationCodeParts.add(codec().readFinalizationCodePart(in));
+            }
+            return finalizationCodeParts;
+        });
+    }
+
+    @Override
+    public void publishShuffle(int j, List<Encryption> shuffle) {
+        client.call(BulletinBoardOperation.PUBLISH_SHUFFLE, out -> {
+            out.writeInt(j);
+            codec().writeShuffle(shuffle, out);
+        }, ResultReader.NONE);
+    }
+
+    @Override
+    public void publishShuffleProof(int j, ShuffleProof proof) {
+        client.call(BulletinBoardOperation.PUBLISH_SHUFFLE_PROOF, out -> {
+            out.writeInt(j);
+            codec().writeShuffleProof(proof, out);
+        }, ResultReader.NONE);
+    }
+
+    @Override
+    public List<Encryption> getPreviousShuffle(int j) {
+        return client.call(BulletinBoardOperation.GET_PREVIOUS_SHUFFLE, out -> out.writeInt(j),
+                in -> codec().readShuffle(in));
+    }
+
+    @Override
+    public ShufflesAndProofs getShufflesAndProofs() {
+        return client.call(BulletinBoardOperation.GET_SHUFFLES_AND_PROOFS, ArgumentsWriter.NONE,
+                in -> codec().readShufflesAndProofs(in));
+    }
+
+    @Override
+    public void publishPartialDecryptionAndProof(int j, List<BigInteger> partialDecryption, DecryptionProof proof) {
+        client.call(BulletinBoardOperation.PUBLISH_PARTIAL_DECRYPTION_AND_PROOF, out -> {
+            out.writeInt(j);
+            codec().writePartialDecryption(partialDecryption, out);
+            codec().writeDecryptionProof(proof, out);
+        }, ResultReader.NONE);
+    }
+
+    @Override
+    public TallyData getTallyData() {
+        return client.call(BulletinBoardOperation.GET_TALLY_DATA, ArgumentsWriter.NONE,
+                in -> codec().readTallyData(in));
+    }
+
+    @Override
+    public void publishTally(List<Long> tally) {
+        client.call(BulletinBoardOperation.PUBLISH_TALLY, out -> codec().writeTally(tally, out), ResultReader.NONE);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
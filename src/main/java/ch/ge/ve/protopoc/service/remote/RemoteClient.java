@@ -0,0 +1,232 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote;
+
+import ch.ge.ve.protopoc.service.exception.RemoteInvocationRuntimeException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side of the loopback transport
+ * <p>The calls are made on pooled connections, one call at a time per connection, so that concurrent callers each
+ * get a connection of their own. The arguments and the results are streamed straight to and from the sockets. A
+ * caller waiting for a result is a managed blocker of the {@link ForkJoinPool}, so that parallel streams calling
+ * several remote services keep all of them busy, whatever the parallelism of the pool.</p>
+ * <p>A connection that cannot be established within {@link #CONNECT_TIMEOUT_MILLIS}, or a result that does not start
+ * or stop arriving for {@link #READ_TIMEOUT_MILLIS}, fails the call instead of blocking the caller forever. The read
+ * timeout is generous, since a single call may chain the mixing of all the authorities.</p>
+ * <p>The exceptions thrown by the remote service are thrown again locally when they are runtime exceptions that can
+ * be built from their message, and as a {@link RemoteInvocationRuntimeException} otherwise.</p>
+ */
+final class RemoteClient implements Closeable {
+    static final int CONNECT_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(10);
+    static final int READ_TIMEOUT_MILLIS = (int) TimeUnit.HOURS.toMillis(1);
+    private final InetSocketAddress address;
+    private final Queue<Connection> idleConnections = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    RemoteClient(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    /**
+     * @param operation the operation called
+     * @param arguments the writer of the arguments of the call
+     * @param result    the reader of its result
+     * @param <T>       the type of the result
+     * @return the result of the call
+     * @throws RemoteInvocationRuntimeException if the call cannot be completed
+     */
+    <T> T call(Enum<?> operation, ArgumentsWriter arguments, ResultReader<T> result) {
+        if (closed) {
+            throw new IllegalStateException("The client has been closed");
+        }
+        Connection connection = idleConnections.poll();
+        try {
+            if (connection == null) {
+                connection = new Connection(address);
+            }
+            T value = connection.call(operation.ordinal(), arguments, result);
+            idleConnections.add(connection);
+            return value;
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.close();
+            }
+            throw new RemoteInvocationRuntimeException(String.format("Call of %s on %s failed", operation, address),
+                    e);
+        } catch (RuntimeException e) {
+            // the connection stays usable when the remote service has thrown the exception, and only then
+            if (connection != null && connection.isClean()) {
+                idleConnections.add(connection);
+            } else if (connection != null) {
+                connection.close();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private static RuntimeException remoteException(String className, String message) {
+        try {
+            Class<?> exceptionClass = Class.forName(className, false, RemoteClient.class.getClassLoader());
+            if (RuntimeException.class.isAssignableFrom(exceptionClass)) {
+                return (RuntimeException) exceptionClass.getConstructor(String.class).newInstance(message);
+            }
+        } catch (ReflectiveOperationException e) {
+            // no local counterpart
+        }
+        return new RemoteInvocationRuntimeException(className, message);
+    }
+
+    @FunctionalInterface
+    interface ArgumentsWriter {
+        ArgumentsWriter NONE = out -> {
+        };
+
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface ResultReader<T> {
+        ResultReader<Void> NONE = in -> null;
+
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static final class Connection implements ForkJoinPool.ManagedBlocker {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final RemoteServer.ArgumentsOutputStream argumentsStream;
+        private final DataOutputStream argumentsOut;
+        private ResultReader<?> pendingResult;
+        private Object value;
+        private RuntimeException remoteException;
+        private IOException failure;
+        private boolean done;
+        private boolean clean = true;
+
+        Connection(InetSocketAddress address) throws IOException {
+            socket = new Socket();
+            try {
+                socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+                socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                socket.setTcpNoDelay(true);
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), RemoteServer.BUFFER_SIZE));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(),
+                        RemoteServer.BUFFER_SIZE));
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+            argumentsStream = new RemoteServer.ArgumentsOutputStream(out);
+            argumentsOut = new DataOutputStream(argumentsStream);
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T call(int code, ArgumentsWriter arguments, ResultReader<T> result) throws IOException {
+            clean = false;
+            out.writeByte(code);
+            arguments.write(argumentsOut);
+            argumentsStream.finish();
+            out.flush();
+            pendingResult = result;
+            value = null;
+            remoteException = null;
+            failure = null;
+            done = false;
+            try {
+                ForkJoinPool.managedBlock(this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the result");
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            clean = true;
+            if (remoteException != null) {
+                throw remoteException;
+            }
+            return (T) value;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                int status = in.read();
+                if (status == RemoteServer.STATUS_OK) {
+                    value = pendingResult.read(in);
+                } else if (status == RemoteServer.STATUS_ERROR) {
+                    remoteException = remoteException(in.readUTF(), in.readUTF());
+                } else if (status == -1) {
+                    failure = new EOFException("Connection closed by the server");
+                } else {
+                    failure = new IOException("Unknown status " + status);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+
+        boolean isClean() {
+            return clean;
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing more to release
+            }
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote;
+
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server side of the loopback transport
+ * <p>Each connection is served by its own thread, which reads the calls one after the other. A call is an operation
+ * code followed by its arguments, sent in chunks each prefixed by their length and ended by an empty chunk, and is
+ * answered by {@link #STATUS_OK} followed by the result, or by {@link #STATUS_ERROR} followed by the class name and
+ * the message of the exception thrown by the service. The arguments left unread by a failed call are skipped up to
+ * the empty chunk, so that the connection stays in step with the caller. The number of calls and the time spent
+ * serving them are kept per operation, along with the highest number of calls served concurrently.</p>
+ *
+ * @param <O> the operations of the service
+ */
+final class RemoteServer<O extends Enum<O>> implements Closeable {
+    static final int STATUS_OK = 0;
+    static final int STATUS_ERROR = 1;
+    static final int BUFFER_SIZE = 1 << 16;
+    private static final Logger log = LoggerFactory.getLogger(RemoteServer.class);
+    private static final int MAX_MESSAGE_LENGTH = 1 << 12;
+
+    private final String name;
+    private final O[] operations;
+    private final Dispatcher<O> dispatcher;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connectionExecutor;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final Map<O, LongAdder> callCounts;
+    private final Map<O, LongAdder> callNanos;
+    private final AtomicInteger callsInProgress = new AtomicInteger();
+    private final AtomicInteger maxCallsInProgress = new AtomicInteger();
+
+    private RemoteServer(String name, Class<O> operationType, Dispatcher<O> dispatcher, ServerSocket serverSocket) {
+        this.name = name;
+        this.operations = operationType.getEnumConstants();
+        this.dispatcher = dispatcher;
+        this.serverSocket = serverSocket;
+        this.connectionExecutor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat(name + "-connection-%d").setDaemon(true).build());
+        this.callCounts = new EnumMap<>(operationType);
+        this.callNanos = new EnumMap<>(operationType);
+        for (O operation : operations) {
+            callCounts.put(operation, new LongAdder());
+            callNanos.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Starts serving calls on an ephemeral port of the loopback interface
+     *
+     * @param name          the name of the server, used for its threads and its statistics
+     * @param operationType the operations of the service
+     * @param dispatcher    the dispatcher of the calls to the service
+     * @param <O>           the operations of the service
+     * @return the server, accepting connections
+     * @throws IOException if no port can be bound
+     */
+    static <O extends Enum<O>> RemoteServer<O> start(String name, Class<O> operationType, Dispatcher<O> dispatcher)
+            throws IOException {
+        ServerSocket serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+        RemoteServer<O> server = new RemoteServer<>(name, operationType, dispatcher, serverSocket);
+        Thread acceptor = new Thread(server::acceptConnections, name + "-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    InetSocketAddress getAddress() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connectionExecutor.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                // the server socket has been closed
+            } catch (IOException e) {
+                log.warn(name + " failed to accept a connection", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        sockets.add(socket);
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), BUFFER_SIZE));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream(), BUFFER_SIZE))) {
+            ArgumentsInputStream arguments = new ArgumentsInputStream(in);
+            DataInputStream argumentsIn = new DataInputStream(arguments);
+            int code;
+            while ((code = in.read()) != -1) {
+                arguments.startCall();
+                serveCall(code, arguments, argumentsIn, out);
+            }
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                log.warn(name + " closed a connection after an I/O error", e);
+            }
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private void serveCall(int code, ArgumentsInputStream arguments, DataInputStream in, DataOutputStream out)
+            throws IOException {
+        if (code >= operations.length) {
+            throw new IOException("Unknown operation " + code);
+        }
+        O operation = operations[code];
+        int concurrentCalls = callsInProgress.incrementAndGet();
+        maxCallsInProgress.accumulateAndGet(concurrentCalls, Math::max);
+        long start = System.nanoTime();
+        try {
+            ResultWriter result;
+            try {
+                result = dispatcher.dispatch(operation, in);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                log.debug(String.format("%s: %s failed", name, operation), e);
+                arguments.skipRemaining();
+                out.writeByte(STATUS_ERROR);
+                String message = Strings.nullToEmpty(e.getMessage());
+                out.writeUTF(e.getClass().getName());
+                out.writeUTF(message.substring(0, Math.min(message.length(), MAX_MESSAGE_LENGTH)));
+                out.flush();
+                return;
+            }
+            arguments.skipRemaining();
+            out.writeByte(STATUS_OK);
+            result.write(out);
+            out.flush();
+        } finally {
+            callsInProgress.decrementAndGet();
+            callCounts.get(operation).increment();
+            callNanos.get(operation).add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Logs the number of calls and the time spent serving them, per operation
+     */
+    void logStats() {
+        log.info(String.format("%s served at most %d calls concurrently", name, maxCallsInProgress.get()));
+        for (O operation : operations) {
+            long count = callCounts.get(operation).sum();
+            if (count > 0) {
+                long millis = TimeUnit.NANOSECONDS.toMillis(callNanos.get(operation).sum());
+                log.info(String.format("%s | %-36s | %,8d calls | %,12d ms | %,12.2f ms/call", name, operation,
+                        count, millis, (double) millis / count));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        connectionExecutor.shutdownNow();
+    }
+
+    /**
+     * Reads the arguments of a call and performs it
+     *
+     * @param <O> the operations of the service
+     */
+    @FunctionalInterface
+    interface Dispatcher<O> {
+        /**
+         * @param operation the operation called
+         * @param in        the stream holding the arguments of the call
+         * @return the writer of the result, once the call has been performed
+         * @throws IOException if the arguments cannot be read
+         * @throws Exception   the exception thrown by the service, reported to the caller
+         */
+        ResultWriter dispatch(O operation, DataInputStream in) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface ResultWriter {
+        ResultWriter NONE = out -> {
+        };
+
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes the arguments of a call in chunks of at most {@link #BUFFER_SIZE} bytes, each prefixed by its length
+     * <p>The stream is reused from one call to the next: {@link #finish()} ends the arguments of the current call with
+     * an empty chunk.</p>
+     */
+    static final class ArgumentsOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int count;
+
+        ArgumentsOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Writes the last chunk of the arguments, followed by the empty chunk
+         *
+         * @throws IOException if the chunks cannot be written
+         */
+        void finish() throws IOException {
+            if (count > 0) {
+                writeChunk();
+            }
+            out.writeInt(0);
+        }
+
+        private void writeChunk() throws IOException {
+            out.writeInt(count);
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Reads the arguments of a call written by an {@link ArgumentsOutputStream}, as if the empty chunk were the end
+     * of the stream
+     */
+    static final class ArgumentsInputStream extends InputStream {
+        private final DataInputStream in;
+        private int remaining;
+        private boolean finished;
+
+        ArgumentsInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Starts reading the arguments of the next call
+         */
+        void startCall() {
+            remaining = 0;
+            finished = false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunkIfNeeded()) {
+                return -1;
+            }
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Connection closed in the middle of a chunk");
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextChunkIfNeeded()) {
+                return -1;
+            }
+            int n = in.read(b, off, Math.min(len, remaining));
+            if (n == -1) {
+                throw new EOFException("Connection closed in the middle of a chunk");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return remaining;
+        }
+
+        /**
+         * Skips the arguments left unread, up to and including the empty chunk
+         *
+         * @throws IOException if the chunks cannot be read
+         */
+        void skipRemaining() throws IOException {
+            while (nextChunkIfNeeded()) {
+                int skipped = in.skipBytes(remaining);
+                if (skipped == 0) {
+                    // skipBytes gives up at the end of the stream, which read tells apart from a slow peer
+                    if (in.read() == -1) {
+                        throw new EOFException("Connection closed in the middle of a chunk");
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+
+        private boolean nextChunkIfNeeded() throws IOException {
+            while (remaining == 0 && !finished) {
+                int length = in.readInt();
+                if (length < 0 || length > BUFFER_SIZE) {
+                    throw new IOException("Invalid chunk length " + length);
+                }
+                remaining = length;
+                finished = length == 0;
+            }
+            return !finished;
+        }
+    }
+}
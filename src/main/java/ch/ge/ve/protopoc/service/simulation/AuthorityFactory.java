@@ -0,0 +1,89 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.simulation;
+
+import ch.ge.ve.protopoc.service.algorithm.*;
+import ch.ge.ve.protopoc.service.exception.NotEnoughPrimesInGroupException;
+import ch.ge.ve.protopoc.service.model.ElectionSet;
+import ch.ge.ve.protopoc.service.model.PublicParameters;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardService;
+import ch.ge.ve.protopoc.service.protocol.DefaultAuthority;
+import ch.ge.ve.protopoc.service.support.Conversion;
+import ch.ge.ve.protopoc.service.support.Hash;
+import ch.ge.ve.protopoc.service.support.RandomGenerator;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates an authority with algorithms of its own, as when it runs in a process of its own or alongside the bulletin
+ * board of the application
+ */
+public final class AuthorityFactory {
+
+    private AuthorityFactory() {
+        // static factory only
+    }
+
+    /**
+     * @param j                         the index of the authority
+     * @param bulletinBoard             the bulletin board the authority publishes to
+     * @param publicParameters          the public parameters published on the bulletin board
+     * @param electionSet               the election set published on the bulletin board
+     * @param vectorStore               the store of the mixing vectors
+     * @param proofVerificationExecutor the executor on which the shuffle proofs of the other authorities are verified
+     * @return the authority, not started yet
+     */
+    public static DefaultAuthority createAuthority(int j, BulletinBoardService bulletinBoard,
+                                                   PublicParameters publicParameters, ElectionSet electionSet,
+                                                   VectorStore vectorStore, Executor proofVerificationExecutor)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NotEnoughPrimesInGroupException {
+        SecureRandom secureRandom = SecureRandom.getInstance("SHA1PRNG", "SUN");
+        RandomGenerator randomGenerator = RandomGenerator.perThread(secureRandom, "SHA1PRNG", "SUN");
+        Conversion conversion = new Conversion();
+        Hash hash = new Hash("SHA-512", "SUN", publicParameters.getSecurityParameters(), conversion);
+        GeneralAlgorithms generalAlgorithms = new GeneralAlgorithms(hash, conversion,
+                publicParameters.getEncryptionGroup(), publicParameters.getIdentificationGroup());
+        generalAlgorithms.populatePrimesCache(electionSet.getCandidates().size());
+
+        KeyEstablishmentAlgorithms keyEstablishmentAlgorithms = new KeyEstablishmentAlgorithms(randomGenerator);
+        ElectionPreparationAlgorithms electionPreparationAlgorithms =
+                new ElectionPreparationAlgorithms(publicParameters, randomGenerator, hash);
+        VoteCastingAuthorityAlgorithms voteCastingAuthorityAlgorithms = new VoteCastingAuthorityAlgorithms(
+                publicParameters, electionSet, generalAlgorithms, randomGenerator, hash);
+        VoteConfirmationAuthorityAlgorithms voteConfirmationAuthorityAlgorithms =
+                new VoteConfirmationAuthorityAlgorithms(publicParameters, generalAlgorithms,
+                        voteCastingAuthorityAlgorithms, hash);
+        MixingAuthorityAlgorithms mixingAuthorityAlgorithms = new MixingAuthorityAlgorithms(publicParameters,
+                generalAlgorithms, voteConfirmationAuthorityAlgorithms, randomGenerator, vectorStore);
+        DecryptionAuthorityAlgorithms decryptionAuthorityAlgorithms =
+                new DecryptionAuthorityAlgorithms(publicParameters, generalAlgorithms, randomGenerator,
+                        proofVerificationExecutor);
+
+        return new DefaultAuthority(j, bulletinBoard, keyEstablishmentAlgorithms, electionPreparationAlgorithms,
+                voteCastingAuthorityAlgorithms, voteConfirmationAuthorityAlgorithms, mixingAuthorityAlgorithms,
+                decryptionAuthorityAlgorithms);
+    }
+}
@@ -0,0 +1,202 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.simulation;
+
+import ch.ge.ve.protopoc.service.model.PublicParameters;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.protocol.AuthorityService;
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardService;
+import ch.ge.ve.protopoc.service.remote.BulletinBoardServer;
+import ch.ge.ve.protopoc.service.remote.RemoteAuthority;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Launcher of the authorities in processes of their own, on the same host
+ * <p>The bulletin board is served on the loopback interface, and each authority is started as an
+ * {@link AuthorityProcess}, with the class path and the heap settings of the current JVM. Each process thus has its
+ * own heap and its own fork-join common pool, as it would on a machine of its own. The output of the processes is
+ * relayed to the log of the launcher, prefixed by the index of their authority.</p>
+ * <p>The public parameters and the election set must have been published on the bulletin board before the
+ * authorities are launched.</p>
+ */
+public class AuthorityLauncher implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(AuthorityLauncher.class);
+    private static final long STARTUP_TIMEOUT_SECONDS = 120;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final BulletinBoardServer bulletinBoardServer;
+    private final List<Process> processes = new ArrayList<>();
+    private final List<Thread> relays = new ArrayList<>();
+    private final List<RemoteAuthority> authorities = new ArrayList<>();
+
+    private AuthorityLauncher(BulletinBoardServer bulletinBoardServer) {
+        this.bulletinBoardServer = bulletinBoardServer;
+    }
+
+    /**
+     * Serves the bulletin board and starts one process per authority
+     *
+     * @param bulletinBoard    the bulletin board, holding the public parameters and the election set
+     * @param vectorStore      the store of the N-length vectors received by the bulletin board
+     * @param scratchDirectory the directory of the scratch files of the mixing vectors of the authorities, or null to
+     *                         hold them in their heaps
+     * @return the launcher, once all the authorities are ready to serve calls
+     * @throws IOException if a process cannot be started, or fails before being ready
+     */
+    public static AuthorityLauncher launch(BulletinBoardService bulletinBoard, VectorStore vectorStore,
+                                           Path scratchDirectory) throws IOException {
+        PublicParameters publicParameters = bulletinBoard.getPublicParameters();
+        Preconditions.checkState(publicParameters != null,
+                "The public parameters need to have been published first");
+        AuthorityLauncher launcher = new AuthorityLauncher(
+                BulletinBoardServer.start("bulletin-board", bulletinBoard, vectorStore));
+        try {
+            List<CompletableFuture<Integer>> ports = new ArrayList<>();
+            for (int j = 0; j < publicParameters.getS(); j++) {
+                ports.add(launcher.startProcess(j, scratchDirectory));
+            }
+            for (CompletableFuture<Integer> port : ports) {
+                InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        port.get(STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                launcher.authorities.add(new RemoteAuthority(address, publicParameters));
+            }
+        } catch (IOException | RuntimeException e) {
+            launcher.close();
+            throw e;
+        } catch (ExecutionException | TimeoutException e) {
+            launcher.close();
+            throw new IOException("An authority failed to start", e);
+        } catch (InterruptedException e) {
+            launcher.close();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while starting the authorities", e);
+        }
+        log.info(String.format("Started %d authority processes", launcher.processes.size()));
+        return launcher;
+    }
+
+    private CompletableFuture<Integer> startProcess(int j, Path scratchDirectory) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(argument -> argument.startsWith("-Xm") || argument.startsWith("-Xss"))
+                .collect(Collectors.toList()));
+        String journalDirectory = System.getProperty(AuthorityProcess.JOURNAL_DIRECTORY_PROPERTY);
+        if (journalDirectory != null) {
+            command.add("-D" + AuthorityProcess.JOURNAL_DIRECTORY_PROPERTY + "=" + journalDirectory);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(AuthorityProcess.class.getName());
+        command.add(Integer.toString(j));
+        command.add(Integer.toString(bulletinBoardServer.getAddress().getPort()));
+        if (scratchDirectory != null) {
+            command.add(scratchDirectory.toString());
+        }
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        processes.add(process);
+
+        CompletableFuture<Integer> port = new CompletableFuture<>();
+        Thread relay = new Thread(() -> relayOutput(j, process, port), "authority-" + j + "-output");
+        relay.setDaemon(true);
+        relay.start();
+        relays.add(relay);
+        return port;
+    }
+
+    private static void relayOutput(int j, Process process, CompletableFuture<Integer> port) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!port.isDone() && line.startsWith(AuthorityProcess.READY_PREFIX)) {
+                    port.complete(Integer.parseInt(line.substring(AuthorityProcess.READY_PREFIX.length()).trim()));
+                } else {
+                    log.info(String.format("[authority %d] %s", j, line));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Lost the output of authority " + j, e);
+        }
+        port.completeExceptionally(new IOException("Authority " + j + " exited before being ready"));
+    }
+
+    /**
+     * @return the adapters of the authorities, in the order of their indices
+     */
+    public List<AuthorityService> getAuthorities() {
+        return Collections.unmodifiableList(authorities);
+    }
+
+    /**
+     * Stops the authorities, each logging its statistics, and then the bulletin board server
+     */
+    @Override
+    public void close() throws IOException {
+        authorities.forEach(RemoteAuthority::close);
+        for (Process process : processes) {
+            process.getOutputStream().close();
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("An authority did not stop in time, and is being killed");
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Thread relay : relays) {
+            try {
+                // the last lines hold the statistics of the authority
+                relay.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        bulletinBoardServer.logStats();
+        bulletinBoardServer.close();
+    }
+}
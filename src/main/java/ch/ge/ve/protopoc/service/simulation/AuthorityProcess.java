@@ -0,0 +1,129 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.simulation;
+
+import ch.ge.ve.protopoc.service.exception.NotEnoughPrimesInGroupException;
+import ch.ge.ve.protopoc.service.model.ElectionSet;
+import ch.ge.ve.protopoc.service.model.PublicParameters;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.protocol.DefaultAuthority;
+import ch.ge.ve.protopoc.service.remote.AuthorityServer;
+import ch.ge.ve.protopoc.service.remote.RemoteBulletinBoard;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of an authority running in a process of its own, started by the {@link AuthorityLauncher}
+ * <p>The authority retrieves the public parameters and the election set from the bulletin board served by the
+ * launching process, then serves its own calls on an ephemeral port, announced on the standard output. It runs until
+ * its standard input is closed, and then logs the CPU time of the process and the time spent serving each
+ * operation.</p>
+ * <p>If the {@value #JOURNAL_DIRECTORY_PROPERTY} system property is set, the authority journals its ballot box in the
+ * <tt>authority-j</tt> subdirectory of that directory, replaying the entries already journaled there.</p>
+ */
+public class AuthorityProcess {
+    static final String READY_PREFIX = "authority-ready ";
+    static final String JOURNAL_DIRECTORY_PROPERTY = "simulation.journalDirectory";
+    private static final Logger log = LoggerFactory.getLogger(AuthorityProcess.class);
+
+    /**
+     * @param args the index j of the authority, the port of the bulletin board server and, optionally, the directory
+     *             of the scratch files of the mixing vectors
+     */
+    public static void main(String[] args) throws IOException, NoSuchProviderException, NoSuchAlgorithmException,
+            NotEnoughPrimesInGroupException {
+        Preconditions.checkArgument(args.length >= 2, "Usage: AuthorityProcess j bulletinBoardPort [scratchDirectory]");
+        int j = Integer.parseInt(args[0]);
+        int bulletinBoardPort = Integer.parseInt(args[1]);
+        VectorStore vectorStore = args.length >= 3 ? VectorStore.mapped(Paths.get(args[2])) : VectorStore.heap();
+
+        RemoteBulletinBoard bulletinBoard = new RemoteBulletinBoard(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), bulletinBoardPort), vectorStore);
+        PublicParameters publicParameters = bulletinBoard.getPublicParameters();
+        Preconditions.checkState(publicParameters != null,
+                "The public parameters need to have been published before the authorities are started");
+        ElectionSet electionSet = bulletinBoard.getElectionSet();
+
+        ExecutorService proofVerificationExecutor = Executors.newFixedThreadPool(
+                Math.max(1, publicParameters.getS() - 1),
+                new ThreadFactoryBuilder().setNameFormat("shuffle-proof-verifier-%d").setDaemon(true).build());
+        DefaultAuthority authority = AuthorityFactory.createAuthority(j, bulletinBoard, publicParameters, electionSet,
+                vectorStore, proofVerificationExecutor);
+        String journalDirectory = System.getProperty(JOURNAL_DIRECTORY_PROPERTY);
+        if (journalDirectory != null) {
+            authority.openBallotJournal(Paths.get(journalDirectory, "authority-" + j));
+        }
+        AuthorityServer server = AuthorityServer.start("authority-" + j, authority, publicParameters);
+        System.out.println(READY_PREFIX + server.getAddress().getPort());
+        System.out.flush();
+
+        // the launcher closes the standard input to stop the authority
+        while (System.in.read() != -1) {
+            // nothing to read
+        }
+
+        server.close();
+        proofVerificationExecutor.shutdownNow();
+        authority.closeBallotJournal();
+        bulletinBoard.close();
+        logStats(j, authority, server);
+        // the precomputations may still be running
+        System.exit(0);
+    }
+
+    private static void logStats(int j, DefaultAuthority authority, AuthorityServer server) {
+        OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+            long cpuTime = ((com.sun.management.OperatingSystemMXBean) operatingSystem).getProcessCpuTime();
+            log.info(String.format("Authority %d used %,d ms of CPU time in %,d ms", j,
+                    TimeUnit.NANOSECONDS.toMillis(cpuTime), ManagementFactory.getRuntimeMXBean().getUptime()));
+        }
+        server.logStats();
+        logStats(j, "ballot verification", authority.getBallotVerificationStats());
+        logStats(j, "query response", authority.getQueryResponseStats());
+        logStats(j, "confirmation verification", authority.getConfirmationVerificationStats());
+        logStats(j, "finalization code parts", authority.getFinalizationComputationStats());
+    }
+
+    private static void logStats(int j, String stepName, LongSummaryStatistics stats) {
+        if (stats.getCount() == 0) {
+            return;
+        }
+        log.info(String.format("Authority %d | %-30s | %,15d | %,15d | %,15.2f | %,15d |", j, stepName,
+                stats.getSum(), stats.getMin(), stats.getAverage(), stats.getMax()));
+    }
+}
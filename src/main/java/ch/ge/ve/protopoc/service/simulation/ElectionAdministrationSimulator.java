@@ -24,7 +24,9 @@ package ch.ge.ve.protopoc.service.simulation;
 import ch.ge.ve.protopoc.service.algorithm.TallyingAuthoritiesAlgorithm;
 import ch.ge.ve.protopoc.service.exception.InvalidDecryptionProofException;
 import ch.ge.ve.protopoc.service.model.DecryptionProof;
+import ch.ge.ve.protopoc.service.model.Election;
 import ch.ge.ve.protopoc.service.model.Encryption;
+import ch.ge.ve.protopoc.service.model.Tally;
 import ch.ge.ve.protopoc.service.model.TallyData;
 import ch.ge.ve.protopoc.service.protocol.BulletinBoardService;
 import com.google.common.base.Stopwatch;
@@ -34,21 +36,20 @@ import org.slf4j.LoggerFactory;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * This class simulates the actions of the election administration
  */
 public class ElectionAdministrationSimulator {
+    private final Logger log = LoggerFactory.getLogger(ElectionAdministrationSimulator.class);
     private final Logger perfLog = LoggerFactory.getLogger("PerformanceStats");
-    private final int totalCandidateCount;
+    private final List<Election> elections;
     private final BulletinBoardService bulletinBoardService;
     private final TallyingAuthoritiesAlgorithm tallyingAuthoritiesAlgorithm;
 
-    public ElectionAdministrationSimulator(int totalCandidateCount, BulletinBoardService bulletinBoardService,
+    public ElectionAdministrationSimulator(List<Election> elections, BulletinBoardService bulletinBoardService,
                                            TallyingAuthoritiesAlgorithm tallyingAuthoritiesAlgorithm) {
-        this.totalCandidateCount = totalCandidateCount;
+        this.elections = elections;
         this.bulletinBoardService = bulletinBoardService;
         this.tallyingAuthoritiesAlgorithm = tallyingAuthoritiesAlgorithm;
     }
@@ -70,10 +71,11 @@ public class ElectionAdministrationSimulator {
                 decryptionProofCheckWatch.elapsed(TimeUnit.MILLISECONDS)));
 
         List<BigInteger> decryptions = tallyingAuthoritiesAlgorithm.getDecryptions(finalShuffle, partialDecryptions);
-        List<List<Boolean>> votes = tallyingAuthoritiesAlgorithm.getVotes(decryptions, totalCandidateCount);
+        Tally tally = tallyingAuthoritiesAlgorithm.getTally(decryptions, elections);
         // Additional verifications on the votes validity may be performed here.
-        return IntStream.range(0, totalCandidateCount)
-                .mapToLong(i -> votes.stream().filter(vote -> vote.get(i)).count())
-                .boxed().collect(Collectors.toList());
+        if (!tally.hasValidSelectionCounts()) {
+            log.error("Some ballots hold an unexpected number of selections: " + tally);
+        }
+        return tally.getCounts();
     }
 }
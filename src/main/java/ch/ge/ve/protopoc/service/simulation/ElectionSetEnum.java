@@ -0,0 +1,109 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.simulation;
+
+import ch.ge.ve.protopoc.service.model.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Sample election sets, for a given number of voters
+ */
+public enum ElectionSetEnum {
+    SINGLE_VOTE {
+        @Override
+        public ElectionSet createElectionSet(int votersCount) {
+            DomainOfInfluence canton = new DomainOfInfluence("canton");
+
+            List<Voter> voters = IntStream.range(0, votersCount)
+                    .mapToObj(i -> new Voter()).collect(Collectors.toList());
+            voters.forEach(v -> v.addDomainsOfInfluence(canton));
+
+            Election cantonalVotation1 = new Election(3, 1, canton);
+            List<Election> elections = Collections.singletonList(cantonalVotation1);
+
+            List<Candidate> candidates = IntStream.range(0, cantonalVotation1.getNumberOfCandidates()).mapToObj(
+                    i -> new Candidate(String.format("candidate %d", i))).collect(Collectors.toList());
+
+            return new ElectionSet(voters, candidates, elections);
+        }
+    },
+    SIMPLE_SAMPLE {
+        @Override
+        public ElectionSet createElectionSet(int votersCount) {
+            DomainOfInfluence canton = new DomainOfInfluence("canton");
+            DomainOfInfluence municipality1 = new DomainOfInfluence("municipality1");
+
+            List<Voter> voters = IntStream.range(0, votersCount)
+                    .mapToObj(i -> new Voter()).collect(Collectors.toList());
+            voters.forEach(v -> v.addDomainsOfInfluence(canton));
+            // 1 in 10 voters also partakes in a municipal election
+            voters.subList(0, votersCount / 10).forEach(v -> v.addDomainsOfInfluence(municipality1));
+
+            Election cantonalVotation1 = new Election(3, 1, canton);
+            Election cantonalVotation2 = new Election(3, 1, canton);
+            Election municipalElection = new Election(10, 2, municipality1);
+
+            List<Election> elections = Arrays.asList(cantonalVotation1, cantonalVotation2, municipalElection);
+
+            List<Candidate> candidates = IntStream.range(0,
+                    cantonalVotation1.getNumberOfCandidates() +
+                            cantonalVotation2.getNumberOfCandidates() +
+                            municipalElection.getNumberOfCandidates()).mapToObj(
+                    i -> new Candidate(String.format("candidate %d", i))).collect(Collectors.toList());
+
+
+            return new ElectionSet(voters, candidates, elections);
+        }
+    },
+    GC_CE {
+        @Override
+        public ElectionSet createElectionSet(int votersCount) {
+            DomainOfInfluence canton = new DomainOfInfluence("canton");
+
+            List<Voter> voters = IntStream.range(0, votersCount)
+                    .mapToObj(i -> new Voter()).collect(Collectors.toList());
+            voters.forEach(v -> v.addDomainsOfInfluence(canton));
+
+            // Based on 2013 cantonal elections in Geneva
+            // 29 nominative candidates + 7 empty seat candidates
+            Election ce_election = new Election(36, 7, canton);
+            // 476 nominative candidates + 100 empty seat candidates
+            Election gc_election = new Election(576, 100, canton);
+
+            List<Election> elections = Arrays.asList(ce_election, gc_election);
+
+            List<Candidate> candidates = IntStream.range(0,
+                    ce_election.getNumberOfCandidates() + gc_election.getNumberOfCandidates())
+                    .mapToObj(i -> new Candidate(String.format("candidate %d", i))).collect(Collectors.toList());
+
+            return new ElectionSet(voters, candidates, elections);
+        }
+    };
+
+    public abstract ElectionSet createElectionSet(int votersCount);
+
+}
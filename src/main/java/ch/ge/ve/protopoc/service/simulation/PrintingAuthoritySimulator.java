@@ -25,7 +25,6 @@ import ch.ge.ve.protopoc.service.algorithm.VotingCardPreparationAlgorithms;
 import ch.ge.ve.protopoc.service.model.ElectionSet;
 import ch.ge.ve.protopoc.service.model.PublicParameters;
 import ch.ge.ve.protopoc.service.model.SecretVoterData;
-import ch.ge.ve.protopoc.service.model.VotingCard;
 import ch.ge.ve.protopoc.service.protocol.AuthorityService;
 import ch.ge.ve.protopoc.service.protocol.BulletinBoardService;
 import com.google.common.base.Preconditions;
@@ -73,10 +72,11 @@ public class PrintingAuthoritySimulator {
             voterDataMatrix.add(authority.getPrivateCredentials());
         }
 
-        List<VotingCard> sheets = votingCardPreparationAlgorithms.getVotingCard(electionSet, voterDataMatrix);
-
-        for (int i = 0; i < sheets.size(); i++) {
-            voterSimulators.get(i).sendCodeSheet(sheets.get(i));
-        }
+        // the sheets are sent out batch by batch, without ever holding the cards of the whole electorate
+        votingCardPreparationAlgorithms.getVotingCards(electionSet, voterDataMatrix, (firstVoterIndex, sheets) -> {
+            for (int i = 0; i < sheets.size(); i++) {
+                voterSimulators.get(firstVoterIndex + i).sendCodeSheet(sheets.get(i));
+            }
+        });
     }
 }
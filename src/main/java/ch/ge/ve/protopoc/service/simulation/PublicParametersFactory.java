@@ -0,0 +1,234 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.simulation;
+
+import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.support.RandomGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.service.support.BigIntegers.TWO;
+import static java.math.BigInteger.ONE;
+import static java.math.BigInteger.ZERO;
+
+/**
+ * Creates the public parameters of a simulated election, for one of the supported security levels
+ * <ul>
+ * <li>0: toy groups, only meant for quick runs</li>
+ * <li>1: the 1024 bits encryption group of the reference constants</li>
+ * <li>2: the 2048 bits encryption group, with an identification group derived from its modulus</li>
+ * </ul>
+ */
+public class PublicParametersFactory {
+    private static final Logger log = LoggerFactory.getLogger(PublicParametersFactory.class);
+    private final SecureRandom secureRandom;
+    private final RandomGenerator randomGenerator;
+    private final List<Character> defaultAlphabet = getDefaultAlphabet();
+
+    public PublicParametersFactory(SecureRandom secureRandom, RandomGenerator randomGenerator) {
+        this.secureRandom = secureRandom;
+        this.randomGenerator = randomGenerator;
+    }
+
+    public PublicParameters createPublicParameters(int level) {
+        log.info("creating public parameters");
+        PublicParameters publicParameters;
+        switch (level) {
+            case 0:
+                publicParameters = createSecurityLevel0Parameters();
+                break;
+            case 1:
+                publicParameters = createSecurityLevel1Parameters();
+                break;
+            case 2:
+                publicParameters = createSecurityLevel2Parameters();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown security level");
+        }
+        log.info("public parameters created");
+        return publicParameters;
+    }
+
+    private PublicParameters createSecurityLevel0Parameters() {
+        SecurityParameters securityParameters = new SecurityParameters(3, 3, 1, 0.9);
+
+        EncryptionGroup encryptionGroup = new EncryptionGroup(SimulationConstants.p_RC0e, SimulationConstants.q_RC0e,
+                SimulationConstants.g_RC0e, SimulationConstants.h_RC0e);
+        IdentificationGroup identificationGroup = new IdentificationGroup(SimulationConstants.p_hat_RC0s,
+                SimulationConstants.q_hat_RC0s, SimulationConstants.g_hat_RC0s);
+        PrimeField primeField = createPrimeField(securityParameters);
+
+        return new PublicParameters(securityParameters, encryptionGroup, identificationGroup, primeField,
+                identificationGroup.getQ_hat(), defaultAlphabet,
+                identificationGroup.getQ_hat(), defaultAlphabet,
+                defaultAlphabet, 1,
+                defaultAlphabet, 1,
+                4, SimulationConstants.default_n_max);
+    }
+
+    private PublicParameters createSecurityLevel1Parameters() {
+        SecurityParameters securityParameters = new SecurityParameters(80, 80, 20, 0.999);
+
+        EncryptionGroup encryptionGroup = createEncryptionGroup(SimulationConstants.p_RC1e);
+        IdentificationGroup identificationGroup = new IdentificationGroup(SimulationConstants.p_hat_RC1s,
+                SimulationConstants.q_hat_RC1s, SimulationConstants.g_hat_RC1s);
+        PrimeField primeField = createPrimeField(securityParameters);
+
+        return new PublicParameters(securityParameters, encryptionGroup, identificationGroup, primeField,
+                identificationGroup.getQ_hat(), defaultAlphabet,
+                identificationGroup.getQ_hat(), defaultAlphabet,
+                defaultAlphabet, 2,
+                defaultAlphabet, 2,
+                4, SimulationConstants.default_n_max);
+    }
+
+    private PublicParameters createSecurityLevel2Parameters() {
+        SecurityParameters securityParameters = new SecurityParameters(112, 112, 32, 0.999);
+
+        EncryptionGroup encryptionGroup = createEncryptionGroup(SimulationConstants.p2048);
+        IdentificationGroup identificationGroup = createIdentificationGroup(SimulationConstants.p_hat_2048, securityParameters);
+        PrimeField primeField = createPrimeField(securityParameters);
+
+        return new PublicParameters(securityParameters, encryptionGroup, identificationGroup, primeField,
+                identificationGroup.getQ_hat(), defaultAlphabet,
+                identificationGroup.getQ_hat(), defaultAlphabet,
+                defaultAlphabet, 2,
+                defaultAlphabet, 2,
+                4, SimulationConstants.default_n_max);
+    }
+
+    private PrimeField createPrimeField(SecurityParameters securityParameters) {
+        log.info("creating prime field");
+        PrimeField primeField = null;
+        while (primeField == null) {
+            BigInteger p_prime = BigInteger.probablePrime(2 * securityParameters.getTau(), secureRandom);
+            primeField = new PrimeField(p_prime);
+        }
+        log.info("prime field created");
+        return primeField;
+    }
+
+    private IdentificationGroup createIdentificationGroup(BigInteger p_hat, SecurityParameters securityParameters) {
+        log.info("creating identification group");
+        IdentificationGroup identificationGroup = null;
+        while (identificationGroup == null) {
+            BigInteger p_hatMinusOne = p_hat.subtract(ONE);
+
+            BigInteger k = TWO;
+            while (p_hatMinusOne.mod(k).compareTo(ZERO) != 0) {
+                k = k.add(ONE);
+            }
+            BigInteger q_hat = p_hatMinusOne.divide(k);
+            if (!q_hat.isProbablePrime(100)) {
+                log.info("q_hat is not prime");
+                continue;
+            }
+            if (q_hat.bitLength() < 2 * securityParameters.getTau()) {
+                log.info("|q_hat| < 2*mu");
+                continue;
+            }
+
+            BigInteger i = randomGenerator.randomInZq(p_hat);
+            while (modExp(i, k, p_hat).compareTo(ONE) == 0) {
+                i = randomGenerator.randomInZq(p_hat);
+            }
+            BigInteger g_hat = modExp(i, k, p_hat);
+
+            try {
+                identificationGroup = new IdentificationGroup(p_hat, q_hat, g_hat);
+            } catch (IllegalArgumentException e) {
+                log.warn("failed to create identification group", e);
+                identificationGroup = null;
+            }
+        }
+        log.info("created identification group");
+        return identificationGroup;
+    }
+
+    private EncryptionGroup createEncryptionGroup(BigInteger p) {
+        log.info("creating encryption group");
+        EncryptionGroup encryptionGroup = null;
+
+        while (encryptionGroup == null) {
+            if (!p.isProbablePrime(100)) {
+                log.info("p is not prime...");
+                continue;
+            }
+
+            BigInteger pMinusOne = p.subtract(ONE);
+            BigInteger q = pMinusOne.shiftRight(1);
+            if (!q.isProbablePrime(100)) {
+                log.info("q is not prime...");
+            }
+
+            BigInteger g = getGenerator(q, p, pMinusOne);
+
+            BigInteger h = randomGenerator.randomInGq(new EncryptionGroup(p, q, g, TWO));
+
+            try {
+                encryptionGroup = new EncryptionGroup(p, q, g, h);
+            } catch (IllegalArgumentException e) {
+                log.warn("Encryption group creation failed", e);
+                encryptionGroup = null;
+            }
+        }
+        log.info("encryption group created: " + encryptionGroup);
+        return encryptionGroup;
+    }
+
+    private BigInteger getGenerator(BigInteger q, BigInteger p, BigInteger pMinusOne) {
+        log.info("creating a generator");
+        BigInteger h = BigInteger.ONE;
+        boolean safe = false;
+        while (!safe) {
+            h = randomGenerator.randomInZq(p);
+
+            safe = modExp(h, TWO, p).compareTo(ONE) != 0
+                    && modExp(h, q, p).compareTo(ONE) != 0
+                    && pMinusOne.mod(h).compareTo(BigInteger.ZERO) != 0;
+
+            BigInteger gInv = safe ? h.modInverse(p) : ONE;
+            safe = safe && pMinusOne.mod(gInv).compareTo(BigInteger.ZERO) != 0;
+        }
+        log.info("generator created");
+        return modExp(h, TWO, p);
+    }
+
+    private List<Character> getDefaultAlphabet() {
+        char[] chars = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray();
+
+        List<Character> alphabet = new ArrayList<>();
+
+        for (char c : chars) {
+            alphabet.add(c);
+        }
+
+        return alphabet;
+    }
+}
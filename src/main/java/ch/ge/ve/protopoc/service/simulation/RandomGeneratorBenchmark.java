@@ -0,0 +1,107 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.simulation;
+
+import ch.ge.ve.protopoc.service.support.RandomGenerator;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark comparing the throughput of a shared random generator with that of a per-thread random generator,
+ * when drawing vectors in Z_q from an increasing number of threads
+ */
+public class RandomGeneratorBenchmark {
+    private static final Logger perfLog = LoggerFactory.getLogger("PerformanceStats");
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    private final BigInteger q;
+    private final int vectorLength;
+
+    private RandomGeneratorBenchmark(BigInteger q, int vectorLength) {
+        this.q = q;
+        this.vectorLength = vectorLength;
+    }
+
+    public static void main(String[] args) throws NoSuchProviderException, NoSuchAlgorithmException,
+            ExecutionException, InterruptedException {
+        int vectorLength = 100_000;
+        if (args.length >= 1) {
+            vectorLength = Integer.parseInt(args[0]);
+        }
+        BigInteger q = SimulationConstants.p2048.shiftRight(1);
+        new RandomGeneratorBenchmark(q, vectorLength).run();
+    }
+
+    private void run() throws NoSuchProviderException, NoSuchAlgorithmException, ExecutionException,
+            InterruptedException {
+        SecureRandom rootRandom = SecureRandom.getInstance("SHA1PRNG", "SUN");
+        RandomGenerator shared = new RandomGenerator(rootRandom);
+        RandomGenerator perThread = RandomGenerator.perThread(rootRandom, "SHA1PRNG", "SUN");
+
+        // warm-up
+        measure(shared, ForkJoinPool.commonPool().getParallelism());
+        measure(perThread, ForkJoinPool.commonPool().getParallelism());
+
+        perfLog.info(String.format("##### Random generator scaling (%d draws in Z_q, |q| = %d)",
+                vectorLength, q.bitLength()));
+        perfLog.info(String.format("| %7s | %15s | %8s | %15s | %8s |",
+                "Threads", "Shared (ms)", "Speedup", "Per-thread (ms)", "Speedup"));
+        perfLog.info(String.format("| %1$.6s: | %1$.14s: | %1$.7s: | %1$.14s: | %1$.7s: |", Strings.repeat("-", 15)));
+        long sharedBaseline = 0L;
+        long perThreadBaseline = 0L;
+        for (int threads : THREAD_COUNTS) {
+            long sharedTime = measure(shared, threads);
+            long perThreadTime = measure(perThread, threads);
+            if (threads == 1) {
+                sharedBaseline = sharedTime;
+                perThreadBaseline = perThreadTime;
+            }
+            perfLog.info(String.format("| %7d | %,15d | %8.2f | %,15d | %8.2f |", threads,
+                    sharedTime, (double) sharedBaseline / Math.max(sharedTime, 1L),
+                    perThreadTime, (double) perThreadBaseline / Math.max(perThreadTime, 1L)));
+        }
+    }
+
+    private long measure(RandomGenerator randomGenerator, int threads) throws ExecutionException,
+            InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            // parallel streams run in the pool of the task submitting them
+            pool.submit(() -> randomGenerator.randomVectorInZq(q, vectorLength)).get();
+            stopwatch.stop();
+            return stopwatch.elapsed(TimeUnit.MILLISECONDS);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -26,36 +26,36 @@ import ch.ge.ve.protopoc.service.algorithm.*;
 import ch.ge.ve.protopoc.service.exception.InvalidDecryptionProofException;
 import ch.ge.ve.protopoc.service.exception.NotEnoughPrimesInGroupException;
 import ch.ge.ve.protopoc.service.model.*;
-import ch.ge.ve.protopoc.service.protocol.AuthorityService;
-import ch.ge.ve.protopoc.service.protocol.DefaultAuthority;
-import ch.ge.ve.protopoc.service.protocol.DefaultBulletinBoard;
-import ch.ge.ve.protopoc.service.protocol.DefaultVotingClient;
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore;
+import ch.ge.ve.protopoc.service.protocol.*;
 import ch.ge.ve.protopoc.service.support.Conversion;
 import ch.ge.ve.protopoc.service.support.Hash;
 import ch.ge.ve.protopoc.service.support.RandomGenerator;
 import com.google.common.base.Joiner;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigInteger;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
-import static ch.ge.ve.protopoc.service.support.BigIntegers.TWO;
-import static java.math.BigInteger.ONE;
-import static java.math.BigInteger.ZERO;
-
 /**
  * Simulation class...
  */
@@ -63,6 +63,10 @@ public class Simulation {
     private static final Logger log = LoggerFactory.getLogger(Simulation.class);
     private static ElectionSetEnum electionSetConfig;
     private static int votersCount;
+    private static VectorStore mixingVectorStore;
+    private static Path scratchDirectory;
+    private static boolean remoteAuthorities;
+    private static Path journalDirectory;
     private final SecureRandom secureRandom;
     private final RandomGenerator randomGenerator;
     private final PerformanceStats performanceStats = new PerformanceStats();
@@ -83,19 +87,20 @@ public class Simulation {
     private VoteConfirmationClientAlgorithms voteConfirmationClientAlgorithms;
     private VoteConfirmationVoterAlgorithms voteConfirmationVoterAlgorithms;
     private List<VoterSimulator> voterSimulators;
-    private List<Character> defaultAlphabet = getDefaultAlphabet();
     private MixingAuthorityAlgorithms mixingAuthorityAlgorithms;
     private DecryptionAuthorityAlgorithms decryptionAuthorityAlgorithms;
+    private ExecutorService proofVerificationExecutor;
     private TallyingAuthoritiesAlgorithm tallyingAuthoritiesAlgorithm;
     private ElectionAdministrationSimulator electionAdministrationSimulator;
+    private AuthorityLauncher authorityLauncher;
 
     private Simulation() throws NoSuchProviderException, NoSuchAlgorithmException {
         secureRandom = SecureRandom.getInstance("SHA1PRNG", "SUN");
-        randomGenerator = new RandomGenerator(secureRandom);
+        randomGenerator = RandomGenerator.perThread(secureRandom, "SHA1PRNG", "SUN");
     }
 
     public static void main(String[] args) throws NoSuchProviderException, NoSuchAlgorithmException,
-            InvalidDecryptionProofException, NotEnoughPrimesInGroupException {
+            InvalidDecryptionProofException, NotEnoughPrimesInGroupException, IOException {
         log.info("Starting simulation");
         Simulation simulation = new Simulation();
 
@@ -111,6 +116,14 @@ public class Simulation {
         if (args.length >= 3) {
             votersCount = Integer.parseInt(args[2]);
         }
+        // streaming mode: the vectors of the shuffles and of their proofs are held in scratch files of that directory
+        scratchDirectory = args.length >= 4 ? Paths.get(args[3]) : null;
+        mixingVectorStore = scratchDirectory != null ? VectorStore.mapped(scratchDirectory) : VectorStore.heap();
+        // with -Dsimulation.remoteAuthorities=true, each authority runs in a process of its own
+        remoteAuthorities = Boolean.getBoolean("simulation.remoteAuthorities");
+        // with -Dsimulation.journalDirectory=..., the authorities journal their ballot boxes in that directory
+        String journalDirectoryProperty = System.getProperty(AuthorityProcess.JOURNAL_DIRECTORY_PROPERTY);
+        journalDirectory = journalDirectoryProperty != null ? Paths.get(journalDirectoryProperty) : null;
 
         simulation.initializeSettings(level);
         simulation.createComponents();
@@ -118,18 +131,24 @@ public class Simulation {
         simulation.run();
     }
 
-    private void run() throws InvalidDecryptionProofException {
-        runInitialisation();
+    private void run() throws InvalidDecryptionProofException, IOException {
+        List<Long> expectedTally;
+        List<Long> tally;
+        try {
+            runInitialisation();
 
-        runCodeSheets();
+            runCodeSheets();
 
-        List<Long> expectedTally = runVoting();
+            expectedTally = runVoting();
 
-        runMixing();
+            runMixing();
 
-        runDecryption();
+            runDecryption();
 
-        List<Long> tally = runTally();
+            tally = runTally();
+        } finally {
+            stopAuthorities();
+        }
 
         if (tally.equals(expectedTally)) {
             log.info("Vote simulation successful");
@@ -166,9 +185,29 @@ public class Simulation {
     private void runMixing() {
         log.info("starting the mixing");
         performanceStats.start(performanceStats.mixing);
-        authorities.get(0).startMixing();
-        for (int i = 1; i < publicParameters.getS(); i++) {
-            authorities.get(i).mixAgain();
+        int s = publicParameters.getS();
+        CompletableFuture<Void> mixingDone = new CompletableFuture<>();
+        AtomicInteger shuffleProofsCount = new AtomicInteger();
+        // each authority starts mixing as soon as the shuffle of its predecessor is published
+        BulletinBoardListener cascade = event -> {
+            if (event.getType() == BulletinBoardEvent.Type.SHUFFLE && event.getJ() + 1 < s) {
+                AuthorityService nextMixer = authorities.get(event.getJ() + 1);
+                CompletableFuture.runAsync(nextMixer::mixAgain).whenComplete((v, e) -> {
+                    if (e != null) {
+                        mixingDone.completeExceptionally(e);
+                    }
+                });
+            } else if (event.getType() == BulletinBoardEvent.Type.SHUFFLE_PROOF
+                    && shuffleProofsCount.incrementAndGet() == s) {
+                mixingDone.complete(null);
+            }
+        };
+        bulletinBoardService.addListener(cascade);
+        try {
+            authorities.get(0).startMixing();
+            mixingDone.join();
+        } finally {
+            bulletinBoardService.removeListener(cascade);
         }
         performanceStats.stop(performanceStats.mixing);
     }
@@ -194,22 +233,56 @@ public class Simulation {
         performanceStats.stop(performanceStats.printingCodeSheets);
     }
 
-    private void runInitialisation() {
+    private void runInitialisation() throws IOException {
         log.info("publishing public parameters");
         performanceStats.start(performanceStats.publishingParameters);
         bulletinBoardService.publishPublicParameters(publicParameters);
         performanceStats.stop(performanceStats.publishingParameters);
 
-        runKeyGeneration();
-
+        // the authorities started in processes of their own retrieve the election set when they start
         log.info("publishing election set");
         performanceStats.start(performanceStats.publishElectionSet);
         bulletinBoardService.publishElectionSet(electionSet);
         performanceStats.stop(performanceStats.publishElectionSet);
 
+        startAuthorities();
+
+        runKeyGeneration();
+
+        runPrecomputation();
+
         runCredentialsGeneration();
     }
 
+    private void startAuthorities() throws IOException {
+        if (remoteAuthorities) {
+            log.info("starting the authority processes");
+            performanceStats.start(performanceStats.startingAuthorities);
+            authorityLauncher = AuthorityLauncher.launch(bulletinBoardService, mixingVectorStore, scratchDirectory);
+            authorities = authorityLauncher.getAuthorities();
+            performanceStats.stop(performanceStats.startingAuthorities);
+        } else if (journalDirectory != null) {
+            for (int j = 0; j < authorities.size(); j++) {
+                ((DefaultAuthority) authorities.get(j)).openBallotJournal(journalDirectory.resolve("authority-" + j));
+            }
+        }
+        bulletinBoardService.setAuthorities(authorities);
+        printingAuthoritySimulator.setAuthorities(authorities);
+    }
+
+    private void stopAuthorities() throws IOException {
+        if (proofVerificationExecutor != null) {
+            proofVerificationExecutor.shutdownNow();
+        }
+        if (authorityLauncher != null) {
+            authorityLauncher.close();
+        } else if (journalDirectory != null) {
+            for (AuthorityService authority : authorities) {
+                ((DefaultAuthority) authority).closeBallotJournal();
+            }
+        }
+    }
+
     private void runCredentialsGeneration() {
         log.info("generating electorate data");
         performanceStats.start(performanceStats.generatingElectoralData);
@@ -230,6 +303,12 @@ public class Simulation {
         log.info("publicCredentialsBuildSuccess: " + publicCredentialsBuildSuccess);
     }
 
+    private void runPrecomputation() {
+        log.info("starting precomputations");
+        // the precomputations run in the background, during the rest of the initialisation and the voting phase
+        authorities.forEach(aS -> aS.startPrecomputation(votersCount));
+    }
+
     private void runKeyGeneration() {
         log.info("generating authorities keys");
         performanceStats.start(performanceStats.keyGeneration);
@@ -268,7 +347,6 @@ public class Simulation {
     private void createSimulators() {
         log.info("creating simulators");
         printingAuthoritySimulator = new PrintingAuthoritySimulator(bulletinBoardService, votingCardPreparationAlgorithms);
-        printingAuthoritySimulator.setAuthorities(authorities);
 
         voterSimulators = IntStream.range(0, electionSet.getVoters().size()).mapToObj(i ->
                 new VoterSimulator(i,
@@ -281,7 +359,7 @@ public class Simulation {
 
         printingAuthoritySimulator.setVoterSimulators(voterSimulators);
 
-        electionAdministrationSimulator = new ElectionAdministrationSimulator(electionSet.getCandidates().size(),
+        electionAdministrationSimulator = new ElectionAdministrationSimulator(electionSet.getElections(),
                 bulletinBoardService, tallyingAuthoritiesAlgorithm);
         log.info("all simulators created");
     }
@@ -289,11 +367,13 @@ public class Simulation {
     private void createServices() {
         log.info("creating services");
         bulletinBoardService = new DefaultBulletinBoard();
-        authorities = IntStream.range(0, publicParameters.getS()).mapToObj(i ->
-                new DefaultAuthority(i, bulletinBoardService, keyEstablishmentAlgorithms, electionPreparationAlgorithms,
-                        voteCastingAuthorityAlgorithms, voteConfirmationAuthorityAlgorithms, mixingAuthorityAlgorithms,
-                        decryptionAuthorityAlgorithms)).collect(Collectors.toList());
-        bulletinBoardService.setAuthorities(authorities);
+        if (!remoteAuthorities) {
+            authorities = IntStream.range(0, publicParameters.getS()).mapToObj(i ->
+                    new DefaultAuthority(i, bulletinBoardService, keyEstablishmentAlgorithms,
+                            electionPreparationAlgorithms, voteCastingAuthorityAlgorithms,
+                            voteConfirmationAuthorityAlgorithms, mixingAuthorityAlgorithms,
+                            decryptionAuthorityAlgorithms)).collect(Collectors.toList());
+        }
         log.info("created all services");
     }
 
@@ -309,8 +389,10 @@ public class Simulation {
         voteCastingClientAlgorithms = new VoteCastingClientAlgorithms(publicParameters, generalAlgorithms, randomGenerator, hash);
         voteConfirmationClientAlgorithms = new VoteConfirmationClientAlgorithms(publicParameters, generalAlgorithms, randomGenerator, hash);
         voteConfirmationVoterAlgorithms = new VoteConfirmationVoterAlgorithms();
-        mixingAuthorityAlgorithms = new MixingAuthorityAlgorithms(publicParameters, generalAlgorithms, voteConfirmationAuthorityAlgorithms, randomGenerator);
-        decryptionAuthorityAlgorithms = new DecryptionAuthorityAlgorithms(publicParameters, generalAlgorithms, randomGenerator);
+        mixingAuthorityAlgorithms = new MixingAuthorityAlgorithms(publicParameters, generalAlgorithms, voteConfirmationAuthorityAlgorithms, randomGenerator, mixingVectorStore);
+        proofVerificationExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setNameFormat("shuffle-proof-verifier-%d").setDaemon(true).build());
+        decryptionAuthorityAlgorithms = new DecryptionAuthorityAlgorithms(publicParameters, generalAlgorithms, randomGenerator, proofVerificationExecutor);
         tallyingAuthoritiesAlgorithm = new TallyingAuthoritiesAlgorithm(publicParameters, generalAlgorithms);
         log.info("instantiated all algorithm classes");
     }
@@ -324,7 +406,7 @@ public class Simulation {
         performanceStats.start(performanceStats.totalSimulation);
         log.info("Initializing settings");
         performanceStats.start(performanceStats.creatingPublicParameters);
-        createPublicParameters(level);
+        publicParameters = new PublicParametersFactory(secureRandom, randomGenerator).createPublicParameters(level);
         performanceStats.stop(performanceStats.creatingPublicParameters);
         performanceStats.start(performanceStats.creatingElectionSet);
         electionSet = electionSetConfig.createElectionSet(votersCount);
@@ -332,257 +414,6 @@ public class Simulation {
         log.info("Settings initialized");
     }
 
-    private void createPublicParameters(int level) {
-        log.info("creating public parameters");
-        switch (level) {
-            case 0:
-                createSecurityLevel0Parameters();
-                break;
-            case 1:
-                createSecurityLevel1Parameters();
-                break;
-            case 2:
-                createSecurityLevel2Parameters();
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown security level");
-        }
-        log.info("public parameters created");
-    }
-
-    private void createSecurityLevel0Parameters() {
-        SecurityParameters securityParameters = new SecurityParameters(3, 3, 1, 0.9);
-
-        EncryptionGroup encryptionGroup = new EncryptionGroup(SimulationConstants.p_RC0e, SimulationConstants.q_RC0e,
-                SimulationConstants.g_RC0e, SimulationConstants.h_RC0e);
-        IdentificationGroup identificationGroup = new IdentificationGroup(SimulationConstants.p_hat_RC0s,
-                SimulationConstants.q_hat_RC0s, SimulationConstants.g_hat_RC0s);
-        PrimeField primeField = createPrimeField(securityParameters);
-
-        publicParameters = new PublicParameters(securityParameters, encryptionGroup, identificationGroup, primeField,
-                identificationGroup.getQ_hat(), defaultAlphabet,
-                identificationGroup.getQ_hat(), defaultAlphabet,
-                defaultAlphabet, 1,
-                defaultAlphabet, 1,
-                4, SimulationConstants.default_n_max);
-    }
-
-    private void createSecurityLevel1Parameters() {
-        SecurityParameters securityParameters = new SecurityParameters(80, 80, 20, 0.999);
-
-        EncryptionGroup encryptionGroup = createEncryptionGroup(SimulationConstants.p_RC1e);
-        IdentificationGroup identificationGroup = new IdentificationGroup(SimulationConstants.p_hat_RC1s,
-                SimulationConstants.q_hat_RC1s, SimulationConstants.g_hat_RC1s);
-        PrimeField primeField = createPrimeField(securityParameters);
-
-        publicParameters = new PublicParameters(securityParameters, encryptionGroup, identificationGroup, primeField,
-                identificationGroup.getQ_hat(), defaultAlphabet,
-                identificationGroup.getQ_hat(), defaultAlphabet,
-                defaultAlphabet, 2,
-                defaultAlphabet, 2,
-                4, SimulationConstants.default_n_max);
-    }
-
-    private void createSecurityLevel2Parameters() {
-        SecurityParameters securityParameters = new SecurityParameters(112, 112, 32, 0.999);
-
-        EncryptionGroup encryptionGroup = createEncryptionGroup(SimulationConstants.p2048);
-        IdentificationGroup identificationGroup = createIdentificationGroup(SimulationConstants.p_hat_2048, securityParameters);
-        PrimeField primeField = createPrimeField(securityParameters);
-
-        publicParameters = new PublicParameters(securityParameters, encryptionGroup, identificationGroup, primeField,
-                identificationGroup.getQ_hat(), defaultAlphabet,
-                identificationGroup.getQ_hat(), defaultAlphabet,
-                defaultAlphabet, 2,
-                defaultAlphabet, 2,
-                4, SimulationConstants.default_n_max);
-    }
-
-    private PrimeField createPrimeField(SecurityParameters securityParameters) {
-        log.info("creating prime field");
-        PrimeField primeField = null;
-        while (primeField == null) {
-            BigInteger p_prime = BigInteger.probablePrime(2 * securityParameters.getTau(), secureRandom);
-            primeField = new PrimeField(p_prime);
-        }
-        log.info("prime field created");
-        return primeField;
-    }
-
-    private IdentificationGroup createIdentificationGroup(BigInteger p_hat, SecurityParameters securityParameters) {
-        log.info("creating identification group");
-        IdentificationGroup identificationGroup = null;
-        while (identificationGroup == null) {
-            BigInteger p_hatMinusOne = p_hat.subtract(ONE);
-
-            BigInteger k = TWO;
-            while (p_hatMinusOne.mod(k).compareTo(ZERO) != 0) {
-                k = k.add(ONE);
-            }
-            BigInteger q_hat = p_hatMinusOne.divide(k);
-            if (!q_hat.isProbablePrime(100)) {
-                log.info("q_hat is not prime");
-                continue;
-            }
-            if (q_hat.bitLength() < 2 * securityParameters.getTau()) {
-                log.info("|q_hat| < 2*mu");
-                continue;
-            }
-
-            BigInteger i = randomGenerator.randomInZq(p_hat);
-            while (modExp(i, k, p_hat).compareTo(ONE) == 0) {
-                i = randomGenerator.randomInZq(p_hat);
-            }
-            BigInteger g_hat = modExp(i, k, p_hat);
-
-            try {
-                identificationGroup = new IdentificationGroup(p_hat, q_hat, g_hat);
-            } catch (IllegalArgumentException e) {
-                log.warn("failed to create identification group", e);
-                identificationGroup = null;
-            }
-        }
-        log.info("created identification group");
-        return identificationGroup;
-    }
-
-    private EncryptionGroup createEncryptionGroup(BigInteger p) {
-        log.info("creating encryption group");
-        EncryptionGroup encryptionGroup = null;
-
-        while (encryptionGroup == null) {
-            if (!p.isProbablePrime(100)) {
-                log.info("p is not prime...");
-                continue;
-            }
-
-            BigInteger pMinusOne = p.subtract(ONE);
-            BigInteger q = pMinusOne.shiftRight(1);
-            if (!q.isProbablePrime(100)) {
-                log.info("q is not prime...");
-            }
-
-            BigInteger g = getGenerator(q, p, pMinusOne);
-
-            BigInteger h = randomGenerator.randomInGq(new EncryptionGroup(p, q, g, TWO));
-
-            try {
-                encryptionGroup = new EncryptionGroup(p, q, g, h);
-            } catch (IllegalArgumentException e) {
-                log.warn("Encryption group creation failed", e);
-                encryptionGroup = null;
-            }
-        }
-        log.info("encryption group created: " + encryptionGroup);
-        return encryptionGroup;
-    }
-
-    private BigInteger getGenerator(BigInteger q, BigInteger p, BigInteger pMinusOne) {
-        log.info("creating a generator");
-        BigInteger h = BigInteger.ONE;
-        boolean safe = false;
-        while (!safe) {
-            h = randomGenerator.randomInZq(p);
-
-            safe = modExp(h, TWO, p).compareTo(ONE) != 0
-                    && modExp(h, q, p).compareTo(ONE) != 0
-                    && pMinusOne.mod(h).compareTo(BigInteger.ZERO) != 0;
-
-            BigInteger gInv = safe ? h.modInverse(p) : ONE;
-            safe = safe && pMinusOne.mod(gInv).compareTo(BigInteger.ZERO) != 0;
-        }
-        log.info("generator created");
-        return modExp(h, TWO, p);
-    }
-
-    private List<Character> getDefaultAlphabet() {
-        char[] chars = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray();
-
-        List<Character> alphabet = new ArrayList<>();
-
-        for (char c : chars) {
-            alphabet.add(c);
-        }
-
-        return alphabet;
-    }
-
-    private enum ElectionSetEnum {
-        SINGLE_VOTE {
-            @Override
-            public ElectionSet createElectionSet(int votersCount) {
-                DomainOfInfluence canton = new DomainOfInfluence("canton");
-
-                List<Voter> voters = IntStream.range(0, votersCount)
-                        .mapToObj(i -> new Voter()).collect(Collectors.toList());
-                voters.forEach(v -> v.addDomainsOfInfluence(canton));
-
-                Election cantonalVotation1 = new Election(3, 1, canton);
-                List<Election> elections = Collections.singletonList(cantonalVotation1);
-
-                List<Candidate> candidates = IntStream.range(0, cantonalVotation1.getNumberOfCandidates()).mapToObj(
-                        i -> new Candidate(String.format("candidate %d", i))).collect(Collectors.toList());
-
-                return new ElectionSet(voters, candidates, elections);
-            }
-        },
-        SIMPLE_SAMPLE {
-            @Override
-            public ElectionSet createElectionSet(int votersCount) {
-                DomainOfInfluence canton = new DomainOfInfluence("canton");
-                DomainOfInfluence municipality1 = new DomainOfInfluence("municipality1");
-
-                List<Voter> voters = IntStream.range(0, votersCount)
-                        .mapToObj(i -> new Voter()).collect(Collectors.toList());
-                voters.forEach(v -> v.addDomainsOfInfluence(canton));
-                // 1 in 10 voters also partakes in a municipal election
-                voters.subList(0, votersCount / 10).forEach(v -> v.addDomainsOfInfluence(municipality1));
-
-                Election cantonalVotation1 = new Election(3, 1, canton);
-                Election cantonalVotation2 = new Election(3, 1, canton);
-                Election municipalElection = new Election(10, 2, municipality1);
-
-                List<Election> elections = Arrays.asList(cantonalVotation1, cantonalVotation2, municipalElection);
-
-                List<Candidate> candidates = IntStream.range(0,
-                        cantonalVotation1.getNumberOfCandidates() +
-                                cantonalVotation2.getNumberOfCandidates() +
-                                municipalElection.getNumberOfCandidates()).mapToObj(
-                        i -> new Candidate(String.format("candidate %d", i))).collect(Collectors.toList());
-
-
-                return new ElectionSet(voters, candidates, elections);
-            }
-        },
-        GC_CE {
-            @Override
-            public ElectionSet createElectionSet(int votersCount) {
-                DomainOfInfluence canton = new DomainOfInfluence("canton");
-
-                List<Voter> voters = IntStream.range(0, votersCount)
-                        .mapToObj(i -> new Voter()).collect(Collectors.toList());
-                voters.forEach(v -> v.addDomainsOfInfluence(canton));
-
-                // Based on 2013 cantonal elections in Geneva
-                // 29 nominative candidates + 7 empty seat candidates
-                Election ce_election = new Election(36, 7, canton);
-                // 476 nominative candidates + 100 empty seat candidates
-                Election gc_election = new Election(576, 100, canton);
-
-                List<Election> elections = Arrays.asList(ce_election, gc_election);
-
-                List<Candidate> candidates = IntStream.range(0,
-                        ce_election.getNumberOfCandidates() + gc_election.getNumberOfCandidates())
-                        .mapToObj(i -> new Candidate(String.format("candidate %d", i))).collect(Collectors.toList());
-
-                return new ElectionSet(voters, candidates, elections);
-            }
-        };
-
-        public abstract ElectionSet createElectionSet(int votersCount);
-
-    }
-
     private class PerformanceStats {
         final String creatingPublicParameters = "creating public parameters";
         final String creatingElectionSet = "creating election set";
@@ -590,6 +421,7 @@ public class Simulation {
         final String keyGeneration = "key generation";
         final String publicKeyBuilding = "public key building";
         final String publishElectionSet = "publish election set";
+        final String startingAuthorities = "starting authorities";
         final String generatingElectoralData = "generating electoral data";
         final String buildPublicCredentials = "build public credentials";
         final String printingCodeSheets = "printing code sheets";
@@ -615,7 +447,7 @@ public class Simulation {
 
         void logStatSummary() {
             List<String> elements = Arrays.asList(creatingPublicParameters, creatingElectionSet, publishingParameters,
-                    keyGeneration, publicKeyBuilding, publishElectionSet, generatingElectoralData,
+                    publishElectionSet, startingAuthorities, keyGeneration, publicKeyBuilding, generatingElectoralData,
                     buildPublicCredentials, printingCodeSheets, votingPhase, mixing, decryption, tallying,
                     totalSimulation);
             log.info("##### Performance statistics");
@@ -634,7 +466,9 @@ public class Simulation {
 
             log.info("");
 
+            // the authorities running in processes of their own log their statistics when they stop
             List<DefaultAuthority> defaultAuthorities = authorities.stream()
+                    .filter(a -> a instanceof DefaultAuthority)
                     .map(a -> ((DefaultAuthority) a)).collect(Collectors.toList());
             List<DefaultVotingClient> defaultVotingClients = voterSimulators.stream()
                     .map(VoterSimulator::getVotingClient).map(a -> ((DefaultVotingClient) a))
@@ -674,6 +508,10 @@ public class Simulation {
         }
 
         private void logStats(String stepName, String performedBy, LongSummaryStatistics stats) {
+            if (stats.getCount() == 0) {
+                // step performed by the authority processes, which log their own statistics
+                return;
+            }
             log.info(String.format("| %-30s | %-20s | %,15d | %,15d | %,15.2f | %,15d |",
                     stepName,
                     performedBy,
@@ -0,0 +1,533 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.storage;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only log of records, split in segment files
+ * <p>Each record is written as its length and a CRC-32 of its payload and length, followed by the payload. Each
+ * segment <tt>n.log</tt>, where <tt>n</tt> is the index of its first record, comes with an index file
+ * <tt>n.index</tt> holding the position of each of its records, so that opening the log does not require reading the
+ * records. Once a segment exceeds the requested segment size, the next record starts a new segment.</p>
+ * <p>Appending a record does not make it durable: {@link #commit(long)} does, by forcing the log to the disk. The
+ * commits are grouped: while a thread forces the log, the threads committing other records wait, and a single force
+ * then covers all of them.</p>
+ * <p>Records are read one at a time through read-only memory mappings of the segments, or in order through a
+ * {@link Cursor}, which reads the segments sequentially through a buffer. On opening, every record of the last segment
+ * is checked against its CRC in a single sequential pass, and the records following the last intact one, which may
+ * have been torn by a crash, are discarded.</p>
+ */
+public final class SegmentedLog implements Closeable {
+    public static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int CURSOR_BUFFER_SIZE = 1 << 20;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".index";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Object commitMonitor = new Object();
+    private long recordsCount;
+    private long durableCount;
+    private boolean syncInProgress;
+    private boolean closed;
+
+    private SegmentedLog(Path directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    public static SegmentedLog open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens a log, creating it if the directory holds no segment
+     *
+     * @param directory   the directory of the segments
+     * @param segmentSize the size in bytes above which a new segment is started
+     * @return the log, positioned after its last intact record
+     * @throws IOException if the segments cannot be read
+     */
+    public static SegmentedLog open(Path directory, long segmentSize) throws IOException {
+        Preconditions.checkArgument(segmentSize > 0, "The segment size must be positive");
+        Files.createDirectories(directory);
+        SegmentedLog log = new SegmentedLog(directory, segmentSize);
+        try {
+            log.load();
+        } catch (IOException | RuntimeException e) {
+            log.closeSegments();
+            throw e;
+        }
+        return log;
+    }
+
+    private void load() throws IOException {
+        long[] bases;
+        try (Stream<Path> files = Files.list(directory)) {
+            bases = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted().toArray();
+        }
+        if (bases.length == 0) {
+            segments.add(Segment.create(directory, 0L));
+            return;
+        }
+        for (int i = 0; i < bases.length; i++) {
+            Segment segment = Segment.open(directory, bases[i]);
+            segments.add(segment);
+            if (segment.base != recordsCount) {
+                throw new IOException("Segment " + bases[i] + " does not follow record " + recordsCount);
+            }
+            segment.recover(i == bases.length - 1);
+            recordsCount += segment.count;
+        }
+        durableCount = recordsCount;
+    }
+
+    /**
+     * Appends a record, which is readable but not durable until it is {@link #commit(long) committed}
+     *
+     * @param payloadWriter the writer of the payload of the record
+     * @return the index of the record
+     * @throws IOException if the record cannot be written, in which case the log is left unchanged
+     */
+    public synchronized long append(PayloadWriter payloadWriter) throws IOException {
+        Preconditions.checkState(!closed, "The log has been closed");
+        Segment segment = segments.get(segments.size() - 1);
+        if (segment.count > 0 && segment.size >= segmentSize) {
+            segment.force();
+            segment = Segment.create(directory, recordsCount);
+            segments.add(segment);
+        }
+        segment.append(payloadWriter);
+        return recordsCount++;
+    }
+
+    /**
+     * Makes the records up to the given one durable, grouping the forces of the concurrent commits
+     *
+     * @param index the index of the last record to commit
+     * @throws IOException if the log cannot be forced
+     */
+    public void commit(long index) throws IOException {
+        synchronized (this) {
+            Preconditions.checkArgument(index < recordsCount, "Only appended records may be committed");
+        }
+        while (true) {
+            synchronized (commitMonitor) {
+                if (index < durableCount) {
+                    return;
+                }
+                if (!syncInProgress) {
+                    syncInProgress = true;
+                    break;
+                }
+                try {
+                    commitMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the commit of record " + index);
+                }
+            }
+        }
+        Segment segment;
+        long target;
+        // earlier segments have been forced when the log moved on to the next one
+        synchronized (this) {
+            segment = segments.get(segments.size() - 1);
+            target = recordsCount;
+        }
+        boolean forced = false;
+        try {
+            segment.force();
+            forced = true;
+        } finally {
+            synchronized (commitMonitor) {
+                if (forced) {
+                    durableCount = Math.max(durableCount, target);
+                }
+                syncInProgress = false;
+                commitMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Appends a record and commits it
+     *
+     * @param payloadWriter the writer of the payload of the record
+     * @return the index of the record
+     * @throws IOException if the record cannot be written or forced
+     */
+    public long appendAndCommit(PayloadWriter payloadWriter) throws IOException {
+        long index = append(payloadWriter);
+        commit(index);
+        return index;
+    }
+
+    /**
+     * @param index the index of the record
+     * @return a read-only buffer mapped onto the payload of the record
+     * @throws IOException if the segment cannot be mapped
+     */
+    public ByteBuffer read(long index) throws IOException {
+        Segment segment;
+        long position;
+        long end;
+        synchronized (this) {
+            Preconditions.checkState(!closed, "The log has been closed");
+            if (index < 0 || index >= recordsCount) {
+                throw new IndexOutOfBoundsException(String.format("record index (%d) must be less than size (%d)",
+                        index, recordsCount));
+            }
+            segment = segments.get(findSegment(index));
+            int record = (int) (index - segment.base);
+            position = segment.positions[record];
+            end = record + 1 < segment.count ? segment.positions[record + 1] : segment.size;
+        }
+        return segment.channel.map(FileChannel.MapMode.READ_ONLY, position + HEADER_SIZE,
+                end - position - HEADER_SIZE);
+    }
+
+    public synchronized long size() {
+        return recordsCount;
+    }
+
+    /**
+     * @param from the index of the first record to read
+     * @return a cursor reading the records in order, from the given one to the last one appended
+     */
+    public Cursor cursor(long from) {
+        Preconditions.checkArgument(from >= 0, "The index of the first record may not be negative");
+        return new Cursor(from);
+    }
+
+    private int findSegment(long index) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (segments.get(middle).base <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Commits all the records appended and closes the segments
+     *
+     * @throws IOException if the log cannot be forced
+     */
+    @Override
+    public void close() throws IOException {
+        long count;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            count = recordsCount;
+        }
+        try {
+            if (count > 0) {
+                commit(count - 1);
+            }
+        } finally {
+            synchronized (this) {
+                closed = true;
+                closeSegments();
+            }
+        }
+    }
+
+    private void closeSegments() throws IOException {
+        IOException failure = null;
+        for (Segment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Sequential reader of the records
+     * <p>The records are read through a buffer of {@value #CURSOR_BUFFER_SIZE} bytes, filled by sequential reads of the
+     * segments, rather than through a mapping per record: only the records larger than the buffer are mapped.</p>
+     */
+    public final class Cursor {
+        private final ByteBuffer buffer = ByteBuffer.allocate(CURSOR_BUFFER_SIZE);
+        private Segment bufferSegment;
+        private long bufferPosition;
+        private long index;
+
+        private Cursor(long index) {
+            this.index = index;
+            buffer.limit(0);
+        }
+
+        public boolean hasNext() {
+            return index < size();
+        }
+
+        /**
+         * @return a read-only buffer holding the payload of the next record, which is only valid until the next call
+         * @throws IOException if the segment cannot be read
+         */
+        public ByteBuffer next() throws IOException {
+            Segment segment;
+            long position;
+            long end;
+            long segmentEnd;
+            synchronized (SegmentedLog.this) {
+                Preconditions.checkState(!closed, "The log has been closed");
+                if (index >= recordsCount) {
+                    throw new NoSuchElementException("No record after record " + (index - 1));
+                }
+                segment = segments.get(findSegment(index));
+                int record = (int) (index - segment.base);
+                position = segment.positions[record];
+                end = record + 1 < segment.count ? segment.positions[record + 1] : segment.size;
+                segmentEnd = segment.size;
+            }
+            index++;
+            int length = (int) (end - position - HEADER_SIZE);
+            if (end - position > buffer.capacity()) {
+                return segment.channel.map(FileChannel.MapMode.READ_ONLY, position + HEADER_SIZE, length);
+            }
+            if (segment != bufferSegment || position < bufferPosition || end > bufferPosition + buffer.limit()) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), segmentEnd - position));
+                readFully(segment.channel, buffer, position);
+                bufferSegment = segment;
+                bufferPosition = position;
+            }
+            int offset = (int) (position - bufferPosition) + HEADER_SIZE;
+            ByteBuffer payload = buffer.duplicate();
+            payload.limit(offset + length).position(offset);
+            return payload.slice().asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Writer of the payload of a record, which may be streamed as it is being encoded
+     */
+    @FunctionalInterface
+    public interface PayloadWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static final class Segment {
+        private final long base;
+        private final FileChannel channel;
+        private final FileChannel indexChannel;
+        private long[] positions = new long[16];
+        private int count;
+        private long size;
+
+        private Segment(long base, FileChannel channel, FileChannel indexChannel) {
+            this.base = base;
+            this.channel = channel;
+            this.indexChannel = indexChannel;
+        }
+
+        static Segment create(Path directory, long base) throws IOException {
+            Segment segment = open(directory, base);
+            segment.channel.truncate(0L);
+            segment.indexChannel.truncate(0L);
+            return segment;
+        }
+
+        static Segment open(Path directory, long base) throws IOException {
+            String name = String.format("%020d", base);
+            FileChannel channel = FileChannel.open(directory.resolve(name + SEGMENT_SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new Segment(base, channel, FileChannel.open(directory.resolve(name + INDEX_SUFFIX),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Loads the index, and for the last segment only, checks all the records, drops the torn ones and indexes the
+         * intact ones afresh
+         */
+        void recover(boolean last) throws IOException {
+            long fileSize = channel.size();
+            if (!last) {
+                int indexed = (int) (indexChannel.size() / Long.BYTES);
+                ByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0L, (long) indexed * Long.BYTES);
+                for (int i = 0; i < indexed; i++) {
+                    add(index.getLong());
+                }
+                size = fileSize;
+                return;
+            }
+            // the index may have reached the disk ahead of the records it points to, or behind them: it is rebuilt
+            // from the records themselves
+            size = scan(fileSize);
+            channel.truncate(size);
+            ByteBuffer entries = ByteBuffer.allocate(count * Long.BYTES);
+            for (int i = 0; i < count; i++) {
+                entries.putLong(positions[i]);
+            }
+            entries.flip();
+            indexChannel.truncate(0L);
+            writeFully(indexChannel, entries, 0L);
+        }
+
+        /**
+         * Reads the segment sequentially from its start, adding each intact record, up to the first torn one
+         *
+         * @return the end of the last intact record
+         */
+        private long scan(long fileSize) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            long position = 0L;
+            while (position + HEADER_SIZE <= fileSize) {
+                header.clear();
+                readFully(channel, header, position);
+                int length = header.getInt(0);
+                if (length < 0 || position + HEADER_SIZE + length > fileSize) {
+                    break;
+                }
+                crc.reset();
+                long payloadPosition = position + HEADER_SIZE;
+                for (long remaining = length; remaining > 0; ) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                    readFully(channel, buffer, payloadPosition + length - remaining);
+                    remaining -= buffer.limit();
+                    crc.update(buffer.array(), 0, buffer.limit());
+                }
+                crc.update(header.array(), 0, Integer.BYTES);
+                if ((int) crc.getValue() != header.getInt(Integer.BYTES)) {
+                    break;
+                }
+                add(position);
+                position = payloadPosition + length;
+            }
+            return position;
+        }
+
+        void append(PayloadWriter payloadWriter) throws IOException {
+            long position = size;
+            try {
+                channel.position(position + HEADER_SIZE);
+                CRC32 crc = new CRC32();
+                OutputStream out = new BufferedOutputStream(new CheckedOutputStream(
+                        Channels.newOutputStream(channel), crc), 1 << 16);
+                payloadWriter.write(out);
+                out.flush();
+                long length = channel.position() - position - HEADER_SIZE;
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("A record may not exceed " + Integer.MAX_VALUE + " bytes");
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt((int) length);
+                crc.update(header.array(), 0, Integer.BYTES);
+                header.putInt((int) crc.getValue());
+                header.flip();
+                writeFully(channel, header, position);
+                writeFully(indexChannel, ByteBuffer.allocate(Long.BYTES).putLong(0, position),
+                        (long) count * Long.BYTES);
+                size = position + HEADER_SIZE + length;
+                add(position);
+            } catch (IOException | RuntimeException e) {
+                channel.truncate(position);
+                indexChannel.truncate((long) count * Long.BYTES);
+                throw e;
+            }
+        }
+
+        void force() throws IOException {
+            channel.force(false);
+            indexChannel.force(false);
+        }
+
+        void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                indexChannel.close();
+            }
+        }
+
+        private void add(long position) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, 2 * count);
+            }
+            positions[count++] = position;
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of segment at " + position);
+            }
+            position += read;
+        }
+    }
+}
@@ -88,6 +88,21 @@ public class Hash {
         return ByteArrayUtils.truncate(digest, securityParameters.getUpper_l());
     }
 
+    /**
+     * Same as the varargs version, iterating over the list rather than copying it into an array, so that the
+     * elements of a list backed by an off-heap store are only materialized one at a time
+     */
+    private byte[] recHashList(List<?> objects) {
+        if (objects.size() == 1) {
+            return recHash_L(objects.get(0));
+        }
+        MessageDigest messageDigest = newMessageDigest();
+        for (Object object : objects) {
+            messageDigest.update(recHash_L(object));
+        }
+        return ByteArrayUtils.truncate(messageDigest.digest(), securityParameters.getUpper_l());
+    }
+
     /**
      * Algorithm 4.9: RecHash_L, non-varargs version
      * <p>
@@ -115,7 +130,7 @@ public class Hash {
         } else if (object instanceof Hashable) {
             return recHash_L(((Hashable) object).elementsToHash());
         } else if (object instanceof List) {
-            return recHash_L(((List) object).toArray());
+            return recHashList((List<?>) object);
         } else if (object instanceof Object[]) {
             return recHash_L((Object[]) object);
         } else {
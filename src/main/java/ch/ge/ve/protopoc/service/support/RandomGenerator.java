@@ -21,25 +21,68 @@
 
 package ch.ge.ve.protopoc.service.support;
 
+import ch.ge.ve.protopoc.service.exception.RandomGeneratorInitialisationRuntimeException;
 import ch.ge.ve.protopoc.service.model.EncryptionGroup;
 import com.google.common.base.Preconditions;
 
 import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
 import java.security.SecureRandom;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
 
 /**
- * This class
+ * This class provides the random values used throughout the protocol.
+ * <p>It either wraps a single, shared {@link SecureRandom}, or &mdash; when created through
+ * {@link #perThread(SecureRandom, String, String)} &mdash; one instance per thread, each seeded from a root
+ * generator, so that parallel streams do not serialize on the synchronized <tt>nextBytes</tt> method.</p>
  */
 public class RandomGenerator {
     private static final int MAX_ITERATIONS = Byte.MAX_VALUE - Byte.MIN_VALUE;
-    private final SecureRandom secureRandom;
+    private static final int SEED_LENGTH = 64;
+    private final ThreadLocal<SecureRandom> secureRandom;
 
     public RandomGenerator(SecureRandom secureRandom) {
+        this.secureRandom = ThreadLocal.withInitial(() -> secureRandom);
+    }
+
+    private RandomGenerator(ThreadLocal<SecureRandom> secureRandom) {
         this.secureRandom = secureRandom;
     }
 
+    /**
+     * Create a random generator holding one {@link SecureRandom} per thread, each seeded with
+     * {@value #SEED_LENGTH} bytes drawn from the root generator
+     *
+     * @param rootRandom the root generator, only used to seed the per-thread instances
+     * @param algorithm  the algorithm of the per-thread instances (e.g. SHA1PRNG)
+     * @param provider   the provider of the per-thread instances (e.g. SUN)
+     * @return a random generator which does not contend on a shared instance
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     * @throws NoSuchProviderException  if the provider is not available
+     */
+    public static RandomGenerator perThread(SecureRandom rootRandom, String algorithm, String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        // fail early, rather than on first use by a worker thread
+        SecureRandom.getInstance(algorithm, provider);
+        return new RandomGenerator(ThreadLocal.withInitial(() -> {
+            byte[] seed = new byte[SEED_LENGTH];
+            rootRandom.nextBytes(seed);
+            try {
+                SecureRandom threadRandom = SecureRandom.getInstance(algorithm, provider);
+                // seeding before the first output replaces the self-seeding of the instance
+                threadRandom.setSeed(seed);
+                return threadRandom;
+            } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+                throw new RandomGeneratorInitialisationRuntimeException(e);
+            }
+        }));
+    }
+
     /**
      * Generate a random integer in the given range, taken from a uniform random distribution
      *
@@ -50,7 +93,7 @@ public class RandomGenerator {
     public int randomIntInRange(int from, int to) {
         Preconditions.checkArgument(from <= to, "The lowerbound must be less or equal to the upperbound");
         if (from == to) return from;
-        return secureRandom.nextInt(to - from) + from;
+        return secureRandom.get().nextInt(to - from) + from;
     }
 
     /**
@@ -58,15 +101,16 @@ public class RandomGenerator {
      * @return a random BigInteger in range [0, upperbound)
      */
     public BigInteger randomBigInteger(BigInteger upperbound) {
+        SecureRandom random = secureRandom.get();
         for (int i = 0; i < MAX_ITERATIONS; i++) {
-            BigInteger x = new BigInteger(upperbound.bitLength(), secureRandom);
+            BigInteger x = new BigInteger(upperbound.bitLength(), random);
             if (x.compareTo(upperbound) < 0) {
                 return x;
             }
         }
 
         // If we fail to get a value within range for MAX_ITERATIONS, get a value with lower bitCount
-        return new BigInteger(upperbound.bitLength() - 1, secureRandom);
+        return new BigInteger(upperbound.bitLength() - 1, random);
     }
 
     /**
@@ -79,6 +123,21 @@ public class RandomGenerator {
         return randomBigInteger(q.subtract(BigInteger.ONE));
     }
 
+    /**
+     * Draw a vector of elements at random from Z_q
+     * <p>The elements are drawn in parallel; this is only efficient for a per-thread random generator.</p>
+     *
+     * @param q the exclusive upperbound to draw from
+     * @param n the length of the vector
+     * @return a list of n elements, each picked at random from a uniform distribution of Z_q
+     */
+    public List<BigInteger> randomVectorInZq(BigInteger q, int n) {
+        Preconditions.checkArgument(n >= 0, "The length of the vector may not be negative");
+        return IntStream.range(0, n).parallel()
+                .mapToObj(i -> randomInZq(q))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Draw an element at random from the group G_q
      *
@@ -0,0 +1,135 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.support;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Remainder tree over a fixed list of small primes, used to find which of them divide a given number.
+ * <p>The primes are grouped in leaves whose product fits in a <tt>long</tt>, and the leaves in a binary product
+ * tree. A number is reduced modulo the products along the tree, from the root to the leaves, so that it is only
+ * divided by large products a logarithmic number of times; the primes of a leaf are then tested with machine
+ * arithmetic.</p>
+ * <p>The tree is immutable once built, and may be shared among threads.</p>
+ */
+public final class RemainderTree {
+    private static final int MAX_LEAF_PRODUCT_BITS = 62;
+
+    private final int primesCount;
+    private final Node root;
+
+    /**
+     * Builds the product tree of the given primes
+     *
+     * @param primes the primes (actually any positive divisors) to be tested
+     */
+    public RemainderTree(List<BigInteger> primes) {
+        Preconditions.checkArgument(!primes.isEmpty(), "At least one prime is needed");
+        Preconditions.checkArgument(primes.stream().allMatch(p -> p.signum() > 0), "The primes must be positive");
+        this.primesCount = primes.size();
+        this.root = build(primes, 0, primes.size());
+    }
+
+    /**
+     * @param m the number to be tested
+     * @return the set of the indices j such that the j-th prime divides m
+     */
+    public BitSet getDivisors(BigInteger m) {
+        BitSet divisors = new BitSet(primesCount);
+        collectDivisors(root, root.product.compareTo(m.abs()) > 0 ? m.abs() : m.abs().mod(root.product), divisors);
+        return divisors;
+    }
+
+    private static Node build(List<BigInteger> primes, int from, int to) {
+        // group as many primes as possible in a single leaf
+        BigInteger leafProduct = primes.get(from);
+        int leafEnd = from + 1;
+        while (leafEnd < to && leafProduct.multiply(primes.get(leafEnd)).bitLength() <= MAX_LEAF_PRODUCT_BITS) {
+            leafProduct = leafProduct.multiply(primes.get(leafEnd));
+            leafEnd++;
+        }
+        if (leafEnd == to) {
+            return new Node(leafProduct, primes.subList(from, to), from);
+        }
+        int middle = (from + to) >>> 1;
+        Node left = build(primes, from, middle);
+        Node right = build(primes, middle, to);
+        return new Node(left.product.multiply(right.product), left, right);
+    }
+
+    private static void collectDivisors(Node node, BigInteger remainder, BitSet divisors) {
+        if (node.isLeaf()) {
+            if (node.product.bitLength() <= MAX_LEAF_PRODUCT_BITS) {
+                long r = remainder.longValue();
+                for (int i = 0; i < node.primes.length; i++) {
+                    if (r % node.primes[i] == 0) {
+                        divisors.set(node.firstIndex + i);
+                    }
+                }
+            } else {
+                // a single prime too large to fit in a long
+                if (remainder.signum() == 0) {
+                    divisors.set(node.firstIndex);
+                }
+            }
+        } else {
+            collectDivisors(node.left, reduce(remainder, node.left.product), divisors);
+            collectDivisors(node.right, reduce(remainder, node.right.product), divisors);
+        }
+    }
+
+    private static BigInteger reduce(BigInteger remainder, BigInteger product) {
+        return remainder.compareTo(product) < 0 ? remainder : remainder.mod(product);
+    }
+
+    private static final class Node {
+        private final BigInteger product;
+        private final Node left;
+        private final Node right;
+        private final long[] primes;
+        private final int firstIndex;
+
+        private Node(BigInteger product, List<BigInteger> primes, int firstIndex) {
+            this.product = product;
+            this.left = null;
+            this.right = null;
+            this.primes = primes.stream().mapToLong(BigInteger::longValue).toArray();
+            this.firstIndex = firstIndex;
+        }
+
+        private Node(BigInteger product, Node left, Node right) {
+            this.product = product;
+            this.left = left;
+            this.right = right;
+            this.primes = null;
+            this.firstIndex = left.firstIndex;
+        }
+
+        private boolean isLeaf() {
+            return primes != null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.support;
+
+import ch.ge.ve.protopoc.service.model.Election;
+import ch.ge.ve.protopoc.service.model.Tally;
+import com.google.common.base.Preconditions;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Mutable accumulator of decoded votes, where each vote is a bit set over all the candidates of an election set.
+ * <p>Not thread-safe: when used through {@link #collector(List)}, each split of a parallel stream gets its own
+ * counters, which are merged at the end. Only a few arrays of primitive counters are kept, whatever the number of
+ * ballots.</p>
+ */
+public final class TallyAccumulator {
+    private final List<Integer> bold_n;
+    private final int[] bold_k;
+    private final int[] offsets;
+    private final long[] counts;
+    private final long[] participations;
+    private final long[] invalidSelectionCounts;
+    private long ballotsCount;
+
+    /**
+     * @param elections the elections of the election set, in order
+     */
+    public TallyAccumulator(List<Election> elections) {
+        int t = elections.size();
+        this.bold_n = elections.stream().map(Election::getNumberOfCandidates).collect(Collectors.toList());
+        this.bold_k = elections.stream().mapToInt(Election::getNumberOfSelections).toArray();
+        this.offsets = new int[t + 1];
+        for (int j = 0; j < t; j++) {
+            offsets[j + 1] = offsets[j] + bold_n.get(j);
+        }
+        this.counts = new long[offsets[t]];
+        this.participations = new long[t];
+        this.invalidSelectionCounts = new long[t];
+    }
+
+    /**
+     * @param elections the elections of the election set, in order
+     * @return a collector tallying a stream of votes
+     */
+    public static Collector<BitSet, TallyAccumulator, Tally> collector(List<Election> elections) {
+        return Collector.of(() -> new TallyAccumulator(elections), TallyAccumulator::add,
+                TallyAccumulator::merge, TallyAccumulator::getTally, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Adds a vote to the tally
+     *
+     * @param vote the vote, where bit i is set if candidate i was selected
+     */
+    public void add(BitSet vote) {
+        Preconditions.checkArgument(vote.length() <= counts.length,
+                "The vote should only contain selections of known candidates");
+        int[] selections = new int[bold_k.length];
+        int j = 0;
+        for (int i = vote.nextSetBit(0); i >= 0; i = vote.nextSetBit(i + 1)) {
+            counts[i]++;
+            // the set bits are visited in increasing order, hence so are the elections
+            while (i >= offsets[j + 1]) {
+                j++;
+            }
+            selections[j]++;
+        }
+        for (j = 0; j < bold_k.length; j++) {
+            if (selections[j] == bold_k[j]) {
+                participations[j]++;
+            } else if (selections[j] != 0) {
+                invalidSelectionCounts[j]++;
+            }
+        }
+        ballotsCount++;
+    }
+
+    /**
+     * Merges the counters of another accumulator into this one
+     *
+     * @param other an accumulator for the same elections
+     * @return this accumulator
+     */
+    public TallyAccumulator merge(TallyAccumulator other) {
+        Preconditions.checkArgument(bold_n.equals(other.bold_n),
+                "Only tallies of the same elections may be merged");
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        for (int j = 0; j < bold_k.length; j++) {
+            participations[j] += other.participations[j];
+            invalidSelectionCounts[j] += other.invalidSelectionCounts[j];
+        }
+        ballotsCount += other.ballotsCount;
+        return this;
+    }
+
+    /**
+     * @return a snapshot of the current tally
+     */
+    public Tally getTally() {
+        return new Tally(bold_n, counts, participations, invalidSelectionCounts, ballotsCount);
+    }
+}
@@ -0,0 +1,112 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic
+
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.TEN
+import static java.math.BigInteger.ZERO
+
+/**
+ * Tests on the modular exponentiations defined in {@link BigIntegerArithmetic}
+ */
+class BigIntegerArithmeticTest extends Specification {
+    def "publicModExp should compute the power, for negative exponents too"() {
+        expect:
+        BigIntegerArithmetic.publicModExp(base, exponent, ELEVEN) == result
+
+        where:
+        base  | exponent      || result
+        THREE | TWO.negate()  || FIVE // 9^-1 mod 11
+        FOUR  | THREE         || NINE // 64 mod 11
+        TWO   | ONE.negate()  || SIX
+        FIVE  | ZERO          || ONE
+    }
+
+    def "modExp2 and modExp3 should compute the product of the powers"() {
+        expect:
+        BigIntegerArithmetic.modExp2(THREE, TWO, FOUR, THREE, ELEVEN) == FOUR // 9 * 9 mod 11
+        BigIntegerArithmetic.modExp2(FIVE, ZERO, SEVEN, ZERO, ELEVEN) == ONE
+        BigIntegerArithmetic.modExp3(TWO, TEN, NINE, ONE, 15G, ONE, ELEVEN) == THREE // 1 * 9 * 4 mod 11
+    }
+
+    def "modExp2 should compute x^-c as x^(q - c) for x in G_q"() {
+        given: "9 in the subgroup of order 5 of Z_11*"
+        def q = FIVE
+
+        expect:
+        BigIntegerArithmetic.modExp2(NINE, q - TWO, THREE, FOUR, ELEVEN) ==
+                BigIntegerArithmetic.publicModExp(NINE, TWO.negate(), ELEVEN) * THREE.modPow(FOUR, ELEVEN) % ELEVEN
+    }
+
+    def "modExp2 and modExp3 should match the naive product of the powers"() {
+        given:
+        def random = new Random(42L)
+        def modulus = BigInteger.probablePrime(bits, random)
+        def bases = (1..3).collect { new BigInteger(bits + 8, random) }
+        def exponents = (1..3).collect { new BigInteger(random.nextInt(bits + 8) + 1, random) }
+        def naive = { int n ->
+            (0..<n).inject(ONE) { acc, i -> acc * bases[i].modPow(exponents[i], modulus) % modulus }
+        }
+
+        expect:
+        BigIntegerArithmetic.modExp2(bases[0], exponents[0], bases[1], exponents[1], modulus) == naive(2)
+        BigIntegerArithmetic.modExp3(bases[0], exponents[0], bases[1], exponents[1], bases[2], exponents[2],
+                modulus) == naive(3)
+
+        where:
+        bits << [5, 64, 255, 1024]
+    }
+
+    def "modExp2 should reject negative exponents"() {
+        when:
+        BigIntegerArithmetic.modExp2(THREE, ONE.negate(), FOUR, ONE, ELEVEN)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "modMultiExp should compute the product of the powers"() {
+        expect:
+        BigIntegerArithmetic.modMultiExp(bases, exponents, ELEVEN) == result
+
+        where:
+        bases                | exponents            || result
+        []                   | []                   || ONE
+        [THREE, FOUR, FIVE]  | [TWO, THREE, ZERO]   || FOUR // 9 * 9 mod 11
+        [TWO, NINE, TEN, 15G] | [TEN, ONE, TWO, ONE] || THREE // 1 * 9 * 1 * 4 mod 11
+    }
+
+    def "modMultiExp should match the individual powers for many bases"() {
+        given:
+        def random = new Random(42L)
+        def modulus = BigInteger.probablePrime(256, random)
+        def bases = (1..1000).collect { new BigInteger(255, random) }
+        def exponents = (1..1000).collect { new BigInteger(80, random) }
+
+        expect:
+        BigIntegerArithmetic.modMultiExp(bases, exponents, modulus) ==
+                [bases, exponents].transpose().inject(ONE) { acc, be -> acc * be[0].modPow(be[1], modulus) % modulus }
+    }
+}
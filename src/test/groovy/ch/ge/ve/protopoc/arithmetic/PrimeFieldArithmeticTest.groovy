@@ -0,0 +1,142 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic
+
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.TEN
+import static java.math.BigInteger.ZERO
+
+/**
+ * Tests on the fixed-width field arithmetic defined in {@link PrimeFieldArithmetic}
+ */
+class PrimeFieldArithmeticTest extends Specification {
+    static final BigInteger P_64 = new BigInteger("18446744073709551557") // largest 64-bit prime
+    static final BigInteger P_224 = ONE.shiftLeft(224).subtract(ONE.shiftLeft(96)).add(ONE) // NIST P-224 prime
+
+    def "the field operations should match the modular operations on BigIntegers"() {
+        given:
+        def field = new PrimeFieldArithmetic(p_prime)
+        def limbs = field.getLimbs()
+        def elements = field.newElements(3)
+        field.set(a, elements, 0)
+        field.set(b, elements, limbs)
+
+        when:
+        field.add(elements, 0, elements, limbs, elements, 2 * limbs)
+        def sum = field.toBigInteger(elements, 2 * limbs)
+        field.subtract(elements, 0, elements, limbs, elements, 2 * limbs)
+        def difference = field.toBigInteger(elements, 2 * limbs)
+        field.multiply(elements, 0, elements, limbs, elements, 2 * limbs)
+        def product = field.toBigInteger(elements, 2 * limbs)
+
+        then:
+        field.toBigInteger(elements, 0) == a.mod(p_prime)
+        sum == a.add(b).mod(p_prime)
+        difference == a.subtract(b).mod(p_prime)
+        product == a.multiply(b).mod(p_prime)
+
+        where:
+        p_prime | a                           | b
+        SEVEN   | FIVE                        | SIX
+        SEVEN   | ONE                         | TEN
+        P_64    | P_64.subtract(ONE)          | P_64.subtract(TWO)
+        P_64    | ZERO                        | THREE
+        P_224   | P_224.subtract(ONE)         | P_224.subtract(ONE)
+        P_224   | ONE.shiftLeft(200).add(ONE) | P_224.subtract(THREE)
+    }
+
+    def "a scratch space reused across multiplications should not alter the products"() {
+        given:
+        def field = new PrimeFieldArithmetic(p_prime)
+        def scratch = field.newScratch()
+        def elements = field.newElements(2)
+        def limbs = field.getLimbs()
+        def products = []
+
+        when: "the scratch space is left dirty by each multiplication"
+        values.each { value ->
+            field.set(value, elements, 0)
+            field.set(value.add(ONE), elements, limbs)
+            field.multiply(elements, 0, elements, limbs, elements, 0, scratch)
+            products << field.toBigInteger(elements, 0)
+        }
+
+        then:
+        products == values.collect { it.multiply(it.add(ONE)).mod(p_prime) }
+
+        where:
+        p_prime | values
+        P_64    | [P_64.subtract(ONE), P_64.subtract(TWO), ZERO, THREE]
+        P_224   | [P_224.subtract(TWO), ONE.shiftLeft(200).add(ONE), ONE, P_224.subtract(THREE)]
+    }
+
+    def "invert should compute the modular inverse"() {
+        given:
+        def field = new PrimeFieldArithmetic(p_prime)
+        def elements = field.valueOf(a)
+
+        when:
+        field.invert(elements, 0, elements, 0)
+
+        then:
+        field.toBigInteger(elements, 0) == a.modInverse(p_prime)
+
+        where:
+        p_prime | a
+        SEVEN   | ONE
+        SEVEN   | SIX
+        ELEVEN  | FOUR
+        P_64    | P_64.subtract(TWO)
+        P_224   | ONE.shiftLeft(150).add(SEVEN)
+        P_224   | P_224.subtract(ONE)
+    }
+
+    def "isZero and equals should compare the reduced values"() {
+        given:
+        def field = new PrimeFieldArithmetic(ELEVEN)
+        def limbs = field.getLimbs()
+        def elements = field.newElements(3)
+        field.set(ZERO, elements, 0)
+        field.set(FOUR, elements, limbs)
+        field.set(15G, elements, 2 * limbs)
+
+        expect:
+        field.isZero(elements, 0)
+        !field.isZero(elements, limbs)
+        field.equals(elements, limbs, elements, 2 * limbs)
+        !field.equals(elements, 0, elements, limbs)
+    }
+
+    def "invert should refuse zero"() {
+        given:
+        def field = new PrimeFieldArithmetic(SEVEN)
+
+        when:
+        field.invert(field.newElements(1), 0, field.newElements(1), 0)
+
+        then:
+        thrown(ArithmeticException)
+    }
+}
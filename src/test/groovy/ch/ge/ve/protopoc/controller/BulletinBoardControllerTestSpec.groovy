@@ -0,0 +1,190 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.controller
+
+import ch.ge.ve.protopoc.controller.impl.BulletinBoardController
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec
+import ch.ge.ve.protopoc.service.exception.IncorrectBallotRuntimeException
+import ch.ge.ve.protopoc.service.model.*
+import ch.ge.ve.protopoc.service.protocol.AuthorityService
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardService
+import ch.ge.ve.protopoc.service.protocol.DefaultBulletinBoard
+import ch.ge.ve.protopoc.service.protocol.IncorrectBallotOrQueryException
+import org.springframework.core.task.SimpleAsyncTaskExecutor
+import org.springframework.http.MediaType
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.setup.MockMvcBuilders
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+/**
+ * This test class holds the tests for the {@link BulletinBoardController}
+ */
+class BulletinBoardControllerTestSpec extends Specification {
+    def defaultAlphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray() as List<Character>
+    EncryptionGroup encryptionGroup = new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR)
+    IdentificationGroup identificationGroup = new IdentificationGroup(ELEVEN, FIVE, THREE)
+    SecurityParameters securityParameters = new SecurityParameters(1, 1, 2, 0.99)
+    PrimeField primeField = new PrimeField(FIVE)
+    PublicParameters publicParameters = new PublicParameters(
+            securityParameters, encryptionGroup, identificationGroup, primeField,
+            FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+            defaultAlphabet, 2, defaultAlphabet, 2, 2, 5
+    )
+    ProtocolCodec codec = new ProtocolCodec(publicParameters)
+    def alpha = new BallotAndQuery(NINE, [THREE, FIVE], ONE,
+            new NonInteractiveZKP([FOUR, NINE, THREE], [TWO, FIVE, FOUR]))
+
+    DomainOfInfluence domain = new DomainOfInfluence("canton")
+    ElectionSet electionSet = new ElectionSet((0..3).collect { new Voter().with { addDomainsOfInfluence(domain); it } },
+            (0..2).collect { new Candidate("candidate " + it) }, [new Election(3, 2, domain)])
+
+    BulletinBoardService bulletinBoard = Mock()
+    MockMvc mvc
+
+    void setup() {
+        bulletinBoard.getPublicParameters() >> publicParameters
+        bulletinBoard.getElectionSet() >> electionSet
+        mvc = MockMvcBuilders
+                .standaloneSetup(new BulletinBoardController(bulletinBoard, new SimpleAsyncTaskExecutor()))
+                .build()
+    }
+
+    def "publishBallot should stream the responses of the authorities once the ballot has been handled"() {
+        given:
+        def beta_1 = new ObliviousTransferResponse([THREE, NINE], [[0x01, 0x02], [0x0A, 0x0B]] as byte[][], [FIVE])
+        def beta_2 = new ObliviousTransferResponse([FIVE, ONE], [[0x03, 0x04], [0x0C, 0x0D]] as byte[][], [NINE])
+        def body = new ByteArrayOutputStream()
+        codec.writeBallotAndQuery(alpha, body)
+
+        when: "the ballot is posted"
+        def result = mvc.perform(post("/bulletin-board/ballots/3")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(body.toByteArray()))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+        def streamed = mvc.perform(asyncDispatch(result)).andReturn()
+        streamed.asyncResult
+
+        then: "it is handled off the servlet thread"
+        1 * bulletinBoard.publishBallot(3, { it.x_hat == NINE && it.bold_a == [THREE, FIVE] }) >> [beta_1, beta_2]
+
+        and: "the responses are returned in order"
+        def input = new DataInputStream(new ByteArrayInputStream(streamed.response.contentAsByteArray))
+        input.readInt() == 2
+        codec.readObliviousTransferResponse(input) == beta_1
+        codec.readObliviousTransferResponse(input) == beta_2
+    }
+
+    def "publishBallot should reject a ballot deemed invalid"() {
+        given:
+        def body = new ByteArrayOutputStream()
+        codec.writeBallotAndQuery(alpha, body)
+        bulletinBoard.publishBallot(3, _) >> {
+            throw new IncorrectBallotOrQueryException(new IncorrectBallotRuntimeException("Ballot for voter 3 was deemed invalid"))
+        }
+
+        when:
+        def result = mvc.perform(post("/bulletin-board/ballots/3")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(body.toByteArray()))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+
+        then:
+        mvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest())
+    }
+
+    def "publishBallot should reject a ballot that an authority of the bulletin board rejects"() {
+        given: "a bulletin board whose second authority rejects the ballot"
+        AuthorityService acceptingAuthority = Mock()
+        AuthorityService rejectingAuthority = Mock()
+        acceptingAuthority.handleBallot(3, _) >> new ObliviousTransferResponse([THREE], [[0x01]] as byte[][], [FIVE])
+        rejectingAuthority.handleBallot(3, _) >> {
+            throw new IncorrectBallotRuntimeException("A ballot for voter 3 has already been submitted")
+        }
+        def defaultBulletinBoard = new DefaultBulletinBoard()
+        defaultBulletinBoard.publishPublicParameters(publicParameters)
+        defaultBulletinBoard.publishElectionSet(electionSet)
+        defaultBulletinBoard.setAuthorities([acceptingAuthority, rejectingAuthority])
+        def boardMvc = MockMvcBuilders
+                .standaloneSetup(new BulletinBoardController(defaultBulletinBoard, new SimpleAsyncTaskExecutor()))
+                .build()
+        def body = new ByteArrayOutputStream()
+        codec.writeBallotAndQuery(alpha, body)
+
+        when:
+        def result = boardMvc.perform(post("/bulletin-board/ballots/3")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(body.toByteArray()))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+
+        then:
+        boardMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest())
+    }
+
+    def "publishBallot should reject a query of another size than the selections of the voter"() {
+        given:
+        def body = new ByteArrayOutputStream()
+        codec.writeBallotAndQuery(new BallotAndQuery(NINE, [THREE], ONE,
+                new NonInteractiveZKP([FOUR, NINE, THREE], [TWO, FIVE, FOUR])), body)
+
+        when:
+        def result = mvc.perform(post("/bulletin-board/ballots/3")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(body.toByteArray()))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+
+        then:
+        mvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest())
+        0 * bulletinBoard.publishBallot(_, _)
+    }
+
+    def "getTallyData should stream the tally data"() {
+        given:
+        def tallyData = new TallyData([NINE, FOUR], [new Encryption(FIVE, NINE), new Encryption(THREE, ONE)],
+                [[THREE, ONE], [FIVE, NINE]],
+                [new DecryptionProof([ONE, THREE, FOUR], TWO), new DecryptionProof([NINE, FIVE, ONE], ZERO)])
+        bulletinBoard.getTallyData() >> tallyData
+
+        when:
+        def result = mvc.perform(get("/bulletin-board/tally-data"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+        result.asyncResult
+
+        then:
+        codec.readTallyData(new ByteArrayInputStream(result.response.contentAsByteArray)) == tallyData
+    }
+
+    def "getShufflesAndProofs should report an incomplete mixing as a conflict"() {
+        given:
+        bulletinBoard.getShufflesAndProofs() >> { throw new IllegalStateException("Not all shuffles are published") }
+
+        expect:
+        mvc.perform(get("/bulletin-board/shuffles-and-proofs")).andExpect(status().isConflict())
+    }
+}
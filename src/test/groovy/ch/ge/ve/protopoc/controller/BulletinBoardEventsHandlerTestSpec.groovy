@@ -0,0 +1,203 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.controller
+
+import ch.ge.ve.protopoc.controller.impl.BulletinBoardEventsHandler
+import ch.ge.ve.protopoc.service.algorithm.*
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec
+import ch.ge.ve.protopoc.service.model.*
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardEvent
+import ch.ge.ve.protopoc.service.protocol.BulletinBoardService
+import ch.ge.ve.protopoc.service.protocol.DefaultAuthority
+import ch.ge.ve.protopoc.service.protocol.DefaultBulletinBoard
+import org.springframework.web.socket.BinaryMessage
+import org.springframework.web.socket.CloseStatus
+import org.springframework.web.socket.TextMessage
+import org.springframework.web.socket.WebSocketSession
+import spock.lang.Specification
+
+import java.security.KeyPair
+import java.util.concurrent.Executor
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+
+/**
+ * This test class holds the tests for the {@link BulletinBoardEventsHandler}
+ */
+class BulletinBoardEventsHandlerTestSpec extends Specification {
+    def defaultAlphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray() as List<Character>
+    EncryptionGroup encryptionGroup = new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR)
+    IdentificationGroup identificationGroup = new IdentificationGroup(ELEVEN, FIVE, THREE)
+    SecurityParameters securityParameters = new SecurityParameters(1, 1, 2, 0.99)
+    PrimeField primeField = new PrimeField(FIVE)
+    PublicParameters publicParameters = new PublicParameters(
+            securityParameters, encryptionGroup, identificationGroup, primeField,
+            FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+            defaultAlphabet, 2, defaultAlphabet, 2, 2, 5
+    )
+    def shuffle = [new Encryption(FIVE, NINE), new Encryption(THREE, ONE)]
+    def event = new BulletinBoardEvent(BulletinBoardEvent.Type.SHUFFLE, 0, shuffle)
+
+    BulletinBoardService bulletinBoard = Mock()
+    BulletinBoardEventsHandler handler
+
+    void setup() {
+        bulletinBoard.getPublicParameters() >> publicParameters
+        handler = new BulletinBoardEventsHandler(bulletinBoard, { it.run() } as Executor)
+    }
+
+    WebSocketSession session(String id, String query) {
+        WebSocketSession session = Mock()
+        session.id >> id
+        session.uri >> new URI("ws://localhost:9000/bulletin-board/events" + query)
+        session
+    }
+
+    def "the subscribers should be notified of a publication"() {
+        given:
+        def subscriber = session("1", "")
+        handler.afterConnectionEstablished(subscriber)
+
+        when:
+        handler.onPublication(event)
+
+        then:
+        1 * subscriber.sendMessage({ it instanceof TextMessage && it.payload == '{"type":"SHUFFLE","j":0}' })
+        0 * subscriber.sendMessage({ it instanceof BinaryMessage })
+    }
+
+    def "the subscribers should receive the key part that an authority publishes on the bulletin board"() {
+        given: "the handler listening to the bulletin board the authority publishes to"
+        def defaultBulletinBoard = new DefaultBulletinBoard()
+        defaultBulletinBoard.publishPublicParameters(publicParameters)
+        def boardHandler = new BulletinBoardEventsHandler(defaultBulletinBoard, { it.run() } as Executor)
+        defaultBulletinBoard.addListener(boardHandler)
+        def publicKey = new EncryptionPublicKey(FIVE, encryptionGroup)
+        KeyEstablishmentAlgorithms keyEstablishmentAlgorithms = Mock()
+        keyEstablishmentAlgorithms.generateKeyPair(encryptionGroup) >>
+                new KeyPair(publicKey, new EncryptionPrivateKey(THREE, encryptionGroup))
+        def authority = new DefaultAuthority(1, defaultBulletinBoard, keyEstablishmentAlgorithms,
+                Mock(ElectionPreparationAlgorithms), Mock(VoteCastingAuthorityAlgorithms),
+                Mock(VoteConfirmationAuthorityAlgorithms), Mock(MixingAuthorityAlgorithms),
+                Mock(DecryptionAuthorityAlgorithms))
+        def subscriber = session("6", "?payloads=true")
+        boardHandler.afterConnectionEstablished(subscriber)
+        def received = new ByteArrayOutputStream()
+
+        when:
+        authority.generateKeys()
+
+        then:
+        1 * subscriber.sendMessage({ it instanceof TextMessage && it.payload == '{"type":"PUBLIC_KEY_PART","j":1}' })
+        1 * subscriber.sendMessage({ it instanceof BinaryMessage && it.last }) >> { BinaryMessage message ->
+            def buffer = message.payload
+            def bytes = new byte[buffer.remaining()]
+            buffer.get(bytes)
+            received.write(bytes)
+        }
+        new ProtocolCodec(publicParameters).readPublicKeyPart(new ByteArrayInputStream(received.toByteArray())) ==
+                publicKey
+    }
+
+    def "the subscribers to the payloads should receive the encoded publication"() {
+        given:
+        def subscriber = session("2", "?payloads=true")
+        handler.afterConnectionEstablished(subscriber)
+        def received = new ByteArrayOutputStream()
+
+        when:
+        handler.onPublication(event)
+
+        then:
+        1 * subscriber.sendMessage({ it instanceof TextMessage })
+        1 * subscriber.sendMessage({ it instanceof BinaryMessage && it.last }) >> { BinaryMessage message ->
+            def buffer = message.payload
+            def bytes = new byte[buffer.remaining()]
+            buffer.get(bytes)
+            received.write(bytes)
+        }
+        new ProtocolCodec(publicParameters).readShuffle(new ByteArrayInputStream(received.toByteArray())) == shuffle
+    }
+
+    def "a publication larger than a fragment should be sent in several fragments"() {
+        given:
+        def subscriber = session("4", "?payloads=true")
+        handler.afterConnectionEstablished(subscriber)
+        def largeShuffle = (1..100000).collect { it % 2 == 0 ? new Encryption(FIVE, NINE) : new Encryption(THREE, ONE) }
+        def fragments = []
+        def received = new ByteArrayOutputStream()
+
+        when:
+        handler.onPublication(new BulletinBoardEvent(BulletinBoardEvent.Type.SHUFFLE, 1, largeShuffle))
+
+        then:
+        1 * subscriber.sendMessage({ it instanceof TextMessage })
+        (2.._) * subscriber.sendMessage({ it instanceof BinaryMessage }) >> { BinaryMessage message ->
+            def buffer = message.payload
+            def bytes = new byte[buffer.remaining()]
+            buffer.get(bytes)
+            received.write(bytes)
+            fragments << [bytes.length, message.last]
+        }
+        fragments.every { it[0] <= BulletinBoardEventsHandler.FRAGMENT_SIZE }
+        fragments*.getAt(1) == [false] * (fragments.size() - 1) + [true]
+        new ProtocolCodec(publicParameters).readShuffle(new ByteArrayInputStream(received.toByteArray())) ==
+                largeShuffle
+    }
+
+    def "a session that does not keep up with the publications should be dropped"() {
+        given:
+        def deliveries = []
+        handler = new BulletinBoardEventsHandler(bulletinBoard, { deliveries << it } as Executor)
+        def subscriber = session("5", "")
+        handler.afterConnectionEstablished(subscriber)
+
+        when: "the deliveries are held back"
+        (BulletinBoardEventsHandler.MAX_PENDING_PUBLICATIONS + 1).times { handler.onPublication(event) }
+
+        then:
+        deliveries.size() == 1
+        1 * subscriber.close(CloseStatus.SESSION_NOT_RELIABLE)
+
+        when:
+        deliveries.each { it.run() }
+        handler.onPublication(event)
+
+        then:
+        0 * subscriber.sendMessage(_)
+    }
+
+    def "a session that cannot be written to should be dropped"() {
+        given:
+        def subscriber = session("3", "")
+        handler.afterConnectionEstablished(subscriber)
+
+        when:
+        handler.onPublication(event)
+        handler.onPublication(event)
+
+        then:
+        1 * subscriber.sendMessage(_) >> { throw new IOException("Broken pipe") }
+        1 * subscriber.close(CloseStatus.SERVER_ERROR)
+    }
+}
@@ -25,6 +25,11 @@ import ch.ge.ve.protopoc.service.model.*
 import ch.ge.ve.protopoc.service.support.RandomGenerator
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
 import static ch.ge.ve.protopoc.service.support.BigIntegers.*
 import static java.math.BigInteger.ONE
 import static java.math.BigInteger.ZERO
@@ -48,12 +53,37 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
             defaultAlphabet, 2, defaultAlphabet, 2, 2, 3
     )
 
+    ExecutorService proofVerificationExecutor = Executors.newFixedThreadPool(3)
+
     // Class under test
     DecryptionAuthorityAlgorithms decryptionAuthorityAlgorithms
 
     void setup() {
-        decryptionAuthorityAlgorithms = new DecryptionAuthorityAlgorithms(publicParameters, generalAlgorithms, randomGenerator)
+        decryptionAuthorityAlgorithms = new DecryptionAuthorityAlgorithms(publicParameters, generalAlgorithms,
+                randomGenerator, proofVerificationExecutor)
+    }
+
+    void cleanup() {
+        proofVerificationExecutor.shutdownNow()
+    }
 
+    /**
+     * Creates a spy over four authorities, for which the shuffle proof verifications are stubbed
+     */
+    private DecryptionAuthorityAlgorithms spyOverFourAuthorities() {
+        def fourAuthoritiesParameters = new PublicParameters(
+                securityParameters, encryptionGroup, identificationGroup, primeField,
+                FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+                defaultAlphabet, 2, defaultAlphabet, 2, 4, 3
+        )
+        Spy(DecryptionAuthorityAlgorithms, constructorArgs: [fourAuthoritiesParameters, generalAlgorithms,
+                                                             randomGenerator, proofVerificationExecutor])
+    }
+
+    private static ShuffleProof newShuffleProof() {
+        new ShuffleProof(new ShuffleProof.T(THREE, NINE, FIVE, [THREE, FOUR], [FOUR, FOUR, FOUR]),
+                new ShuffleProof.S(ONE, TWO, THREE, FOUR, [TWO, FOUR, ONE], [THREE, ZERO, ONE]),
+                [NINE, THREE, THREE], [FOUR, FIVE, ONE])
     }
 
     def "checkShuffleProofs should check the shuffles performed by the other authorities"() {
@@ -161,6 +191,56 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
         !decryptionAuthorityAlgorithms.checkShuffleProofs(bold_pi, e_0, bold_E, pk, j)
     }
 
+    def "checkShuffleProofs should accept the proofs of all the other authorities when they are all valid"() {
+        given: "the re-encryption lists of four authorities"
+        def e_0 = [new Encryption(FIVE, ONE)]
+        def bold_E = (1..4).collect { [new Encryption(ONE, FIVE)] }
+        def pk = new EncryptionPublicKey(THREE, encryptionGroup)
+        def bold_pi = [newShuffleProof(), null, newShuffleProof(), newShuffleProof()]
+
+        and: "an algorithms instance for which every proof is valid"
+        def algorithms = spyOverFourAuthorities()
+        algorithms.checkShuffleProof(_, _, _, _) >> true
+
+        expect:
+        //noinspection GroovyPointlessBoolean
+        algorithms.checkShuffleProofs(bold_pi, e_0, bold_E, pk, 1) == true
+    }
+
+    def "checkShuffleProofs should fail on a single invalid proof and cancel the pending verifications"() {
+        given: "the re-encryption lists of four authorities"
+        def e_0 = [new Encryption(FIVE, ONE)]
+        def bold_E = (1..4).collect { [new Encryption(ONE, FIVE)] }
+        def pk = new EncryptionPublicKey(THREE, encryptionGroup)
+        def invalidProof = newShuffleProof()
+        def bold_pi = [newShuffleProof(), null, invalidProof, newShuffleProof()]
+
+        and: "an algorithms instance for which the verification of the valid proofs never completes"
+        def started = new CountDownLatch(2)
+        def interrupted = new CountDownLatch(2)
+        def algorithms = spyOverFourAuthorities()
+        algorithms.checkShuffleProof({ it.is(invalidProof) }, _, _, _) >> {
+            started.await()
+            false
+        }
+        algorithms.checkShuffleProof(_, _, _, _) >> {
+            started.countDown()
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1))
+            } catch (InterruptedException ignored) {
+                interrupted.countDown()
+            }
+            true
+        }
+
+        when:
+        def result = algorithms.checkShuffleProofs(bold_pi, e_0, bold_E, pk, 1)
+
+        then:
+        !result
+        interrupted.await(5, TimeUnit.SECONDS)
+    }
+
     def "checkShuffleProof should correctly validate a shuffle proof"() {
         given: "some input"
         def bold_e = [
@@ -246,4 +326,34 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
         decryptionAuthorityAlgorithms.genDecryptionProof(sk_j, pk_j, bold_e, bold_b_prime) ==
                 new DecryptionProof([NINE, THREE, NINE, FIVE, FOUR], ZERO)
     }
+
+    def "genDecryptionProof should use the precomputed nonce"() {
+        given:
+        def sk_j = THREE
+        def pk_j = FIVE
+        def bold_e = [
+                new Encryption(ONE, FIVE),
+                new Encryption(NINE, THREE),
+                new Encryption(FOUR, FOUR),
+                new Encryption(FIVE, NINE)
+        ]
+        def bold_b_prime = [FOUR, FIVE, NINE, THREE]
+        def nonce = new Randomization(TWO, null, NINE) // g^2 mod 11 = 9, pk^r is not used
+        generalAlgorithms.getNIZKPChallenge(*_) >> ONE
+
+        and: "the expected preconditions"
+        generalAlgorithms.isMember(ONE) >> true
+        generalAlgorithms.isMember(THREE) >> true
+        generalAlgorithms.isMember(FOUR) >> true
+        generalAlgorithms.isMember(FIVE) >> true
+        generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
+
+        when:
+        def proof = decryptionAuthorityAlgorithms.genDecryptionProof(sk_j, pk_j, bold_e, bold_b_prime, nonce)
+
+        then:
+        0 * randomGenerator._
+        proof == new DecryptionProof([NINE, THREE, NINE, FIVE, FOUR], ZERO)
+    }
 }
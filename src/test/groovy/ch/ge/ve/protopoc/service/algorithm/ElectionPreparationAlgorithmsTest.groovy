@@ -27,6 +27,8 @@ import ch.ge.ve.protopoc.service.support.Hash
 import ch.ge.ve.protopoc.service.support.RandomGenerator
 import spock.lang.Specification
 
+import java.util.concurrent.atomic.AtomicInteger
+
 import static ch.ge.ve.protopoc.service.support.BigIntegers.*
 import static java.math.BigInteger.ONE
 import static java.math.BigInteger.ZERO
@@ -183,6 +185,35 @@ class ElectionPreparationAlgorithmsTest extends Specification {
         electorateData.k == [[1, 2], [1, 0]]
     }
 
+    def "genElectorateData should hand the shards over to the sink in voter order"() {
+        given: "a 1-out-of-3 election and enough voters for several shards"
+        DomainOfInfluence doi = new DomainOfInfluence("test")
+        def voters = (1..150).collect { new Voter() }
+        voters.forEach { it.addDomainsOfInfluence(doi) }
+        def candidates = (1..3).collect { new Candidate("c" + it) }
+        ElectionSet electionSet = new ElectionSet(voters, candidates, [new Election(3, 1, doi)])
+
+        and: "cycling 'random' values, as the shards are generated concurrently"
+        def counter = new AtomicInteger()
+        randomGenerator.randomInZq(_) >> { BigInteger q -> BigInteger.valueOf(counter.getAndIncrement() % q.intValue()) }
+        hash.recHash_L(_) >> ([0x0C] as byte[])
+
+        and: "a sink recording the shards"
+        def firstVoterIndices = []
+        def shardSizes = []
+        def sink = { int firstVoterIndex, ElectorateData shard ->
+            firstVoterIndices << firstVoterIndex
+            shardSizes << shard.d.size()
+        } as ElectorateDataSink
+
+        when:
+        electionPreparation.genElectorateData(electionSet, sink)
+
+        then:
+        firstVoterIndices == [0, 64, 128]
+        shardSizes == [64, 64, 22]
+    }
+
     def "genSecretVoterData should generate the expected private voter data"() {
         given:
         Point point1 = new Point(ONE, ZERO)
@@ -23,9 +23,13 @@ package ch.ge.ve.protopoc.service.algorithm
 
 import ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic
 import ch.ge.ve.protopoc.service.model.*
+import ch.ge.ve.protopoc.service.model.columnar.BigIntegerVector
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore
 import ch.ge.ve.protopoc.service.support.RandomGenerator
 import spock.lang.Specification
 
+import java.util.concurrent.Executor
+
 import static ch.ge.ve.protopoc.service.support.BigIntegers.*
 import static java.math.BigInteger.ONE
 import static java.math.BigInteger.ZERO
@@ -54,7 +58,8 @@ class MixingAuthorityAlgorithmsTest extends Specification {
 
     void setup() {
         mixingAuthorityAlgorithms = new MixingAuthorityAlgorithms(publicParameters, generalAlgorithms, voteConfirmationAuthorityAlgorithms, randomGenerator)
-        decryptionAuthorityAlgorithms = new DecryptionAuthorityAlgorithms(publicParameters, generalAlgorithms, randomGenerator)
+        decryptionAuthorityAlgorithms = new DecryptionAuthorityAlgorithms(publicParameters, generalAlgorithms, randomGenerator,
+                { it.run() } as Executor)
     }
 
     def "getEncryptions should retrieve a list of valid, confirmed encryptions"() {
@@ -89,7 +94,7 @@ class MixingAuthorityAlgorithmsTest extends Specification {
     def "genShuffle should generate a valid shuffle"() {
         given:
         randomGenerator.randomIntInRange(_, _) >>> [1, 1, 2] // psy = [1, 0, 2]
-        randomGenerator.randomInZq(FIVE) >>> [ONE, TWO, FOUR]
+        randomGenerator.randomVectorInZq(FIVE, 3) >> [ONE, TWO, FOUR]
         def bold_e = [
                 new Encryption(FIVE, ONE),
                 new Encryption(THREE, FOUR),
@@ -132,6 +137,58 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         e_prime_2.b == (NINE * pk.modPow(r_2, p)) % p
     }
 
+    def "genShuffle should use the precomputed randomizations"() {
+        given:
+        randomGenerator.randomIntInRange(_, _) >>> [1, 1, 2] // psy = [1, 0, 2]
+        def bold_e = [
+                new Encryption(FIVE, ONE),
+                new Encryption(THREE, FOUR),
+                new Encryption(FIVE, NINE)
+        ]
+        def publicKey = new EncryptionPublicKey(THREE, encryptionGroup)
+        def bold_rho = [ // pk = g = 3
+                new Randomization(ONE, THREE, THREE),
+                new Randomization(TWO, NINE, NINE),
+                new Randomization(FOUR, FOUR, FOUR)
+        ]
+
+        and: "the expected preconditions checks"
+        generalAlgorithms.isMember(ONE) >> true
+        generalAlgorithms.isMember(THREE) >> true
+        generalAlgorithms.isMember(FOUR) >> true
+        generalAlgorithms.isMember(FIVE) >> true
+        generalAlgorithms.isMember(NINE) >> true
+
+        when:
+        def shuffle = mixingAuthorityAlgorithms.genShuffle(bold_e, publicKey, bold_rho)
+
+        then:
+        0 * randomGenerator.randomInZq(_)
+        0 * randomGenerator.randomVectorInZq(_, _)
+        shuffle.psy == [1, 0, 2]
+        shuffle.bold_r_prime == [ONE, TWO, FOUR]
+        shuffle.bold_e_prime == [
+                new Encryption(FIVE, THREE), // (3 * 9, 4 * 9) mod 11
+                new Encryption(FOUR, THREE), // (5 * 3, 1 * 3) mod 11
+                new Encryption(NINE, THREE)  // (5 * 4, 9 * 4) mod 11
+        ]
+    }
+
+    def "genRandomization should compute the powers of pk and g"() {
+        given:
+        def publicKey = new EncryptionPublicKey(FIVE, encryptionGroup)
+        randomGenerator.randomInZq(FIVE) >> r
+
+        expect:
+        mixingAuthorityAlgorithms.genRandomization(publicKey) == new Randomization(r, pk_r, g_r)
+
+        where:
+        r     || pk_r  | g_r
+        ONE   || FIVE  | THREE
+        TWO   || THREE | NINE
+        THREE || FOUR  | FIVE
+    }
+
     def "genPermutation should generate a valid permutation"() {
         given:
         randomGenerator.randomIntInRange(_, _) >>> randomInts
@@ -183,23 +240,71 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         def psy = [1, 0, 2]
         def pk = new EncryptionPublicKey(THREE, encryptionGroup)
         generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        randomGenerator.randomVectorInZq(FIVE, 3) >>> [
+                [ONE, TWO, THREE], // genPermutationCommitment, bold_r
+                [TWO, THREE, FOUR], // bold_omega_hat
+                [ZERO, ONE, ONE] // bold_omega_prime
+        ]
         randomGenerator.randomInZq(FIVE) >>> [
-                ONE, // genPermutationCommitment, r_?
-                TWO, // genPermutationCommitment, r_?
-                THREE, // genPermutationCommitment, r_?
+                ONE, // omega_1
+                TWO, // omega_2
+                THREE, // omega_3
+                FOUR, // omega_4
                 FOUR, // genCommitmentChain, r_hat_1
                 ZERO, // genCommitmentChain, r_hat_2
                 ONE, // genCommitmentChain, r_hat_3
+        ]
+        generalAlgorithms.getNIZKPChallenges(3, _ as Object[], 1) >>
+                [TWO, ZERO, THREE]
+        generalAlgorithms.getNIZKPChallenge(_, _, 1) >> ZERO
+
+        and: "the expected preconditions checks"
+        generalAlgorithms.isMember(ONE) >> true
+        generalAlgorithms.isMember(THREE) >> true
+        generalAlgorithms.isMember(FOUR) >> true
+        generalAlgorithms.isMember(FIVE) >> true
+        generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
+
+        when:
+        def proof = mixingAuthorityAlgorithms.genShuffleProof(bold_e, bold_e_prime, bold_r_prime, psy, pk)
+
+        then: "the proof should be valid"
+        //noinspection GroovyPointlessBoolean
+        decryptionAuthorityAlgorithms.checkShuffleProof(proof, bold_e, bold_e_prime, pk) == true
+    }
+
+    def "genShuffleProof should generate a valid shuffle proof in streaming mode, with off-heap vectors"() {
+        given:
+        def streamingAlgorithms = new MixingAuthorityAlgorithms(publicParameters, generalAlgorithms,
+                voteConfirmationAuthorityAlgorithms, randomGenerator, VectorStore.direct())
+        def bold_e = [
+                new Encryption(FIVE, ONE),
+                new Encryption(THREE, FOUR),
+                new Encryption(FIVE, NINE)
+        ]
+        def bold_e_prime = [
+                new Encryption(ONE, FIVE),
+                new Encryption(FOUR, THREE),
+                new Encryption(ONE, FOUR)
+        ]
+        def bold_r_prime = [ONE, FOUR, TWO]
+        def psy = [1, 0, 2]
+        def pk = new EncryptionPublicKey(THREE, encryptionGroup)
+        generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        randomGenerator.randomVectorInZq(FIVE, 3) >>> [
+                [ONE, TWO, THREE], // genPermutationCommitment, bold_r
+                [TWO, THREE, FOUR], // bold_omega_hat
+                [ZERO, ONE, ONE] // bold_omega_prime
+        ]
+        randomGenerator.randomInZq(FIVE) >>> [
                 ONE, // omega_1
                 TWO, // omega_2
                 THREE, // omega_3
                 FOUR, // omega_4
-                TWO, // omega_hat/prime_?
-                THREE, // omega_hat/prime_?
-                FOUR, // omega_hat/prime_?
-                ZERO, // omega_hat/prime_?
-                ONE, // omega_hat/prime_?
-                ONE, // omega_hat/prime_?
+                FOUR, // genCommitmentChain, r_hat_1
+                ZERO, // genCommitmentChain, r_hat_2
+                ONE, // genCommitmentChain, r_hat_3
         ]
         generalAlgorithms.getNIZKPChallenges(3, _ as Object[], 1) >>
                 [TWO, ZERO, THREE]
@@ -214,16 +319,101 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
 
         when:
-        def proof = mixingAuthorityAlgorithms.genShuffleProof(bold_e, bold_e_prime, bold_r_prime, psy, pk)
+        def proof = streamingAlgorithms.genShuffleProof(bold_e, bold_e_prime, bold_r_prime, psy, pk)
+
+        then: "the vectors of the proof should have been kept off-heap"
+        proof.bold_c instanceof BigIntegerVector
+        proof.bold_c_hat instanceof BigIntegerVector
+        proof.t.t_hat instanceof BigIntegerVector
+        proof.s.s_hat instanceof BigIntegerVector
+        proof.s.s_prime instanceof BigIntegerVector
+
+        and: "the proof should be valid"
+        //noinspection GroovyPointlessBoolean
+        decryptionAuthorityAlgorithms.checkShuffleProof(proof, bold_e, bold_e_prime, pk) == true
+    }
+
+    def "genShuffleProof should generate a valid proof from a precomputation prepared for more ballots"() {
+        given:
+        def bold_e = [
+                new Encryption(FIVE, ONE),
+                new Encryption(THREE, FOUR),
+                new Encryption(FIVE, NINE)
+        ]
+        def bold_e_prime = [
+                new Encryption(ONE, FIVE),
+                new Encryption(FOUR, THREE),
+                new Encryption(ONE, FOUR)
+        ]
+        def bold_r_prime = [ONE, FOUR, TWO]
+        def psy = [1, 0, 2]
+        def pk = new EncryptionPublicKey(THREE, encryptionGroup)
+        generalAlgorithms.getGenerators(4) >> [FOUR, THREE, FIVE, NINE]
+        generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        randomGenerator.randomVectorInZq(FIVE, 4) >>> [
+                [ONE, TWO, THREE, FOUR], // bold_r
+                [TWO, THREE, FOUR, ONE], // bold_omega_hat
+                [ZERO, ONE, ONE, TWO] // bold_omega_prime
+        ]
+        randomGenerator.randomInZq(FIVE) >>> [
+                FOUR, // genCommitmentChain, r_hat_1
+                ZERO, // genCommitmentChain, r_hat_2
+                ONE, // genCommitmentChain, r_hat_3
+        ]
+        def nonces = [ // g = pk = 3
+                new Randomization(ONE, THREE, THREE),
+                new Randomization(TWO, NINE, NINE),
+                new Randomization(THREE, FIVE, FIVE),
+                new Randomization(FOUR, FOUR, FOUR)
+        ]
+        generalAlgorithms.getNIZKPChallenges(3, _ as Object[], 1) >>
+                [TWO, ZERO, THREE]
+        generalAlgorithms.getNIZKPChallenge(_, _, 1) >> ONE
+
+        and: "the expected preconditions checks"
+        generalAlgorithms.isMember(ONE) >> true
+        generalAlgorithms.isMember(THREE) >> true
+        generalAlgorithms.isMember(FOUR) >> true
+        generalAlgorithms.isMember(FIVE) >> true
+        generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
+
+        when:
+        def precomputation = mixingAuthorityAlgorithms.genShuffleProofPrecomputation(4)
+        def proof = mixingAuthorityAlgorithms.genShuffleProof(bold_e, bold_e_prime, bold_r_prime, psy, pk,
+                nonces, precomputation)
 
         then: "the proof should be valid"
+        proof.bold_c.size() == 3
         //noinspection GroovyPointlessBoolean
         decryptionAuthorityAlgorithms.checkShuffleProof(proof, bold_e, bold_e_prime, pk) == true
     }
 
+    def "adaptShuffleProofPrecomputation should complete a precomputation prepared for fewer ballots"() {
+        given:
+        generalAlgorithms.getGenerators(2) >> [FOUR, THREE]
+        generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        randomGenerator.randomVectorInZq(FIVE, 2) >>> [[ONE, TWO], [TWO, THREE], [ZERO, ONE]]
+        randomGenerator.randomVectorInZq(FIVE, 1) >>> [[THREE], [FOUR], [ONE]]
+
+        when:
+        def precomputation = mixingAuthorityAlgorithms.adaptShuffleProofPrecomputation(
+                mixingAuthorityAlgorithms.genShuffleProofPrecomputation(2), 3)
+
+        then:
+        precomputation.upper_n == 3
+        precomputation.bold_h == [FOUR, THREE, FIVE]
+        precomputation.bold_r == [ONE, TWO, THREE]
+        precomputation.bold_g_r == [THREE, NINE, FIVE] // 3^r mod 11
+        precomputation.bold_omega_hat == [TWO, THREE, FOUR]
+        precomputation.bold_g_omega_hat == [NINE, FIVE, FOUR]
+        precomputation.bold_omega_prime == [ZERO, ONE, ONE]
+        precomputation.bold_h_omega_prime == [ONE, THREE, FIVE] // h_i^omega_prime_i mod 11
+    }
+
     def "genPermutationCommitment should generate a valid permutation commitment"() {
         given:
-        randomGenerator.randomInZq(FIVE) >>> random
+        randomGenerator.randomVectorInZq(FIVE, 3) >> random
 
         and: "the expected preconditions checks"
         generalAlgorithms.isMember(THREE) >> true
@@ -163,12 +163,44 @@ class TallyingAuthoritiesAlgorithmTest extends Specification {
 
         expect:
         otherTallyingAuthoritiesAlgorithm.getVotes(m, 6) == [
-                [true, false, false, true, false, false],
-                [true, false, false, false, true, false],
-                [true, false, false, false, false, true],
-                [false, true, false, false, true, false],
-                [false, false, true, true, false, false]
-        ] as List<List<Boolean>>
+                [0, 3],
+                [0, 4],
+                [0, 5],
+                [1, 4],
+                [2, 3]
+        ].collect { indices -> def v = new BitSet(); indices.each { v.set(it) }; v }
+    }
+
+    def "getTally should tally the votes per election"() {
+        given: "A slightly larger encryption group"
+        def otherEncryptionGroup = new EncryptionGroup(SimulationConstants.p_RC0e, SimulationConstants.q_RC0e,
+                SimulationConstants.g_RC0e, SimulationConstants.h_RC0e)
+        def otherPublicParameters = new PublicParameters(
+                securityParameters, otherEncryptionGroup, identificationGroup, primeField,
+                FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+                defaultAlphabet, 2, defaultAlphabet, 2, 4, 5
+        )
+        def otherTallyingAuthoritiesAlgorithm = new TallyingAuthoritiesAlgorithm(otherPublicParameters,
+                generalAlgorithms)
+
+        and: "two elections of three candidates, with one selection each"
+        def domainOfInfluence = new DomainOfInfluence("test")
+        def elections = [new Election(3, 1, domainOfInfluence), new Election(3, 1, domainOfInfluence)]
+        generalAlgorithms.getPrimes(6) >> [2, 3, 7, 11, 19, 29].collect { BigInteger.valueOf(it) }
+
+        and: "some sample m values"
+        def m = [2 * 11, 2 * 19, 2 * 29, 3 * 19, 7 * 11].collect { BigInteger.valueOf(it) }
+        generalAlgorithms.isMember(_ as BigInteger) >> true
+
+        when:
+        def tally = otherTallyingAuthoritiesAlgorithm.getTally(m, elections)
+
+        then:
+        tally.counts == [3L, 1L, 1L, 2L, 2L, 1L]
+        tally.getElectionCounts(1) == [2L, 2L, 1L]
+        tally.getParticipation(0) == 5L
+        tally.getParticipation(1) == 5L
+        tally.hasValidSelectionCounts()
     }
 
     def "getTally should fail if the group is too small for the requested number of primes"() {
@@ -87,6 +87,7 @@ class VoteCastingAuthorityAlgorithmsTest extends Specification {
         generalAlgorithms.isMember(FOUR) >> true
         generalAlgorithms.isMember(FIVE) >> true
         generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.isMember_G_q_hat(ONE) >> true
         generalAlgorithms.isMember_G_q_hat(FIVE) >> true
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
         generalAlgorithms.isInZ_q_hat(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < identificationGroup.q_hat }
@@ -143,6 +144,7 @@ class VoteCastingAuthorityAlgorithmsTest extends Specification {
         generalAlgorithms.isMember(THREE) >> true
         generalAlgorithms.isMember(FOUR) >> true
         generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.isMember_G_q_hat(ONE) >> true
         generalAlgorithms.isMember_G_q_hat(FIVE) >> true
         generalAlgorithms.isMember_G_q_hat(NINE) >> true
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
@@ -111,6 +111,8 @@ class VoteConfirmationClientAlgorithmsTest extends Specification {
         points                                        || y
         [new Point(SIX, ONE)]                         || ONE
         [new Point(THREE, TWO), new Point(FIVE, ONE)] || ZERO // performed algorithm by hand, on paper.
+        [new Point(ONE, TWO), new Point(TWO, FIVE), new Point(THREE, THREE)] || ONE // A(X) = X^2 + 1 mod 7
+        [new Point(ZERO, FOUR), new Point(TWO, ONE)]  || FOUR
     }
 
     def "genConfirmationProof should generate a valid proof of knowledge for y"() {
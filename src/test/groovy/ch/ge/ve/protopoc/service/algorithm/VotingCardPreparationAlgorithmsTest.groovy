@@ -125,4 +125,38 @@ class VotingCardPreparationAlgorithmsTest extends Specification {
         ]
         sheet_2.bold_k == [1, 0]
     }
+
+    def "getVotingCards should hand the voting cards to the sink in voter order, one batch at a time"() {
+        given: "150 voters eligible for a single 1-out-of-2 election"
+        def domainOfInfluence = new DomainOfInfluence("test")
+        def voters = (1..150).collect {
+            def voter = new Voter()
+            voter.addDomainsOfInfluence(domainOfInfluence)
+            voter
+        }
+        def electionSet = new ElectionSet(voters, [new Candidate("1"), new Candidate("2")],
+                [new Election(2, 1, domainOfInfluence)])
+
+        and: "the same secret data for every voter"
+        def secretVoterData = new SecretVoterData(ZERO, ONE, [0x01, 0x01] as byte[],
+                [[0x01, 0x02], [0x03, 0x04]] as byte[][])
+        def bold_upper_d = [[secretVoterData] * 150, [secretVoterData] * 150]
+
+        and: "a sink recording the batches"
+        def firstVoterIndices = []
+        def batchSizes = []
+        def cardIndices = []
+
+        when:
+        codeSheetPreparation.getVotingCards(electionSet, bold_upper_d, { int firstVoterIndex, List<VotingCard> batch ->
+            firstVoterIndices << firstVoterIndex
+            batchSizes << batch.size()
+            cardIndices.addAll(batch*.i)
+        } as VotingCardSink)
+
+        then:
+        firstVoterIndices == [0, 64, 128]
+        batchSizes == [64, 64, 22]
+        cardIndices == (0..149)
+    }
 }
@@ -0,0 +1,366 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.codec
+
+import ch.ge.ve.protopoc.service.exception.MalformedMessageException
+import ch.ge.ve.protopoc.service.model.*
+import ch.ge.ve.protopoc.service.model.columnar.FixedWidthVector
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore
+import ch.ge.ve.protopoc.service.model.polynomial.Point
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * This test class holds the tests for the {@link ProtocolCodec}
+ */
+class ProtocolCodecTest extends Specification {
+    def defaultAlphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray() as List<Character>
+    EncryptionGroup encryptionGroup = new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR)
+    IdentificationGroup identificationGroup = new IdentificationGroup(ELEVEN, FIVE, THREE)
+    SecurityParameters securityParameters = new SecurityParameters(1, 1, 2, 0.99)
+    PrimeField primeField = new PrimeField(FIVE)
+    PublicParameters publicParameters = new PublicParameters(
+            securityParameters, encryptionGroup, identificationGroup, primeField,
+            FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+            defaultAlphabet, 2, defaultAlphabet, 2, 2, 5
+    )
+
+    ProtocolCodec codec = new ProtocolCodec(publicParameters)
+
+    def "a ballot and query should survive a round trip"() {
+        given:
+        def alpha = new BallotAndQuery(NINE, [THREE, FIVE], ONE,
+                new NonInteractiveZKP([FOUR, NINE, THREE], [TWO, FIVE, FOUR]))
+
+        when:
+        def decoded = roundTrip({ out -> codec.writeBallotAndQuery(alpha, out) }, { codec.readBallotAndQuery(it) })
+
+        then:
+        decoded.x_hat == alpha.x_hat
+        decoded.bold_a == alpha.bold_a
+        decoded.b == alpha.b
+        decoded.pi == alpha.pi
+    }
+
+    def "an oblivious transfer response should survive a round trip"() {
+        given:
+        def beta = new ObliviousTransferResponse([THREE, NINE], [[0x01, 0x02], [0x0A, 0x0B]] as byte[][], [FIVE])
+
+        when:
+        def decoded = roundTrip({ out -> codec.writeObliviousTransferResponse(beta, out) },
+                { codec.readObliviousTransferResponse(it) })
+
+        then:
+        decoded.b == beta.b
+        decoded.c == beta.c
+        decoded.d == beta.d
+    }
+
+    def "a confirmation should survive a round trip"() {
+        given:
+        def gamma = new Confirmation(FIVE, new NonInteractiveZKP([NINE], [THREE]))
+
+        expect:
+        roundTrip({ out -> codec.writeConfirmation(gamma, out) }, { codec.readConfirmation(it) }) == gamma
+    }
+
+    def "a shuffle and its proof should survive a round trip"() {
+        given:
+        def shuffle = [new Encryption(FIVE, NINE), new Encryption(THREE, ONE)]
+        def pi = new ShuffleProof(
+                new ShuffleProof.T(ONE, THREE, FOUR, [FIVE, NINE], [THREE, FOUR]),
+                new ShuffleProof.S(ZERO, ONE, TWO, FOUR, [THREE, ONE], [TWO, FOUR]),
+                [NINE, FIVE], [ONE, THREE])
+
+        expect:
+        roundTrip({ out -> codec.writeShuffle(shuffle, out) }, { codec.readShuffle(it) }) == shuffle
+        roundTrip({ out -> codec.writeShuffleProof(pi, out) }, { codec.readShuffleProof(it) }) == pi
+    }
+
+    def "a decryption proof should survive a round trip"() {
+        given:
+        def pi = new DecryptionProof([ONE, THREE, NINE], FOUR)
+
+        expect:
+        roundTrip({ out -> codec.writeDecryptionProof(pi, out) }, { codec.readDecryptionProof(it) }) == pi
+    }
+
+    def "the public parameters should survive a round trip"() {
+        when:
+        def decoded = roundTrip({ out -> ProtocolCodec.writePublicParameters(publicParameters, out) },
+                { ProtocolCodec.readPublicParameters(it) })
+
+        then:
+        decoded.securityParameters.epsilon == 0.99d
+        decoded.encryptionGroup.g == THREE
+        decoded.identificationGroup.q_hat == FIVE
+        decoded.primeField.p_prime == FIVE
+        decoded.upper_a_f == defaultAlphabet
+        decoded.upper_l_m == publicParameters.upper_l_m
+        decoded.s == 2
+        decoded.n_max == 5
+    }
+
+    def "the other publications of the bulletin board should survive a round trip"() {
+        given:
+        def publicKey = new EncryptionPublicKey(NINE, encryptionGroup)
+        def publicCredentials = [new Point(ONE, FOUR), new Point(ZERO, TWO)]
+
+        expect:
+        roundTrip({ out -> codec.writePublicKeyPart(publicKey, out) }, { codec.readPublicKeyPart(it) }).publicKey == NINE
+        roundTrip({ out -> codec.writePublicCredentials(publicCredentials, out) },
+                { codec.readPublicCredentials(it) }) == publicCredentials
+        roundTrip({ out -> codec.writePartialDecryption([THREE, ONE], out) },
+                { codec.readPartialDecryption(it) }) == [THREE, ONE]
+        roundTrip({ out -> codec.writeTally([3L, 0L, 12L], out) }, { codec.readTally(it) }) == [3L, 0L, 12L]
+    }
+
+    def "an election set should survive a round trip"() {
+        given:
+        def canton = new DomainOfInfluence("canton")
+        def municipality = new DomainOfInfluence("municipality")
+        def voter1 = new Voter()
+        voter1.addDomainsOfInfluence(canton)
+        def voter2 = new Voter()
+        voter2.addDomainsOfInfluence(canton, municipality)
+        def electionSet = new ElectionSet([voter1, voter2],
+                [new Candidate("yes"), new Candidate("no"), new Candidate("Alice"), new Candidate("Bob"),
+                 new Candidate("Carol")],
+                [new Election(2, 1, canton), new Election(3, 2, municipality)])
+
+        when:
+        def decoded = roundTrip({ out -> ProtocolCodec.writeElectionSet(electionSet, out) },
+                { ProtocolCodec.readElectionSet(it) })
+
+        then:
+        decoded.voters*.allowedDomainsOfInfluence*.toList() == [[canton], [canton, municipality]]
+        decoded.candidates == electionSet.candidates
+        decoded.elections*.numberOfCandidates == [2, 3]
+        decoded.elections*.numberOfSelections == [1, 2]
+        decoded.elections*.applicableDomainofInfluence == [canton, municipality]
+    }
+
+    def "the secret voter data and the finalization code parts should survive a round trip"() {
+        given:
+        def secretVoterData = [new SecretVoterData(ONE, FOUR, [0x01, 0x02] as byte[], [[0x03, 0x04], [0x05, 0x06]] as byte[][]),
+                               new SecretVoterData(THREE, ZERO, [0x07, 0x08] as byte[], [[0x09, 0x0A]] as byte[][])]
+        def delta = new FinalizationCodePart([0x0B, 0x0C] as byte[], [THREE, ONE])
+
+        when:
+        def decodedSecretVoterData = roundTrip({ out -> codec.writeSecretVoterData(secretVoterData, out) },
+                { codec.readSecretVoterData(it) })
+        def decodedDelta = roundTrip({ out -> codec.writeFinalizationCodePart(delta, out) },
+                { codec.readFinalizationCodePart(it) })
+
+        then:
+        decodedSecretVoterData == secretVoterData
+        decodedDelta.f == delta.f
+        decodedDelta.bold_r == delta.bold_r
+    }
+
+    def "the shuffles and the tally data should survive a round trip"() {
+        given:
+        def shuffle = [new Encryption(FIVE, NINE), new Encryption(THREE, ONE)]
+        def pi = new ShuffleProof(
+                new ShuffleProof.T(ONE, THREE, FOUR, [FIVE, NINE], [THREE, FOUR]),
+                new ShuffleProof.S(ZERO, ONE, TWO, FOUR, [THREE, ONE], [TWO, FOUR]),
+                [NINE, FIVE], [ONE, THREE])
+        def shufflesAndProofs = new ShufflesAndProofs([shuffle, shuffle.reverse()], [pi, pi])
+        def tallyData = new TallyData([NINE, FOUR], shuffle, [[THREE, ONE], [FIVE, NINE]],
+                [new DecryptionProof([ONE, THREE, FOUR], TWO), new DecryptionProof([NINE, FIVE, ONE], ZERO)])
+
+        when:
+        def decodedShufflesAndProofs = roundTrip({ out -> codec.writeShufflesAndProofs(shufflesAndProofs, out) },
+                { codec.readShufflesAndProofs(it) })
+
+        then:
+        decodedShufflesAndProofs.shuffles == [shuffle, shuffle.reverse()]
+        decodedShufflesAndProofs.shuffleProofs == [pi, pi]
+        roundTrip({ out -> codec.writeTallyData(tallyData, out) }, { codec.readTallyData(it) }) == tallyData
+    }
+
+    def "consecutive messages should be readable from the same stream"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        def gamma = new Confirmation(FIVE, new NonInteractiveZKP([NINE], [THREE]))
+        def pi = new DecryptionProof([ONE], FOUR)
+        codec.writeConfirmation(gamma, out)
+        codec.writeDecryptionProof(pi, out)
+        def input = new ByteArrayInputStream(out.toByteArray())
+
+        expect:
+        codec.readConfirmation(input) == gamma
+        codec.readDecryptionProof(input) == pi
+        input.read() == -1
+    }
+
+    def "reading a message of another type should fail"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        codec.writeDecryptionProof(new DecryptionProof([ONE], FOUR), out)
+
+        when:
+        codec.readConfirmation(new ByteArrayInputStream(out.toByteArray()))
+
+        then:
+        thrown(MalformedMessageException)
+    }
+
+    def "reading a message of another version should fail"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        codec.writeDecryptionProof(new DecryptionProof([ONE], FOUR), out)
+        def bytes = out.toByteArray()
+        bytes[0] = ProtocolCodec.VERSION + 1
+
+        when:
+        codec.readDecryptionProof(new ByteArrayInputStream(bytes))
+
+        then:
+        thrown(MalformedMessageException)
+    }
+
+    def "reading a value outside of its domain should fail"() {
+        given: "a decryption proof whose single commitment is replaced by p"
+        def out = new ByteArrayOutputStream()
+        codec.writeDecryptionProof(new DecryptionProof([ONE], FOUR), out)
+        def bytes = out.toByteArray()
+        bytes[6] = 11
+
+        when:
+        codec.readDecryptionProof(new ByteArrayInputStream(bytes))
+
+        then:
+        thrown(MalformedMessageException)
+    }
+
+    def "a length beyond any limit should be refused before the vector is allocated"() {
+        given: "a ballot whose query length is replaced by 2^31 - 1"
+        def out = new ByteArrayOutputStream()
+        codec.writeBallotAndQuery(new BallotAndQuery(NINE, [THREE, FIVE], ONE,
+                new NonInteractiveZKP([FOUR, NINE, THREE], [TWO, FIVE, FOUR])), out)
+        def bytes = out.toByteArray()
+        bytes[3] = 0x7F
+        bytes[4] = 0xFF as byte
+        bytes[5] = 0xFF as byte
+        bytes[6] = 0xFF as byte
+
+        when:
+        codec.readBallotAndQuery(new ByteArrayInputStream(bytes))
+
+        then:
+        thrown(MalformedMessageException)
+    }
+
+    def "a query of another size than the number of selections of the voter should be refused"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        codec.writeBallotAndQuery(new BallotAndQuery(NINE, [THREE, FIVE], ONE,
+                new NonInteractiveZKP([FOUR, NINE, THREE], [TWO, FIVE, FOUR])), out)
+
+        when:
+        codec.readBallotAndQuery(new ByteArrayInputStream(out.toByteArray()), k)
+
+        then:
+        thrown(MalformedMessageException)
+
+        where:
+        k << [1, 3]
+    }
+
+    def "a shuffle longer than the maximal number of voters should be refused"() {
+        given:
+        def boundedCodec = new ProtocolCodec(publicParameters, VectorStore.heap(), 1)
+        def out = new ByteArrayOutputStream()
+        codec.writeShuffle([new Encryption(FIVE, NINE), new Encryption(THREE, ONE)], out)
+
+        when:
+        boundedCodec.readShuffle(new ByteArrayInputStream(out.toByteArray()))
+
+        then:
+        thrown(MalformedMessageException)
+    }
+
+    def "an oblivious transfer response with more messages than n_max should be refused"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        def c = (0..5).collect { [it, it] as byte[] } as byte[][]
+        codec.writeObliviousTransferResponse(new ObliviousTransferResponse([THREE], c, [FIVE]), out)
+
+        when:
+        codec.readObliviousTransferResponse(new ByteArrayInputStream(out.toByteArray()))
+
+        then:
+        thrown(MalformedMessageException)
+    }
+
+    def "tally data with more partial decryptions than authorities should be refused"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        def finalShuffle = [new Encryption(FIVE, NINE)]
+        codec.writeTallyData(new TallyData([THREE, FOUR], finalShuffle, [[ONE], [THREE], [FOUR]],
+                [new DecryptionProof([ONE, FOUR], TWO)]), out)
+
+        when:
+        codec.readTallyData(new ByteArrayInputStream(out.toByteArray()))
+
+        then:
+        thrown(MalformedMessageException)
+    }
+
+    def "reading a truncated message should fail"() {
+        given:
+        def out = new ByteArrayOutputStream()
+        codec.writeShuffle([new Encryption(FIVE, NINE)], out)
+        def bytes = Arrays.copyOf(out.toByteArray(), out.size() - 1)
+
+        when:
+        codec.readShuffle(new ByteArrayInputStream(bytes))
+
+        then:
+        thrown(EOFException)
+    }
+
+    def "a codec with a direct store should read the vectors off-heap"() {
+        given:
+        def directCodec = new ProtocolCodec(publicParameters, VectorStore.direct())
+        def out = new ByteArrayOutputStream()
+        codec.writeShuffle([new Encryption(FIVE, NINE), new Encryption(THREE, ONE)], out)
+
+        when:
+        def shuffle = directCodec.readShuffle(new ByteArrayInputStream(out.toByteArray()))
+
+        then:
+        shuffle instanceof FixedWidthVector
+        (shuffle as FixedWidthVector).isFrozen()
+        shuffle == [new Encryption(FIVE, NINE), new Encryption(THREE, ONE)]
+    }
+
+    private static <T> T roundTrip(Closure writer, Closure<T> reader) {
+        def out = new ByteArrayOutputStream()
+        writer(out)
+        return reader(new ByteArrayInputStream(out.toByteArray()))
+    }
+}
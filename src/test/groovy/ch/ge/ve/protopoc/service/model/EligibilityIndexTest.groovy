@@ -0,0 +1,77 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model
+
+import spock.lang.Specification
+
+/**
+ * This test class holds the tests for the {@link EligibilityIndex}
+ */
+class EligibilityIndexTest extends Specification {
+    def "the eligibility index should tabulate the allowed selections of every voter"() {
+        given: "a cantonal and a municipal election"
+        def canton = new DomainOfInfluence("canton")
+        def municipality = new DomainOfInfluence("municipality")
+        def unrelated = new DomainOfInfluence("unrelated")
+        Voter voter1 = new Voter()
+        Voter voter2 = new Voter()
+        voter1.addDomainsOfInfluence(canton, municipality)
+        voter2.addDomainsOfInfluence(canton, unrelated)
+        def electionSet = new ElectionSet([voter1, voter2],
+                (1..7).collect { new Candidate(it.toString()) },
+                [new Election(3, 1, canton), new Election(4, 2, municipality)])
+
+        when:
+        def index = electionSet.getEligibilityIndex()
+
+        then:
+        index.getVotersCount() == 2
+        index.getT() == 2
+        index.getN() == 7
+        index.getBold_n() == [3, 4]
+        index.isEligible(0, 1)
+        !index.isEligible(1, 1)
+        index.getBold_k(0) == [1, 2]
+        index.getBold_k(1) == [1, 0]
+        index.getK(1, 0) == 1
+        index.getK_sum(0) == 3
+        index.getK_sum(1) == 1
+
+        and: "the index is only built once"
+        electionSet.getEligibilityIndex().is(index)
+    }
+
+    def "the views exposed by the eligibility index should be read-only"() {
+        given:
+        def canton = new DomainOfInfluence("canton")
+        Voter voter = new Voter()
+        voter.addDomainsOfInfluence(canton)
+        def index = new ElectionSet([voter], [new Candidate("1"), new Candidate("2")],
+                [new Election(2, 1, canton)]).getEligibilityIndex()
+
+        when:
+        index.getBold_k(0).set(0, 2)
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+}
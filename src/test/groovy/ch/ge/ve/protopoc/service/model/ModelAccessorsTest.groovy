@@ -0,0 +1,123 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model
+
+import groovy.transform.CompileStatic
+import spock.lang.Requires
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.lang.management.ManagementFactory
+import java.util.function.Supplier
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+
+/**
+ * Allocation regression tests for the hot getters of the model classes: the collections are stored once, and
+ * returned as is
+ */
+class ModelAccessorsTest extends Specification {
+    static final int N = 1000
+    static final int ITERATIONS = 1000
+
+    @Shared
+    List<BigInteger> bold_c = (1..N).collect { BigInteger.valueOf(it) }
+    @Shared
+    ShuffleProof proof = new ShuffleProof(
+            new ShuffleProof.T(ONE, TWO, THREE, [FOUR, FIVE], bold_c),
+            new ShuffleProof.S(ONE, TWO, THREE, FOUR, bold_c, bold_c),
+            bold_c, bold_c)
+    @Shared
+    List<Encryption> shuffle = bold_c.collect { new Encryption(it, it) }
+    @Shared
+    ShufflesAndProofs shufflesAndProofs = new ShufflesAndProofs([shuffle, shuffle], [proof, proof])
+    @Shared
+    TallyData tallyData = new TallyData(bold_c, shuffle, [bold_c, bold_c], [])
+    @Shared
+    Tally tally = new Tally([N], new long[N], new long[1], new long[1], 0L)
+
+    def "the getters should return the same instance on every call"() {
+        expect:
+        proof.getBold_c().is(proof.getBold_c())
+        proof.getBold_c_hat().is(proof.getBold_c_hat())
+        proof.getT().getT_hat().is(proof.getT().getT_hat())
+        proof.getS().getS_hat().is(proof.getS().getS_hat())
+        proof.getS().getS_prime().is(proof.getS().getS_prime())
+        shufflesAndProofs.getShuffles().is(shufflesAndProofs.getShuffles())
+        tallyData.getPartialDecryptions().is(tallyData.getPartialDecryptions())
+        tally.getCounts().is(tally.getCounts())
+    }
+
+    def "the nested collections should be immutable"() {
+        when:
+        shufflesAndProofs.getShuffles().get(0).set(0, null)
+
+        then:
+        thrown(UnsupportedOperationException)
+
+        when:
+        tallyData.getPartialDecryptions().get(0).set(0, null)
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    @Requires({ AllocationMeter.isSupported() })
+    def "the hot getters should not allocate in proportion to the size of the collections"() {
+        expect: "far less than a single copy of the collection (at least 4 bytes per element) per call"
+        AllocationMeter.allocatedBytes(ITERATIONS, getter) < ITERATIONS * (N / 4L)
+
+        where:
+        getter << [
+                { proof.getBold_c() } as Supplier,
+                { proof.getT().getT_hat() } as Supplier,
+                { proof.getS().getS_prime() } as Supplier,
+                { shufflesAndProofs.getShuffles() } as Supplier,
+                { tallyData.getPartialDecryptions() } as Supplier,
+                { tally.getCounts() } as Supplier
+        ]
+    }
+
+    @CompileStatic
+    static class AllocationMeter {
+        static boolean isSupported() {
+            def threadMXBean = ManagementFactory.getThreadMXBean()
+            threadMXBean instanceof com.sun.management.ThreadMXBean &&
+                    ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()
+        }
+
+        static long allocatedBytes(int iterations, Supplier<?> getter) {
+            def threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+            long threadId = Thread.currentThread().getId()
+            // warm up, so that the call sites are linked before measuring
+            for (int i = 0; i < iterations; i++) {
+                getter.get()
+            }
+            long before = threadMXBean.getThreadAllocatedBytes(threadId)
+            for (int i = 0; i < iterations; i++) {
+                getter.get()
+            }
+            return threadMXBean.getThreadAllocatedBytes(threadId) - before
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.columnar
+
+import com.google.common.collect.ImmutableList
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * This test class holds the tests for the {@link BigIntegerVector} and the {@link VectorStore}
+ */
+class BigIntegerVectorTest extends Specification {
+    def "a direct vector should give back the values it was given"() {
+        given:
+        def vector = BigIntegerVector.allocateDirect(4, BigInteger.valueOf(65536))
+
+        when:
+        vector.put(3, BigInteger.valueOf(65535))
+        vector.set(1, ELEVEN)
+        vector.put(0, ONE)
+
+        then:
+        vector == [ONE, ELEVEN, ZERO, BigInteger.valueOf(65535)]
+        vector.subList(1, 3) == [ELEVEN, ZERO]
+    }
+
+    def "a vector should refuse values that exceed its bound"() {
+        given:
+        def vector = BigIntegerVector.allocateDirect(2, ELEVEN)
+
+        when:
+        vector.put(0, BigInteger.valueOf(16))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "a frozen vector should be kept as it is by immutableCopyOf, and reject modifications"() {
+        given:
+        def vector = BigIntegerVector.allocateDirect(3, ELEVEN)
+        vector.put(0, FIVE)
+        vector.put(2, NINE)
+
+        when:
+        vector.freeze()
+        vector.put(1, ONE)
+
+        then:
+        thrown(UnsupportedOperationException)
+        FixedWidthVector.immutableCopyOf(vector).is(vector)
+        FixedWidthVector.immutableCopyOf(vector.subList(0, 2)) == [FIVE, ZERO]
+        vector.subList(0, 2).isFrozen()
+    }
+
+    def "immutableCopyOf should copy the vectors that have not been frozen"() {
+        given:
+        def vector = BigIntegerVector.allocateDirect(2, ELEVEN)
+        vector.put(1, TWO)
+
+        when:
+        def copy = FixedWidthVector.immutableCopyOf(vector)
+
+        then:
+        copy instanceof ImmutableList
+        copy == [ZERO, TWO]
+    }
+
+    def "a mapped store should hold its vectors in files that are already deleted"() {
+        given:
+        def directory = Files.createTempDirectory("vectors")
+        def store = VectorStore.mapped(directory)
+
+        when:
+        def vector = store.newVector(3, ELEVEN)
+        vector.set(0, EIGHT)
+        vector.set(2, THREE)
+
+        then:
+        vector == [EIGHT, ZERO, THREE]
+        directory.toFile().list().length == 0
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+
+    def "the heap store should allocate plain lists, left as they are by freeze"() {
+        given:
+        def vector = VectorStore.heap().newVector(2, ELEVEN)
+
+        when:
+        vector.set(0, SIX)
+
+        then:
+        VectorStore.freeze(vector).is(vector)
+        vector == [SIX, null]
+    }
+}
@@ -0,0 +1,191 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.columnar
+
+import ch.ge.ve.protopoc.service.model.*
+import ch.ge.ve.protopoc.service.model.polynomial.Point
+import spock.lang.Specification
+
+import java.nio.ReadOnlyBufferException
+import java.nio.file.Files
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * This test class holds the tests for the {@link ColumnarElectorateData}
+ */
+class ColumnarElectorateDataTest extends Specification {
+    PublicParameters publicParameters = new PublicParameters(
+            new SecurityParameters(1, 1, 1, 0.9),
+            new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR),
+            new IdentificationGroup(SEVEN, THREE, THREE),
+            new PrimeField(BigInteger.valueOf(251)),
+            THREE,
+            ['a', 'b'] as List<Character>,
+            THREE,
+            ['a', 'b'] as List<Character>,
+            ['a', 'b'] as List<Character>,
+            2,
+            ['a', 'b'] as List<Character>,
+            1,
+            4,
+            4
+    )
+
+    ElectionSet electionSet
+    ElectorateData firstShard
+    ElectorateData secondShard
+
+    void setup() {
+        DomainOfInfluence doi1 = new DomainOfInfluence("test 1")
+        DomainOfInfluence doi2 = new DomainOfInfluence("test 2")
+        Voter voter1 = new Voter()
+        Voter voter2 = new Voter()
+        Voter voter3 = new Voter()
+        [voter1, voter2, voter3].each { it.addDomainsOfInfluence(doi1) }
+        voter2.addDomainsOfInfluence(doi2)
+        electionSet = new ElectionSet([voter1, voter2, voter3],
+                [new Candidate("1"), new Candidate("2"), new Candidate("3")],
+                [new Election(2, 1, doi1), new Election(1, 1, doi2)])
+
+        firstShard = new ElectorateData(
+                [new SecretVoterData(ONE, TWO, [0x7F] as byte[], [[0x01, 0x02], [0x03, 0x04], [0x05, 0x06]] as byte[][]),
+                 new SecretVoterData(ZERO, THREE, [0x40] as byte[], [[0x7F, 0x00], [0x00, 0x7F], [0x10, 0x20]] as byte[][])],
+                [new Point(FIVE, SIX), new Point(ZERO, ONE)],
+                [[new Point(ONE, BigInteger.valueOf(200)), new Point(TWO, BigInteger.valueOf(128)), new Point(THREE, ZERO)],
+                 [new Point(BigInteger.valueOf(250), ONE), new Point(FOUR, FIVE), new Point(SIX, SEVEN)]],
+                [[1, 0], [1, 1]])
+        secondShard = new ElectorateData(
+                [new SecretVoterData(TWO, ONE, [0x00] as byte[], [[0x0A, 0x0B], [0x0C, 0x0D], [0x0E, 0x0F]] as byte[][])],
+                [new Point(THREE, FOUR)],
+                [[new Point(ELEVEN, BigInteger.valueOf(127)), new Point(ZERO, ZERO), new Point(ONE, ONE)]],
+                [[1, 0]])
+    }
+
+    def "a direct store should give back the electorate data it was given, in voter order"() {
+        given:
+        def store = ColumnarElectorateData.allocateDirect(publicParameters, electionSet)
+
+        when: "the shards are stored out of order"
+        store.put(2, secondShard)
+        store.put(0, firstShard)
+
+        then:
+        store.getVotersCount() == 3
+        store.getD() == firstShard.getD() + secondShard.getD()
+        store.getD_hat() == firstShard.getD_hat() + secondShard.getD_hat()
+        store.getP() == firstShard.getP() + secondShard.getP()
+        store.getK() == firstShard.getK() + secondShard.getK()
+        store.getPoint(0, 1) == new Point(TWO, BigInteger.valueOf(128))
+        store.getAllowedSelections(1, 1) == 1
+    }
+
+    def "a memory-mapped store should give back the electorate data it was given"() {
+        given:
+        def directory = Files.createTempDirectory("electorate-data")
+        def store = ColumnarElectorateData.map(directory, publicParameters, electionSet)
+
+        when:
+        store.put(0, firstShard)
+        store.put(2, secondShard)
+
+        then:
+        store.getD() == firstShard.getD() + secondShard.getD()
+        store.getD_hat() == firstShard.getD_hat() + secondShard.getD_hat()
+        store.getP() == firstShard.getP() + secondShard.getP()
+        store.getK() == firstShard.getK() + secondShard.getK()
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+
+    def "a store written to disk should be mapped back read-only"() {
+        given:
+        def directory = Files.createTempDirectory("electorate-data")
+        def store = ColumnarElectorateData.allocateDirect(publicParameters, electionSet)
+        store.put(0, firstShard)
+        store.put(2, secondShard)
+        store.writeTo(directory)
+
+        when:
+        def reopened = ColumnarElectorateData.open(directory, publicParameters, electionSet)
+
+        then:
+        reopened.getD() == firstShard.getD() + secondShard.getD()
+        reopened.getD_hat() == firstShard.getD_hat() + secondShard.getD_hat()
+        reopened.getP() == firstShard.getP() + secondShard.getP()
+        reopened.getK() == firstShard.getK() + secondShard.getK()
+
+        when:
+        reopened.put(0, firstShard)
+
+        then:
+        thrown(ReadOnlyBufferException)
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+
+    def "the columns of another electorate should not be mapped"() {
+        given:
+        def directory = Files.createTempDirectory("electorate-data")
+        ColumnarElectorateData.allocateDirect(publicParameters, electionSet).writeTo(directory)
+        def largerElectionSet = new ElectionSet(electionSet.getVoters() + [new Voter()], electionSet.getCandidates(),
+                electionSet.getElections())
+
+        when:
+        ColumnarElectorateData.open(directory, publicParameters, largerElectionSet)
+
+        then:
+        thrown(IOException)
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+
+    def "put should refuse a shard that does not fit in the store"() {
+        given:
+        def store = ColumnarElectorateData.allocateDirect(publicParameters, electionSet)
+
+        when:
+        store.put(2, firstShard)
+
+        then:
+        thrown(IndexOutOfBoundsException)
+    }
+
+    def "put should refuse coordinates that exceed their fixed width"() {
+        given:
+        def store = ColumnarElectorateData.allocateDirect(publicParameters, electionSet)
+        def shard = new ElectorateData(secondShard.getD(), secondShard.getD_hat(),
+                [[new Point(BigInteger.valueOf(256), ONE), new Point(ZERO, ZERO), new Point(ONE, ONE)]],
+                secondShard.getK())
+
+        when:
+        store.put(0, shard)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
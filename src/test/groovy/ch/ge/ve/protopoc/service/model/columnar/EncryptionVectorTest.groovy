@@ -0,0 +1,95 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.columnar
+
+import ch.ge.ve.protopoc.service.model.Encryption
+import ch.ge.ve.protopoc.service.model.Shuffle
+import ch.ge.ve.protopoc.service.model.ShufflesAndProofs
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * This test class holds the tests for the {@link EncryptionVector}
+ */
+class EncryptionVectorTest extends Specification {
+    def "a direct vector should give back the encryptions it was given"() {
+        given:
+        def vector = EncryptionVector.allocateDirect(3, BigInteger.valueOf(1021))
+
+        when:
+        vector.put(0, new Encryption(BigInteger.valueOf(1020), ONE))
+        vector.set(2, new Encryption(ZERO, BigInteger.valueOf(300)))
+
+        then:
+        vector == [new Encryption(BigInteger.valueOf(1020), ONE),
+                   new Encryption(ZERO, ZERO),
+                   new Encryption(ZERO, BigInteger.valueOf(300))]
+        vector.subList(2, 3) == [new Encryption(ZERO, BigInteger.valueOf(300))]
+    }
+
+    def "a mapped store should give back the encryptions it was given"() {
+        given:
+        def directory = Files.createTempDirectory("encryptions")
+        def vector = VectorStore.mapped(directory).newEncryptionVector(2, ELEVEN)
+
+        when:
+        vector.set(1, new Encryption(NINE, FOUR))
+
+        then:
+        vector == [new Encryption(ZERO, ZERO), new Encryption(NINE, FOUR)]
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+
+    def "a vector should refuse components that exceed its bound"() {
+        given:
+        def vector = EncryptionVector.allocateDirect(1, ELEVEN)
+
+        when:
+        vector.put(0, new Encryption(THREE, BigInteger.valueOf(16)))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "the model classes should hold frozen vectors without copying them"() {
+        given:
+        def bold_e_prime = EncryptionVector.allocateDirect(2, ELEVEN)
+        bold_e_prime.put(0, new Encryption(FIVE, THREE))
+        bold_e_prime.put(1, new Encryption(NINE, ONE))
+        bold_e_prime.freeze()
+
+        when:
+        def shuffle = new Shuffle(bold_e_prime, [ONE, TWO], [1, 0])
+        def shufflesAndProofs = new ShufflesAndProofs([bold_e_prime], [])
+
+        then:
+        shuffle.bold_e_prime.is(bold_e_prime)
+        shufflesAndProofs.shuffles[0].is(bold_e_prime)
+    }
+}
@@ -0,0 +1,130 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model.polynomial
+
+import ch.ge.ve.protopoc.arithmetic.PrimeFieldArithmetic
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.TEN
+import static java.math.BigInteger.ZERO
+
+/**
+ * Tests on the batched Lagrange interpolation at zero of {@link LagrangeWeights}
+ */
+class LagrangeWeightsTest extends Specification {
+    static final BigInteger P_224 = ONE.shiftLeft(224).subtract(ONE.shiftLeft(96)).add(ONE) // NIST P-224 prime
+
+    /**
+     * Interpolation at zero with one modular inversion per term
+     */
+    static BigInteger interpolateWithModInverse(List<Point> points, BigInteger p_prime) {
+        def sum = ZERO
+        points.eachWithIndex { Point point_i, int i ->
+            def weight = ONE
+            points.eachWithIndex { Point point_j, int j ->
+                if (i != j) {
+                    weight = weight.multiply(point_j.x)
+                            .multiply(point_j.x.subtract(point_i.x).modInverse(p_prime)).mod(p_prime)
+                }
+            }
+            sum = sum.add(point_i.y.multiply(weight)).mod(p_prime)
+        }
+        return sum
+    }
+
+    static List<Point> toPoints(List<List<BigInteger>> coordinates) {
+        coordinates.collect { new Point(it[0], it[1]) }
+    }
+
+    def "interpolate should match the interpolation with one inversion per term"() {
+        given:
+        def points = PackedPoints.pack(toPoints(coordinates), new PrimeFieldArithmetic(p_prime))
+
+        expect:
+        LagrangeWeights.atZero(points, 0, points.size()).interpolate(points, 0, points.size()) ==
+                interpolateWithModInverse(toPoints(coordinates), p_prime)
+
+        where:
+        p_prime | coordinates
+        ELEVEN  | [[ONE, THREE]]
+        ELEVEN  | [[ONE, THREE], [TWO, FIVE]]
+        ELEVEN  | [[ONE, THREE], [FOUR, TEN], [NINE, ZERO], [SEVEN, TWO]]
+        P_224   | [[ONE, P_224.subtract(ONE)], [P_224.subtract(TWO), SIX], [ONE.shiftLeft(200), ONE.shiftLeft(180)]]
+    }
+
+    def "interpolate should recover the constant term of the polynomial"() {
+        given: "the points of 4 + 3x + 2x^2 mod 11"
+        def field = new PrimeFieldArithmetic(ELEVEN)
+        def points = PackedPoints.pack(toPoints([[ONE, NINE], [TWO, SEVEN], [THREE, NINE]]), field)
+
+        expect:
+        LagrangeWeights.atZero(points, 0, 3).interpolate(points, 0, 3) == FOUR
+    }
+
+    def "the weights of a range should only depend on the points within the range"() {
+        given:
+        def coordinates = [[FIVE, ONE], [ONE, THREE], [FOUR, TEN], [SEVEN, TWO], [FIVE, EIGHT]]
+        def points = PackedPoints.pack(toPoints(coordinates), new PrimeFieldArithmetic(ELEVEN))
+
+        expect:
+        LagrangeWeights.atZero(points, 1, 4).interpolate(points, 1, 4) ==
+                interpolateWithModInverse(toPoints(coordinates.subList(1, 4)), ELEVEN)
+    }
+
+    def "the weights should be reusable for other points sharing the same x-coordinates"() {
+        given:
+        def field = new PrimeFieldArithmetic(ELEVEN)
+        def first = PackedPoints.pack(toPoints([[ONE, THREE], [FOUR, TEN], [NINE, ZERO]]), field)
+        def second = PackedPoints.pack(toPoints([[ONE, SIX], [FOUR, ONE], [NINE, EIGHT]]), field)
+        def weights = LagrangeWeights.atZero(first, 0, 3)
+
+        expect:
+        weights.interpolate(second, 0, 3) == interpolateWithModInverse(second, ELEVEN)
+    }
+
+    def "atZero should refuse duplicate x-coordinates"() {
+        given:
+        def points = PackedPoints.pack(toPoints([[ONE, THREE], [FOUR, TEN], [ONE, FIVE]]),
+                new PrimeFieldArithmetic(ELEVEN))
+
+        when:
+        LagrangeWeights.atZero(points, 0, 3)
+
+        then:
+        thrown(ArithmeticException)
+    }
+
+    def "interpolate should refuse points with other x-coordinates"() {
+        given:
+        def field = new PrimeFieldArithmetic(ELEVEN)
+        def weights = LagrangeWeights.atZero(PackedPoints.pack(toPoints([[ONE, THREE], [FOUR, TEN]]), field), 0, 2)
+        def points = PackedPoints.pack(toPoints([[ONE, THREE], [FIVE, TEN]]), field)
+
+        when:
+        weights.interpolate(points, 0, 2)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
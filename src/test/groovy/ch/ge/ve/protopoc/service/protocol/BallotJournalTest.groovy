@@ -0,0 +1,112 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol
+
+import ch.ge.ve.protopoc.service.model.*
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+
+/**
+ * This test class holds the tests for the {@link BallotJournal}
+ */
+class BallotJournalTest extends Specification {
+    def defaultAlphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray() as List<Character>
+    EncryptionGroup encryptionGroup = new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR)
+    IdentificationGroup identificationGroup = new IdentificationGroup(ELEVEN, FIVE, THREE)
+    SecurityParameters securityParameters = new SecurityParameters(1, 1, 2, 0.99)
+    PrimeField primeField = new PrimeField(FIVE)
+    PublicParameters publicParameters = new PublicParameters(
+            securityParameters, encryptionGroup, identificationGroup, primeField,
+            FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+            defaultAlphabet, 2, defaultAlphabet, 2, 2, 5
+    )
+
+    Path directory
+
+    void setup() {
+        directory = Files.createTempDirectory("journal")
+    }
+
+    void cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    def "the entries should be replayed in the order they were recorded"() {
+        given:
+        def alpha = new BallotAndQuery(NINE, [THREE, FIVE], ONE,
+                new NonInteractiveZKP([FOUR, NINE, THREE], [TWO, FIVE, FOUR]))
+        def ballotEntry = new BallotEntry(3, alpha, [TWO, FOUR])
+        def confirmationEntry = new ConfirmationEntry(3, new Confirmation(FIVE, new NonInteractiveZKP([NINE], [THREE])))
+        def journal = BallotJournal.open(directory, publicParameters)
+        journal.record(ballotEntry)
+        journal.record(confirmationEntry)
+        journal.close()
+        def ballotEntries = []
+        def confirmationEntries = []
+
+        when:
+        def reopened = BallotJournal.open(directory, publicParameters)
+        reopened.replay({ ballotEntries << it }, { confirmationEntries << it })
+
+        then:
+        ballotEntries.size() == 1
+        ballotEntries[0].i == 3
+        ballotEntries[0].alpha.x_hat == NINE
+        ballotEntries[0].alpha.bold_a == [THREE, FIVE]
+        ballotEntries[0].alpha.pi == alpha.pi
+        ballotEntries[0].bold_r == [TWO, FOUR]
+        confirmationEntries == [confirmationEntry]
+
+        cleanup:
+        reopened?.close()
+    }
+
+    def "the entries recorded concurrently should all be replayed"() {
+        given:
+        def journal = BallotJournal.open(directory, publicParameters)
+        def executor = Executors.newFixedThreadPool(8)
+        def confirmations = (0..<100).collect { i ->
+            new ConfirmationEntry(i, new Confirmation(FIVE, new NonInteractiveZKP([NINE], [THREE])))
+        }
+
+        when:
+        confirmations.collect { entry -> executor.submit({ journal.record(entry) } as Callable) }*.get()
+        journal.close()
+        def replayed = []
+        def reopened = BallotJournal.open(directory, publicParameters)
+        reopened.replay({ throw new AssertionError("no ballot was recorded") }, { replayed << it })
+
+        then:
+        replayed.toSet() == confirmations.toSet()
+
+        cleanup:
+        executor.shutdown()
+        reopened?.close()
+    }
+}
@@ -0,0 +1,254 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol
+
+import ch.ge.ve.protopoc.service.algorithm.*
+import ch.ge.ve.protopoc.service.exception.IncorrectBallotRuntimeException
+import ch.ge.ve.protopoc.service.model.*
+import ch.ge.ve.protopoc.service.model.polynomial.Point
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.security.KeyPair
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * This test class holds the tests for the snapshots and the ballot handling of the {@link DefaultAuthority}
+ */
+class DefaultAuthorityTest extends Specification {
+    EncryptionGroup encryptionGroup = new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR)
+    PublicParameters publicParameters = new PublicParameters(
+            new SecurityParameters(1, 1, 1, 0.9),
+            encryptionGroup,
+            new IdentificationGroup(SEVEN, THREE, THREE),
+            new PrimeField(BigInteger.valueOf(251)),
+            THREE,
+            ['a', 'b'] as List<Character>,
+            THREE,
+            ['a', 'b'] as List<Character>,
+            ['a', 'b'] as List<Character>,
+            2,
+            ['a', 'b'] as List<Character>,
+            1,
+            4,
+            4
+    )
+    EncryptionPublicKey publicKey = new EncryptionPublicKey(NINE, encryptionGroup)
+    EncryptionPrivateKey privateKey = new EncryptionPrivateKey(TWO, encryptionGroup)
+
+    BulletinBoardService bulletinBoardService = Mock()
+    KeyEstablishmentAlgorithms keyEstablishmentAlgorithms = Mock()
+    ElectionPreparationAlgorithms electionPreparationAlgorithms = Mock()
+    VoteCastingAuthorityAlgorithms voteCastingAuthorityAlgorithms = Mock()
+
+    ElectionSet electionSet
+    ElectorateData shard
+    Path parent
+    Path snapshot
+
+    void setup() {
+        DomainOfInfluence doi = new DomainOfInfluence("test")
+        Voter voter1 = new Voter()
+        Voter voter2 = new Voter()
+        [voter1, voter2].each { it.addDomainsOfInfluence(doi) }
+        electionSet = new ElectionSet([voter1, voter2], [new Candidate("1"), new Candidate("2")],
+                [new Election(2, 1, doi)])
+        shard = new ElectorateData(
+                [new SecretVoterData(ONE, TWO, [0x7F] as byte[], [[0x01, 0x02], [0x03, 0x04]] as byte[][]),
+                 new SecretVoterData(ZERO, THREE, [0x40] as byte[], [[0x7F, 0x00], [0x00, 0x7F]] as byte[][])],
+                [new Point(FIVE, SIX), new Point(ZERO, ONE)],
+                [[new Point(ONE, BigInteger.valueOf(200)), new Point(TWO, BigInteger.valueOf(128))],
+                 [new Point(BigInteger.valueOf(250), ONE), new Point(FOUR, FIVE)]],
+                [[1], [1]])
+
+        bulletinBoardService.getPublicParameters() >> publicParameters
+        bulletinBoardService.getElectionSet() >> electionSet
+        bulletinBoardService.getPublicCredentialsParts() >> [shard.getD_hat()]
+        keyEstablishmentAlgorithms.generateKeyPair(encryptionGroup) >> { new KeyPair(publicKey, privateKey) }
+        keyEstablishmentAlgorithms.getPublicKey(_) >> publicKey
+        electionPreparationAlgorithms.genElectorateData(electionSet, _) >> { args ->
+            (args[1] as ElectorateDataSink).accept(0, shard)
+        }
+        electionPreparationAlgorithms.getPublicCredentials(_) >> shard.getD_hat()
+
+        parent = Files.createTempDirectory("snapshots")
+        snapshot = parent.resolve("authority-0")
+    }
+
+    void cleanup() {
+        parent.toFile().deleteDir()
+    }
+
+    def "a saved snapshot should restore the credentials of the authority"() {
+        given:
+        bulletinBoardService.getPublicKeyParts() >> [publicKey] * 4
+        def authority = initializedAuthority()
+
+        when:
+        authority.saveSnapshot(snapshot)
+        def restored = newAuthority()
+        restored.restoreSnapshot(snapshot)
+
+        then:
+        restored.getPrivateCredentials() == shard.getD()
+        parent.toFile().list() as List == ["authority-0"]
+    }
+
+    def "a snapshot saved again should replace the previous one"() {
+        given:
+        bulletinBoardService.getPublicKeyParts() >> [publicKey] * 4
+        def authority = initializedAuthority()
+        authority.saveSnapshot(snapshot)
+
+        when:
+        authority.saveSnapshot(snapshot)
+        def restored = newAuthority()
+        restored.restoreSnapshot(snapshot)
+
+        then:
+        restored.getPrivateCredentials() == shard.getD()
+        parent.toFile().list() as List == ["authority-0"]
+    }
+
+    def "the snapshot set aside should be restored if the new one was not renamed into place"() {
+        given: "a crash between the two renames"
+        bulletinBoardService.getPublicKeyParts() >> [publicKey] * 4
+        initializedAuthority().saveSnapshot(snapshot)
+        Files.move(snapshot, parent.resolve("authority-0.old"))
+
+        when:
+        def restored = newAuthority()
+        restored.restoreSnapshot(snapshot)
+
+        then:
+        restored.getPrivateCredentials() == shard.getD()
+    }
+
+    def "a snapshot that does not match the published key part should not be restored"() {
+        given:
+        def otherPublicKey = new EncryptionPublicKey(FOUR, encryptionGroup)
+        bulletinBoardService.getPublicKeyParts() >>> [[publicKey] * 4, [otherPublicKey] * 4]
+        initializedAuthority().saveSnapshot(snapshot)
+
+        when:
+        newAuthority().restoreSnapshot(snapshot)
+
+        then:
+        thrown(IOException)
+    }
+
+    def "a snapshot whose private key does not match its public key should not be restored"() {
+        given: "a private key other than the discrete logarithm of the public key, 3^3 mod 11 = 5"
+        privateKey = new EncryptionPrivateKey(THREE, encryptionGroup)
+        bulletinBoardService.getPublicKeyParts() >> [publicKey] * 4
+        initializedAuthority().saveSnapshot(snapshot)
+
+        when:
+        newAuthority().restoreSnapshot(snapshot)
+
+        then:
+        thrown(IOException)
+    }
+
+    def "concurrent submissions of a ballot for the same voter should accept only one of them"() {
+        given: "checks that all pass, as they would if every submission were checked before any is recorded"
+        bulletinBoardService.getPublicKeyParts() >> [publicKey] * 4
+        def authority = initializedAuthority()
+        def ballotAndQuery = new BallotAndQuery(NINE, [THREE], ONE, new NonInteractiveZKP([ONE], [ONE]))
+        voteCastingAuthorityAlgorithms.checkBallot(*_) >> true
+        voteCastingAuthorityAlgorithms.genResponse(*_) >> new ObliviousTransferResponseAndRand(
+                new ObliviousTransferResponse([THREE], [[0x01]] as byte[][], [FIVE]), [TWO])
+
+        and: "submissions released all at once"
+        int submissions = 8
+        def executor = Executors.newFixedThreadPool(submissions)
+        def start = new CountDownLatch(1)
+
+        when:
+        def results = (1..submissions).collect {
+            executor.submit({
+                start.await()
+                authority.handleBallot(1, ballotAndQuery)
+            } as Callable)
+        }
+        start.countDown()
+        def outcomes = results.collect {
+            try {
+                it.get()
+            } catch (ExecutionException e) {
+                e.cause
+            }
+        }
+
+        then:
+        outcomes.count { it instanceof ObliviousTransferResponse } == 1
+        outcomes.count { it instanceof IncorrectBallotRuntimeException } == submissions - 1
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "a rejected ballot should not keep the voter from submitting a ballot again"() {
+        given:
+        bulletinBoardService.getPublicKeyParts() >> [publicKey] * 4
+        def authority = initializedAuthority()
+        def ballotAndQuery = new BallotAndQuery(NINE, [THREE], ONE, new NonInteractiveZKP([ONE], [ONE]))
+        voteCastingAuthorityAlgorithms.checkBallot(*_) >>> [false, true]
+        voteCastingAuthorityAlgorithms.genResponse(*_) >> new ObliviousTransferResponseAndRand(
+                new ObliviousTransferResponse([THREE], [[0x01]] as byte[][], [FIVE]), [TWO])
+
+        when:
+        authority.handleBallot(1, ballotAndQuery)
+
+        then:
+        thrown(IncorrectBallotRuntimeException)
+
+        when:
+        def beta = authority.handleBallot(1, ballotAndQuery)
+
+        then:
+        beta.getB() == [THREE]
+    }
+
+    private DefaultAuthority initializedAuthority() {
+        def authority = newAuthority()
+        authority.generateKeys()
+        authority.buildPublicKey()
+        authority.generateElectorateData()
+        authority.buildPublicCredentials()
+        return authority
+    }
+
+    private DefaultAuthority newAuthority() {
+        new DefaultAuthority(0, bulletinBoardService, keyEstablishmentAlgorithms, electionPreparationAlgorithms,
+                voteCastingAuthorityAlgorithms, Mock(VoteConfirmationAuthorityAlgorithms),
+                Mock(MixingAuthorityAlgorithms), Mock(DecryptionAuthorityAlgorithms))
+    }
+}
@@ -0,0 +1,162 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol
+
+import ch.ge.ve.protopoc.service.model.*
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.protocol.BulletinBoardEvent.Type.*
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * This test class holds the tests for the notifications of the {@link DefaultBulletinBoard}
+ */
+class DefaultBulletinBoardTest extends Specification {
+    def defaultAlphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray() as List<Character>
+    EncryptionGroup encryptionGroup = new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR)
+    IdentificationGroup identificationGroup = new IdentificationGroup(ELEVEN, FIVE, THREE)
+    SecurityParameters securityParameters = new SecurityParameters(1, 1, 2, 0.99)
+    PrimeField primeField = new PrimeField(FIVE)
+    PublicParameters publicParameters = new PublicParameters(
+            securityParameters, encryptionGroup, identificationGroup, primeField,
+            FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+            defaultAlphabet, 2, defaultAlphabet, 2, 2, 5
+    )
+    def shuffleProof = new ShuffleProof(
+            new ShuffleProof.T(ONE, THREE, FOUR, [FIVE, NINE], [THREE, FOUR]),
+            new ShuffleProof.S(ZERO, ONE, TWO, FOUR, [THREE, ONE], [TWO, FOUR]),
+            [NINE, FIVE], [ONE, THREE])
+
+    DefaultBulletinBoard bulletinBoard = new DefaultBulletinBoard()
+    List<BulletinBoardEvent> events = []
+
+    void setup() {
+        bulletinBoard.publishPublicParameters(publicParameters)
+        bulletinBoard.addListener({ events << it } as BulletinBoardListener)
+    }
+
+    def "the listeners should be notified of each publication, once it can be read"() {
+        given:
+        def shuffle = [new Encryption(FIVE, NINE), new Encryption(THREE, ONE)]
+        def readShuffles = []
+        bulletinBoard.addListener({
+            if (it.type == SHUFFLE) {
+                readShuffles << bulletinBoard.getPreviousShuffle(it.j)
+            }
+        } as BulletinBoardListener)
+
+        when:
+        bulletinBoard.publishKeyPart(1, new EncryptionPublicKey(THREE, encryptionGroup))
+        bulletinBoard.publishShuffle(0, shuffle)
+        bulletinBoard.publishShuffleProof(0, shuffleProof)
+
+        then:
+        events*.type == [PUBLIC_KEY_PART, SHUFFLE, SHUFFLE_PROOF]
+        events*.j == [1, 0, 0]
+        events[1].publication == shuffle
+        events[2].publication == shuffleProof
+        readShuffles == [shuffle]
+    }
+
+    def "the shuffles should be published ahead of their proofs, the decryption waiting for all of them"() {
+        given:
+        def shuffle0 = [new Encryption(FIVE, NINE), new Encryption(THREE, ONE)]
+        def shuffle1 = [new Encryption(ONE, FOUR), new Encryption(NINE, NINE)]
+
+        when: "both shuffles are published, and only the proof of the second one"
+        bulletinBoard.publishShuffle(0, shuffle0)
+        bulletinBoard.publishShuffle(1, shuffle1)
+        bulletinBoard.publishShuffleProof(1, shuffleProof)
+
+        then: "the next mixer can read the shuffles"
+        bulletinBoard.getPreviousShuffle(1) == shuffle1
+        events*.type == [SHUFFLE, SHUFFLE, SHUFFLE_PROOF]
+
+        when: "a partial decryption is published before the last proof"
+        bulletinBoard.publishPartialDecryptionAndProof(0, [THREE, FOUR], new DecryptionProof([ONE, NINE, FIVE], TWO))
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        bulletinBoard.getShufflesAndProofs()
+
+        then:
+        thrown(IllegalStateException)
+
+        when: "the last proof comes in"
+        bulletinBoard.publishShuffleProof(0, shuffleProof)
+
+        then:
+        bulletinBoard.shufflesAndProofs.shuffles == [shuffle0, shuffle1]
+        bulletinBoard.shufflesAndProofs.shuffleProofs == [shuffleProof, shuffleProof]
+    }
+
+    def "a shuffle proof should neither precede its shuffle nor be replaced"() {
+        when:
+        bulletinBoard.publishShuffleProof(0, shuffleProof)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        bulletinBoard.publishShuffle(0, [new Encryption(FIVE, NINE)])
+        bulletinBoard.publishShuffleProof(0, shuffleProof)
+        bulletinBoard.publishShuffleProof(0, shuffleProof)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "a failing listener should neither prevent the publication nor the other notifications"() {
+        given:
+        def failing = { throw new IllegalStateException("Not listening") } as BulletinBoardListener
+        bulletinBoard.addListener(failing)
+        def counted = []
+        bulletinBoard.addListener({ counted << it.type } as BulletinBoardListener)
+
+        when:
+        bulletinBoard.publishKeyPart(0, new EncryptionPublicKey(FIVE, encryptionGroup))
+
+        then:
+        counted == [PUBLIC_KEY_PART]
+        events*.type == [PUBLIC_KEY_PART]
+    }
+
+    def "a removed listener should no longer be notified"() {
+        given:
+        def counted = []
+        def listener = { counted << it.type } as BulletinBoardListener
+        bulletinBoard.addListener(listener)
+
+        when:
+        bulletinBoard.publishKeyPart(0, new EncryptionPublicKey(FIVE, encryptionGroup))
+        bulletinBoard.removeListener(listener)
+        bulletinBoard.publishKeyPart(1, new EncryptionPublicKey(THREE, encryptionGroup))
+
+        then:
+        counted == [PUBLIC_KEY_PART]
+        events*.j == [0, 1]
+    }
+}
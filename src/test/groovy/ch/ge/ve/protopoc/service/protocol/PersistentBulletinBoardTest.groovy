@@ -0,0 +1,268 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol
+
+import ch.ge.ve.protopoc.service.codec.ProtocolCodec
+import ch.ge.ve.protopoc.service.model.*
+import ch.ge.ve.protopoc.service.model.columnar.FixedWidthVector
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore
+import ch.ge.ve.protopoc.service.model.polynomial.Point
+import ch.ge.ve.protopoc.service.storage.SegmentedLog
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * This test class holds the tests for the {@link PersistentBulletinBoard}
+ */
+class PersistentBulletinBoardTest extends Specification {
+    def defaultAlphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray() as List<Character>
+    EncryptionGroup encryptionGroup = new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR)
+    IdentificationGroup identificationGroup = new IdentificationGroup(ELEVEN, FIVE, THREE)
+    SecurityParameters securityParameters = new SecurityParameters(1, 1, 2, 0.99)
+    PrimeField primeField = new PrimeField(FIVE)
+    PublicParameters publicParameters = new PublicParameters(
+            securityParameters, encryptionGroup, identificationGroup, primeField,
+            FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+            defaultAlphabet, 2, defaultAlphabet, 2, 2, 5
+    )
+    def shuffleProof = new ShuffleProof(
+            new ShuffleProof.T(ONE, THREE, FOUR, [FIVE, NINE], [THREE, FOUR]),
+            new ShuffleProof.S(ZERO, ONE, TWO, FOUR, [THREE, ONE], [TWO, FOUR]),
+            [NINE, FIVE], [ONE, THREE])
+
+    Path directory
+
+    void setup() {
+        directory = Files.createTempDirectory("board")
+    }
+
+    void cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    def "a reopened board should hold the publications of the mixing phase"() {
+        given:
+        def board = PersistentBulletinBoard.open(directory)
+        board.publishPublicParameters(publicParameters)
+        board.publishKeyPart(0, new EncryptionPublicKey(FIVE, encryptionGroup))
+        board.publishKeyPart(1, new EncryptionPublicKey(THREE, encryptionGroup))
+        board.publishPublicCredentials(0, [new Point(ONE, TWO), new Point(THREE, FOUR)])
+        board.publishPublicCredentials(1, [new Point(ZERO, ONE), new Point(TWO, TWO)])
+        board.publishShuffle(0, [new Encryption(FIVE, NINE), new Encryption(THREE, ONE)])
+        board.publishShuffleProof(0, shuffleProof)
+        board.publishShuffle(1, [new Encryption(ONE, FOUR), new Encryption(NINE, NINE)])
+        board.publishShuffleProof(1, shuffleProof)
+        board.close()
+
+        when:
+        def reopened = PersistentBulletinBoard.open(directory, VectorStore.direct())
+
+        then:
+        reopened.publicParameters.s == 2
+        reopened.publicParameters.upper_a_x == defaultAlphabet
+        reopened.publicKeyParts*.publicKey == [FIVE, THREE]
+        reopened.publicCredentialsParts == [[new Point(ONE, TWO), new Point(THREE, FOUR)],
+                                            [new Point(ZERO, ONE), new Point(TWO, TWO)]]
+        reopened.shufflesAndProofs.shuffles == [[new Encryption(FIVE, NINE), new Encryption(THREE, ONE)],
+                                                [new Encryption(ONE, FOUR), new Encryption(NINE, NINE)]]
+        reopened.shufflesAndProofs.shuffleProofs == [shuffleProof, shuffleProof]
+        reopened.getPreviousShuffle(1) instanceof FixedWidthVector
+
+        cleanup:
+        reopened?.close()
+    }
+
+    def "a reopened board should resume the decryption phase"() {
+        given:
+        def board = PersistentBulletinBoard.open(directory)
+        board.publishPublicParameters(publicParameters)
+        board.publishKeyPart(0, new EncryptionPublicKey(FIVE, encryptionGroup))
+        board.publishKeyPart(1, new EncryptionPublicKey(THREE, encryptionGroup))
+        board.publishShuffle(0, [new Encryption(FIVE, NINE)])
+        board.publishShuffleProof(0, shuffleProof)
+        board.publishShuffle(1, [new Encryption(ONE, FOUR)])
+        board.publishShuffleProof(1, shuffleProof)
+        board.publishPartialDecryptionAndProof(0, [THREE], new DecryptionProof([ONE, THREE, NINE], FOUR))
+        board.close()
+
+        when:
+        def reopened = PersistentBulletinBoard.open(directory)
+        reopened.publishPartialDecryptionAndProof(1, [FOUR], new DecryptionProof([ONE, NINE, NINE], TWO))
+        reopened.publishTally([1L])
+        def tallyData = reopened.tallyData
+
+        then:
+        tallyData.partialDecryptions == [[THREE], [FOUR]]
+        tallyData.decryptionProofs == [new DecryptionProof([ONE, THREE, NINE], FOUR),
+                                       new DecryptionProof([ONE, NINE, NINE], TWO)]
+
+        cleanup:
+        reopened?.close()
+    }
+
+    def "a reopened board should pair the partial decryptions and proofs of interleaved authorities"() {
+        given: "a log in which the records of both authorities are interleaved"
+        publishMixing(PersistentBulletinBoard.open(directory)).close()
+        def codec = new ProtocolCodec(publicParameters)
+        def log = SegmentedLog.open(directory)
+        appendRecord(log, 0, { out -> codec.writePartialDecryption([THREE], out) })
+        appendRecord(log, 1, { out -> codec.writePartialDecryption([FOUR], out) })
+        appendRecord(log, 1, { out -> codec.writeDecryptionProof(new DecryptionProof([ONE, NINE, NINE], TWO), out) })
+        appendRecord(log, 0, { out -> codec.writeDecryptionProof(new DecryptionProof([ONE, THREE, NINE], FOUR), out) })
+        log.close()
+
+        when:
+        def reopened = PersistentBulletinBoard.open(directory)
+        def tallyData = reopened.tallyData
+
+        then:
+        tallyData.partialDecryptions == [[THREE], [FOUR]]
+        tallyData.decryptionProofs == [new DecryptionProof([ONE, THREE, NINE], FOUR),
+                                       new DecryptionProof([ONE, NINE, NINE], TWO)]
+
+        cleanup:
+        reopened?.close()
+    }
+
+    def "concurrent decryptions should be paired with their proofs once reopened"() {
+        given:
+        def board = publishMixing(PersistentBulletinBoard.open(directory))
+        def start = new CountDownLatch(1)
+        def decryptions = [0, 1].collect { j ->
+            CompletableFuture.runAsync {
+                start.await()
+                board.publishPartialDecryptionAndProof(j, [[THREE], [FOUR]][j],
+                        [new DecryptionProof([ONE, THREE, NINE], FOUR), new DecryptionProof([ONE, NINE, NINE], TWO)][j])
+            }
+        }
+
+        when:
+        start.countDown()
+        decryptions*.join()
+        board.close()
+        def reopened = PersistentBulletinBoard.open(directory)
+
+        then:
+        reopened.tallyData.partialDecryptions == [[THREE], [FOUR]]
+        reopened.tallyData.decryptionProofs == [new DecryptionProof([ONE, THREE, NINE], FOUR),
+                                                new DecryptionProof([ONE, NINE, NINE], TWO)]
+
+        cleanup:
+        reopened?.close()
+    }
+
+    def "a refused publication should neither be persisted nor notified"() {
+        given:
+        def board = PersistentBulletinBoard.open(directory)
+        def events = []
+        board.addListener({ events << it } as BulletinBoardListener)
+        board.publishPublicParameters(publicParameters)
+
+        when:
+        board.publishShuffle(1, [new Encryption(FIVE, NINE)])
+
+        then:
+        thrown(IllegalArgumentException)
+        events.isEmpty()
+
+        when:
+        board.close()
+        def reopened = PersistentBulletinBoard.open(directory)
+        reopened.publishShuffle(0, [new Encryption(ONE, FOUR)])
+
+        then:
+        reopened.getPreviousShuffle(0) == [new Encryption(ONE, FOUR)]
+
+        cleanup:
+        reopened?.close()
+    }
+
+    def "a reopened board should hold a shuffle published ahead of its proof"() {
+        given:
+        def board = PersistentBulletinBoard.open(directory)
+        board.publishPublicParameters(publicParameters)
+        board.publishShuffle(0, [new Encryption(FIVE, NINE)])
+        board.publishShuffle(1, [new Encryption(ONE, FOUR)])
+        board.publishShuffleProof(1, shuffleProof)
+        board.close()
+
+        when:
+        def reopened = PersistentBulletinBoard.open(directory)
+        reopened.getShufflesAndProofs()
+
+        then: "the shuffles remain readable, but the mixing is not over yet"
+        reopened.getPreviousShuffle(1) == [new Encryption(ONE, FOUR)]
+        thrown(IllegalStateException)
+
+        when:
+        reopened.publishShuffleProof(0, shuffleProof)
+
+        then:
+        reopened.shufflesAndProofs.shuffleProofs == [shuffleProof, shuffleProof]
+
+        cleanup:
+        reopened?.close()
+    }
+
+    def "the public parameters of a reopened board should not be replaced"() {
+        given:
+        def board = PersistentBulletinBoard.open(directory)
+        board.publishPublicParameters(publicParameters)
+        board.close()
+        def reopened = PersistentBulletinBoard.open(directory)
+
+        when:
+        reopened.publishPublicParameters(publicParameters)
+
+        then:
+        thrown(IllegalStateException)
+
+        cleanup:
+        reopened.close()
+    }
+
+    private PersistentBulletinBoard publishMixing(PersistentBulletinBoard board) {
+        board.publishPublicParameters(publicParameters)
+        board.publishKeyPart(0, new EncryptionPublicKey(FIVE, encryptionGroup))
+        board.publishKeyPart(1, new EncryptionPublicKey(THREE, encryptionGroup))
+        board.publishShuffle(0, [new Encryption(FIVE, NINE)])
+        board.publishShuffleProof(0, shuffleProof)
+        board.publishShuffle(1, [new Encryption(ONE, FOUR)])
+        board.publishShuffleProof(1, shuffleProof)
+        return board
+    }
+
+    private static void appendRecord(SegmentedLog log, int j, Closure writer) {
+        log.appendAndCommit({ out ->
+            new DataOutputStream(out).writeInt(j)
+            writer(out)
+        } as SegmentedLog.PayloadWriter)
+    }
+}
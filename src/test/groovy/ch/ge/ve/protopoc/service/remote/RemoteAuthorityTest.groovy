@@ -0,0 +1,135 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote
+
+import ch.ge.ve.protopoc.service.exception.IncorrectBallotRuntimeException
+import ch.ge.ve.protopoc.service.exception.RemoteInvocationRuntimeException
+import ch.ge.ve.protopoc.service.model.*
+import ch.ge.ve.protopoc.service.protocol.AuthorityService
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+
+/**
+ * This test class holds the tests for the {@link RemoteAuthority} and the {@link AuthorityServer}
+ */
+class RemoteAuthorityTest extends Specification {
+    def defaultAlphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray() as List<Character>
+    EncryptionGroup encryptionGroup = new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR)
+    IdentificationGroup identificationGroup = new IdentificationGroup(ELEVEN, FIVE, THREE)
+    SecurityParameters securityParameters = new SecurityParameters(1, 1, 2, 0.99)
+    PrimeField primeField = new PrimeField(FIVE)
+    PublicParameters publicParameters = new PublicParameters(
+            securityParameters, encryptionGroup, identificationGroup, primeField,
+            FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+            defaultAlphabet, 2, defaultAlphabet, 2, 2, 5
+    )
+    def alpha = new BallotAndQuery(NINE, [THREE, FIVE], ONE,
+            new NonInteractiveZKP([FOUR, NINE, THREE], [TWO, FIVE, FOUR]))
+
+    AuthorityService authority = Mock()
+    AuthorityServer server
+    RemoteAuthority remoteAuthority
+
+    void setup() {
+        server = AuthorityServer.start("authority", authority, publicParameters)
+        remoteAuthority = new RemoteAuthority(server.address, publicParameters)
+    }
+
+    void cleanup() {
+        remoteAuthority.close()
+        server.close()
+    }
+
+    def "the calls should be forwarded to the authority served"() {
+        when:
+        remoteAuthority.startPrecomputation(100)
+        remoteAuthority.mixAgain()
+
+        then:
+        1 * authority.startPrecomputation(100)
+        1 * authority.mixAgain()
+    }
+
+    def "handleBallot should forward the ballot and return the response of the authority"() {
+        given:
+        def beta = new ObliviousTransferResponse([THREE, NINE], [[0x01, 0x02], [0x0A, 0x0B]] as byte[][], [FIVE])
+
+        when:
+        def response = remoteAuthority.handleBallot(3, alpha)
+
+        then:
+        1 * authority.handleBallot(3, { it.x_hat == NINE && it.bold_a == [THREE, FIVE] }) >> beta
+        response == beta
+    }
+
+    def "handleConfirmation should return the finalization code part of the authority"() {
+        given:
+        def gamma = new Confirmation(FIVE, new NonInteractiveZKP([NINE], [THREE]))
+        def delta = new FinalizationCodePart([0x0B, 0x0C] as byte[], [THREE, ONE])
+        authority.handleConfirmation(7, gamma) >> delta
+
+        expect:
+        remoteAuthority.handleConfirmation(7, gamma) == delta
+    }
+
+    def "the runtime exceptions of the authority should be thrown again by the adapter"() {
+        given:
+        authority.handleBallot(3, _) >> { throw new IncorrectBallotRuntimeException("Ballot for voter 3 was deemed invalid") }
+
+        when:
+        remoteAuthority.handleBallot(3, alpha)
+
+        then:
+        def e = thrown(IncorrectBallotRuntimeException)
+        e.message == "Ballot for voter 3 was deemed invalid"
+    }
+
+    def "the connection should remain usable after an exception of the authority"() {
+        given:
+        authority.generateKeys() >> { throw new IllegalStateException("Not yet") }
+
+        when:
+        remoteAuthority.generateKeys()
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        remoteAuthority.buildPublicKey()
+
+        then:
+        1 * authority.buildPublicKey()
+    }
+
+    def "a call to a stopped server should fail"() {
+        given:
+        server.close()
+
+        when:
+        remoteAuthority.generateKeys()
+
+        then:
+        thrown(RemoteInvocationRuntimeException)
+    }
+}
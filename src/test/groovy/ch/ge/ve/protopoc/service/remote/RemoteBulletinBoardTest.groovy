@@ -0,0 +1,134 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote
+
+import ch.ge.ve.protopoc.service.model.*
+import ch.ge.ve.protopoc.service.model.columnar.VectorStore
+import ch.ge.ve.protopoc.service.model.polynomial.Point
+import ch.ge.ve.protopoc.service.protocol.DefaultBulletinBoard
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * This test class holds the tests for the {@link RemoteBulletinBoard} and the {@link BulletinBoardServer}
+ */
+class RemoteBulletinBoardTest extends Specification {
+    def defaultAlphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray() as List<Character>
+    EncryptionGroup encryptionGroup = new EncryptionGroup(ELEVEN, FIVE, THREE, FOUR)
+    IdentificationGroup identificationGroup = new IdentificationGroup(ELEVEN, FIVE, THREE)
+    SecurityParameters securityParameters = new SecurityParameters(1, 1, 2, 0.99)
+    PrimeField primeField = new PrimeField(FIVE)
+    PublicParameters publicParameters = new PublicParameters(
+            securityParameters, encryptionGroup, identificationGroup, primeField,
+            FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+            defaultAlphabet, 2, defaultAlphabet, 2, 2, 5
+    )
+    def shuffleProof = new ShuffleProof(
+            new ShuffleProof.T(ONE, THREE, FOUR, [FIVE, NINE], [THREE, FOUR]),
+            new ShuffleProof.S(ZERO, ONE, TWO, FOUR, [THREE, ONE], [TWO, FOUR]),
+            [NINE, FIVE], [ONE, THREE])
+
+    DefaultBulletinBoard bulletinBoard = new DefaultBulletinBoard()
+    BulletinBoardServer server
+    RemoteBulletinBoard remoteBulletinBoard
+
+    void setup() {
+        server = BulletinBoardServer.start("bulletin-board", bulletinBoard, VectorStore.heap())
+        remoteBulletinBoard = new RemoteBulletinBoard(server.address)
+    }
+
+    void cleanup() {
+        remoteBulletinBoard.close()
+        server.close()
+    }
+
+    def "the public parameters should be null until they have been published"() {
+        expect:
+        remoteBulletinBoard.publicParameters == null
+
+        when:
+        remoteBulletinBoard.publishPublicParameters(publicParameters)
+
+        then:
+        bulletinBoard.publicParameters.encryptionGroup == encryptionGroup
+        remoteBulletinBoard.publicParameters.s == 2
+    }
+
+    def "the publications made through the adapter should be read back from the bulletin board"() {
+        given:
+        def domain = new DomainOfInfluence("canton")
+        def voter = new Voter()
+        voter.addDomainsOfInfluence(domain)
+        bulletinBoard.publishPublicParameters(publicParameters)
+        bulletinBoard.publishElectionSet(new ElectionSet([voter], [new Candidate("yes"), new Candidate("no")],
+                [new Election(2, 1, domain)]))
+
+        when:
+        remoteBulletinBoard.publishKeyPart(0, new EncryptionPublicKey(NINE, encryptionGroup))
+        remoteBulletinBoard.publishKeyPart(1, new EncryptionPublicKey(FIVE, encryptionGroup))
+        remoteBulletinBoard.publishPublicCredentials(0, [new Point(ONE, TWO)])
+        remoteBulletinBoard.publishPublicCredentials(1, [new Point(THREE, NINE)])
+
+        then:
+        remoteBulletinBoard.publicKeyParts == [new EncryptionPublicKey(NINE, encryptionGroup),
+                                               new EncryptionPublicKey(FIVE, encryptionGroup)]
+        remoteBulletinBoard.publicCredentialsParts == [[new Point(ONE, TWO)], [new Point(THREE, NINE)]]
+        remoteBulletinBoard.electionSet.candidates == [new Candidate("yes"), new Candidate("no")]
+        remoteBulletinBoard.electionSet.voters*.allowedDomainsOfInfluence*.toList() == [[domain]]
+    }
+
+    def "the shuffles and the partial decryptions should be published through the adapter"() {
+        given:
+        def shuffle0 = [new Encryption(FIVE, NINE), new Encryption(THREE, ONE)]
+        def shuffle1 = [new Encryption(ONE, FOUR), new Encryption(NINE, NINE)]
+        bulletinBoard.publishPublicParameters(publicParameters)
+        bulletinBoard.publishKeyPart(0, new EncryptionPublicKey(NINE, encryptionGroup))
+        bulletinBoard.publishKeyPart(1, new EncryptionPublicKey(FIVE, encryptionGroup))
+
+        when:
+        remoteBulletinBoard.publishShuffle(0, shuffle0)
+        remoteBulletinBoard.publishShuffle(1, shuffle1)
+        remoteBulletinBoard.publishShuffleProof(1, shuffleProof)
+        remoteBulletinBoard.publishShuffleProof(0, shuffleProof)
+        remoteBulletinBoard.publishPartialDecryptionAndProof(0, [THREE, FOUR], new DecryptionProof([ONE, NINE, FIVE], TWO))
+        remoteBulletinBoard.publishPartialDecryptionAndProof(1, [NINE, ONE], new DecryptionProof([FOUR, THREE, ONE], ZERO))
+
+        then:
+        remoteBulletinBoard.getPreviousShuffle(0) == shuffle0
+        remoteBulletinBoard.shufflesAndProofs.shuffles == [shuffle0, shuffle1]
+        remoteBulletinBoard.tallyData == bulletinBoard.tallyData
+    }
+
+    def "the precondition failures of the bulletin board should be thrown again by the adapter"() {
+        given:
+        bulletinBoard.publishPublicParameters(publicParameters)
+
+        when:
+        remoteBulletinBoard.publishPublicParameters(publicParameters)
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
@@ -0,0 +1,87 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.remote
+
+import ch.ge.ve.protopoc.service.remote.RemoteClient.ArgumentsWriter
+import ch.ge.ve.protopoc.service.remote.RemoteClient.ResultReader
+import ch.ge.ve.protopoc.service.remote.RemoteServer.Dispatcher
+import ch.ge.ve.protopoc.service.remote.RemoteServer.ResultWriter
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.remote.AuthorityOperation.BUILD_PUBLIC_KEY
+import static ch.ge.ve.protopoc.service.remote.AuthorityOperation.GENERATE_KEYS
+
+/**
+ * This test class holds the tests for the framing of the calls between the {@link RemoteClient} and the
+ * {@link RemoteServer}
+ */
+class RemoteServerTest extends Specification {
+    def largeArguments = { out -> out.write(new byte[3 * RemoteServer.BUFFER_SIZE + 1]) } as ArgumentsWriter
+    def echo = { out -> out.writeInt(42) } as ArgumentsWriter
+    def readEcho = { input -> input.readInt() } as ResultReader<Integer>
+
+    RemoteServer<AuthorityOperation> server
+    RemoteClient client
+
+    void setup() {
+        server = RemoteServer.start("test", AuthorityOperation, { operation, input ->
+            if (operation == GENERATE_KEYS) {
+                throw new IllegalStateException("The keys cannot be generated yet")
+            }
+            int value = input.readInt()
+            return { out -> out.writeInt(value) } as ResultWriter
+        } as Dispatcher<AuthorityOperation>)
+        client = new RemoteClient(server.address)
+    }
+
+    void cleanup() {
+        client.close()
+        server.close()
+    }
+
+    def "a call failing before its arguments are read should leave the connection in step"() {
+        when:
+        client.call(GENERATE_KEYS, largeArguments, ResultReader.NONE)
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "The keys cannot be generated yet"
+
+        when:
+        def value = client.call(BUILD_PUBLIC_KEY, echo, readEcho)
+
+        then:
+        value == 42
+    }
+
+    def "the arguments left unread by a successful call should be skipped"() {
+        given:
+        def echoAndMore = { out ->
+            out.writeInt(7)
+            largeArguments.write(out)
+        } as ArgumentsWriter
+
+        expect:
+        client.call(BUILD_PUBLIC_KEY, echoAndMore, readEcho) == 7
+        client.call(BUILD_PUBLIC_KEY, echo, readEcho) == 42
+    }
+}
@@ -0,0 +1,226 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.storage
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+/**
+ * This test class holds the tests for the {@link SegmentedLog}
+ */
+class SegmentedLogTest extends Specification {
+    Path directory
+
+    void setup() {
+        directory = Files.createTempDirectory("log")
+    }
+
+    void cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    def "the records should be read back after reopening the log"() {
+        given:
+        def log = SegmentedLog.open(directory, 64)
+        (0..<10).each { i -> log.append({ out -> out.write(([i] * (10 * i + 1)) as byte[]) }) }
+        log.close()
+
+        when:
+        def reopened = SegmentedLog.open(directory, 64)
+
+        then: "the records have been spread over several segments"
+        directory.toFile().list().findAll { it.endsWith(".log") }.size() > 1
+        reopened.size() == 10
+        (0..<10).every { i -> payload(reopened, i) == ([i] * (10 * i + 1)) as byte[] }
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "a cursor should read the records in order, across the segments"() {
+        given: "small records spread over several segments, and a record larger than the buffer of the cursor"
+        def log = SegmentedLog.open(directory, 64)
+        (0..<10).each { i -> log.append({ out -> out.write(([i] * (10 * i + 1)) as byte[]) }) }
+        def large = (0..<(3 << 19)).collect { it % 127 } as byte[]
+        log.append({ out -> out.write(large) })
+        log.append({ out -> out.write([10] as byte[]) })
+
+        when:
+        def cursor = log.cursor(2)
+        def payloads = []
+        while (cursor.hasNext()) {
+            def record = cursor.next()
+            def bytes = new byte[record.remaining()]
+            record.get(bytes)
+            payloads << bytes
+        }
+
+        then:
+        payloads.size() == 10
+        (2..<10).every { i -> payloads[i - 2] == ([i] * (10 * i + 1)) as byte[] }
+        payloads[8] == large
+        payloads[9] == [10] as byte[]
+
+        cleanup:
+        log.close()
+    }
+
+    def "a torn record should be discarded when reopening the log"() {
+        given:
+        def log = SegmentedLog.open(directory)
+        log.appendAndCommit({ out -> out.write([1, 2, 3] as byte[]) })
+        log.close()
+        Files.write(directory.resolve(String.format("%020d.log", 0)), [0, 0, 0, 50, 7, 7] as byte[],
+                StandardOpenOption.APPEND)
+
+        when:
+        def reopened = SegmentedLog.open(directory)
+        reopened.appendAndCommit({ out -> out.write([4] as byte[]) })
+
+        then:
+        reopened.size() == 2
+        payload(reopened, 0) == [1, 2, 3] as byte[]
+        payload(reopened, 1) == [4] as byte[]
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "a corrupted record within the last segment should be discarded along with the following records"() {
+        given: "three indexed records, the payload of the second one being altered"
+        def log = SegmentedLog.open(directory)
+        (1..3).each { i -> log.append({ out -> out.write([i, i, i] as byte[]) }) }
+        log.close()
+        def segment = directory.resolve(String.format("%020d.log", 0))
+        def bytes = Files.readAllBytes(segment)
+        bytes[11 + 8] = 9
+        Files.write(segment, bytes)
+
+        when:
+        def reopened = SegmentedLog.open(directory)
+
+        then:
+        reopened.size() == 1
+        payload(reopened, 0) == [1, 1, 1] as byte[]
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "records larger than the read buffer should be checked when reopening the log"() {
+        given:
+        def large = (0..<200000).collect { it % 127 } as byte[]
+        def log = SegmentedLog.open(directory)
+        log.append({ out -> out.write(large) })
+        log.append({ out -> out.write([5] as byte[]) })
+        log.close()
+
+        when:
+        def reopened = SegmentedLog.open(directory)
+
+        then:
+        reopened.size() == 2
+        payload(reopened, 0) == large
+        payload(reopened, 1) == [5] as byte[]
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "a missing index should be rebuilt from the records"() {
+        given:
+        def log = SegmentedLog.open(directory)
+        log.append({ out -> out.write([1] as byte[]) })
+        log.append({ out -> out.write([2, 2] as byte[]) })
+        log.close()
+        Files.write(directory.resolve(String.format("%020d.index", 0)), new byte[0])
+
+        when:
+        def reopened = SegmentedLog.open(directory)
+
+        then:
+        reopened.size() == 2
+        payload(reopened, 1) == [2, 2] as byte[]
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "concurrent commits should all be durable"() {
+        given:
+        def log = SegmentedLog.open(directory)
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def futures = (0..<200).collect { i ->
+            executor.submit({ log.appendAndCommit({ out -> out.write([i % 128] as byte[]) }) } as Callable<Long>)
+        }
+        def indices = futures.collect { it.get() }
+        log.close()
+        def reopened = SegmentedLog.open(directory)
+
+        then:
+        indices.toSet() == (0L..<200L).toSet()
+        reopened.size() == 200
+
+        cleanup:
+        executor.shutdown()
+        reopened.close()
+    }
+
+    def "a failed append should leave the log unchanged"() {
+        given:
+        def log = SegmentedLog.open(directory)
+        log.append({ out -> out.write([1] as byte[]) })
+
+        when:
+        log.append({ out ->
+            out.write([2] as byte[])
+            throw new IOException("encoding failure")
+        })
+
+        then:
+        thrown(IOException)
+        log.size() == 1
+
+        when:
+        log.append({ out -> out.write([3] as byte[]) })
+
+        then:
+        payload(log, 1) == [3] as byte[]
+
+        cleanup:
+        log.close()
+    }
+
+    private static byte[] payload(SegmentedLog log, long index) {
+        def buffer = log.read(index)
+        def bytes = new byte[buffer.remaining()]
+        buffer.get(bytes)
+        return bytes
+    }
+}
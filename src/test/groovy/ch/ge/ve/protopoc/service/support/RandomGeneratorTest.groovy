@@ -0,0 +1,73 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.support
+
+import spock.lang.Specification
+
+import java.security.SecureRandom
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.ELEVEN
+
+/**
+ * Tests for the random values drawn by {@link RandomGenerator}
+ */
+class RandomGeneratorTest extends Specification {
+    SecureRandom secureRandom = SecureRandom.getInstance("SHA1PRNG", "SUN")
+
+    def "randomVectorInZq should draw the requested number of elements in Z_q"() {
+        given:
+        def randomGenerator = generator(secureRandom)
+
+        when:
+        def vector = randomGenerator.randomVectorInZq(ELEVEN, n)
+
+        then:
+        vector.size() == n
+        vector.every { 0 <= it && it < ELEVEN }
+
+        where:
+        n    | generator
+        0    | { SecureRandom root -> new RandomGenerator(root) }
+        1000 | { SecureRandom root -> new RandomGenerator(root) }
+        1000 | { SecureRandom root -> RandomGenerator.perThread(root, "SHA1PRNG", "SUN") }
+    }
+
+    def "perThread should seed the per-thread instances from the root generator"() {
+        given: "two root generators with the same seed"
+        def firstRoot = SecureRandom.getInstance("SHA1PRNG", "SUN")
+        firstRoot.setSeed([0x01, 0x02, 0x03] as byte[])
+        def secondRoot = SecureRandom.getInstance("SHA1PRNG", "SUN")
+        secondRoot.setSeed([0x01, 0x02, 0x03] as byte[])
+
+        expect: "the same values drawn from a single thread"
+        RandomGenerator.perThread(firstRoot, "SHA1PRNG", "SUN").randomInZq(ELEVEN.pow(20)) ==
+                RandomGenerator.perThread(secondRoot, "SHA1PRNG", "SUN").randomInZq(ELEVEN.pow(20))
+    }
+
+    def "perThread should fail early on an unknown algorithm"() {
+        when:
+        RandomGenerator.perThread(secureRandom, "unknown", "SUN")
+
+        then:
+        thrown(java.security.NoSuchAlgorithmException)
+    }
+}
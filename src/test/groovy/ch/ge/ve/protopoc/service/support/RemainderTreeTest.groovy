@@ -0,0 +1,66 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.support
+
+import spock.lang.Specification
+
+/**
+ * This test class holds the tests for the {@link RemainderTree}
+ */
+class RemainderTreeTest extends Specification {
+    def "getDivisors should find the primes dividing a number"() {
+        given:
+        def remainderTree = new RemainderTree([2, 3, 7, 11, 19, 29].collect { BigInteger.valueOf(it) })
+
+        expect:
+        remainderTree.getDivisors(BigInteger.valueOf(m)) == toBitSet(expected)
+
+        where:
+        m               || expected
+        1               || []
+        2 * 11          || [0, 3]
+        3 * 19 * 29     || [1, 4, 5]
+        2 * 3 * 7 * 29  || [0, 1, 2, 5]
+    }
+
+    def "getDivisors should match the individual remainders for many primes"() {
+        given:
+        def random = new Random(42L)
+        def primes = []
+        def prime = BigInteger.valueOf(2L)
+        600.times {
+            primes << prime
+            prime = prime.nextProbablePrime()
+        }
+        def remainderTree = new RemainderTree(primes)
+        def m = (1..150).inject(BigInteger.ONE) { acc, i -> acc * primes[random.nextInt(primes.size())] }
+
+        expect:
+        remainderTree.getDivisors(m) == toBitSet((0..<primes.size()).findAll { m.mod(primes[it]) == BigInteger.ZERO })
+    }
+
+    private static BitSet toBitSet(Collection<Integer> indices) {
+        def bitSet = new BitSet()
+        indices.each { bitSet.set(it) }
+        return bitSet
+    }
+}
@@ -0,0 +1,85 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.support
+
+import ch.ge.ve.protopoc.service.model.DomainOfInfluence
+import ch.ge.ve.protopoc.service.model.Election
+import spock.lang.Specification
+
+/**
+ * This test class holds the tests for the {@link TallyAccumulator}
+ */
+class TallyAccumulatorTest extends Specification {
+    def domainOfInfluence = new DomainOfInfluence("test")
+    def elections = [new Election(3, 1, domainOfInfluence), new Election(4, 2, domainOfInfluence)]
+
+    def "the collector should count the votes per candidate and per election"() {
+        given:
+        def votes = [[0, 3, 5], [1, 4, 5], [0], [3, 6], [2, 3, 4, 5]].collect { toBitSet(it) }
+
+        when:
+        def tally = votes.parallelStream().collect(TallyAccumulator.collector(elections))
+
+        then:
+        tally.counts == [2L, 1L, 1L, 3L, 2L, 3L, 1L]
+        tally.getElectionCounts(0) == [2L, 1L, 1L]
+        tally.getElectionCounts(1) == [3L, 2L, 3L, 1L]
+        tally.getParticipation(0) == 4L
+        tally.getParticipation(1) == 3L
+        tally.getInvalidSelectionCount(0) == 0L
+        tally.getInvalidSelectionCount(1) == 1L // 3 selections in the last vote
+        tally.ballotsCount == 5L
+        !tally.hasValidSelectionCounts()
+    }
+
+    def "merging accumulators should yield the same tally as accumulating all votes"() {
+        given:
+        def votes = [[0, 3, 5], [1, 4, 5], [2, 3, 6]].collect { toBitSet(it) }
+        def all = new TallyAccumulator(elections)
+        def first = new TallyAccumulator(elections)
+        def second = new TallyAccumulator(elections)
+
+        when:
+        votes.each { all.add(it) }
+        first.add(votes[0])
+        second.add(votes[1])
+        second.add(votes[2])
+
+        then:
+        first.merge(second).tally == all.tally
+        all.tally.hasValidSelectionCounts()
+    }
+
+    def "add should reject selections of unknown candidates"() {
+        when:
+        new TallyAccumulator(elections).add(toBitSet([7]))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private static BitSet toBitSet(Collection<Integer> indices) {
+        def bitSet = new BitSet()
+        indices.each { bitSet.set(it) }
+        return bitSet
+    }
+}